@@ -5,6 +5,7 @@ import spock.lang.Specification
 
 import static LivenessProbe.serverListeningOnPort
 import static org.gradle.testkit.runner.TaskOutcome.SUCCESS
+import static org.gradle.testkit.runner.TaskOutcome.UP_TO_DATE
 
 class JavaServiceControlPluginSpec
 	extends Specification
@@ -115,6 +116,445 @@ class JavaServiceControlPluginSpec
 			serverListeningOnPort(1981)
 	}
 
+	def 'It shall wait for all expected log messages and report the values they captured'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+
+			buildFile << '''
+				import com.brunoritz.gradle.servicecontrol.availability.LogMatchMode
+
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					testService {
+						mainClass.set('testservice.Main')
+						startupLogMessages.add('Cache warmed up')
+						startupLogPatterns.add('Started .* in (?<startupSeconds>[0-9.]+) seconds')
+						startupLogMatch.set(LogMatchMode.ALL_OF)
+					}
+				}
+
+				startTestService.dependsOn classes
+			'''
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws InterruptedException
+					{
+						System.out.println("Started TestService in 1.25 seconds");
+						Thread.sleep(1000);
+						System.out.println("Cache warmed up");
+						Thread.currentThread().join();
+					}
+				}
+			'''
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'startTestService')
+				.withPluginClasspath()
+				.build()
+
+		then:
+			result.task(':startTestService').outcome == SUCCESS
+			result.output.contains('reported startupSeconds: 1.25')
+
+		cleanup:
+			stopService(projectDirectory)
+	}
+
+	def 'It shall fail right away, if the service logs a failure message while its process stays alive'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+
+			buildFile << '''
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					testService {
+						mainClass.set('testservice.Main')
+						startupLogMessage.set('The eagle has landed')
+						failureLogPatterns.add('APPLICATION FAILED TO START')
+					}
+				}
+
+				startTestService.dependsOn classes
+			'''
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws InterruptedException
+					{
+						System.err.println("*** APPLICATION FAILED TO START ***");
+						Thread.currentThread().join();
+					}
+				}
+			'''
+
+		when:
+			def startedAt = System.currentTimeMillis()
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'startTestService')
+				.withPluginClasspath()
+				.buildAndFail()
+
+		then:
+			result.output.contains('stderr.testService.log: *** APPLICATION FAILED TO START ***')
+			!new File(projectDirectory, 'service.testService.pid').exists()
+			System.currentTimeMillis() - startedAt < 120_000
+	}
+
+	def 'It shall be possible to capture the output of a Java service and wait for it to log a specific message'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+
+			buildFile << '''
+				import com.brunoritz.gradle.servicecontrol.launch.OutputCapture
+
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					testService {
+						mainClass.set('testservice.Main')
+						startupLogMessage.set('The eagle has landed')
+						outputCapture.set(OutputCapture.PIPE)
+					}
+				}
+
+				startTestService.dependsOn classes
+			'''
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws InterruptedException
+					{
+						System.out.println("Preparing the landing");
+						System.out.println("The eagle has landed");
+						System.err.println("Houston, no problem");
+						Thread.currentThread().join();
+					}
+				}
+			'''
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'startTestService')
+				.withPluginClasspath()
+				.build()
+
+		then:
+			result.task(':startTestService').outcome == SUCCESS
+			new File(projectDirectory, 'logs/stdout.testService.log').text.contains('The eagle has landed')
+
+		cleanup:
+			stopService(projectDirectory)
+	}
+
+	def 'It shall match the log messages a captured service has written before waiting for them one after the other'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+
+			buildFile << '''
+				import com.brunoritz.gradle.servicecontrol.availability.AvailabilityComposition
+				import com.brunoritz.gradle.servicecontrol.launch.OutputCapture
+
+				import java.time.Duration
+
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					testService {
+						mainClass.set('testservice.Main')
+						servicePort.set(1992)
+						startupLogMessage.set('The eagle has landed')
+						availabilityMatch.set(AvailabilityComposition.SEQUENTIAL)
+						outputCapture.set(OutputCapture.PIPE)
+						startTimeout.set(Duration.ofSeconds(30))
+					}
+				}
+
+				startTestService.dependsOn classes
+			'''
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				import java.io.IOException;
+				import java.net.ServerSocket;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws IOException, InterruptedException
+					{
+						System.out.println("The eagle has landed");
+						Thread.sleep(2_000);
+
+						try (ServerSocket dummyServer = new ServerSocket(1992)) {
+							while (true) {
+								dummyServer.accept();
+							}
+						}
+					}
+				}
+			'''
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'startTestService')
+				.withPluginClasspath()
+				.build()
+
+		then:
+			result.task(':startTestService').outcome == SUCCESS
+			serverListeningOnPort(1992)
+
+		cleanup:
+			stopService(projectDirectory)
+	}
+
+	def 'It shall archive the log of the previous run and roll the log of a piped service over by size'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+			def logsDirectory = new File(projectDirectory, 'logs')
+			def logFile = new File(logsDirectory, 'stdout.testService.log')
+
+			logsDirectory.mkdirs()
+			logFile << 'Output of the previous run'
+			buildFile << '''
+				import com.brunoritz.gradle.servicecontrol.launch.OutputCapture
+
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					testService {
+						mainClass.set('testservice.Main')
+						startupLogMessage.set('The eagle has landed')
+						outputCapture.set(OutputCapture.PIPE)
+						logMaxSize.set(1024L)
+						logGenerations.set(3)
+					}
+				}
+
+				startTestService.dependsOn classes
+			'''
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws InterruptedException
+					{
+						for (int line = 0; line < 200; line++) {
+							System.out.println("Approaching the landing site, step " + line);
+							System.out.flush();
+							Thread.sleep(5);
+						}
+
+						System.out.println("The eagle has landed");
+						Thread.currentThread().join();
+					}
+				}
+			'''
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'startTestService')
+				.withPluginClasspath()
+				.build()
+
+		then:
+			result.task(':startTestService').outcome == SUCCESS
+			logFile.text.contains('The eagle has landed')
+			logFile.length() < 1024 + 8192
+			conditionFulfilled(() -> archivedGenerations(logsDirectory).size() == 3
+				&& archivedGenerations(logsDirectory).every { it.name.endsWith('.gz') })
+
+		cleanup:
+			stopService(projectDirectory)
+	}
+
+	def 'It shall be possible to start a Java service and wait for it to announce its readiness'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+
+			buildFile << '''
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					testService {
+						mainClass.set('testservice.Main')
+						notifyReady.set(true)
+					}
+				}
+
+				startTestService.dependsOn classes
+			'''
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				import java.io.IOException;
+				import java.net.StandardProtocolFamily;
+				import java.net.UnixDomainSocketAddress;
+				import java.nio.channels.SocketChannel;
+				import java.nio.charset.StandardCharsets;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws IOException, InterruptedException
+					{
+						String notifySocket = System.getenv("NOTIFY_SOCKET");
+
+						try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+							channel.connect(UnixDomainSocketAddress.of(notifySocket));
+							channel.write(StandardCharsets.UTF_8.encode("STATUS=Caches warmed up\\nREADY=1"));
+						}
+
+						Thread.currentThread().join();
+					}
+				}
+			'''
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'startTestService')
+				.withPluginClasspath()
+				.build()
+
+		then:
+			result.task(':startTestService').outcome == SUCCESS
+			result.output.contains('Service testService reports status: Caches warmed up')
+
+		cleanup:
+			stopService(projectDirectory)
+	}
+
+	def 'It shall be possible to start a Java service and wait for it to create a marker file'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+			def markerFile = new File(projectDirectory, 'run/testService.ready')
+
+			markerFile.parentFile.mkdirs()
+			markerFile << 'left over from a previous run'
+			buildFile << '''
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					testService {
+						mainClass.set('testservice.Main')
+						readyMarkerFile.set(file('run/testService.ready'))
+						readyMarkerNonEmpty.set(true)
+					}
+				}
+
+				startTestService.dependsOn classes
+			'''
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				import java.io.IOException;
+				import java.nio.file.Files;
+				import java.nio.file.Path;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws IOException, InterruptedException
+					{
+						Thread.sleep(1000);
+						Files.writeString(Path.of("run/testService.ready"), "ready");
+						Thread.currentThread().join();
+					}
+				}
+			'''
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'startTestService')
+				.withPluginClasspath()
+				.build()
+
+		then:
+			result.task(':startTestService').outcome == SUCCESS
+			markerFile.text == 'ready'
+
+		cleanup:
+			stopService(projectDirectory)
+	}
+
 	def 'It shall be posssible to stop a running Java service'()
 	{
 		given:
@@ -129,13 +569,488 @@ class JavaServiceControlPluginSpec
 				}
 
 				javaServiceControl {
-					testService {
+					testService {
+						mainClass.set('testservice.Main')
+						servicePort.set(1982)
+					}
+				}
+
+				startTestService.dependsOn classes
+			'''
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				import java.io.IOException;
+				import java.net.ServerSocket;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws IOException
+					{
+						try (ServerSocket dummyServer = new ServerSocket(1982)) {
+							while (true) {
+								dummyServer.accept();
+							}
+						}
+					}
+				}
+			'''
+
+			GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'startTestService')
+				.withPluginClasspath()
+				.build()
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'stopTestService')
+				.withPluginClasspath()
+				.build()
+
+		then:
+			result.task(':stopTestService').outcome == SUCCESS
+			!serverListeningOnPort(1982)
+	}
+
+	def 'It shall replace a running Java service without downtime, if configured'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+
+			buildFile << '''
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					testService {
+						mainClass.set('testservice.Main')
+						servicePort.set(1983)
+						replacementPort.set(1984)
+						zeroDowntimeRestart.set(true)
+					}
+				}
+
+				startTestService.dependsOn classes
+				replaceTestService.dependsOn classes
+			'''
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				import java.io.IOException;
+				import java.net.ServerSocket;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws IOException
+					{
+						String port = System.getenv().getOrDefault("SERVICE_CONTROL_PORT", "1983");
+
+						try (ServerSocket dummyServer = new ServerSocket(Integer.parseInt(port))) {
+							while (true) {
+								dummyServer.accept();
+							}
+						}
+					}
+				}
+			'''
+
+			GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'startTestService')
+				.withPluginClasspath()
+				.build()
+
+			def pidFile = new File(projectDirectory, 'service.testService.pid')
+			def replacedPid = Long.parseLong(pidFile.text)
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'restartTestService')
+				.withPluginClasspath()
+				.build()
+
+		then:
+			def replacementPid = Long.parseLong(pidFile.text)
+
+			result.task(':replaceTestService').outcome == SUCCESS
+			result.task(':stopTestService') == null
+			replacementPid != replacedPid
+			!ProcessHandle.of(replacedPid).map(ProcessHandle::isAlive).orElse(false)
+			serverListeningOnPort(1984)
+			!serverListeningOnPort(1983)
+
+		cleanup:
+			ProcessHandle.of(replacementPid).ifPresent(ProcessHandle::destroy)
+	}
+
+	def 'It shall be possible to start a Java service using a pathing JAR'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+			def resource = new File(projectDirectory, 'src/main/resources/message.txt')
+
+			buildFile << '''
+				import com.brunoritz.gradle.servicecontrol.java.LaunchMode
+
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					testService {
+						mainClass.set('testservice.Main')
+						startupLogMessage.set('The eagle has landed')
+						launchMode.set(LaunchMode.PATHING_JAR)
+					}
+				}
+
+				startTestService.dependsOn classes
+			'''
+
+			resource.parentFile.mkdirs()
+			resource << 'The eagle has landed'
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				import java.io.IOException;
+				import java.io.InputStream;
+				import java.nio.charset.StandardCharsets;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws IOException, InterruptedException
+					{
+						try (InputStream message = Main.class.getResourceAsStream("/message.txt")) {
+							System.out.println(new String(message.readAllBytes(), StandardCharsets.UTF_8));
+						}
+
+						Thread.currentThread().join();
+					}
+				}
+			'''
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'startTestService')
+				.withPluginClasspath()
+				.build()
+
+		then:
+			def arguments = new File(projectDirectory, 'build/jvmargs.testService.txt').text.trim()
+
+			result.task(':createPathingJarTestService').outcome == SUCCESS
+			result.task(':startTestService').outcome == SUCCESS
+			arguments.matches('-cp [^ ]*testService[.]jar')
+
+		cleanup:
+			stopService(projectDirectory)
+	}
+
+	def 'It shall be possible to start a modular Java service on the module path'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def moduleDescriptor = new File(projectDirectory, 'src/main/java/module-info.java')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+
+			buildFile << '''
+				import com.brunoritz.gradle.servicecontrol.java.LaunchMode
+
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					testService {
+						mainClass.set('testservice.Main')
+						mainModule.set('testservice')
+						startupLogMessage.set('Launched module testservice')
+						launchMode.set(LaunchMode.MODULE_PATH)
+					}
+				}
+
+				startTestService.dependsOn classes
+			'''
+
+			moduleDescriptor.parentFile.mkdirs()
+			moduleDescriptor << 'module testservice { }'
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws InterruptedException
+					{
+						System.out.println("Launched module " + Main.class.getModule().getName());
+						Thread.currentThread().join();
+					}
+				}
+			'''
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'startTestService')
+				.withPluginClasspath()
+				.build()
+
+		then:
+			result.task(':createPathingJarTestService') == null
+			result.task(':startTestService').outcome == SUCCESS
+
+		cleanup:
+			stopService(projectDirectory)
+	}
+
+	def 'It shall be possible to start a Java service on a custom runtime image'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+
+			buildFile << '''
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					testService {
+						mainClass.set('testservice.Main')
+						startupLogMessage.set('The eagle has landed')
+						customRuntime.set(true)
+					}
+				}
+
+				startTestService.dependsOn classes
+			'''
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				import java.util.logging.Logger;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws InterruptedException
+					{
+						Logger.getLogger("testservice").fine("Starting");
+						System.out.println("The eagle has landed");
+						Thread.currentThread().join();
+					}
+				}
+			'''
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'startTestService')
+				.withPluginClasspath()
+				.build()
+
+		then:
+			def pid = Long.parseLong(new File(projectDirectory, 'service.testService.pid').text)
+			def runtimeImage = new File(
+				new File(projectDirectory, 'build/service-control/runtime.testService.txt').text
+			)
+
+			result.task(':createRuntimeImageTestService').outcome == SUCCESS
+			result.task(':startTestService').outcome == SUCCESS
+			new File(runtimeImage, 'release').text.contains('MODULES="java.base java.logging"')
+			ProcessHandle.of(pid).flatMap { process -> process.info().command() }.get()
+				.startsWith(runtimeImage.absolutePath)
+
+		cleanup:
+			stopService(projectDirectory)
+	}
+
+	def 'It shall be possible to start a group of Java services concurrently'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+
+			buildFile << '''
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					fooService {
+						mainClass.set('testservice.Main')
+						args.set(['1985'])
+						servicePort.set(1985)
+						groups 'backend'
+					}
+
+					barService {
+						mainClass.set('testservice.Main')
+						args.set(['1986'])
+						servicePort.set(1986)
+						groups 'backend'
+					}
+				}
+
+				startBackendServices.dependsOn classes
+			'''
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				import java.io.IOException;
+				import java.net.ServerSocket;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws IOException
+					{
+						try (ServerSocket dummyServer = new ServerSocket(Integer.parseInt(args[0]))) {
+							while (true) {
+								dummyServer.accept();
+							}
+						}
+					}
+				}
+			'''
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'startBackendServices')
+				.withPluginClasspath()
+				.build()
+
+		then:
+			result.task(':startBackendServices').outcome == SUCCESS
+			serverListeningOnPort(1985)
+			serverListeningOnPort(1986)
+	}
+
+	def 'It shall start a group of Java services, even if a crashed service has left its PID file behind'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+			def stalePidFile = new File(projectDirectory, 'service.testService.pid')
+
+			buildFile << '''
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					testService {
+						mainClass.set('testservice.Main')
+						servicePort.set(1991)
+					}
+				}
+
+				startAllServices.dependsOn classes
+			'''
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				import java.io.IOException;
+				import java.net.ServerSocket;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws IOException
+					{
+						try (ServerSocket dummyServer = new ServerSocket(1991)) {
+							while (true) {
+								dummyServer.accept();
+							}
+						}
+					}
+				}
+			'''
+
+			stalePidFile.text = String.valueOf(Integer.MAX_VALUE)
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'startAllServices')
+				.withPluginClasspath()
+				.build()
+
+		then:
+			result.task(':startAllServices').outcome == SUCCESS
+			serverListeningOnPort(1991)
+			stalePidFile.text != String.valueOf(Integer.MAX_VALUE)
+
+		cleanup:
+			stopService(projectDirectory)
+	}
+
+	def 'It shall queue the launch of services beyond the configured number of concurrent startups'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+
+			buildFile << '''
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					fooService {
 						mainClass.set('testservice.Main')
-						servicePort.set(1982)
+						args.set(['1989'])
+						servicePort.set(1989)
+						groups 'backend'
+					}
+
+					barService {
+						mainClass.set('testservice.Main')
+						args.set(['1990'])
+						servicePort.set(1990)
+						groups 'backend'
 					}
 				}
 
-				startTestService.dependsOn classes
+				startBackendServices.dependsOn classes
 			'''
 
 			javaSource.parentFile.mkdirs()
@@ -150,7 +1065,7 @@ class JavaServiceControlPluginSpec
 					public static void main(String... args)
 						throws IOException
 					{
-						try (ServerSocket dummyServer = new ServerSocket(1982)) {
+						try (ServerSocket dummyServer = new ServerSocket(Integer.parseInt(args[0]))) {
 							while (true) {
 								dummyServer.accept();
 							}
@@ -159,22 +1074,131 @@ class JavaServiceControlPluginSpec
 				}
 			'''
 
-			GradleRunner.create()
+		when:
+			def result = GradleRunner.create()
 				.withProjectDir(projectDirectory)
-				.withArguments('--configuration-cache', 'startTestService')
+				.withArguments(
+					'--configuration-cache',
+					'-PserviceControl.maxConcurrentStartups=1',
+					'startBackendServices'
+				)
 				.withPluginClasspath()
 				.build()
 
+		then:
+			result.task(':startBackendServices').outcome == SUCCESS
+			result.output.contains('to launch, as 1 service(s) were starting already')
+			serverListeningOnPort(1989)
+			serverListeningOnPort(1990)
+	}
+
+	def 'It shall start a service only after the services it depends on have become available'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+			def javaSource = new File(projectDirectory, 'src/main/java/testservice/Main.java')
+
+			buildFile << '''
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					apiService {
+						mainClass.set('testservice.Main')
+						args.set(['1988', '1987'])
+						servicePort.set(1988)
+						groups 'backend'
+						dependsOnService 'configService'
+					}
+
+					configService {
+						mainClass.set('testservice.Main')
+						args.set(['1987'])
+						servicePort.set(1987)
+					}
+				}
+
+				startBackendServices.dependsOn classes
+			'''
+
+			javaSource.parentFile.mkdirs()
+			javaSource << '''
+				package testservice;
+
+				import java.io.IOException;
+				import java.net.ServerSocket;
+				import java.net.Socket;
+
+				public class Main
+				{
+					public static void main(String... args)
+						throws IOException, InterruptedException
+					{
+						if (args.length > 1) {
+							new Socket("127.0.0.1", Integer.parseInt(args[1])).close();
+						} else {
+							Thread.sleep(2000);
+						}
+
+						try (ServerSocket dummyServer = new ServerSocket(Integer.parseInt(args[0]))) {
+							while (true) {
+								dummyServer.accept();
+							}
+						}
+					}
+				}
+			'''
+
 		when:
 			def result = GradleRunner.create()
 				.withProjectDir(projectDirectory)
-				.withArguments('--configuration-cache', 'stopTestService')
+				.withArguments('--configuration-cache', 'startBackendServices')
 				.withPluginClasspath()
 				.build()
 
 		then:
-			result.task(':stopTestService').outcome == SUCCESS
-			!serverListeningOnPort(1982)
+			result.task(':startBackendServices').outcome == SUCCESS
+			serverListeningOnPort(1987)
+			serverListeningOnPort(1988)
+	}
+
+	def 'It shall fail, if services depend on each other in a cycle'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+
+			buildFile << '''
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					fooService {
+						mainClass.set('ch.foobar.Main')
+						dependsOnService 'barService'
+					}
+
+					barService {
+						mainClass.set('ch.bar.Main')
+						dependsOnService 'fooService'
+					}
+				}
+			'''
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', 'tasks')
+				.withPluginClasspath()
+				.buildAndFail()
+
+		then:
+			result.output.contains('Services depend on each other in a cycle: barService -> fooService -> barService')
 	}
 
 	def 'It shall create controlling tasks for each defined service'()
@@ -216,6 +1240,9 @@ class JavaServiceControlPluginSpec
 			result.output.contains('stopBarService')
 			result.output.contains('restartBarService')
 
+			result.output.contains('startAllServices')
+			result.output.contains('stopAllServices')
+
 			result.task(':tasks').outcome == SUCCESS
 	}
 
@@ -296,7 +1323,7 @@ class JavaServiceControlPluginSpec
 			result.task(':tasks').outcome == SUCCESS
 	}
 
-	def 'It shall always regenerate the arguments file'()
+	def 'It shall regenerate the arguments file only if its inputs have changed'()
 	{
 		given:
 			def projectDirectory = File.createTempDir()
@@ -333,7 +1360,235 @@ class JavaServiceControlPluginSpec
 				.build()
 
 		then:
-			unchangedRun.task(':createArgumentsFooService').outcome == SUCCESS
+			unchangedRun.task(':createArgumentsFooService').outcome == UP_TO_DATE
+
+		when:
+			buildFile.text = buildFile.text.replace(
+				"mainClass.set('ch.foobar.Main')",
+				"mainClass.set('ch.foobar.Main')\n\t\t\t\t\t\tjvmArgs.add('-Xmx64m')"
+			)
+
+			def changedRun = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments('--configuration-cache', '--build-cache', 'createArgumentsFooService')
+				.withPluginClasspath()
+				.build()
+
+		then:
+			changedRun.task(':createArgumentsFooService').outcome == SUCCESS
+	}
+
+	def 'It shall apply the JVM profile selected for all services on the command line'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+
+			buildFile << '''
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					fooService {
+						mainClass.set('ch.foobar.Main')
+						jvmProfile.set('fastStartup')
+					}
+				}
+			'''
+
+		when:
+			GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments(
+					'--configuration-cache',
+					'-PserviceControl.jvmProfile=lowMemory',
+					'createArgumentsFooService'
+				)
+				.withPluginClasspath()
+				.build()
+
+		then:
+			def arguments = new File(projectDirectory, 'build/jvmargs.fooService.txt').text
+
+			arguments.contains('-XX:ReservedCodeCacheSize=32m')
+			!arguments.contains('-Xss512k')
+	}
+
+	def 'It shall distribute the memory budget among all services according to their weights'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+
+			buildFile << '''
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					lightService {
+						mainClass.set('ch.foobar.Main')
+					}
+
+					heavyService {
+						mainClass.set('ch.foobar.Main')
+						memoryWeight.set(3)
+					}
+				}
+			'''
+
+		when:
+			GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments(
+					'--configuration-cache',
+					'-PserviceControl.memoryBudget=4g',
+					'createArgumentsLightService',
+					'createArgumentsHeavyService'
+				)
+				.withPluginClasspath()
+				.build()
+
+		then:
+			new File(projectDirectory, 'build/jvmargs.lightService.txt').text
+				.contains('-Xmx768m -Xms192m -XX:MaxMetaspaceSize=128m')
+			new File(projectDirectory, 'build/jvmargs.heavyService.txt').text
+				.contains('-Xmx2304m -Xms576m -XX:MaxMetaspaceSize=384m')
+	}
+
+	def 'It shall distribute the memory budget among the services of all projects'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def settingsFile = new File(projectDirectory, 'settings.gradle')
+
+			settingsFile << '''
+				include 'first', 'second'
+			'''
+
+			['first', 'second'].each { projectName ->
+				def buildFile = new File(projectDirectory, "${projectName}/build.gradle")
+
+				buildFile.parentFile.mkdirs()
+				buildFile << '''
+					plugins {
+						id 'java'
+						id 'com.brunoritz.gradle.java-service-control'
+					}
+
+					javaServiceControl {
+						fooService {
+							mainClass.set('ch.foobar.Main')
+						}
+					}
+				'''
+			}
+
+		when:
+			GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments(
+					'--configuration-cache',
+					'-PserviceControl.memoryBudget=4g',
+					':first:createArgumentsFooService',
+					':second:createArgumentsFooService'
+				)
+				.withPluginClasspath()
+				.build()
+
+		then:
+			new File(projectDirectory, 'first/build/jvmargs.fooService.txt').text
+				.contains('-Xmx1536m -Xms384m -XX:MaxMetaspaceSize=256m')
+			new File(projectDirectory, 'second/build/jvmargs.fooService.txt').text
+				.contains('-Xmx1536m -Xms384m -XX:MaxMetaspaceSize=256m')
+	}
+
+	def 'It shall plan the memory budget only once all projects have been configured'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def settingsFile = new File(projectDirectory, 'settings.gradle')
+
+			settingsFile << '''
+				include 'first', 'second'
+			'''
+
+			['first', 'second'].each { projectName ->
+				def buildFile = new File(projectDirectory, "${projectName}/build.gradle")
+
+				buildFile.parentFile.mkdirs()
+				buildFile << '''
+					plugins {
+						id 'java'
+						id 'com.brunoritz.gradle.java-service-control'
+					}
+
+					javaServiceControl {
+						fooService {
+							mainClass.set('ch.foobar.Main')
+						}
+					}
+
+					tasks.named('createArgumentsFooService').get()
+				'''
+			}
+
+		when:
+			GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments(
+					'--configuration-cache',
+					'-PserviceControl.memoryBudget=4g',
+					':first:createArgumentsFooService',
+					':second:createArgumentsFooService'
+				)
+				.withPluginClasspath()
+				.build()
+
+		then:
+			new File(projectDirectory, 'first/build/jvmargs.fooService.txt').text
+				.contains('-Xmx1536m -Xms384m -XX:MaxMetaspaceSize=256m')
+			new File(projectDirectory, 'second/build/jvmargs.fooService.txt').text
+				.contains('-Xmx1536m -Xms384m -XX:MaxMetaspaceSize=256m')
+	}
+
+	def 'It shall fail, if the services do not fit into an enforced memory budget'()
+	{
+		given:
+			def projectDirectory = File.createTempDir()
+			def buildFile = new File(projectDirectory, 'build.gradle')
+
+			buildFile << '''
+				plugins {
+					id 'java'
+					id 'com.brunoritz.gradle.java-service-control'
+				}
+
+				javaServiceControl {
+					fooService {
+						mainClass.set('ch.foobar.Main')
+						minimumHeap.set('2g')
+					}
+				}
+			'''
+
+		when:
+			def result = GradleRunner.create()
+				.withProjectDir(projectDirectory)
+				.withArguments(
+					'--configuration-cache',
+					'-PserviceControl.memoryBudget=1g',
+					'-PserviceControl.enforceMemoryBudget=true',
+					'createArgumentsFooService'
+				)
+				.withPluginClasspath()
+				.buildAndFail()
+
+		then:
+			result.output.contains('exceeds the memory budget of 1024 MiB')
 	}
 
 	def 'It shall fail, if the project does not have the Java plugin applied'()
@@ -358,4 +1613,29 @@ class JavaServiceControlPluginSpec
 		then:
 			thrown(Exception)
 	}
+
+	private static List<File> archivedGenerations(File logsDirectory)
+	{
+		return logsDirectory.listFiles().findAll { it.name ==~ /stdout\.testService\.log\.\d{8}-\d{6}-\d{3}.*/ }
+	}
+
+	private static boolean conditionFulfilled(Closure<Boolean> condition)
+	{
+		def latestWait = System.currentTimeMillis() + 5_000
+
+		while (!condition.call() && System.currentTimeMillis() < latestWait) {
+			Thread.sleep(100)
+		}
+
+		return condition.call()
+	}
+
+	private static void stopService(File projectDirectory)
+	{
+		def pidFile = new File(projectDirectory, 'service.testService.pid')
+
+		if (pidFile.isFile()) {
+			ProcessHandle.of(Long.parseLong(pidFile.text)).ifPresent(ProcessHandle::destroy)
+		}
+	}
 }
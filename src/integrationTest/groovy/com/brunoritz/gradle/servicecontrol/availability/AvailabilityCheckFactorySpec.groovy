@@ -1,7 +1,10 @@
 package com.brunoritz.gradle.servicecontrol.availability
 
 import com.brunoritz.gradle.servicecontrol.java.JavaServiceDefinition
+import com.brunoritz.gradle.servicecontrol.launch.ServiceAvailabilityCheck
+import io.vavr.control.Option
 import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Requires
 import spock.lang.Specification
 
 class AvailabilityCheckFactorySpec
@@ -16,9 +19,10 @@ class AvailabilityCheckFactorySpec
 
 		when:
 			def result = AvailabilityCheckFactory.checkFromDefinition(
-				definition.servicePort,
-				definition.startupLogMessage,
-				definition.standardOutputLog
+				definition,
+				TailedLogFile.of(definition.standardOutputLog.get().asFile),
+				ProcessHandle.current(),
+				Option.none()
 			)
 
 		then:
@@ -35,9 +39,30 @@ class AvailabilityCheckFactorySpec
 
 		when:
 			def result = AvailabilityCheckFactory.checkFromDefinition(
-				definition.servicePort,
-				definition.startupLogMessage,
-				definition.standardOutputLog
+				definition,
+				TailedLogFile.of(definition.standardOutputLog.get().asFile),
+				ProcessHandle.current(),
+				Option.none()
+			)
+
+		then:
+			result.isDefined()
+			result.get() instanceof LogMessageAvailabilityCheck
+	}
+
+	def 'It shall return a log message checker, if the service has only defined success message patterns'()
+	{
+		given:
+			def definition = serviceDefinition()
+
+			definition.startupLogPatterns.add('Started .* in [0-9.]+ seconds')
+
+		when:
+			def result = AvailabilityCheckFactory.checkFromDefinition(
+				definition,
+				TailedLogFile.of(definition.standardOutputLog.get().asFile),
+				ProcessHandle.current(),
+				Option.none()
 			)
 
 		then:
@@ -55,9 +80,10 @@ class AvailabilityCheckFactorySpec
 
 		when:
 			def result = AvailabilityCheckFactory.checkFromDefinition(
-				definition.servicePort,
-				definition.startupLogMessage,
-				definition.standardOutputLog
+				definition,
+				TailedLogFile.of(definition.standardOutputLog.get().asFile),
+				ProcessHandle.current(),
+				Option.none()
 			)
 
 		then:
@@ -65,6 +91,159 @@ class AvailabilityCheckFactorySpec
 			result.get() instanceof PortAvailabilityCheck
 	}
 
+	def 'It shall return a health endpoint checker, if the service has a defined health URL and port number'()
+	{
+		given:
+			def definition = serviceDefinition()
+
+			definition.servicePort.set(1234)
+			definition.startupLogMessage.set('blah blah')
+			definition.healthUrl.set('http://localhost:{port}/health')
+
+		when:
+			def result = AvailabilityCheckFactory.checkFromDefinition(
+				definition,
+				TailedLogFile.of(definition.standardOutputLog.get().asFile),
+				ProcessHandle.current(),
+				Option.none()
+			)
+
+		then:
+			result.isDefined()
+			result.get() instanceof HealthUrlAvailabilityCheck
+	}
+
+	def 'It shall reject a health URL referring to the service port, if no port number is defined'()
+	{
+		given:
+			def definition = serviceDefinition()
+
+			definition.healthUrl.set('http://localhost:{port}/health')
+
+		when:
+			AvailabilityCheckFactory.checkFromDefinition(
+				definition,
+				TailedLogFile.of(definition.standardOutputLog.get().asFile),
+				ProcessHandle.current(),
+				Option.none()
+			)
+
+		then:
+			thrown(IllegalArgumentException)
+	}
+
+	def 'It shall return a checker for all ports, if the service has defined additional port numbers'()
+	{
+		given:
+			def definition = serviceDefinition()
+
+			definition.servicePort.set(1234)
+			definition.additionalPorts.add(1235)
+			definition.startupLogMessage.set('blah blah')
+
+		when:
+			def result = AvailabilityCheckFactory.checkFromDefinition(
+				definition,
+				TailedLogFile.of(definition.standardOutputLog.get().asFile),
+				ProcessHandle.current(),
+				Option.none()
+			)
+
+		then:
+			result.isDefined()
+			result.get().description() == 'all of [port 1234, port 1235]'
+	}
+
+	def 'It shall combine all checks defined, if the service defines a composition'()
+	{
+		given:
+			def definition = serviceDefinition()
+
+			definition.servicePort.set(1234)
+			definition.startupLogMessage.set('blah blah')
+			definition.healthUrl.set('http://localhost:{port}/health')
+			definition.availabilityMatch.set(AvailabilityComposition.SEQUENTIAL)
+
+		when:
+			def result = AvailabilityCheckFactory.checkFromDefinition(
+				definition,
+				TailedLogFile.of(definition.standardOutputLog.get().asFile),
+				ProcessHandle.current(),
+				Option.none()
+			)
+
+		then:
+			result.isDefined()
+			result.get().description() ==
+				"sequential [port 1234, log ${definition.standardOutputLog.get().asFile.name}, " +
+				'health endpoint http://localhost:1234/health]'
+	}
+
+	@Requires({ ListeningSocketAvailabilityCheck.isSupported() })
+	def 'It shall return listening socket checkers, if the ports are to be probed by inspecting the sockets'()
+	{
+		given:
+			def definition = serviceDefinition()
+
+			definition.servicePort.set(1234)
+			definition.additionalPorts.add(1235)
+			definition.portProbe.set(PortProbeMode.LISTENING_SOCKET)
+
+		when:
+			def result = AvailabilityCheckFactory.checkFromDefinition(
+				definition,
+				TailedLogFile.of(definition.standardOutputLog.get().asFile),
+				ProcessHandle.current(),
+				Option.none()
+			)
+
+		then:
+			result.get().description() == 'all of [listening socket on port 1234, listening socket on port 1235]'
+	}
+
+	def 'It shall only wait for the readiness notification, if the service announces its readiness'()
+	{
+		given:
+			def definition = serviceDefinition()
+			def readinessNotification = Stub(ServiceAvailabilityCheck)
+
+			definition.servicePort.set(1234)
+			definition.healthUrl.set('http://localhost:{port}/health')
+
+		when:
+			def result = AvailabilityCheckFactory.checkFromDefinition(
+				definition,
+				TailedLogFile.of(definition.standardOutputLog.get().asFile),
+				ProcessHandle.current(),
+				Option.some(readinessNotification)
+			)
+
+		then:
+			result.get().is(readinessNotification)
+	}
+
+	def 'It shall return a marker file checker, if the service has a defined marker file'()
+	{
+		given:
+			def definition = serviceDefinition()
+
+			definition.servicePort.set(1234)
+			definition.healthUrl.set('http://localhost:{port}/health')
+			definition.readyMarkerFile.set(new File(definition.workingDirectory.get().asFile, 'service.ready'))
+
+		when:
+			def result = AvailabilityCheckFactory.checkFromDefinition(
+				definition,
+				TailedLogFile.of(definition.standardOutputLog.get().asFile),
+				ProcessHandle.current(),
+				Option.none()
+			)
+
+		then:
+			result.get() instanceof MarkerFileAvailabilityCheck
+			result.get().description() == 'marker file service.ready'
+	}
+
 	def 'It shall return no checker, if both TCP port number and success log message are missing'()
 	{
 		given:
@@ -72,9 +251,10 @@ class AvailabilityCheckFactorySpec
 
 		when:
 			def result = AvailabilityCheckFactory.checkFromDefinition(
-				definition.servicePort,
-				definition.startupLogMessage,
-				definition.standardOutputLog
+				definition,
+				TailedLogFile.of(definition.standardOutputLog.get().asFile),
+				ProcessHandle.current(),
+				Option.none()
 			)
 
 		then:
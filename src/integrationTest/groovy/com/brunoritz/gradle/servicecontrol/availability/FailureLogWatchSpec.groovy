@@ -0,0 +1,69 @@
+package com.brunoritz.gradle.servicecontrol.availability
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.util.concurrent.TimeUnit
+
+class FailureLogWatchSpec
+	extends Specification
+{
+	def 'It shall report the line containing a failure message, once it is appended to any of the logs'()
+	{
+		given:
+			def standardOutputLog = Files.createTempFile('stdout', 'log').toFile()
+			def errorOutputLog = Files.createTempFile('stderr', 'log').toFile()
+			def watch = FailureLogWatch.watch(
+				[TailedLogFile.of(standardOutputLog), TailedLogFile.of(errorOutputLog)],
+				['FAILED TO START', 'Port \\d+ in use']
+			)
+
+		when:
+			standardOutputLog << 'Starting application\n'
+			errorOutputLog << 'ERROR Port 8080 in use\n'
+
+		then:
+			watch.whenFailed().get(5, TimeUnit.SECONDS) == "${errorOutputLog.name}: ERROR Port 8080 in use"
+
+		cleanup:
+			watch.close()
+	}
+
+	def 'It shall report all lines containing failure messages that are logged together, up to a limit'()
+	{
+		given:
+			def standardOutputLog = Files.createTempFile('stdout', 'log').toFile()
+			def watch = FailureLogWatch.watch([TailedLogFile.of(standardOutputLog)], ['FAILED', 'Caused by'])
+
+		when:
+			standardOutputLog << 'APPLICATION FAILED TO START\n'
+			standardOutputLog << (1..10).collect { "Caused by: Failure ${it}\n" }.join()
+
+		then:
+			def reportedLines = watch.whenFailed().get(5, TimeUnit.SECONDS).readLines()
+
+			reportedLines.size() == 5
+			reportedLines[0] == "${standardOutputLog.name}: APPLICATION FAILED TO START"
+			reportedLines[4] == "${standardOutputLog.name}: Caused by: Failure 4"
+
+		cleanup:
+			watch.close()
+	}
+
+	def 'It shall not report a failure, if no failure patterns are defined'()
+	{
+		given:
+			def standardOutputLog = Files.createTempFile('stdout', 'log').toFile()
+			def watch = FailureLogWatch.watch([TailedLogFile.of(standardOutputLog)], [])
+
+		when:
+			standardOutputLog << 'APPLICATION FAILED TO START\n'
+			Thread.sleep(2_000)
+
+		then:
+			!watch.whenFailed().isDone()
+
+		cleanup:
+			watch.close()
+	}
+}
@@ -0,0 +1,173 @@
+package com.brunoritz.gradle.servicecontrol.availability
+
+import com.brunoritz.gradle.servicecontrol.launch.ProbeSchedule
+import com.brunoritz.gradle.servicecontrol.launch.ProbeScheduler
+import com.sun.net.httpserver.HttpServer
+import io.vavr.control.Option
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.regex.Pattern
+
+class HealthUrlAvailabilityCheckSpec
+	extends Specification
+{
+	private static final Duration TIMEOUT = HealthUrlAvailabilityCheck.DEFAULT_PROBE_TIMEOUT
+
+	private HttpServer server
+	private volatile int status = 503
+	private volatile String body = '{"status":"DOWN"}'
+
+	def setup()
+	{
+		server = HttpServer.create(new InetSocketAddress(InetAddress.loopbackAddress, 0), 0)
+		server.createContext('/health') { exchange ->
+			def response = body.getBytes(StandardCharsets.UTF_8)
+
+			exchange.sendResponseHeaders(status, response.length)
+			exchange.responseBody.withCloseable { it.write(response) }
+		}
+		server.start()
+	}
+
+	def cleanup()
+	{
+		server.stop(0)
+	}
+
+	def 'It shall report the service running, once the health endpoint responds with the expected status'()
+	{
+		given:
+			def check = new HealthUrlAvailabilityCheck(healthUrl(), 200, Option.none(), TIMEOUT)
+
+		expect:
+			!check.isRunning()
+
+		when:
+			status = 200
+
+		then:
+			check.isRunning()
+	}
+
+	def 'It shall report the service running, once the body of the response contains the expected pattern'()
+	{
+		given:
+			def check = new HealthUrlAvailabilityCheck(
+				healthUrl(),
+				200,
+				Option.some(Pattern.compile('"status"\\s*:\\s*"UP"')),
+				TIMEOUT
+			)
+
+			status = 200
+
+		expect:
+			!check.isRunning()
+
+		when:
+			body = '{"status": "UP"}'
+
+		then:
+			check.isRunning()
+	}
+
+	def 'It shall report the service not running, if nothing listens on the port of the health endpoint'()
+	{
+		given:
+			def unusedPort = new ServerSocket(0).withCloseable { it.localPort }
+			def check = new HealthUrlAvailabilityCheck(
+				URI.create("http://127.0.0.1:${unusedPort}/health"),
+				200,
+				Option.none(),
+				TIMEOUT
+			)
+
+		expect:
+			!check.isRunning()
+	}
+
+	def 'It shall reuse the connection to the health endpoint between probes'()
+	{
+		given:
+			def clientPorts = Collections.synchronizedSet(new HashSet<Integer>())
+
+			server.createContext('/connections') { exchange ->
+				def response = body.getBytes(StandardCharsets.UTF_8)
+
+				clientPorts << exchange.remoteAddress.port
+				exchange.sendResponseHeaders(status, response.length)
+				exchange.responseBody.withCloseable { it.write(response) }
+			}
+
+			def check = new HealthUrlAvailabilityCheck(healthUrl('/connections'), 200, Option.none(), TIMEOUT)
+
+		when:
+			3.times { check.isRunning() }
+
+		then:
+			clientPorts.size() == 1
+	}
+
+	def 'It shall not block the probe executor while waiting for the health endpoint to respond'()
+	{
+		given:
+			def executor = Executors.newSingleThreadScheduledExecutor()
+			def scheduler = new ProbeScheduler(executor, ProbeSchedule.fixedDelay(Duration.ofMillis(10)))
+			def responding = new CountDownLatch(1)
+
+			server.createContext('/slow') { exchange ->
+				responding.await(5, TimeUnit.SECONDS)
+
+				def response = body.getBytes(StandardCharsets.UTF_8)
+
+				exchange.sendResponseHeaders(200, response.length)
+				exchange.responseBody.withCloseable { it.write(response) }
+			}
+
+			def check = new HealthUrlAvailabilityCheck(healthUrl('/slow'), 200, Option.none(), TIMEOUT)
+
+		when:
+			def availability = check.whenAvailable(scheduler)
+			def otherTask = executor.submit({ true } as Callable)
+
+		then:
+			otherTask.get(500, TimeUnit.MILLISECONDS)
+			!availability.isDone()
+
+		when:
+			responding.countDown()
+
+		then:
+			availability.get(5, TimeUnit.SECONDS)
+
+		cleanup:
+			responding.countDown()
+			executor.shutdownNow()
+	}
+
+	def 'It shall wait for a slow health endpoint as long as the probe timeout allows'()
+	{
+		given:
+			server.createContext('/slow') { exchange ->
+				Thread.sleep(1_500)
+
+				exchange.sendResponseHeaders(200, -1)
+				exchange.close()
+			}
+
+		expect:
+			!new HealthUrlAvailabilityCheck(healthUrl('/slow'), 200, Option.none(), TIMEOUT).isRunning()
+			new HealthUrlAvailabilityCheck(healthUrl('/slow'), 200, Option.none(), Duration.ofSeconds(5)).isRunning()
+	}
+
+	private URI healthUrl(String path = '/health')
+	{
+		return URI.create("http://127.0.0.1:${server.address.port}${path}")
+	}
+}
@@ -0,0 +1,107 @@
+package com.brunoritz.gradle.servicecontrol.availability
+
+import spock.lang.Requires
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class ListeningSocketAvailabilityCheckSpec
+	extends Specification
+{
+	private static final String SOCKET_TABLE_HEADER =
+		'  sl  local_address rem_address   st tx_queue rx_queue tr tm->when retrnsmt   uid  timeout inode'
+
+	@TempDir
+	private Path procRoot
+
+	def 'It shall succeed, if the service process listens on the port'()
+	{
+		given:
+			socketTable('tcp', socketEntry('0100007F:1F90', '0A', 4711))
+			fileDescriptors(ProcessHandle.current(), 4711)
+
+		expect:
+			new ListeningSocketAvailabilityCheck(ProcessHandle.current(), 8080, procRoot).isRunning()
+	}
+
+	def 'It shall succeed, if a descendant of the service process listens on the port on an IPv6 address'()
+	{
+		given:
+			def childProcess = new ProcessBuilder('sleep', '30').start()
+
+			socketTable('tcp6', socketEntry('00000000000000000000000000000000:1F90', '0A', 4711))
+			fileDescriptors(ProcessHandle.current())
+			fileDescriptors(childProcess.toHandle(), 4711)
+
+		expect:
+			new ListeningSocketAvailabilityCheck(ProcessHandle.current(), 8080, procRoot).isRunning()
+
+		cleanup:
+			childProcess?.destroy()
+	}
+
+	def 'It shall fail, if only another process listens on the port'()
+	{
+		given:
+			socketTable('tcp', socketEntry('0100007F:1F90', '0A', 4711))
+			fileDescriptors(ProcessHandle.current(), 4712)
+
+		expect:
+			!new ListeningSocketAvailabilityCheck(ProcessHandle.current(), 8080, procRoot).isRunning()
+	}
+
+	def 'It shall fail, if the socket of the service process on the port is not listening'()
+	{
+		given:
+			socketTable('tcp', socketEntry('0100007F:1F90', '01', 4711))
+			fileDescriptors(ProcessHandle.current(), 4711)
+
+		expect:
+			!new ListeningSocketAvailabilityCheck(ProcessHandle.current(), 8080, procRoot).isRunning()
+	}
+
+	def 'It shall fail, if the sockets cannot be inspected'()
+	{
+		expect:
+			!new ListeningSocketAvailabilityCheck(ProcessHandle.current(), 8080, procRoot).isRunning()
+	}
+
+	@Requires({ ListeningSocketAvailabilityCheck.isSupported() })
+	def 'It shall tell the actual sockets of the service process from those of other processes'()
+	{
+		given:
+			def serverSocket = new ServerSocket(0, 50, InetAddress.loopbackAddress)
+			def otherProcess = new ProcessBuilder('sleep', '30').start()
+
+		expect:
+			new ListeningSocketAvailabilityCheck(ProcessHandle.current(), serverSocket.localPort).isRunning()
+			!new ListeningSocketAvailabilityCheck(otherProcess.toHandle(), serverSocket.localPort).isRunning()
+
+		cleanup:
+			serverSocket?.close()
+			otherProcess?.destroy()
+	}
+
+	private void socketTable(String name, String... entries)
+	{
+		Files.createDirectories(procRoot.resolve('net'))
+		Files.write(procRoot.resolve('net').resolve(name), [SOCKET_TABLE_HEADER] + entries.toList())
+	}
+
+	private static String socketEntry(String localAddress, String state, long inode)
+	{
+		return "   0: ${localAddress} 00000000:0000 ${state} 00000000:00000000 00:00000000 00000000  1000  0 ${inode} 1"
+	}
+
+	private void fileDescriptors(ProcessHandle process, long... socketInodes)
+	{
+		def fileDescriptorDirectory = Files.createDirectories(procRoot.resolve("${process.pid()}/fd"))
+
+		Files.createSymbolicLink(fileDescriptorDirectory.resolve('0'), Path.of('/dev/null'))
+		socketInodes.eachWithIndex { inode, index ->
+			Files.createSymbolicLink(fileDescriptorDirectory.resolve("${index + 1}"), Path.of("socket:[${inode}]"))
+		}
+	}
+}
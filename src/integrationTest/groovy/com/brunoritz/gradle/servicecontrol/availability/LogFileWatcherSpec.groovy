@@ -0,0 +1,124 @@
+package com.brunoritz.gradle.servicecontrol.availability
+
+import io.vavr.control.Option
+import spock.lang.Specification
+
+import java.nio.file.FileSystems
+import java.nio.file.Files
+import java.nio.file.WatchService
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+class LogFileWatcherSpec
+	extends Specification
+{
+	def 'It shall match the content present when the watch is begun right away'()
+	{
+		given:
+			def logFile = Files.createTempFile('stdout', 'log').toFile()
+			def watcher = new LogFileWatcher(Option.none())
+			def matchedLine = new CompletableFuture<String>()
+
+			logFile << 'Starting\nStarted in 1.2 seconds\n'
+
+		when:
+			def watch = watcher.watch(logFile, LogPatternMatcher.literal('Started'), matchedLine::complete)
+
+		then:
+			matchedLine.getNow(null) == 'Started in 1.2 seconds'
+
+		cleanup:
+			watch?.close()
+	}
+
+	def 'It shall notify all watches of a file about appended lines, using #description'(
+		String description,
+		Option<WatchService> modifications)
+	{
+		given:
+			def logFile = Files.createTempFile('stdout', 'log').toFile()
+			def watcher = new LogFileWatcher(modifications)
+			def readyLine = new CompletableFuture<String>()
+			def failureLine = new CompletableFuture<String>()
+			def readyWatch = watcher.watch(logFile, LogPatternMatcher.literal('Ready'), readyLine::complete)
+			def failureWatch = watcher.watch(logFile, LogPatternMatcher.literal('FAILED'), failureLine::complete)
+
+		when:
+			logFile << 'Booting\n'
+			logFile << 'Ready to serve'
+			logFile << ' requests\nStartup FAILED\n'
+
+		then:
+			readyLine.get(5, TimeUnit.SECONDS) == 'Ready to serve requests'
+			failureLine.get(5, TimeUnit.SECONDS) == 'Startup FAILED'
+
+		cleanup:
+			readyWatch.close()
+			failureWatch.close()
+
+		where:
+			description            | modifications
+			'modification reports' | Option.some(FileSystems.getDefault().newWatchService())
+			'polling only'         | Option.none()
+	}
+
+	def 'It shall read a file from its beginning for a watch begun after the file has been read'()
+	{
+		given:
+			def logFile = Files.createTempFile('stdout', 'log').toFile()
+			def watcher = new LogFileWatcher(Option.none())
+			def firstWatch = watcher.watch(logFile, LogPatternMatcher.literal('never'), line -> {})
+			def matchedLine = new CompletableFuture<String>()
+
+			logFile << 'Listening on 8080\n'
+			Thread.sleep(LogFileWatcher.POLL_INTERVAL.toMillis() * 2)
+
+		when:
+			def secondWatch = watcher.watch(logFile, LogPatternMatcher.literal('Listening'), matchedLine::complete)
+
+		then:
+			matchedLine.getNow(null) == 'Listening on 8080'
+
+		cleanup:
+			firstWatch.close()
+			secondWatch?.close()
+	}
+
+	def 'It shall read a file from its beginning again, once it has been replaced by a shorter one'()
+	{
+		given:
+			def logFile = Files.createTempFile('stdout', 'log').toFile()
+			def watcher = new LogFileWatcher(Option.none())
+			def matchedLine = new CompletableFuture<String>()
+
+			logFile << 'A rather long line written by the previous run\n'
+
+			def watch = watcher.watch(logFile, LogPatternMatcher.literal('Ready'), matchedLine::complete)
+
+		when:
+			logFile.text = 'Ready\n'
+
+		then:
+			matchedLine.get(5, TimeUnit.SECONDS) == 'Ready'
+
+		cleanup:
+			watch.close()
+	}
+
+	def 'It shall not notify a watch, once it has been closed'()
+	{
+		given:
+			def logFile = Files.createTempFile('stdout', 'log').toFile()
+			def watcher = new LogFileWatcher(Option.some(FileSystems.getDefault().newWatchService()))
+			def matchedLine = new CompletableFuture<String>()
+			def watch = watcher.watch(logFile, LogPatternMatcher.literal('Ready'), matchedLine::complete)
+
+		when:
+			watch.close()
+			logFile << 'Ready\n'
+			Thread.sleep(LogFileWatcher.POLL_INTERVAL.toMillis() * 2)
+
+		then:
+			!matchedLine.isDone()
+	}
+}
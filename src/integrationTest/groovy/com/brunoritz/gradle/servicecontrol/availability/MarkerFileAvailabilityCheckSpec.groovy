@@ -0,0 +1,143 @@
+package com.brunoritz.gradle.servicecontrol.availability
+
+import com.brunoritz.gradle.servicecontrol.launch.ProbeSchedule
+import com.brunoritz.gradle.servicecontrol.launch.ProbeScheduler
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.time.Duration
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+class MarkerFileAvailabilityCheckSpec
+	extends Specification
+{
+	private ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor()
+	private ProbeScheduler scheduler = new ProbeScheduler(executor, ProbeSchedule.fixedDelay(Duration.ofMinutes(1)))
+
+	@TempDir
+	private File temporaryDirectory
+
+	def cleanup()
+	{
+		executor.shutdownNow()
+	}
+
+	def 'It shall succeed, as soon as the service has created the marker file'()
+	{
+		given:
+			def markerFile = new File(temporaryDirectory, 'service.ready')
+			def check = new MarkerFileAvailabilityCheck(markerFile, false)
+
+		when:
+			def availability = check.whenAvailable(scheduler)
+			Thread.sleep(100)
+
+		then:
+			!availability.isDone()
+			!check.isRunning()
+
+		when:
+			markerFile.createNewFile()
+
+		then:
+			availability.get(5, TimeUnit.SECONDS)
+			check.isRunning()
+
+		cleanup:
+			check?.close()
+	}
+
+	def 'It shall succeed, if the marker file has been created before the watch has been begun'()
+	{
+		given:
+			def markerFile = new File(temporaryDirectory, 'service.ready')
+			def check = new MarkerFileAvailabilityCheck(markerFile, false)
+
+			markerFile.createNewFile()
+
+		expect:
+			check.whenAvailable(scheduler).get(5, TimeUnit.SECONDS)
+
+		cleanup:
+			check?.close()
+	}
+
+	def 'It shall only succeed once the marker file has content, if content is required'()
+	{
+		given:
+			def markerFile = new File(temporaryDirectory, 'service.ready')
+			def check = new MarkerFileAvailabilityCheck(markerFile, true)
+			def availability = check.whenAvailable(scheduler)
+
+		when:
+			markerFile.createNewFile()
+			Thread.sleep(200)
+
+		then:
+			!availability.isDone()
+
+		when:
+			markerFile << 'ready'
+
+		then:
+			availability.get(5, TimeUnit.SECONDS)
+
+		cleanup:
+			check?.close()
+	}
+
+	def 'It shall ignore other files being created in the directory of the marker file'()
+	{
+		given:
+			def markerFile = new File(temporaryDirectory, 'service.ready')
+			def check = new MarkerFileAvailabilityCheck(markerFile, false)
+			def availability = check.whenAvailable(scheduler)
+
+		when:
+			new File(temporaryDirectory, 'other.ready').createNewFile()
+			Thread.sleep(200)
+
+		then:
+			!availability.isDone()
+
+		cleanup:
+			check?.close()
+	}
+
+	def 'It shall stop watching the marker file, once closed'()
+	{
+		given:
+			def markerFile = new File(temporaryDirectory, 'service.ready')
+			def check = new MarkerFileAvailabilityCheck(markerFile, false)
+			def availability = check.whenAvailable(scheduler)
+
+		when:
+			check.close()
+			markerFile.createNewFile()
+			Thread.sleep(200)
+
+		then:
+			!availability.isDone()
+	}
+
+	def 'It shall delete a marker file left over and create its directory, when preparing the file'()
+	{
+		given:
+			def staleMarkerFile = new File(temporaryDirectory, 'service.ready')
+			def nestedMarkerFile = new File(temporaryDirectory, 'run/service.ready')
+
+			staleMarkerFile << 'ready'
+
+		when:
+			def staleResult = MarkerFileAvailabilityCheck.prepare(staleMarkerFile)
+			def nestedResult = MarkerFileAvailabilityCheck.prepare(nestedMarkerFile)
+
+		then:
+			staleResult.isSuccess()
+			!staleMarkerFile.exists()
+			nestedResult.isSuccess()
+			nestedMarkerFile.parentFile.isDirectory()
+	}
+}
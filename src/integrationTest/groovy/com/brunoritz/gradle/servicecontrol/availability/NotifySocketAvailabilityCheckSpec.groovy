@@ -0,0 +1,131 @@
+package com.brunoritz.gradle.servicecontrol.availability
+
+import com.brunoritz.gradle.servicecontrol.launch.ProbeSchedule
+import com.brunoritz.gradle.servicecontrol.launch.ProbeScheduler
+import spock.lang.Specification
+
+import java.net.StandardProtocolFamily
+import java.net.UnixDomainSocketAddress
+import java.nio.ByteBuffer
+import java.nio.channels.SocketChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+class NotifySocketAvailabilityCheckSpec
+	extends Specification
+{
+	private ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor()
+	private ProbeScheduler scheduler = new ProbeScheduler(executor, ProbeSchedule.fixedDelay(Duration.ofMillis(10)))
+
+	def cleanup()
+	{
+		executor.shutdownNow()
+	}
+
+	def 'It shall pass the path of the socket to the service'()
+	{
+		given:
+			def check = NotifySocketAvailabilityCheck.open('testService').get()
+
+		expect:
+			Files.exists(Path.of(check.environment().get('NOTIFY_SOCKET').get()))
+
+		cleanup:
+			check?.close()
+	}
+
+	def 'It shall succeed, once the service has announced its readiness'()
+	{
+		given:
+			def check = NotifySocketAvailabilityCheck.open('testService').get()
+			def availability = check.whenAvailable(scheduler)
+
+		when:
+			send(check, 'STATUS=Warming up caches\n')
+
+		then:
+			!availability.isDone()
+			!check.isRunning()
+
+		when:
+			send(check, 'STATUS=Caches warm\nREADY=1')
+
+		then:
+			availability.get(5, TimeUnit.SECONDS)
+			check.isRunning()
+
+		cleanup:
+			check?.close()
+	}
+
+	def 'It shall accept notifications split across several writes of a connection kept open'()
+	{
+		given:
+			def check = NotifySocketAvailabilityCheck.open('testService').get()
+			def connection = SocketChannel.open(StandardProtocolFamily.UNIX)
+
+			connection.connect(UnixDomainSocketAddress.of(check.environment().get('NOTIFY_SOCKET').get()))
+
+		when:
+			connection.write(StandardCharsets.UTF_8.encode('REA'))
+			Thread.sleep(100)
+
+		then:
+			!check.isRunning()
+
+		when:
+			connection.write(StandardCharsets.UTF_8.encode('DY=1\n'))
+
+		then:
+			check.whenAvailable(scheduler).get(5, TimeUnit.SECONDS)
+
+		cleanup:
+			connection?.close()
+			check?.close()
+	}
+
+	def 'It shall not succeed, if the service only reports other notifications'()
+	{
+		given:
+			def check = NotifySocketAvailabilityCheck.open('testService').get()
+
+		when:
+			send(check, 'READY=0\nSTOPPING=1\nWATCHDOG=1\nmalformed\n')
+			Thread.sleep(100)
+
+		then:
+			!check.isRunning()
+
+		cleanup:
+			check?.close()
+	}
+
+	def 'It shall remove the socket, once closed'()
+	{
+		given:
+			def check = NotifySocketAvailabilityCheck.open('testService').get()
+			def socketPath = Path.of(check.environment().get('NOTIFY_SOCKET').get())
+
+		when:
+			check.close()
+
+		then:
+			!Files.exists(socketPath)
+			!Files.exists(socketPath.parent)
+	}
+
+	private static void send(NotifySocketAvailabilityCheck check, String message)
+	{
+		def socketPath = check.environment().get('NOTIFY_SOCKET').get()
+
+		SocketChannel.open(StandardProtocolFamily.UNIX).withCloseable { connection ->
+			connection.connect(UnixDomainSocketAddress.of(socketPath))
+			connection.write(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)))
+		}
+	}
+}
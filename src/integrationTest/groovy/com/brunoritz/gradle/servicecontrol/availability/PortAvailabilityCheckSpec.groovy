@@ -1,8 +1,13 @@
 package com.brunoritz.gradle.servicecontrol.availability
 
+import com.brunoritz.gradle.servicecontrol.launch.ProbeSchedule
+import com.brunoritz.gradle.servicecontrol.launch.ProbeScheduler
+import spock.lang.Requires
 import spock.lang.Specification
 
+import java.time.Duration
 import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
 import java.util.concurrent.TimeUnit
 
 class PortAvailabilityCheckSpec
@@ -45,4 +50,68 @@ class PortAvailabilityCheckSpec
 		cleanup:
 			simulatedServer.interrupt()
 	}
+
+	@Requires({ PortAvailabilityCheckSpec.ipv6LoopbackAvailable() })
+	def 'It shall succeed, if the service only listens on the IPv6 loopback address'()
+	{
+		given:
+			def serverSocket = new ServerSocket(0, 50, InetAddress.getByName('::1'))
+			def availabilityCheck = new PortAvailabilityCheck(serverSocket.localPort)
+
+		expect:
+			availabilityCheck.isRunning()
+
+		cleanup:
+			serverSocket.close()
+	}
+
+	def 'It shall only probe the configured hosts'()
+	{
+		given:
+			def serverSocket = new ServerSocket(0, 50, InetAddress.getByName('127.0.0.1'))
+
+		expect:
+			new PortAvailabilityCheck(serverSocket.localPort, ['localhost', '127.0.0.1']).isRunning()
+			!new PortAvailabilityCheck(serverSocket.localPort, ['unresolvable.invalid']).isRunning()
+
+		cleanup:
+			serverSocket.close()
+	}
+
+	def 'It shall complete the availability, once the port accepts connections'()
+	{
+		given:
+			def executor = Executors.newSingleThreadScheduledExecutor()
+			def scheduler = new ProbeScheduler(executor, ProbeSchedule.fixedDelay(Duration.ofMillis(10)))
+			def unusedPort = new ServerSocket(0).withCloseable { it.localPort }
+			def availabilityCheck = new PortAvailabilityCheck(unusedPort)
+
+		when:
+			def availability = availabilityCheck.whenAvailable(scheduler)
+			Thread.sleep(100)
+
+		then:
+			!availability.isDone()
+
+		when:
+			def serverSocket = new ServerSocket(unusedPort, 50, InetAddress.getByName('127.0.0.1'))
+
+		then:
+			availability.get(5, TimeUnit.SECONDS)
+			scheduler.probeCount() > 1
+
+		cleanup:
+			serverSocket?.close()
+			executor.shutdownNow()
+	}
+
+	static boolean ipv6LoopbackAvailable()
+	{
+		try {
+			new ServerSocket(0, 50, InetAddress.getByName('::1')).close()
+			return true
+		} catch (IOException ignored) {
+			return false
+		}
+	}
 }
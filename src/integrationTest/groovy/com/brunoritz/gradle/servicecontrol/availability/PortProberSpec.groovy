@@ -0,0 +1,102 @@
+package com.brunoritz.gradle.servicecontrol.availability
+
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+class PortProberSpec
+	extends Specification
+{
+	def 'It shall report a connection being established, once the endpoint accepts it'()
+	{
+		given:
+			def serverSocket = new ServerSocket(0, 50, InetAddress.loopbackAddress)
+
+		when:
+			def connected = PortProber.shared()
+				.probe(new InetSocketAddress(InetAddress.loopbackAddress, serverSocket.localPort))
+
+		then:
+			connected.get(5, TimeUnit.SECONDS)
+
+		cleanup:
+			serverSocket.close()
+	}
+
+	def 'It shall report no connection, if the endpoint refuses it'()
+	{
+		given:
+			def unusedPort = new ServerSocket(0).withCloseable { it.localPort }
+
+		when:
+			def connected = PortProber.shared().probe(new InetSocketAddress('127.0.0.1', unusedPort))
+
+		then:
+			!connected.get(5, TimeUnit.SECONDS)
+	}
+
+	def 'It shall report no connection, if the endpoint cannot be resolved'()
+	{
+		when:
+			def connected = PortProber.shared().probe(InetSocketAddress.createUnresolved('unresolvable.invalid', 80))
+
+		then:
+			!connected.get(5, TimeUnit.SECONDS)
+	}
+
+	def 'It shall probe many endpoints at once using a single thread'()
+	{
+		given:
+			def serverSockets = (1..40).collect { new ServerSocket(0, 50, InetAddress.loopbackAddress) }
+
+		when:
+			def probes = serverSockets.collect { serverSocket ->
+				PortProber.shared().probe(new InetSocketAddress(InetAddress.loopbackAddress, serverSocket.localPort))
+			}
+
+			CompletableFuture.allOf(probes as CompletableFuture[]).get(5, TimeUnit.SECONDS)
+
+		then:
+			probes.every { it.getNow(false) }
+			Thread.allStackTraces.keySet().count { it.name == 'service-control-port-prober' } == 1
+
+		cleanup:
+			serverSockets*.close()
+	}
+
+	def 'It shall keep probing with a new thread, once the selector has failed'()
+	{
+		given:
+			def prober = PortProber.shared()
+			def serverSocket = new ServerSocket(0, 50, InetAddress.loopbackAddress)
+			def endpoint = new InetSocketAddress(InetAddress.loopbackAddress, serverSocket.localPort)
+
+		when:
+			prober.probe(endpoint).get(5, TimeUnit.SECONDS)
+			prober.@selector.forEach { it.close() }
+
+		then:
+			conditionFulfilled { prober.@selector.isEmpty() }
+
+		when:
+			def connected = prober.probe(endpoint)
+
+		then:
+			connected.get(5, TimeUnit.SECONDS)
+
+		cleanup:
+			serverSocket.close()
+	}
+
+	private static boolean conditionFulfilled(Closure<Boolean> condition)
+	{
+		def latestWait = System.currentTimeMillis() + 5_000
+
+		while (!condition() && System.currentTimeMillis() < latestWait) {
+			Thread.sleep(50)
+		}
+
+		return condition()
+	}
+}
@@ -0,0 +1,88 @@
+package com.brunoritz.gradle.servicecontrol.common
+
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+import spock.lang.TempDir
+
+@IgnoreIf({ System.getProperty('os.name').containsIgnoreCase('windows') })
+class ServiceRegistrySpec
+	extends Specification
+{
+	@TempDir
+	private File temporaryDirectory
+
+	private List<Process> launchedProcesses = []
+
+	def cleanup()
+	{
+		launchedProcesses.each { it.destroy() }
+	}
+
+	def 'The status shall report the registered process, without reading the PID file'()
+	{
+		given:
+			def registry = newRegistry()
+			def pidFile = new File(temporaryDirectory, 'service.pid')
+			def process = launchProcess()
+
+			registry.register('testService', pidFile, process)
+
+		expect:
+			registry.status(pidFile).map(ProcessHandle::pid).get() == process.pid()
+	}
+
+	def 'The status shall report the process identified in the PID file, if the service is not registered'()
+	{
+		given:
+			def registry = newRegistry()
+			def pidFile = new File(temporaryDirectory, 'service.pid')
+			def process = launchProcess()
+
+			pidFile.text = Long.toString(process.pid())
+
+		expect:
+			registry.status(pidFile).map(ProcessHandle::pid).get() == process.pid()
+	}
+
+	def 'The status shall report the service as not running, once its process has terminated'()
+	{
+		given:
+			def registry = newRegistry()
+			def pidFile = new File(temporaryDirectory, 'service.pid')
+			def process = launchProcess()
+
+			registry.register('testService', pidFile, process)
+			pidFile.text = Long.toString(process.pid())
+
+		when:
+			process.destroy()
+			process.waitFor()
+
+		then:
+			registry.status(pidFile).isEmpty()
+	}
+
+	def 'The status shall report the service as not running, if there is neither a process nor a PID file'()
+	{
+		given:
+			def registry = newRegistry()
+
+		expect:
+			registry.status(new File(temporaryDirectory, 'service.pid')).isEmpty()
+	}
+
+	private Process launchProcess()
+	{
+		def process = new ProcessBuilder('sleep', '30').start()
+
+		launchedProcesses << process
+
+		return process
+	}
+
+	private static ServiceRegistry newRegistry()
+	{
+		return ServiceRegistry.registerIfAbsent(ProjectBuilder.builder().build()).get()
+	}
+}
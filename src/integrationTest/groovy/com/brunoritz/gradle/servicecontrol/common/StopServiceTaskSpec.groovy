@@ -76,6 +76,31 @@ class StopServiceTaskSpec
 			!process.isAlive()
 	}
 
+	@IgnoreIf({ System.getProperty('os.name').containsIgnoreCase('windows') })
+	def 'It shall terminate the registered process of a service, regardless of the PID file contents'()
+	{
+		given:
+			def project = newProject()
+			def process = new ProcessBuilder(['sleep', '60']).start()
+			def serviceDefinition = createGenericService(project)
+			def pidFile = serviceDefinition.pidFile.get().asFile
+			def serviceRegistry = ServiceRegistry.registerIfAbsent(project).get()
+
+			pidFile.text = 'not-a-pid'
+			serviceRegistry.register('genericService', pidFile, process)
+
+		when:
+			stopTaskIsExecuted(project)
+
+		then:
+			!process.isAlive()
+			!pidFile.exists()
+			serviceRegistry.lookup(pidFile).isEmpty()
+
+		cleanup:
+			process.destroyForcibly()
+	}
+
 	private static Project newProject()
 	{
 		def project = ProjectBuilder.builder().build()
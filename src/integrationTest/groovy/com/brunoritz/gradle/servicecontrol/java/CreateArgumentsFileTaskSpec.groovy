@@ -126,6 +126,93 @@ class CreateArgumentsFileTaskSpec
 			arguments.startsWith('-Xms64m -Xms256m ')
 	}
 
+	def 'It shall limit the memory of the service as planned, before any additional JVM argument'()
+	{
+		given:
+			def project = newProject()
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+				jvmArgs.set(['-Xss1m'])
+			}
+
+			def task = project.tasks.getByPath('createArgumentsJavaService') as CreateArgumentsFileTask
+
+			task.memoryAllocation.set(new MemoryAllocation(768, 192, 128))
+
+		when:
+			argFileTaskIsExecuted(project)
+
+		then:
+			def arguments = fileContent(project, 'jvmargs.javaService.txt')
+
+			arguments.startsWith('-Xmx768m -Xms192m -XX:MaxMetaspaceSize=128m -Xss1m ')
+	}
+
+	def 'It shall pass the arguments of the selected JVM profile before any additional JVM argument'()
+	{
+		given:
+			def project = newProject()
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+				jvmProfile.set('fastStartup')
+				jvmArgs.set(['-Xss1m'])
+			}
+
+		when:
+			argFileTaskIsExecuted(project)
+
+		then:
+			def arguments = fileContent(project, 'jvmargs.javaService.txt')
+
+			arguments.startsWith('-XX:TieredStopAtLevel=1 -Xshare:auto -XX:+UseSerialGC -Xss512k -Xss1m ')
+	}
+
+	def 'It shall use the redefined JVM profile of the service'()
+	{
+		given:
+			def project = newProject()
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+				jvmProfile.set('throughput')
+				jvmProfiles.put('throughput', JvmProfile.of('-XX:+UseG1GC'))
+			}
+
+		when:
+			argFileTaskIsExecuted(project)
+
+		then:
+			def arguments = fileContent(project, 'jvmargs.javaService.txt')
+
+			arguments.startsWith('-XX:+UseG1GC ')
+			!arguments.contains('-XX:+UseParallelGC')
+	}
+
+	def 'It shall fail, if the selected JVM profile is unknown'()
+	{
+		given:
+			def project = newProject()
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+				jvmProfile.set('turbo')
+			}
+
+		when:
+			argFileTaskIsExecuted(project)
+
+		then:
+			def error = thrown(IllegalArgumentException)
+
+			error.message == "Unknown JVM profile 'turbo', known profiles are: fastStartup, lowMemory, throughput"
+	}
+
 	def 'It shall configure the runtime classpath argument'()
 	{
 		given:
@@ -155,6 +242,219 @@ class CreateArgumentsFileTaskSpec
 			actualClasspath == expectedClasspath
 	}
 
+	def 'It shall keep the order of the classpath entries and omit duplicates'()
+	{
+		given:
+			def project = newProject()
+			def firstEntry = project.file('lib/b.jar')
+			def secondEntry = project.file('lib/a.jar')
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+			}
+
+			def task = project.tasks.getByPath('createArgumentsJavaService') as CreateArgumentsFileTask
+
+			task.runtimeClasspath.set(project.files(firstEntry, secondEntry, project.file('lib/../lib/b.jar')))
+
+		when:
+			argFileTaskIsExecuted(project)
+
+		then:
+			def actualClasspath = fileContent(project, 'jvmargs.javaService.txt')
+				.replaceAll('-cp ([^ ]*).*', '$1')
+				.split(File.pathSeparator)
+				.toList()
+
+			actualClasspath == [firstEntry.absolutePath, secondEntry.absolutePath]
+	}
+
+	def 'It shall pass the pathing JAR as the only classpath entry, if launching with a pathing JAR'()
+	{
+		given:
+			def project = newProject()
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+				launchMode.set(LaunchMode.PATHING_JAR)
+			}
+
+		when:
+			argFileTaskIsExecuted(project)
+
+		then:
+			def pathingJar = project.layout.buildDirectory.file('service-control/pathing/javaService.jar').get().asFile
+
+			fileContent(project, 'jvmargs.javaService.txt') == "-cp ${pathingJar.absolutePath}"
+	}
+
+	def 'It shall pass modules on the module path and other entries on the classpath, if launching on the module path'()
+	{
+		given:
+			def project = newProject()
+			def moduleDirectory = project.file('modules/main')
+			def resourceDirectory = project.file('resources/main')
+
+			moduleDirectory.mkdirs()
+			resourceDirectory.mkdirs()
+			new File(moduleDirectory, 'module-info.class').text = ''
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				mainModule.set('ch.foo')
+				servicePort.set(1234)
+				launchMode.set(LaunchMode.MODULE_PATH)
+			}
+
+			def task = project.tasks.getByPath('createArgumentsJavaService') as CreateArgumentsFileTask
+
+			task.runtimeClasspath.set(project.files(moduleDirectory, resourceDirectory))
+
+		when:
+			argFileTaskIsExecuted(project)
+
+		then:
+			fileContent(project, 'jvmargs.javaService.txt') ==
+				"--module-path ${moduleDirectory.absolutePath} -cp ${resourceDirectory.absolutePath}"
+	}
+
+	def 'It shall record a class data archive, if class data sharing is enabled and no archive exists'()
+	{
+		given:
+			def project = newProject()
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+				classDataSharing.set(true)
+			}
+
+		when:
+			argFileTaskIsExecuted(project)
+
+		then:
+			def arguments = fileContent(project, 'jvmargs.javaService.txt')
+			def archiveDirectory = new File(project.layout.buildDirectory.get().asFile, 'service-control/cds')
+
+			def archive = new File(arguments.replaceAll('.*-XX:ArchiveClassesAtExit=([^ ]*).*', '$1'))
+
+			archive.parentFile == archiveDirectory
+			archive.name ==~ /javaService-[0-9a-f]{16}\.jsa/
+			archiveDirectory.isDirectory()
+	}
+
+	def 'It shall use the class data archive of the current classpath and delete outdated archives'()
+	{
+		given:
+			def project = newProject()
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+				classDataSharing.set(true)
+			}
+
+			argFileTaskIsExecuted(project)
+
+			def archivePath = fileContent(project, 'jvmargs.javaService.txt')
+				.replaceAll('.*-XX:ArchiveClassesAtExit=([^ ]*).*', '$1')
+			def currentArchive = new File(archivePath)
+			def outdatedArchive = new File(currentArchive.parentFile, 'javaService-0123456789abcdef.jsa')
+
+			currentArchive.text = 'archive'
+			outdatedArchive.text = 'outdated'
+
+		when:
+			argFileTaskIsExecuted(project)
+
+		then:
+			def arguments = fileContent(project, 'jvmargs.javaService.txt')
+
+			arguments.contains("-XX:SharedArchiveFile=${archivePath} ")
+			!arguments.contains('-XX:ArchiveClassesAtExit')
+			!outdatedArchive.exists()
+	}
+
+	def 'It shall record a new class data archive, once the classes in a classpath directory have changed'()
+	{
+		given:
+			def project = newProject()
+			def classesDirectory = project.file('classes/main')
+			def classFile = new File(classesDirectory, 'ch/foo/Bar.class')
+
+			classFile.parentFile.mkdirs()
+			classFile.text = 'original'
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+				classDataSharing.set(true)
+			}
+
+			def task = project.tasks.getByPath('createArgumentsJavaService') as CreateArgumentsFileTask
+
+			task.runtimeClasspath.set(project.files(classesDirectory))
+			argFileTaskIsExecuted(project)
+
+			def originalArchive = fileContent(project, 'jvmargs.javaService.txt')
+				.replaceAll('.*-XX:ArchiveClassesAtExit=([^ ]*).*', '$1')
+
+		when:
+			classFile.text = 'recompiled'
+			argFileTaskIsExecuted(project)
+
+		then:
+			def changedArchive = fileContent(project, 'jvmargs.javaService.txt')
+				.replaceAll('.*-XX:ArchiveClassesAtExit=([^ ]*).*', '$1')
+
+			changedArchive != originalArchive
+	}
+
+	def 'It shall not configure class data sharing, unless enabled'()
+	{
+		given:
+			def project = newProject()
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+			}
+
+		when:
+			argFileTaskIsExecuted(project)
+
+		then:
+			def arguments = fileContent(project, 'jvmargs.javaService.txt')
+
+			!arguments.contains('-XX:ArchiveClassesAtExit')
+			!arguments.contains('-XX:SharedArchiveFile')
+	}
+
+	def 'It shall not rewrite the arguments file, if its content has not changed'()
+	{
+		given:
+			def project = newProject()
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+			}
+
+			argFileTaskIsExecuted(project)
+
+			def argumentsFile = new File(project.layout.buildDirectory.get().asFile, 'jvmargs.javaService.txt')
+
+			argumentsFile.lastModified = 0
+
+		when:
+			argFileTaskIsExecuted(project)
+
+		then:
+			argumentsFile.lastModified() == 0
+	}
+
 	def 'It shall pass any given system property'()
 	{
 		given:
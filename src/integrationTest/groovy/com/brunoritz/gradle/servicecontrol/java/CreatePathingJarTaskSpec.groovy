@@ -0,0 +1,114 @@
+package com.brunoritz.gradle.servicecontrol.java
+
+import org.gradle.api.Project
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+
+import java.util.jar.Attributes
+import java.util.jar.JarFile
+
+import static com.brunoritz.gradle.servicecontrol.ServiceFactory.createJavaService
+
+class CreatePathingJarTaskSpec
+	extends Specification
+{
+	def 'It shall reference the classpath entries relative to the pathing JAR, retaining their order'()
+	{
+		given:
+			def project = newProject()
+			def classesDirectory = project.file('classes')
+			def library = project.file('lib/library.jar')
+
+			classesDirectory.mkdirs()
+			library.parentFile.mkdirs()
+			library.text = ''
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+			}
+
+		when:
+			pathingJarTaskIsExecuted(project, project.files(library, classesDirectory, library))
+
+		then:
+			classPathOf(project) == '../../../lib/library.jar ../../../classes/'
+	}
+
+	def 'It shall encode special characters of the classpath entries'()
+	{
+		given:
+			def project = newProject()
+			def library = project.file('lib/my library.jar')
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+			}
+
+		when:
+			pathingJarTaskIsExecuted(project, project.files(library))
+
+		then:
+			classPathOf(project) == '../../../lib/my%20library.jar'
+	}
+
+	def 'It shall create identical pathing JARs for identical classpaths'()
+	{
+		given:
+			def project = newProject()
+			def library = project.file('lib/library.jar')
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+			}
+
+			pathingJarTaskIsExecuted(project, project.files(library))
+
+			def initialContent = pathingJar(project).bytes
+
+		when:
+			Thread.sleep(2000)
+			pathingJarTaskIsExecuted(project, project.files(library))
+
+		then:
+			pathingJar(project).bytes == initialContent
+	}
+
+	private static Project newProject()
+	{
+		def project = ProjectBuilder.builder().build()
+
+		project.plugins.apply('java')
+		project.plugins.apply('com.brunoritz.gradle.java-service-control')
+
+		project.layout.buildDirectory.dir('service-control/pathing').get().asFile.mkdirs()
+
+		return project
+	}
+
+	private static void pathingJarTaskIsExecuted(Project project, Object classpath)
+	{
+		def task = project.tasks.getByPath('createPathingJarJavaService') as CreatePathingJarTask
+
+		task.runtimeClasspath.set(classpath)
+		task.createJar()
+	}
+
+	private static File pathingJar(Project project)
+	{
+		return project.layout.buildDirectory.file('service-control/pathing/javaService.jar').get().asFile
+	}
+
+	private static String classPathOf(Project project)
+	{
+		def jar = new JarFile(pathingJar(project))
+
+		try {
+			return jar.manifest.mainAttributes.getValue(Attributes.Name.CLASS_PATH)
+		} finally {
+			jar.close()
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package com.brunoritz.gradle.servicecontrol.java
+
+import org.gradle.api.Project
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+
+import static com.brunoritz.gradle.servicecontrol.ServiceFactory.createJavaService
+
+class CreateRuntimeImageTaskSpec
+	extends Specification
+{
+	def 'It shall create a runtime image containing the required modules only'()
+	{
+		given:
+			def project = newProject()
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+				customRuntime.set(true)
+				runtimeModules.add('java.logging')
+			}
+
+		when:
+			runtimeImageTaskIsExecuted(project)
+
+		then:
+			def image = recordedImage(project)
+			def release = new File(image, 'release').text
+
+			release.contains('MODULES="java.base java.logging"')
+			image.parentFile == project.layout.buildDirectory.dir('service-control/runtimes').get().asFile
+	}
+
+	def 'It shall reuse the runtime image of an identical module set'()
+	{
+		given:
+			def project = newProject()
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+				customRuntime.set(true)
+			}
+
+			runtimeImageTaskIsExecuted(project)
+
+			def initialImage = recordedImage(project)
+			def marker = new File(initialImage, 'marker')
+
+			marker.text = 'existing image'
+
+		when:
+			runtimeImageTaskIsExecuted(project)
+
+		then:
+			recordedImage(project) == initialImage
+			marker.isFile()
+	}
+
+	def 'It shall include the modules needed for debugging, if a debug port is set'()
+	{
+		given:
+			def project = newProject()
+
+			createJavaService(project) {
+				mainClass.set('ch.foo.Bar')
+				servicePort.set(1234)
+				customRuntime.set(true)
+				debugPort.set(5005)
+			}
+
+		when:
+			def task = project.tasks.getByPath('createRuntimeImageJavaService') as CreateRuntimeImageTask
+
+		then:
+			task.additionalModules.get() == ['jdk.jdwp.agent'] as Set
+	}
+
+	private static Project newProject()
+	{
+		def project = ProjectBuilder.builder().build()
+
+		project.plugins.apply('java')
+		project.plugins.apply('com.brunoritz.gradle.java-service-control')
+
+		project.layout.buildDirectory.dir('service-control').get().asFile.mkdirs()
+
+		return project
+	}
+
+	private static void runtimeImageTaskIsExecuted(Project project)
+	{
+		def task = project.tasks.getByPath('createRuntimeImageJavaService') as CreateRuntimeImageTask
+
+		task.createImage()
+	}
+
+	private static File recordedImage(Project project)
+	{
+		return new File(
+			project.layout.buildDirectory.file('service-control/runtime.javaService.txt').get().asFile.text
+		)
+	}
+}
@@ -2,6 +2,7 @@ package com.brunoritz.gradle.servicecontrol.java
 
 import org.gradle.api.NamedDomainObjectContainer
 import org.gradle.api.Project
+import org.gradle.api.file.RegularFileProperty
 import org.gradle.internal.jvm.Jvm
 import org.gradle.testfixtures.ProjectBuilder
 import spock.lang.Specification
@@ -13,7 +14,7 @@ class JavaCommandComputerSpec
 	{
 		given:
 			def service = newJavaService()
-			def computer = new JavaCommandComputer(service.argumentsFile, service.mainClass, service.args)
+			def computer = newComputer(service)
 
 			service.mainClass.set('ch.foo.Bar')
 
@@ -25,11 +26,38 @@ class JavaCommandComputerSpec
 			result[0] == Jvm.current().getJavaExecutable().toString()
 	}
 
+	def 'It shall use the Java executable of the custom runtime image, if one is used'()
+	{
+		given:
+			def service = newJavaService()
+			def locationFile = File.createTempFile('runtime', '.txt')
+			def runtimeImageLocation = ProjectBuilder.builder().build().objects.fileProperty()
+			def computer = newComputer(service, runtimeImageLocation)
+
+			locationFile.text = '/opt/runtimes/0123456789abcdef'
+			runtimeImageLocation.set(locationFile)
+			service.mainClass.set('ch.foo.Bar')
+
+		when:
+			def result = computer.compute()
+
+		then:
+			def expectedExecutable = new File(
+				new File('/opt/runtimes/0123456789abcdef', 'bin'),
+				Jvm.current().getJavaExecutable().getName()
+			)
+
+			result[0] == expectedExecutable.toString()
+
+		cleanup:
+			locationFile.delete()
+	}
+
 	def 'It shall pass arguments via an arguments file'()
 	{
 		given:
 			def service = newJavaService()
-			def computer = new JavaCommandComputer(service.argumentsFile, service.mainClass, service.args)
+			def computer = newComputer(service)
 
 			service.mainClass.set('ch.foo.Bar')
 			service.argumentsFile.set(new File('arguments.txt'))
@@ -46,7 +74,7 @@ class JavaCommandComputerSpec
 	{
 		given:
 			def service = newJavaService()
-			def computer = new JavaCommandComputer(service.argumentsFile, service.mainClass, service.args)
+			def computer = newComputer(service)
 
 			service.mainClass.set('ch.foo.Bar')
 
@@ -62,7 +90,7 @@ class JavaCommandComputerSpec
 	{
 		given:
 			def service = newJavaService()
-			def computer = new JavaCommandComputer(service.argumentsFile, service.mainClass, service.args)
+			def computer = newComputer(service)
 
 			service.mainClass.set('ch.foo.Bar')
 			service.getArgs().set(['--first', '--second'])
@@ -77,6 +105,82 @@ class JavaCommandComputerSpec
 			result[4] == '--second'
 	}
 
+	def 'It shall launch the main module, if launching on the module path'()
+	{
+		given:
+			def service = newJavaService()
+			def computer = newComputer(service)
+
+			service.mainClass.set('ch.foo.Bar')
+			service.mainModule.set('ch.foo')
+			service.launchMode.set(LaunchMode.MODULE_PATH)
+			service.getArgs().set(['--first'])
+
+		when:
+			def result = computer.compute()
+
+		then:
+			result.size() == 5
+			result[2] == '--module'
+			result[3] == 'ch.foo/ch.foo.Bar'
+			result[4] == '--first'
+	}
+
+	def 'It shall launch the main class of the main module, if launching on the module path without a main class'()
+	{
+		given:
+			def service = newJavaService()
+			def computer = newComputer(service)
+
+			service.mainClass.set('')
+			service.mainModule.set('ch.foo')
+			service.launchMode.set(LaunchMode.MODULE_PATH)
+
+		when:
+			def result = computer.compute()
+
+		then:
+			result.size() == 4
+			result[2] == '--module'
+			result[3] == 'ch.foo'
+	}
+
+	def 'It shall fail, if launching on the module path without a main module'()
+	{
+		given:
+			def service = newJavaService()
+			def computer = newComputer(service)
+
+			service.mainClass.set('ch.foo.Bar')
+			service.launchMode.set(LaunchMode.MODULE_PATH)
+
+		when:
+			computer.compute()
+
+		then:
+			thrown(IllegalStateException)
+	}
+
+	private static JavaCommandComputer newComputer(JavaServiceDefinition service)
+	{
+		return newComputer(service, ProjectBuilder.builder().build().objects.fileProperty())
+	}
+
+	private static JavaCommandComputer newComputer(
+		JavaServiceDefinition service,
+		RegularFileProperty runtimeImageLocation
+	)
+	{
+		return new JavaCommandComputer(
+			runtimeImageLocation,
+			service.argumentsFile,
+			service.launchMode,
+			service.mainClass,
+			service.mainModule,
+			service.args
+		)
+	}
+
 	private static JavaServiceDefinition newJavaService()
 	{
 		def project = newProject()
@@ -0,0 +1,111 @@
+package com.brunoritz.gradle.servicecontrol.launch
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.util.concurrent.TimeUnit
+import java.util.zip.GZIPInputStream
+
+class LogArchiveSpec
+	extends Specification
+{
+	@TempDir
+	private File temporaryDirectory
+
+	def 'It shall move the log file into the archive and compress it'()
+	{
+		given:
+			def logFile = new File(temporaryDirectory, 'stdout.service.log')
+			def archive = new LogArchive(logFile, 5)
+
+			logFile.text = 'previous run\n'
+
+		when:
+			def compressed = archive.archive().get().get(5, TimeUnit.SECONDS).get()
+
+		then:
+			!logFile.exists()
+			compressed.name ==~ /stdout\.service\.log\.\d{8}-\d{6}-\d{3}\.gz/
+			uncompressed(compressed) == 'previous run\n'
+			temporaryDirectory.list() as Set == [compressed.name] as Set
+	}
+
+	def 'It shall keep only the configured number of generations, deleting the oldest ones'()
+	{
+		given:
+			def logFile = new File(temporaryDirectory, 'stdout.service.log')
+			def archive = new LogArchive(logFile, 2)
+
+			new File(temporaryDirectory, 'stdout.service.log.20200101-000000-000.gz').text = 'oldest'
+			new File(temporaryDirectory, 'stdout.service.log.20200102-000000-000.gz').text = 'older'
+			new File(temporaryDirectory, 'stdout.service.log.20200103-000000-000').text = 'uncompressed'
+			new File(temporaryDirectory, 'stderr.service.log.20200101-000000-000.gz').text = 'other log file'
+			logFile.text = 'previous run\n'
+
+		when:
+			def compressed = archive.archive().get().get(5, TimeUnit.SECONDS).get()
+
+		then:
+			temporaryDirectory.list() as Set == [
+				'stdout.service.log.20200103-000000-000',
+				compressed.name,
+				'stderr.service.log.20200101-000000-000.gz'
+			] as Set
+	}
+
+	def 'It shall not overwrite a generation last written to at the same time'()
+	{
+		given:
+			def logFile = new File(temporaryDirectory, 'stdout.service.log')
+			def archive = new LogArchive(logFile, 5)
+			def lastModified = System.currentTimeMillis()
+
+		when:
+			logFile.text = 'first run\n'
+			logFile.setLastModified(lastModified)
+			def first = archive.archive().get().get(5, TimeUnit.SECONDS).get()
+			logFile.text = 'second run\n'
+			logFile.setLastModified(lastModified)
+			def second = archive.archive().get().get(5, TimeUnit.SECONDS).get()
+
+		then:
+			first != second
+			uncompressed(first) == 'first run\n'
+			uncompressed(second) == 'second run\n'
+	}
+
+	def 'It shall delete the log file instead of archiving it, if no generations are to be kept'()
+	{
+		given:
+			def logFile = new File(temporaryDirectory, 'stdout.service.log')
+			def archive = new LogArchive(logFile, 0)
+
+			logFile.text = 'previous run\n'
+
+		when:
+			def compressed = archive.archive().get().get(5, TimeUnit.SECONDS)
+
+		then:
+			compressed.isEmpty()
+			temporaryDirectory.list().length == 0
+	}
+
+	def 'It shall delete empty log files and ignore missing ones'()
+	{
+		given:
+			def emptyLogFile = new File(temporaryDirectory, 'stdout.service.log')
+			def missingLogFile = new File(temporaryDirectory, 'stderr.service.log')
+
+			emptyLogFile.createNewFile()
+
+		expect:
+			new LogArchive(emptyLogFile, 5).archive().get().get(5, TimeUnit.SECONDS).isEmpty()
+			new LogArchive(missingLogFile, 5).archive().get().get(5, TimeUnit.SECONDS).isEmpty()
+			temporaryDirectory.list().length == 0
+	}
+
+	private static String uncompressed(File compressed)
+	{
+		return new GZIPInputStream(new FileInputStream(compressed)).withCloseable { it.text }
+	}
+}
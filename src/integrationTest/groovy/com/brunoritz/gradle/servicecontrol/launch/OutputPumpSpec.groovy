@@ -0,0 +1,92 @@
+package com.brunoritz.gradle.servicecontrol.launch
+
+import com.brunoritz.gradle.servicecontrol.availability.LogMatchMode
+import com.brunoritz.gradle.servicecontrol.availability.LogPatternMatcher
+import io.vavr.control.Option
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+class OutputPumpSpec
+	extends Specification
+{
+	private static final LogRotation NO_ROTATION = new LogRotation(Option.none(), Option.none(), 0)
+
+	def 'It shall copy the stream into the log file'()
+	{
+		given:
+			def logFile = Files.createTempFile('stdout', 'log').toFile()
+			def output = new PipedOutputStream()
+			def pump = new OutputPump(logFile, StandardCharsets.UTF_8, NO_ROTATION)
+
+		when:
+			pump.start(new PipedInputStream(output), 'test-stdout')
+			output.write('first line\nsecond line\n'.getBytes(StandardCharsets.UTF_8))
+			output.close()
+
+		then:
+			conditionFulfilled(() -> logFile.text == 'first line\nsecond line\n')
+	}
+
+	def 'It shall notify a watch about the line satisfying its matcher, as it passes by'()
+	{
+		given:
+			def logFile = Files.createTempFile('stdout', 'log').toFile()
+			def output = new PipedOutputStream()
+			def pump = new OutputPump(logFile, StandardCharsets.UTF_8, NO_ROTATION)
+			def matchedLine = new CompletableFuture<String>()
+
+			pump.watch(
+				new LogPatternMatcher([], ['Gestartet in (?<seconds>[0-9.]+) Sekunden'], LogMatchMode.ANY_OF),
+				line -> matchedLine.complete(line)
+			)
+
+		when:
+			pump.start(new PipedInputStream(output), 'test-stdout')
+			output.write('Größe berechnet\r\n'.getBytes(StandardCharsets.UTF_8))
+			output.write('Dienst Gestartet in 1.5 Sek'.getBytes(StandardCharsets.UTF_8))
+			output.flush()
+			output.write('unden\r\n'.getBytes(StandardCharsets.UTF_8))
+			output.flush()
+
+		then:
+			matchedLine.get(5, TimeUnit.SECONDS) == 'Dienst Gestartet in 1.5 Sekunden'
+
+		cleanup:
+			output.close()
+	}
+
+	def 'It shall no longer notify a watch that has been closed'()
+	{
+		given:
+			def logFile = Files.createTempFile('stdout', 'log').toFile()
+			def output = new PipedOutputStream()
+			def pump = new OutputPump(logFile, StandardCharsets.UTF_8, NO_ROTATION)
+			def matchedLine = new CompletableFuture<String>()
+			def watch = pump.watch(LogPatternMatcher.literal('ready'), line -> matchedLine.complete(line))
+
+		when:
+			watch.close()
+			pump.start(new PipedInputStream(output), 'test-stdout')
+			output.write('ready\n'.getBytes(StandardCharsets.UTF_8))
+			output.close()
+
+		then:
+			conditionFulfilled(() -> logFile.text == 'ready\n')
+			!matchedLine.isDone()
+	}
+
+	private static boolean conditionFulfilled(Closure<Boolean> condition)
+	{
+		def latestWait = System.currentTimeMillis() + 5_000
+
+		while (!condition.call() && System.currentTimeMillis() < latestWait) {
+			Thread.sleep(100)
+		}
+
+		return condition.call()
+	}
+}
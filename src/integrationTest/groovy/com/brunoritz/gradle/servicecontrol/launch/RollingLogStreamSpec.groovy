@@ -0,0 +1,155 @@
+package com.brunoritz.gradle.servicecontrol.launch
+
+import io.vavr.control.Option
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+import java.util.zip.GZIPInputStream
+
+class RollingLogStreamSpec
+	extends Specification
+{
+	@TempDir
+	private File temporaryDirectory
+
+	def 'It shall roll the log file over, once it has reached the maximum size'()
+	{
+		given:
+			def logFile = new File(temporaryDirectory, 'stdout.service.log')
+			def stream = new RollingLogStream(logFile, new LogRotation(Option.some(10L), Option.none(), 5))
+
+		when:
+			stream.write(bytes('first line\n'))
+			stream.write(bytes('second line\n'))
+			stream.write(bytes('third line\n'))
+			stream.close()
+
+		then:
+			logFile.text == 'third line\n'
+			conditionFulfilled(() -> compressedGenerations(2))
+			archivedGenerations().collect { uncompressed(it) } as Set == ['first line\n', 'second line\n'] as Set
+	}
+
+	def 'It shall roll the log file over with the next output, once the interval has passed'()
+	{
+		given:
+			def logFile = new File(temporaryDirectory, 'stdout.service.log')
+			def rotation = new LogRotation(Option.none(), Option.some(Duration.ofMillis(200)), 5)
+			def stream = new RollingLogStream(logFile, rotation)
+
+		when:
+			stream.write(bytes('first line\n'))
+			stream.write(bytes('second line\n'))
+			stream.flush()
+
+		then:
+			logFile.text == 'first line\nsecond line\n'
+			archivedGenerations().isEmpty()
+
+		when:
+			Thread.sleep(300)
+			stream.write(bytes('third line\n'))
+			stream.close()
+
+		then:
+			logFile.text == 'third line\n'
+			conditionFulfilled(() -> compressedGenerations(1))
+			uncompressed(archivedGenerations().first()) == 'first line\nsecond line\n'
+	}
+
+	def 'It shall not split the output written at once between two log files'()
+	{
+		given:
+			def logFile = new File(temporaryDirectory, 'stdout.service.log')
+			def stream = new RollingLogStream(logFile, new LogRotation(Option.some(4L), Option.none(), 5))
+
+		when:
+			stream.write(bytes('a line longer than the maximum size\n'))
+			stream.close()
+
+		then:
+			logFile.text == 'a line longer than the maximum size\n'
+			archivedGenerations().isEmpty()
+	}
+
+	def 'It shall keep writing into the log file, once it has been moved'()
+	{
+		given:
+			def replacementLog = new File(temporaryDirectory, 'stdout.service.log.replacement')
+			def logFile = new File(temporaryDirectory, 'stdout.service.log')
+			def stream = new RollingLogStream(replacementLog, new LogRotation(Option.some(20L), Option.none(), 5))
+
+			logFile.text = 'replaced output\n'
+
+		when:
+			stream.write(bytes('first line\n'))
+			stream.relocate(logFile)
+			stream.write(bytes('second line\n'))
+			stream.write(bytes('third line\n'))
+			stream.close()
+
+		then:
+			!replacementLog.exists()
+			logFile.text == 'third line\n'
+			conditionFulfilled(() -> compressedGenerations(1))
+			uncompressed(archivedGenerations().first()) == 'first line\nsecond line\n'
+	}
+
+	/*
+	 * The name of the archived generation exceeds the maximum length of a file name, so the log file cannot be moved
+	 * into its archive.
+	 */
+	def 'It shall keep writing into the log file, if it cannot be rolled over'()
+	{
+		given:
+			def logFile = new File(temporaryDirectory, 'x' * 240)
+			def stream = new RollingLogStream(logFile, new LogRotation(Option.some(10L), Option.none(), 5))
+
+		when:
+			stream.write(bytes('first line\n'))
+			stream.write(bytes('second line\n'))
+			stream.close()
+
+		then:
+			logFile.text == 'first line\nsecond line\n'
+			temporaryDirectory.listFiles().toList() == [logFile]
+	}
+
+	private List<File> archivedGenerations()
+	{
+		return temporaryDirectory.listFiles().findAll { it.name != 'stdout.service.log' }
+	}
+
+	/*
+	 * The uncompressed generation is only deleted once it has been compressed completely.
+	 */
+	private boolean compressedGenerations(int expectedGenerations)
+	{
+		def generations = archivedGenerations()
+
+		return (generations.size() == expectedGenerations) && generations.every { it.name.endsWith('.gz') }
+	}
+
+	private static byte[] bytes(String text)
+	{
+		return text.getBytes(StandardCharsets.UTF_8)
+	}
+
+	private static String uncompressed(File compressed)
+	{
+		return new GZIPInputStream(new FileInputStream(compressed)).withCloseable { it.text }
+	}
+
+	private static boolean conditionFulfilled(Closure<Boolean> condition)
+	{
+		def latestWait = System.currentTimeMillis() + 5_000
+
+		while (!condition.call() && System.currentTimeMillis() < latestWait) {
+			Thread.sleep(100)
+		}
+
+		return condition.call()
+	}
+}
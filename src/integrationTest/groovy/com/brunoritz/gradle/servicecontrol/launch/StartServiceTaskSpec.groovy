@@ -100,6 +100,55 @@ class StartServiceTaskSpec
 			!service.pidFile.get().asFile.exists()
 	}
 
+	def 'It shall terminate the process, if its availability cannot be checked'()
+	{
+		given:
+			def project = newProject()
+			def service = createJavaService(project) {
+				mainClass.set('com.brunoritz.gradle.servicecontrol.launch.SimulatedService')
+				args.set(['unchecked-availability'])
+				healthUrl.set('http://[invalid')
+				startTimeout.set(Duration.ofSeconds(5))
+			}
+
+			service.argumentsFile.get().asFile.text = "-cp ${System.getProperty('java.class.path')}"
+
+		when:
+			startTaskIsExecuted(project)
+
+		then:
+			thrown(IllegalStateException)
+			!service.pidFile.get().asFile.exists()
+			ProcessHandle.current().descendants().noneMatch { process ->
+				process.isAlive() && process.info().commandLine().orElse('').contains('unchecked-availability')
+			}
+	}
+
+	def 'It shall record the time the service took to become available'()
+	{
+		given:
+			def project = newProject()
+			def service = createJavaService(project) {
+				mainClass.set('com.brunoritz.gradle.servicecontrol.launch.SimulatedService')
+				servicePort.set(7171)
+				startTimeout.set(Duration.ofSeconds(5))
+			}
+			def historyFile = project.layout.buildDirectory.file(StartupHistory.DEFAULT_LOCATION).get().asFile
+
+			service.argumentsFile.get().asFile.text = "-cp ${System.getProperty('java.class.path')}"
+
+		when:
+			startTaskIsExecuted(project)
+
+		then:
+			def process = ProcessHandle.of(Long.parseLong(service.pidFile.get().asFile.text))
+
+			StartupHistory.load(historyFile).timeToReady(service.name).isDefined()
+
+		cleanup:
+			process.ifPresent(running -> running.destroy())
+	}
+
 	private static Project newProject()
 	{
 		def project = ProjectBuilder.builder().build()
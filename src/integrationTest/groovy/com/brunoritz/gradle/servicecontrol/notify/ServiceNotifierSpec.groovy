@@ -0,0 +1,53 @@
+package com.brunoritz.gradle.servicecontrol.notify
+
+import com.brunoritz.gradle.servicecontrol.availability.NotifySocketAvailabilityCheck
+import com.brunoritz.gradle.servicecontrol.launch.ProbeSchedule
+import com.brunoritz.gradle.servicecontrol.launch.ProbeScheduler
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+class ServiceNotifierSpec
+	extends Specification
+{
+	private ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor()
+	private ProbeScheduler scheduler = new ProbeScheduler(executor, ProbeSchedule.fixedDelay(Duration.ofMillis(10)))
+
+	@TempDir
+	private Path temporaryDirectory
+
+	def cleanup()
+	{
+		executor.shutdownNow()
+	}
+
+	def 'It shall announce the readiness of the service to the plugin'()
+	{
+		given:
+			def check = NotifySocketAvailabilityCheck.open('testService').get()
+			def notifier = new ServiceNotifier(Path.of(check.environment().get('NOTIFY_SOCKET').get()))
+
+		expect:
+			notifier.status('Warming up caches')
+			notifier.ready()
+			check.whenAvailable(scheduler).get(5, TimeUnit.SECONDS)
+
+		cleanup:
+			check?.close()
+	}
+
+	def 'It shall report the notification not being sent, if nobody listens on the socket'()
+	{
+		given:
+			def notifier = new ServiceNotifier(temporaryDirectory.resolve('notify.sock'))
+
+		expect:
+			!notifier.ready()
+			!notifier.stopping()
+	}
+}
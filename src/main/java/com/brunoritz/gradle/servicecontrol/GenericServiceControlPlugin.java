@@ -3,18 +3,12 @@ package com.brunoritz.gradle.servicecontrol;
 import com.brunoritz.gradle.servicecontrol.common.StopServiceTask;
 import com.brunoritz.gradle.servicecontrol.generic.GenericCommandComputer;
 import com.brunoritz.gradle.servicecontrol.generic.GenericServiceDefinition;
+import com.brunoritz.gradle.servicecontrol.launch.CommandComputer;
 import com.brunoritz.gradle.servicecontrol.launch.StartServiceTask;
-import org.gradle.api.DefaultTask;
 import org.gradle.api.NamedDomainObjectContainer;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.plugins.ExtensionContainer;
-import org.gradle.api.tasks.TaskContainer;
-import org.gradle.api.tasks.TaskProvider;
-
-import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.restartTaskName;
-import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.startTaskName;
-import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.stopTaskName;
 
 /**
  * The {@code generic-service-control} plugin allows starting, stopping and restarting of arbitrary services. The
@@ -28,6 +22,10 @@ import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.stopTas
  *     <li>{@code restart&lt;serviceName&gt;}</li>
  * </ul>
  * <p>
+ * All services are also started and stopped by the {@code startAllServices} and {@code stopAllServices} tasks.
+ * Services assigned to groups are additionally controlled by the {@code start&lt;groupName&gt;Services} and
+ * {@code stop&lt;groupName&gt;Services} tasks of each of their groups.
+ * <p>
  * Details on the behavior can be found in the documentation of the tasks and the service configuration container. The
  * {@code restart&lt;serviceName&gt;} task does nothing more than causing (in order) the invocation of
  * {@code stop&lt;serviceName&gt;} and {@code start&lt;serviceName&gt;}.
@@ -39,7 +37,7 @@ import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.stopTas
 public class GenericServiceControlPlugin
 	implements Plugin<Project>
 {
-	private static final String SERVICE_CONTROL_GROUP = "Service Control";
+	static final String EXTENSION_NAME = "genericServiceControl";
 
 	@Override
 	public void apply(Project project)
@@ -48,7 +46,7 @@ public class GenericServiceControlPlugin
 		NamedDomainObjectContainer<GenericServiceDefinition> genericServices =
 			project.getObjects().domainObjectContainer(GenericServiceDefinition.class);
 
-		extensions.add("genericServiceControl", genericServices);
+		extensions.add(EXTENSION_NAME, genericServices);
 
 		genericServices.whenObjectAdded(newService -> integrateNewService(project, newService));
 		genericServices.whenObjectRemoved(removedService -> {
@@ -58,45 +56,8 @@ public class GenericServiceControlPlugin
 
 	private void integrateNewService(Project project, GenericServiceDefinition newService)
 	{
-		TaskContainer tasks = project.getTasks();
-		TaskProvider<StartServiceTask> startTask = tasks.register(
-			startTaskName(newService.getName()),
-			StartServiceTask.class,
-			new GenericCommandComputer(newService.getExecutable(), newService.getArgs())
-		);
-		TaskProvider<StopServiceTask> stopTask = tasks.register(
-			stopTaskName(newService.getName()),
-			StopServiceTask.class,
-			newService.getPidFile()
-		);
-		TaskProvider<DefaultTask> restartTask = tasks.register(
-			restartTaskName(newService.getName()),
-			DefaultTask.class
-		);
-
-		startTask.configure(task -> {
-			task.setGroup(SERVICE_CONTROL_GROUP);
-			task.mustRunAfter(stopTask);
-
-			task.getServicePort().set(newService.getServicePort());
-			task.getStartupLogMessage().set(newService.getStartupLogMessage());
-			task.getStartTimeout().set(newService.getStartTimeout());
-			task.getWorkingDirectory().set(newService.getWorkingDirectory());
-			task.getStandardOutputLog().set(newService.getStandardOutputLog());
-			task.getErrorOutputLog().set(newService.getErrorOutputLog());
-			task.getEnvironmentFiles().set(newService.getEnvironmentFiles());
-			task.getEnvironment().set(newService.getEnvironment());
-			task.getPidFile().set(newService.getPidFile());
+		CommandComputer command = new GenericCommandComputer(newService.getExecutable(), newService.getArgs());
 
-			task.getOutputs().upToDateWhen(t -> false);
-		});
-
-		stopTask.configure(task -> task.setGroup(SERVICE_CONTROL_GROUP));
-
-		restartTask.configure(task -> {
-			task.setGroup(SERVICE_CONTROL_GROUP);
-			task.dependsOn(stopTask);
-			task.dependsOn(startTask);
-		});
+		ServiceControlTasks.register(project, newService, command);
 	}
 }
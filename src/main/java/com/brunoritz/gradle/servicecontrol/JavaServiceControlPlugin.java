@@ -2,25 +2,33 @@ package com.brunoritz.gradle.servicecontrol;
 
 import com.brunoritz.gradle.servicecontrol.common.StopServiceTask;
 import com.brunoritz.gradle.servicecontrol.java.CreateArgumentsFileTask;
+import com.brunoritz.gradle.servicecontrol.java.CreatePathingJarTask;
+import com.brunoritz.gradle.servicecontrol.java.CreateRuntimeImageTask;
 import com.brunoritz.gradle.servicecontrol.java.JavaCommandComputer;
 import com.brunoritz.gradle.servicecontrol.java.JavaServiceDefinition;
+import com.brunoritz.gradle.servicecontrol.java.JvmProfile;
+import com.brunoritz.gradle.servicecontrol.java.LaunchMode;
+import com.brunoritz.gradle.servicecontrol.java.MemoryBudgetPlanner;
+import com.brunoritz.gradle.servicecontrol.launch.CommandComputer;
 import com.brunoritz.gradle.servicecontrol.launch.StartServiceTask;
-import org.gradle.api.DefaultTask;
 import org.gradle.api.GradleException;
 import org.gradle.api.NamedDomainObjectContainer;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.plugins.ExtensionContainer;
 import org.gradle.api.plugins.JavaApplication;
 import org.gradle.api.plugins.JavaPluginExtension;
 import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.TaskContainer;
 import org.gradle.api.tasks.TaskProvider;
 
-import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.restartTaskName;
-import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.startTaskName;
-import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.stopTaskName;
+import java.util.List;
+import java.util.Set;
+
 import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.taskName;
 
 /**
@@ -35,6 +43,10 @@ import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.taskNam
  *     <li>{@code restart&lt;serviceName&gt;}</li>
  * </ul>
  * <p>
+ * All services are also started and stopped by the {@code startAllServices} and {@code stopAllServices} tasks.
+ * Services assigned to groups are additionally controlled by the {@code start&lt;groupName&gt;Services} and
+ * {@code stop&lt;groupName&gt;Services} tasks of each of their groups.
+ * <p>
  * Details on the behavior can be found in the documentation of the tasks and the service configuration container. The
  * {@code restart&lt;serviceName&gt;} task does nothing more than causing (in order) the invocation of
  * {@code stop&lt;serviceName&gt;} and {@code start&lt;serviceName&gt;}.
@@ -46,7 +58,7 @@ import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.taskNam
 public class JavaServiceControlPlugin
 	implements Plugin<Project>
 {
-	private static final String SERVICE_CONTROL_GROUP = "Service Control";
+	static final String EXTENSION_NAME = "javaServiceControl";
 
 	@Override
 	public void apply(Project project)
@@ -55,9 +67,12 @@ public class JavaServiceControlPlugin
 		NamedDomainObjectContainer<JavaServiceDefinition> javaServices =
 			project.getObjects().domainObjectContainer(JavaServiceDefinition.class);
 
-		extensions.add("javaServiceControl", javaServices);
+		extensions.add(EXTENSION_NAME, javaServices);
+
+		Provider<MemoryBudgetPlanner> memoryBudget = MemoryBudgetPlanner.registerIfAbsent(project);
 
-		javaServices.whenObjectAdded(newService -> integrateNewService(project, newService));
+		memoryBudget.get().include(project.getPath(), javaServices);
+		javaServices.whenObjectAdded(newService -> integrateNewService(project, newService, memoryBudget));
 		javaServices.whenObjectRemoved(removedService -> {
 			throw new UnsupportedOperationException("Removing previously defined services is not supported");
 		});
@@ -65,26 +80,64 @@ public class JavaServiceControlPlugin
 		project.afterEvaluate(JavaServiceControlPlugin::ensureJavaPluginApplied);
 	}
 
-	private void integrateNewService(Project project, JavaServiceDefinition newService)
+	private void integrateNewService(
+		Project project,
+		JavaServiceDefinition newService,
+		Provider<MemoryBudgetPlanner> memoryBudget)
 	{
 		TaskContainer tasks = project.getTasks();
+		String projectPath = project.getPath();
+		String serviceName = newService.getName();
+		RegularFileProperty runtimeImageLocation = project.getObjects().fileProperty();
+		Provider<String> jvmProfileSelection = project.getProviders().gradleProperty(JvmProfile.SELECTION_PROPERTY);
+		CommandComputer command = new JavaCommandComputer(
+			runtimeImageLocation,
+			newService.getArgumentsFile(),
+			newService.getLaunchMode(),
+			newService.getMainClass(),
+			newService.getMainModule(),
+			newService.getArgs()
+		);
+		TaskProvider<CreatePathingJarTask> pathingJarTask = tasks.register(
+			taskName("createPathingJar", newService.getName()),
+			CreatePathingJarTask.class
+		);
+		TaskProvider<CreateRuntimeImageTask> runtimeImageTask = tasks.register(
+			taskName("createRuntimeImage", newService.getName()),
+			CreateRuntimeImageTask.class
+		);
 		TaskProvider<CreateArgumentsFileTask> createArgsTask = tasks.register(
 			taskName("createArguments", newService.getName()),
 			CreateArgumentsFileTask.class
 		);
-		TaskProvider<StartServiceTask> startTask = tasks.register(
-			startTaskName(newService.getName()),
-			StartServiceTask.class,
-			new JavaCommandComputer(newService.getArgumentsFile(), newService.getMainClass(), newService.getArgs())
-		);
-		TaskProvider<StopServiceTask> stopTask = tasks.register(
-			stopTaskName(newService.getName()),
-			StopServiceTask.class,
-			newService.getPidFile()
-		);
-		TaskProvider<DefaultTask> restartTask = tasks.register(
-			restartTaskName(newService.getName()),
-			DefaultTask.class
+		pathingJarTask.configure(task -> {
+			task.getRuntimeClasspath().set(runtimeClasspath(project));
+			task.getPathingJar().set(project.getLayout().getBuildDirectory().file(
+				String.format("service-control/pathing/%s.jar", newService.getName())
+			));
+		});
+
+		runtimeImageTask.configure(task -> {
+			task.getRuntimeClasspath().set(runtimeClasspath(project));
+			task.getAdditionalModules().addAll(newService.getRuntimeModules());
+			task.getAdditionalModules().addAll(newService.getDebugPort().map(port -> Set.of("jdk.jdwp.agent"))
+				.orElse(Set.of()));
+			task.getAdditionalModules().addAll(newService.getAgent().map(agent -> Set.of("java.instrument"))
+				.orElse(Set.of()));
+			task.getImageDirectory().set(newService.getRuntimeImageDirectory());
+			task.getImageLocationFile().set(project.getLayout().getBuildDirectory().file(
+				String.format("service-control/runtime.%s.txt", newService.getName())
+			));
+
+			task.getOutputs().upToDateWhen(t -> ((CreateRuntimeImageTask) t).recordedImageExists());
+		});
+
+		Provider<List<TaskProvider<CreateRuntimeImageTask>>> runtimeImageTasks = newService.getCustomRuntime()
+			.map(customRuntime -> customRuntime ? List.of(runtimeImageTask) : List.of());
+
+		runtimeImageLocation.set(newService.getCustomRuntime()
+			.filter(Boolean::booleanValue)
+			.flatMap(customRuntime -> runtimeImageTask.flatMap(CreateRuntimeImageTask::getImageLocationFile))
 		);
 
 		createArgsTask.configure(task -> {
@@ -94,46 +147,29 @@ public class JavaServiceControlPlugin
 			task.getAgent().set(newService.getAgent());
 			task.getAgentArgs().set(newService.getAgentArgs());
 			task.getJvmArgs().set(newService.getJvmArgs());
-
-			task.getRuntimeClasspath().set(project
-				.getExtensions()
-				.getByType(JavaPluginExtension.class)
-				.getSourceSets()
-				.getByName(SourceSet.MAIN_SOURCE_SET_NAME)
-				.getRuntimeClasspath()
+			task.getMemoryAllocation().set(project.getProviders().provider(() -> memoryBudget.get()
+				.allocationOf(projectPath, serviceName)
+				.getOrNull()
+			));
+			task.getJvmProfile().set(jvmProfileSelection.orElse(newService.getJvmProfile()));
+			task.getJvmProfiles().set(newService.getJvmProfiles());
+			task.getClassDataSharing().set(newService.getClassDataSharing());
+			task.getClassDataArchiveDirectory().set(newService.getClassDataArchiveDirectory());
+			task.getServiceName().set(newService.getName());
+			task.getLaunchMode().set(newService.getLaunchMode());
+			task.getPathingJar().set(newService.getLaunchMode()
+				.filter(launchMode -> launchMode == LaunchMode.PATHING_JAR)
+				.flatMap(launchMode -> pathingJarTask.flatMap(CreatePathingJarTask::getPathingJar))
 			);
+			task.getRuntimeClasspath().set(runtimeClasspath(project));
 
-			task.getOutputs().upToDateWhen(t -> false);
-		});
-
-		startTask.configure(task -> {
-			task.setGroup(SERVICE_CONTROL_GROUP);
-			task.dependsOn(createArgsTask);
-			task.mustRunAfter(stopTask);
-
-			task.getServicePort().set(newService.getServicePort());
-			task.getStartupLogMessage().set(newService.getStartupLogMessage());
-			task.getStartTimeout().set(newService.getStartTimeout());
-			task.getWorkingDirectory().set(newService.getWorkingDirectory());
-			task.getStandardOutputLog().set(newService.getStandardOutputLog());
-			task.getErrorOutputLog().set(newService.getErrorOutputLog());
-			task.getEnvironmentFiles().set(newService.getEnvironmentFiles());
-			task.getEnvironment().set(newService.getEnvironment());
-			task.getPidFile().set(newService.getPidFile());
-
-			task.getOutputs().upToDateWhen(t -> false);
+			task.getOutputs().upToDateWhen(t -> ((CreateArgumentsFileTask) t).matchesClassDataArchive());
 		});
 
-		stopTask.configure(task -> task.setGroup(SERVICE_CONTROL_GROUP));
-
-		restartTask.configure(task -> {
-			task.setGroup(SERVICE_CONTROL_GROUP);
-			task.dependsOn(stopTask);
-			task.dependsOn(startTask);
-		});
+		ServiceControlTasks.register(project, newService, command, createArgsTask, runtimeImageTasks);
 
 		project.afterEvaluate(evaluatedProject ->
-			JavaServiceControlPlugin.determineMainClassFromApplication(evaluatedProject, newService)
+			JavaServiceControlPlugin.determineEntryPointFromApplication(evaluatedProject, newService)
 		);
 	}
 
@@ -144,15 +180,30 @@ public class JavaServiceControlPlugin
 		}
 	}
 
-	private static void determineMainClassFromApplication(Project evaluatedProject, JavaServiceDefinition newService)
+	private static FileCollection runtimeClasspath(Project project)
+	{
+		return project
+			.getExtensions()
+			.getByType(JavaPluginExtension.class)
+			.getSourceSets()
+			.getByName(SourceSet.MAIN_SOURCE_SET_NAME)
+			.getRuntimeClasspath();
+	}
+
+	private static void determineEntryPointFromApplication(Project evaluatedProject, JavaServiceDefinition newService)
 	{
 		JavaApplication application = evaluatedProject.getExtensions().findByType(JavaApplication.class);
 		Property<CharSequence> serviceMainClass = newService.getMainClass();
+		Property<CharSequence> serviceMainModule = newService.getMainModule();
 
 		if ((application != null) && (serviceMainClass.getOrElse("").isEmpty())) {
 			String mainClass = application.getMainClass().getOrElse("");
 
 			serviceMainClass.set(mainClass);
 		}
+
+		if ((application != null) && !serviceMainModule.isPresent()) {
+			serviceMainModule.set(application.getMainModule());
+		}
 	}
 }
@@ -0,0 +1,168 @@
+package com.brunoritz.gradle.servicecontrol;
+
+import com.brunoritz.gradle.servicecontrol.common.ServiceRegistry;
+import com.brunoritz.gradle.servicecontrol.common.StopServiceTask;
+import com.brunoritz.gradle.servicecontrol.common.TaskNameFactory;
+import com.brunoritz.gradle.servicecontrol.launch.CommandComputer;
+import com.brunoritz.gradle.servicecontrol.launch.ServiceStartSettings;
+import com.brunoritz.gradle.servicecontrol.launch.ServiceStartupService;
+import com.brunoritz.gradle.servicecontrol.launch.StartServiceTask;
+import com.brunoritz.gradle.servicecontrol.launch.StartupHistory;
+import org.gradle.api.Action;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.TaskContainer;
+import org.gradle.api.tasks.TaskProvider;
+
+import java.util.List;
+
+import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.replaceTaskName;
+import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.restartTaskName;
+import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.startTaskName;
+import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.stopTaskName;
+
+/**
+ * Registers the tasks that control a single service, independent of the technology of the service. Each service is
+ * associated a {@code start&lt;serviceName&gt;}, {@code stop&lt;serviceName&gt;}, {@code replace&lt;serviceName&gt;}
+ * and {@code restart&lt;serviceName&gt;} task. The service is also included in the tasks controlling its groups.
+ *
+ * @see ServiceGroupTasks
+ */
+final class ServiceControlTasks
+{
+	private static final String SERVICE_CONTROL_GROUP = "Service Control";
+
+	private ServiceControlTasks()
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Registers the tasks controlling the given service.
+	 *
+	 * @param project
+	 * 	The project in which the service is defined
+	 * @param service
+	 * 	The definition of the service to control
+	 * @param command
+	 * 	The computer of the command that launches the service
+	 * @param startDependencies
+	 * 	The tasks that have to complete before the service can be started
+	 */
+	static void register(
+		Project project,
+		ServiceDefinition service,
+		CommandComputer command,
+		Object... startDependencies)
+	{
+		TaskContainer tasks = project.getTasks();
+		Provider<ServiceStartupService> startupService = ServiceStartupService.registerIfAbsent(project);
+		Provider<ServiceRegistry> serviceRegistry = ServiceRegistry.registerIfAbsent(project);
+		TaskProvider<StartServiceTask> startTask = tasks.register(
+			startTaskName(service.getName()),
+			StartServiceTask.class,
+			command
+		);
+		TaskProvider<StopServiceTask> stopTask = tasks.register(
+			stopTaskName(service.getName()),
+			StopServiceTask.class,
+			service.getPidFile()
+		);
+		TaskProvider<StartServiceTask> replaceTask = tasks.register(
+			replaceTaskName(service.getName()),
+			StartServiceTask.class,
+			command
+		);
+		TaskProvider<DefaultTask> restartTask = tasks.register(
+			restartTaskName(service.getName()),
+			DefaultTask.class
+		);
+
+		Action<StartServiceTask> startConfiguration = task -> {
+			task.usesService(startupService);
+			task.usesService(serviceRegistry);
+
+			task.getStartupService().set(startupService);
+			task.getServiceRegistry().set(serviceRegistry);
+			copySettings(service, task);
+			task.getServiceName().set(service.getName());
+			task.getStartupHistory().set(project.getLayout().getBuildDirectory().file(StartupHistory.DEFAULT_LOCATION));
+
+			task.getOutputs().upToDateWhen(t -> false);
+		};
+
+		startTask.configure(task -> {
+			task.setGroup(SERVICE_CONTROL_GROUP);
+			task.dependsOn(startDependencies);
+			task.mustRunAfter(stopTask);
+			task.mustRunAfter(service.getServiceDependencies().map(dependencies -> dependencies.stream()
+				.map(TaskNameFactory::startTaskName)
+				.toList()
+			));
+
+			startConfiguration.execute(task);
+		});
+
+		replaceTask.configure(task -> {
+			task.setDescription("Replaces the running service by a new instance without downtime");
+			task.dependsOn(startDependencies);
+
+			startConfiguration.execute(task);
+
+			task.getReplaceRunningService().set(true);
+			task.getReplacementPort().set(service.getReplacementPort());
+		});
+
+		stopTask.configure(task -> {
+			task.setGroup(SERVICE_CONTROL_GROUP);
+			task.usesService(serviceRegistry);
+
+			task.getServiceRegistry().set(serviceRegistry);
+		});
+
+		restartTask.configure(task -> {
+			task.setGroup(SERVICE_CONTROL_GROUP);
+			task.dependsOn(service.getZeroDowntimeRestart().map(zeroDowntime -> zeroDowntime
+				? List.of(replaceTask)
+				: List.of(stopTask, startTask)
+			));
+		});
+
+		ServiceGroupTasks.includeService(project, service, command, stopTask, startDependencies);
+	}
+
+	private static void copySettings(ServiceStartSettings source, ServiceStartSettings target)
+	{
+		target.getServicePort().set(source.getServicePort());
+		target.getAdditionalPorts().set(source.getAdditionalPorts());
+		target.getProbeHosts().set(source.getProbeHosts());
+		target.getPortProbe().set(source.getPortProbe());
+		target.getStartupLogMessage().set(source.getStartupLogMessage());
+		target.getStartupLogMessages().set(source.getStartupLogMessages());
+		target.getStartupLogPatterns().set(source.getStartupLogPatterns());
+		target.getStartupLogMatch().set(source.getStartupLogMatch());
+		target.getHealthUrl().set(source.getHealthUrl());
+		target.getHealthStatus().set(source.getHealthStatus());
+		target.getHealthBodyPattern().set(source.getHealthBodyPattern());
+		target.getHealthTimeout().set(source.getHealthTimeout());
+		target.getNotifyReady().set(source.getNotifyReady());
+		target.getReadyMarkerFile().set(source.getReadyMarkerFile());
+		target.getReadyMarkerNonEmpty().set(source.getReadyMarkerNonEmpty());
+		target.getAvailabilityMatch().set(source.getAvailabilityMatch());
+		target.getFailureLogPatterns().set(source.getFailureLogPatterns());
+		target.getStartTimeout().set(source.getStartTimeout());
+		target.getProbeSchedule().set(source.getProbeSchedule());
+		target.getWorkingDirectory().set(source.getWorkingDirectory());
+		target.getStandardOutputLog().set(source.getStandardOutputLog());
+		target.getErrorOutputLog().set(source.getErrorOutputLog());
+		target.getOutputCapture().set(source.getOutputCapture());
+		target.getLogMaxSize().set(source.getLogMaxSize());
+		target.getLogRollInterval().set(source.getLogRollInterval());
+		target.getLogGenerations().set(source.getLogGenerations());
+		target.getEnvironmentFiles().set(source.getEnvironmentFiles());
+		target.getEnvironment().set(source.getEnvironment());
+		target.getPidFile().set(source.getPidFile());
+		target.getServiceDependencies().set(source.getServiceDependencies());
+	}
+}
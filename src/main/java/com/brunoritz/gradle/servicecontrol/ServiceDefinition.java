@@ -1,10 +1,18 @@
 package com.brunoritz.gradle.servicecontrol;
 
+import com.brunoritz.gradle.servicecontrol.availability.AvailabilityComposition;
+import com.brunoritz.gradle.servicecontrol.availability.LogMatchMode;
+import com.brunoritz.gradle.servicecontrol.availability.PortProbeMode;
+import com.brunoritz.gradle.servicecontrol.launch.OutputCapture;
+import com.brunoritz.gradle.servicecontrol.launch.ProbeSchedule;
+import com.brunoritz.gradle.servicecontrol.launch.ServiceStartSettings;
+import org.gradle.api.DomainObjectSet;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.MapProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.provider.SetProperty;
 
 import java.io.File;
 import java.time.Duration;
@@ -14,7 +22,14 @@ import java.util.Map;
  * Technology independent configuration settings for services.
  */
 public interface ServiceDefinition
+	extends ServiceStartSettings
 {
+	/**
+	 * Returns the unique name of the service being defined. Each service is required to have a unique name so that the
+	 * plugin can register appropriate control tasks for each service.
+	 */
+	String getName();
+
 	/**
 	 * An optional list of files from which to read environment variables to pass to the application. The environment
 	 * files are read in the given order, therefore those added later in the list taking precedence, if a variable is
@@ -76,6 +91,38 @@ public interface ServiceDefinition
 	 */
 	Property<Integer> getServicePort();
 
+	/**
+	 * Further port numbers on which the service is expected to set up listening TCP sockets, such as the listeners of a
+	 * gateway. By default, the service is considered started once sockets are listening on the service port and all of
+	 * these ports. Unlike the service port, these ports are not exchanged when replacing a running instance.
+	 * <p>
+	 * Defaults to an empty list.
+	 *
+	 * @see #getAvailabilityMatch()
+	 */
+	ListProperty<Integer> getAdditionalPorts();
+
+	/**
+	 * The names or addresses of the hosts on which the service ports are probed. A port is considered listening as
+	 * soon as it accepts connections on any of these hosts.
+	 * <p>
+	 * Defaults to the IPv4 and IPv6 loopback addresses, {@code 127.0.0.1} and {@code ::1}.
+	 *
+	 * @see #getServicePort()
+	 */
+	ListProperty<String> getProbeHosts();
+
+	/**
+	 * How the service ports are probed. By default, a port is considered listening as soon as it accepts connections.
+	 * On Linux, the listening sockets of the service process and its descendants can be inspected instead, which
+	 * neither connects to the service nor mistakes another process listening on the port for the service.
+	 * <p>
+	 * Defaults to {@link PortProbeMode#CONNECT}.
+	 *
+	 * @see #getServicePort()
+	 */
+	Property<PortProbeMode> getPortProbe();
+
 	/**
 	 * The message to expect in the log output when the service has started. If no log message is defined, a service
 	 * port has to be specified.
@@ -84,9 +131,144 @@ public interface ServiceDefinition
 	 * must not span multiple lines.
 	 *
 	 * @see #getServicePort()
+	 * @see #getStartupLogMessages()
+	 * @see #getStartupLogPatterns()
 	 */
 	Property<CharSequence> getStartupLogMessage();
 
+	/**
+	 * Further messages to expect in the log output when the service has started, in addition to the
+	 * {@code startupLogMessage}. Like that message, these messages are partially matched against single lines of a
+	 * service's standard output log.
+	 * <p>
+	 * Defaults to an empty list.
+	 *
+	 * @see #getStartupLogMatch()
+	 */
+	ListProperty<CharSequence> getStartupLogMessages();
+
+	/**
+	 * Regular expressions matching the messages to expect in the log output when the service has started. A message
+	 * only has to contain a match of the expression, so the expression has to be anchored to match whole lines. The
+	 * values of the named groups of an expression, such as {@code Started .* in (?<startupSeconds>[0-9.]+) seconds},
+	 * are reported once the service has started.
+	 * <p>
+	 * Defaults to an empty list.
+	 *
+	 * @see #getStartupLogMatch()
+	 */
+	ListProperty<CharSequence> getStartupLogPatterns();
+
+	/**
+	 * Whether the service is considered started once any or all of the expected log messages have been found. Log
+	 * messages are only looked for if no service port is defined.
+	 * <p>
+	 * Defaults to {@link LogMatchMode#ANY_OF}.
+	 *
+	 * @see #getStartupLogMessage()
+	 * @see #getStartupLogMessages()
+	 * @see #getStartupLogPatterns()
+	 */
+	Property<LogMatchMode> getStartupLogMatch();
+
+	/**
+	 * Regular expressions matching the messages by which the service reports a failed startup, such as
+	 * {@code APPLICATION FAILED TO START}. Both the standard output log and the error output log are watched for these
+	 * messages while the service is starting. As soon as a line contains a match, the service is terminated and the
+	 * build fails showing the matching lines, rather than waiting for the start timeout to expire. Up to five matching
+	 * lines are shown, such as the causes of an exception, if they are logged shortly after the first one.
+	 * <p>
+	 * Defaults to an empty list.
+	 *
+	 * @see #getStartTimeout()
+	 */
+	ListProperty<CharSequence> getFailureLogPatterns();
+
+	/**
+	 * The URL of an HTTP endpoint reporting the health of the service, such as
+	 * {@code http://localhost:{port}/actuator/health}. If defined, the service is considered started once a GET request
+	 * to this URL responds with the {@code healthStatus} and a body containing a match of the
+	 * {@code healthBodyPattern}. The health endpoint takes precedence over the service port and the startup log
+	 * messages, as services often open their port before they are ready to serve requests.
+	 * <p>
+	 * The placeholder {@code {port}} is replaced by the port the service is started on, which is the replacement port
+	 * when replacing a running instance.
+	 *
+	 * @see #getHealthStatus()
+	 * @see #getHealthBodyPattern()
+	 * @see #getHealthTimeout()
+	 */
+	Property<String> getHealthUrl();
+
+	/**
+	 * The HTTP status code by which the health endpoint reports the service to be healthy.
+	 * <p>
+	 * Defaults to {@code 200}.
+	 *
+	 * @see #getHealthUrl()
+	 */
+	Property<Integer> getHealthStatus();
+
+	/**
+	 * A regular expression the body of a healthy response has to contain a match of, such as
+	 * {@code "status"\s*:\s*"UP"}. If not defined, the body of the response is not inspected.
+	 *
+	 * @see #getHealthUrl()
+	 */
+	Property<CharSequence> getHealthBodyPattern();
+
+	/**
+	 * The time after which a single request to the health endpoint is considered failed, if the service has not
+	 * responded, including the time to connect. Services whose health endpoint takes longer to respond, for example
+	 * because it checks their databases, require a longer timeout, as otherwise they never become available.
+	 * <p>
+	 * Defaults to one second.
+	 *
+	 * @see #getHealthUrl()
+	 */
+	Property<Duration> getHealthTimeout();
+
+	/**
+	 * Whether the service announces its readiness the way services announce it to systemd. The path of a Unix domain
+	 * socket is passed to the service in the environment variable {@code NOTIFY_SOCKET}. The service is considered
+	 * started as soon as it sends {@code READY=1} to the socket. Status messages sent as {@code STATUS=...} are
+	 * reported while waiting. Unlike systemd, the socket accepts stream connections only.
+	 * <p>
+	 * Defaults to {@code false}.
+	 *
+	 * @see com.brunoritz.gradle.servicecontrol.notify.ServiceNotifier
+	 */
+	Property<Boolean> getNotifyReady();
+
+	/**
+	 * The file the service creates once it has started, such as a marker file written by a script or the socket file
+	 * of an embedded database. A marker file left over from a previous run is deleted before the service is launched.
+	 * The file is watched for being created, so the service is considered started as soon as it appears.
+	 *
+	 * @see #getReadyMarkerNonEmpty()
+	 */
+	RegularFileProperty getReadyMarkerFile();
+
+	/**
+	 * Whether the marker file has to have content for the service to be considered started, rather than only to
+	 * exist. This allows services to create the file before writing to it.
+	 * <p>
+	 * Defaults to {@code false}.
+	 *
+	 * @see #getReadyMarkerFile()
+	 */
+	Property<Boolean> getReadyMarkerNonEmpty();
+
+	/**
+	 * How the checks of the health URL, the ports, the startup log messages and the readiness notification are
+	 * combined, if more than one of them is defined. With {@link AvailabilityComposition#ALL_OF}, for example, the
+	 * service is considered started once its ports are listening, the log messages have been found and the health
+	 * endpoint reports it healthy. The time each check took to pass is reported.
+	 * <p>
+	 * Defaults to {@link AvailabilityComposition#FIRST_DEFINED}.
+	 */
+	Property<AvailabilityComposition> getAvailabilityMatch();
+
 	/**
 	 * The working directory of the service.
 	 * <p>
@@ -117,6 +299,60 @@ public interface ServiceDefinition
 	 */
 	RegularFileProperty getErrorOutputLog();
 
+	/**
+	 * How the standard output and error streams of the service are written into its log files. If redirected, the
+	 * operating system writes the streams into the log files, which are followed to look for the expected log
+	 * messages. If piped, the plugin reads the streams itself, writes them into the log files and looks for the
+	 * expected log messages as the lines pass by. This spots the messages without delay and without reading the log
+	 * files a second time. However, the output of piped services is no longer written once the Gradle Daemon that
+	 * started them has terminated.
+	 * <p>
+	 * Defaults to {@link OutputCapture#PIPE}, if {@link #getLogMaxSize()} or {@link #getLogRollInterval()} is set,
+	 * as only piped log files can be rolled over while the service is running, and to {@link OutputCapture#REDIRECT}
+	 * otherwise.
+	 *
+	 * @see #getStandardOutputLog()
+	 * @see #getErrorOutputLog()
+	 */
+	Property<OutputCapture> getOutputCapture();
+
+	/**
+	 * The size in bytes a log file may reach, before it is rolled over into the archive of the log file. Log files are
+	 * only rolled over while the service is running, if its output is piped, which setting this limit makes the
+	 * default. Redirected output is written by the operating system, which the plugin cannot interfere with, so a
+	 * warning is logged, if the output is explicitly redirected nonetheless.
+	 * <p>
+	 * If not set, log files are not rolled over by size.
+	 *
+	 * @see #getLogGenerations()
+	 */
+	Property<Long> getLogMaxSize();
+
+	/**
+	 * The time after which a log file is rolled over into the archive of the log file. The time is counted from the
+	 * moment the log file has been created, and the log file is rolled over with the next output written after that.
+	 * As with the size, log files are only rolled over while the service is running, if its output is piped.
+	 * <p>
+	 * If not set, log files are not rolled over by time.
+	 *
+	 * @see #getLogGenerations()
+	 */
+	Property<Duration> getLogRollInterval();
+
+	/**
+	 * The number of archived generations kept of each log file. When the service is started, the log files of the
+	 * previous run are archived rather than deleted, so the reason of a crash can still be investigated after a
+	 * restart. Archived log files are named after the log file and the time they were last written to, and are
+	 * compressed with gzip in the background. If there are more archived generations than this number, the oldest
+	 * ones are deleted. With zero, the log files are deleted instead of being archived.
+	 * <p>
+	 * Defaults to {@code 5}.
+	 *
+	 * @see #getLogMaxSize()
+	 * @see #getLogRollInterval()
+	 */
+	Property<Integer> getLogGenerations();
+
 	/**
 	 * The time the service is given to start successfully. The service is considered successfully started when it has
 	 * set up a listening socket on the given port.
@@ -126,4 +362,87 @@ public interface ServiceDefinition
 	 * @see #getServicePort()
 	 */
 	Property<Duration> getStartTimeout();
+
+	/**
+	 * The schedule by which the service's availability is probed while it is starting. The schedule only applies to
+	 * availability checks that have to actively probe the service, such as the port check.
+	 * <p>
+	 * Defaults to an exponential backoff starting at 10 milliseconds and growing up to 1 second.
+	 *
+	 * @see ProbeSchedule#exponentialBackoff(Duration, Duration)
+	 * @see ProbeSchedule#fixedDelay(Duration)
+	 */
+	Property<ProbeSchedule> getProbeSchedule();
+
+	/**
+	 * Whether the {@code restart&lt;service-name&gt;} task replaces a running service without downtime. If enabled,
+	 * the replacement is started while the running service is still available. The running service is only stopped
+	 * once the replacement has become available, which then takes over its PID file. If the service is not running,
+	 * the task simply starts it.
+	 * <p>
+	 * Both instances are running at the same time, so they cannot listen on the same port, unless the service supports
+	 * sharing it (for example using {@code SO_REUSEPORT}). If a replacement port is defined, the replacement is started
+	 * on whichever of the service port and the replacement port is not in use. Otherwise, the availability of the
+	 * replacement can only be determined from its startup log message.
+	 * <p>
+	 * Defaults to {@code false}.
+	 *
+	 * @see #getReplacementPort()
+	 */
+	Property<Boolean> getZeroDowntimeRestart();
+
+	/**
+	 * The alternate port on which to start the replacement of a running service during a zero-downtime restart. The
+	 * port to listen on is passed to the replacement in the environment variable {@code SERVICE_CONTROL_PORT}. Running
+	 * instances alternate between the service port and the replacement port with each restart.
+	 *
+	 * @see #getZeroDowntimeRestart()
+	 */
+	Property<Integer> getReplacementPort();
+
+	/**
+	 * The names of the groups the service belongs to. For each group, a {@code start&lt;groupName&gt;Services} task is
+	 * registered as soon as the first service is added to it. The task starts all services of the group concurrently.
+	 * Regardless of its groups, each service is started by the {@code startAllServices} task.
+	 * <p>
+	 * Defaults to an empty set.
+	 *
+	 * @see #groups
+	 */
+	DomainObjectSet<String> getGroups();
+
+	/**
+	 * Adds the service to the given groups, in addition to the groups it already belongs to.
+	 *
+	 * @param groupNames
+	 * 	The names of the groups to add the service to
+	 *
+	 * @see #getGroups()
+	 */
+	void groups(String... groupNames);
+
+	/**
+	 * The names of the services this service depends on. The services have to be defined in the same project, but may
+	 * be controlled by either of the service control plugins.
+	 * <p>
+	 * When started by {@code startAllServices} or the task of a group, a service is only started once all of its
+	 * dependencies have become available. The services a member of a group depends on are added to that group. The
+	 * tasks starting and stopping individual services are merely ordered, such that dependencies are started first and
+	 * stopped last.
+	 * <p>
+	 * Defaults to an empty set.
+	 *
+	 * @see #dependsOnService
+	 */
+	SetProperty<String> getServiceDependencies();
+
+	/**
+	 * Adds the given services to the services this service depends on.
+	 *
+	 * @param serviceNames
+	 * 	The names of the services this service depends on
+	 *
+	 * @see #getServiceDependencies()
+	 */
+	void dependsOnService(String... serviceNames);
 }
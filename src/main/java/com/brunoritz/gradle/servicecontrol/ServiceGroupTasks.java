@@ -0,0 +1,176 @@
+package com.brunoritz.gradle.servicecontrol;
+
+import com.brunoritz.gradle.servicecontrol.common.ServiceDependencyGraph;
+import com.brunoritz.gradle.servicecontrol.common.ServiceRegistry;
+import com.brunoritz.gradle.servicecontrol.common.StopServiceTask;
+import com.brunoritz.gradle.servicecontrol.launch.CommandComputer;
+import com.brunoritz.gradle.servicecontrol.launch.ServiceStartSpec;
+import com.brunoritz.gradle.servicecontrol.launch.ServiceStartupService;
+import com.brunoritz.gradle.servicecontrol.launch.StartServicesTask;
+import com.brunoritz.gradle.servicecontrol.launch.StartupHistory;
+import io.vavr.Tuple;
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.LinkedHashSet;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.gradle.api.Action;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.TaskContainer;
+import org.gradle.api.tasks.TaskProvider;
+
+import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.startGroupTaskName;
+import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.stopGroupTaskName;
+import static com.brunoritz.gradle.servicecontrol.common.TaskNameFactory.stopTaskName;
+
+/**
+ * Registers the tasks that control multiple services at once. Every service is controlled by
+ * {@code startAllServices} and {@code stopAllServices}. Additionally, a {@code start&lt;groupName&gt;Services} and a
+ * {@code stop&lt;groupName&gt;Services} task is registered for each group a service belongs to. The tasks are shared
+ * by all service control plugins applied to a project.
+ * <p>
+ * Once the project has been evaluated, the dependencies between its services are verified and each group is extended
+ * by the services its members depend on.
+ */
+final class ServiceGroupTasks
+{
+	private static final String SERVICE_CONTROL_GROUP = "Service Control";
+	private static final String ALL_SERVICES_GROUP = "all";
+
+	private ServiceGroupTasks()
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Includes a service in the tasks controlling the groups it belongs to. The service is also included in the tasks
+	 * of groups it is added to later on.
+	 *
+	 * @param project
+	 * 	The project in which the service is defined
+	 * @param service
+	 * 	The definition of the service to include
+	 * @param command
+	 * 	The computer of the command that launches the service
+	 * @param stopTask
+	 * 	The task stopping the service, after which the service is to be started
+	 * @param startDependencies
+	 * 	The tasks that have to complete before the service can be started
+	 */
+	static void includeService(
+		Project project,
+		ServiceDefinition service,
+		CommandComputer command,
+		TaskProvider<StopServiceTask> stopTask,
+		Object... startDependencies)
+	{
+		ServiceStartSpec startSpec = ServiceStartSpec.fromDefinition(service, command);
+		Action<StartServicesTask> startInclusion = task -> {
+			task.dependsOn(startDependencies);
+			task.mustRunAfter(stopTask);
+
+			task.getServicesToStart().add(startSpec);
+		};
+		Action<DefaultTask> stopInclusion = task -> task.dependsOn(stopTask);
+
+		if (!project.getTasks().getNames().contains(startGroupTaskName(ALL_SERVICES_GROUP))) {
+			project.afterEvaluate(ServiceGroupTasks::resolveServiceDependencies);
+		}
+
+		startGroupTask(project, ALL_SERVICES_GROUP).configure(startInclusion);
+		stopGroupTask(project, ALL_SERVICES_GROUP).configure(stopInclusion);
+
+		service.getGroups().all(groupName -> {
+			startGroupTask(project, groupName).configure(startInclusion);
+			stopGroupTask(project, groupName).configure(stopInclusion);
+		});
+
+		stopTask.configure(task -> task.mustRunAfter(project.provider(
+			() -> dependentServices(project, service.getName())
+				.map(dependentService -> stopTaskName(dependentService.getName()))
+				.toJavaList()
+		)));
+	}
+
+	private static TaskProvider<StartServicesTask> startGroupTask(Project project, String groupName)
+	{
+		TaskContainer tasks = project.getTasks();
+		String taskName = startGroupTaskName(groupName);
+
+		if (tasks.getNames().contains(taskName)) {
+			return tasks.named(taskName, StartServicesTask.class);
+		}
+
+		Provider<ServiceStartupService> startupService = ServiceStartupService.registerIfAbsent(project);
+		Provider<ServiceRegistry> serviceRegistry = ServiceRegistry.registerIfAbsent(project);
+
+		return tasks.register(taskName, StartServicesTask.class, task -> {
+			task.setGroup(SERVICE_CONTROL_GROUP);
+			task.setDescription(String.format("Starts the services of group '%s' concurrently", groupName));
+			task.usesService(startupService);
+			task.usesService(serviceRegistry);
+
+			task.getStartupService().set(startupService);
+			task.getServiceRegistry().set(serviceRegistry);
+			task.getStartupHistory().set(project.getLayout().getBuildDirectory().file(StartupHistory.DEFAULT_LOCATION));
+
+			task.getOutputs().upToDateWhen(t -> false);
+		});
+	}
+
+	private static TaskProvider<DefaultTask> stopGroupTask(Project project, String groupName)
+	{
+		TaskContainer tasks = project.getTasks();
+		String taskName = stopGroupTaskName(groupName);
+
+		if (tasks.getNames().contains(taskName)) {
+			return tasks.named(taskName, DefaultTask.class);
+		}
+
+		return tasks.register(taskName, DefaultTask.class, task -> {
+			task.setGroup(SERVICE_CONTROL_GROUP);
+			task.setDescription(String.format("Stops the services of group '%s'", groupName));
+		});
+	}
+
+	private static void resolveServiceDependencies(Project evaluatedProject)
+	{
+		List<ServiceDefinition> services = serviceDefinitions(evaluatedProject);
+		ServiceDependencyGraph dependencyGraph = new ServiceDependencyGraph(LinkedHashMap.ofEntries(
+			services.map(service -> Tuple.of(
+				service.getName(),
+				LinkedHashSet.ofAll(service.getServiceDependencies().get())
+			))
+		));
+
+		dependencyGraph.verify();
+
+		services.forEach(service -> {
+			List<String> groupNames = List.ofAll(service.getGroups());
+
+			dependencyGraph.withDependencies(List.of(service.getName()))
+				.remove(service.getName())
+				.flatMap(dependencyName -> services.find(candidate -> candidate.getName().equals(dependencyName)))
+				.forEach(dependency -> dependency.getGroups().addAll(groupNames.toJavaList()));
+		});
+	}
+
+	private static List<ServiceDefinition> dependentServices(Project project, String serviceName)
+	{
+		return serviceDefinitions(project)
+			.filter(service -> service.getServiceDependencies().get().contains(serviceName));
+	}
+
+	private static List<ServiceDefinition> serviceDefinitions(Project project)
+	{
+		return List.of(JavaServiceControlPlugin.EXTENSION_NAME, GenericServiceControlPlugin.EXTENSION_NAME)
+			.flatMap(extensionName -> Option.of(project.getExtensions().findByName(extensionName)))
+			.filter(Iterable.class::isInstance)
+			.flatMap(extension -> List.ofAll((Iterable<?>) extension))
+			.flatMap(definition -> definition instanceof ServiceDefinition service
+				? Option.some(service)
+				: Option.none()
+			);
+	}
+}
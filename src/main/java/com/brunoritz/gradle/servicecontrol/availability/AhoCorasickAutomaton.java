@@ -0,0 +1,181 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Finds any number of literal patterns in a text in a single pass, using the Aho-Corasick algorithm. The time taken
+ * to scan a text only depends on its length and the number of matches, but not on the number of patterns.
+ * <p>
+ * The transitions of each state are kept in sorted arrays, so that scanning a text does not allocate any objects.
+ */
+final class AhoCorasickAutomaton
+{
+	private static final int ROOT = 0;
+	private static final int NO_STATE = -1;
+
+	private final char[][] transitionChars;
+	private final int[][] transitionTargets;
+	private final int[] fallbacks;
+	private final int[][] matchedPatterns;
+
+	/**
+	 * Builds the automaton finding the given patterns. Patterns are identified by their index in the given list.
+	 *
+	 * @param patterns
+	 * 	The literal patterns to find
+	 */
+	AhoCorasickAutomaton(List<String> patterns)
+	{
+		List<Map<Character, Integer>> transitions = new ArrayList<>();
+		List<List<Integer>> outputs = new ArrayList<>();
+
+		transitions.add(new TreeMap<>());
+		outputs.add(new ArrayList<>());
+
+		for (int patternIndex = 0; patternIndex < patterns.size(); patternIndex++) {
+			int state = insert(patterns.get(patternIndex), transitions, outputs);
+
+			outputs.get(state).add(patternIndex);
+		}
+
+		int[] fallbackStates = computeFallbacks(transitions, outputs);
+
+		this.transitionChars = new char[transitions.size()][];
+		this.transitionTargets = new int[transitions.size()][];
+		this.matchedPatterns = new int[transitions.size()][];
+		this.fallbacks = fallbackStates;
+
+		for (int state = 0; state < transitions.size(); state++) {
+			Map<Character, Integer> stateTransitions = transitions.get(state);
+
+			transitionChars[state] = new char[stateTransitions.size()];
+			transitionTargets[state] = new int[stateTransitions.size()];
+			matchedPatterns[state] = outputs.get(state).stream().mapToInt(Integer::intValue).toArray();
+
+			int transition = 0;
+
+			for (Map.Entry<Character, Integer> entry : stateTransitions.entrySet()) {
+				transitionChars[state][transition] = entry.getKey();
+				transitionTargets[state][transition] = entry.getValue();
+				transition++;
+			}
+		}
+	}
+
+	private static int insert(String pattern, List<Map<Character, Integer>> transitions, List<List<Integer>> outputs)
+	{
+		int state = ROOT;
+
+		for (int position = 0; position < pattern.length(); position++) {
+			Map<Character, Integer> stateTransitions = transitions.get(state);
+			Integer nextState = stateTransitions.get(pattern.charAt(position));
+
+			if (nextState == null) {
+				nextState = transitions.size();
+				stateTransitions.put(pattern.charAt(position), nextState);
+				transitions.add(new TreeMap<>());
+				outputs.add(new ArrayList<>());
+			}
+
+			state = nextState;
+		}
+
+		return state;
+	}
+
+	/*
+	 * Computes the fallback of each state in breadth-first order, which is the state representing the longest proper
+	 * suffix of the state's input that is also the prefix of a pattern. The outputs of the fallback are added to the
+	 * outputs of the state, so that scanning does not have to follow the fallbacks to find all matches.
+	 */
+	private static int[] computeFallbacks(List<Map<Character, Integer>> transitions, List<List<Integer>> outputs)
+	{
+		int[] fallbackStates = new int[transitions.size()];
+		Deque<Integer> pendingStates = new ArrayDeque<>(transitions.get(ROOT).values());
+
+		while (!pendingStates.isEmpty()) {
+			int state = pendingStates.removeFirst();
+
+			for (Map.Entry<Character, Integer> transition : transitions.get(state).entrySet()) {
+				int target = transition.getValue();
+				int fallback = fallbackStates[state];
+				Integer fallbackTarget = transitions.get(fallback).get(transition.getKey());
+
+				while ((fallbackTarget == null) && (fallback != ROOT)) {
+					fallback = fallbackStates[fallback];
+					fallbackTarget = transitions.get(fallback).get(transition.getKey());
+				}
+
+				if ((fallbackTarget != null) && (fallbackTarget != target)) {
+					fallbackStates[target] = fallbackTarget;
+				}
+
+				outputs.get(target).addAll(outputs.get(fallbackStates[target]));
+				pendingStates.addLast(target);
+			}
+		}
+
+		return fallbackStates;
+	}
+
+	/**
+	 * Scans the beginning of a text for the patterns of this automaton. Each pattern found is flagged in the given
+	 * array, which is indexed by the pattern index.
+	 *
+	 * @param text
+	 * 	The text to scan
+	 * @param length
+	 * 	The number of characters to scan, which must not exceed the length of the text
+	 * @param found
+	 * 	The flags of the patterns found so far, which are updated by this method
+	 *
+	 * @return The number of patterns that have been found for the first time
+	 */
+	int scan(CharSequence text, int length, boolean[] found)
+	{
+		int newlyFound = flagMatches(ROOT, found);
+		int state = ROOT;
+
+		for (int position = 0; position < length; position++) {
+			char character = text.charAt(position);
+			int nextState = transition(state, character);
+
+			while ((nextState == NO_STATE) && (state != ROOT)) {
+				state = fallbacks[state];
+				nextState = transition(state, character);
+			}
+
+			state = (nextState == NO_STATE) ? ROOT : nextState;
+			newlyFound += flagMatches(state, found);
+		}
+
+		return newlyFound;
+	}
+
+	private int transition(int state, char character)
+	{
+		int transition = Arrays.binarySearch(transitionChars[state], character);
+
+		return (transition < 0) ? NO_STATE : transitionTargets[state][transition];
+	}
+
+	private int flagMatches(int state, boolean[] found)
+	{
+		int newlyFound = 0;
+
+		for (int patternIndex : matchedPatterns[state]) {
+			if (!found[patternIndex]) {
+				found[patternIndex] = true;
+				newlyFound++;
+			}
+		}
+
+		return newlyFound;
+	}
+}
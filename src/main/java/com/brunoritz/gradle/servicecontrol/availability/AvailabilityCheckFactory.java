@@ -1,57 +1,186 @@
 package com.brunoritz.gradle.servicecontrol.availability;
 
 import com.brunoritz.gradle.servicecontrol.launch.ServiceAvailabilityCheck;
+import com.brunoritz.gradle.servicecontrol.launch.ServiceStartSettings;
+import io.vavr.collection.List;
 import io.vavr.control.Option;
 import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.api.provider.Property;
 
+import java.net.URI;
+import java.util.regex.Pattern;
+
 /**
- * Creates service availability checkers based on the service configuration. Two types of checkers are supported:
+ * Creates service availability checkers based on the service configuration. Five types of checkers are supported:
  * <ul>
- *     <li>TCP listener port availability</li>
+ *     <li>Readiness notification</li>
+ *     <li>Marker file availability</li>
+ *     <li>HTTP health endpoint availability</li>
+ *     <li>TCP listener port availability, either by connecting or by inspecting the sockets of the service</li>
  *     <li>Log entry availability</li>
  * </ul>
  * <p>
- * If both, the port number and the expected success log message, are set, a port checker will be created.
+ * By default, only the first type defined is used. If the service announces its readiness, only the notification is
+ * waited for. Otherwise, if a marker file is set, a marker file checker will be created. Otherwise, if a health URL is
+ * set, a health endpoint checker will be created. Otherwise, if both, the port numbers and expected success log
+ * messages, are set, a checker for all ports will be created. Other compositions combine all checks defined.
  */
 public final class AvailabilityCheckFactory
 {
+	private static final Logger logger = Logging.getLogger(AvailabilityCheckFactory.class);
+
 	private AvailabilityCheckFactory()
 	{
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * The placeholder in the health URL that is replaced by the port of the service.
+	 */
+	public static final String PORT_PLACEHOLDER = "{port}";
+
 	/**
 	 * Creates a service availability checker.
 	 *
-	 * @param servicePort
-	 * 	The property holding the service's TCP port, may have no value
-	 * @param startupLogMessage
-	 * 	The expected log message that indicates a successful start may have no value
-	 * @param standardOutputLog
-	 * 	The log file in which to look for the success message, may be empty but required when {@code startupLogMessage}
-	 * 	is defined
+	 * @param service
+	 * 	The settings of the service, of which the ports, the expected log messages, the health endpoint, the marker
+	 * 	file and the composition of the checks are used
+	 * @param standardOutput
+	 * 	The source of the log lines in which to look for the success messages
+	 * @param serviceProcess
+	 * 	The process of the service, whose listening sockets are inspected when probing the ports that way
+	 * @param readinessNotification
+	 * 	The check waiting for the service to announce its readiness, if the service has been asked to announce it
 	 *
 	 * @return The checker or {@code none}, if configuration settings are missing
+	 *
+	 * @throws IllegalArgumentException
+	 * 	If any of the regular expressions or the health URL is not valid
 	 */
 	public static Option<ServiceAvailabilityCheck> checkFromDefinition(
-		Property<Integer> servicePort,
-		Property<CharSequence> startupLogMessage,
-		RegularFileProperty standardOutputLog)
+		ServiceStartSettings service,
+		LogLineSource standardOutput,
+		ProcessHandle serviceProcess,
+		Option<ServiceAvailabilityCheck> readinessNotification)
+	{
+		AvailabilityComposition composition =
+			service.getAvailabilityMatch().getOrElse(AvailabilityComposition.FIRST_DEFINED);
+
+		if (composition == AvailabilityComposition.FIRST_DEFINED) {
+			return readinessNotification
+				.orElse(() -> markerFileCheck(service))
+				.orElse(() -> healthCheck(service))
+				.orElse(() -> combined(AvailabilityComposition.ALL_OF, portChecks(service, serviceProcess)))
+				.orElse(() -> logCheck(service, standardOutput));
+		}
+
+		List<ServiceAvailabilityCheck> checks = portChecks(service, serviceProcess)
+			.appendAll(logCheck(service, standardOutput))
+			.appendAll(healthCheck(service))
+			.appendAll(markerFileCheck(service))
+			.appendAll(readinessNotification);
+
+		return combined(composition, checks);
+	}
+
+	private static Option<ServiceAvailabilityCheck> combined(
+		AvailabilityComposition composition,
+		List<ServiceAvailabilityCheck> checks)
 	{
-		ServiceAvailabilityCheck result = null;
+		if (checks.size() > 1) {
+			return Option.some(new CompositeAvailabilityCheck(composition, checks));
+		}
+
+		return checks.headOption();
+	}
+
+	private static List<ServiceAvailabilityCheck> portChecks(ServiceStartSettings service, ProcessHandle serviceProcess)
+	{
+		Property<Integer> servicePort = service.getServicePort();
+		List<Integer> ports = List.ofAll(service.getAdditionalPorts().get());
+		PortProbeMode portProbe = service.getPortProbe().getOrElse(PortProbeMode.CONNECT);
 
 		if (servicePort.isPresent()) {
-			int port = servicePort.get();
+			ports = ports.prepend(servicePort.get());
+		}
+
+		if ((portProbe == PortProbeMode.LISTENING_SOCKET) && !ports.isEmpty()) {
+			if (ListeningSocketAvailabilityCheck.isSupported()) {
+				return ports.map(port -> new ListeningSocketAvailabilityCheck(serviceProcess, port));
+			}
+
+			logger.warn("Listening sockets cannot be inspected on this system, probing the ports by connecting");
+		}
 
-			result = new PortAvailabilityCheck(port);
-		} else if (startupLogMessage.isPresent()) {
-			result = new LogMessageAvailabilityCheck(
-				standardOutputLog.get().getAsFile(),
-				startupLogMessage.get().toString()
-			);
+		List<String> hosts =
+			List.ofAll(service.getProbeHosts().getOrElse(PortAvailabilityCheck.DEFAULT_HOSTS.asJava()));
+
+		return ports.map(port -> new PortAvailabilityCheck(port, hosts));
+	}
+
+	private static Option<ServiceAvailabilityCheck> healthCheck(ServiceStartSettings service)
+	{
+		Property<String> healthUrl = service.getHealthUrl();
+
+		if (!healthUrl.isPresent()) {
+			return Option.none();
+		}
+
+		return Option.some(new HealthUrlAvailabilityCheck(
+			healthEndpoint(healthUrl.get(), service.getServicePort()),
+			service.getHealthStatus().getOrElse(200),
+			Option.of(service.getHealthBodyPattern().map(pattern -> Pattern.compile(pattern.toString())).getOrNull()),
+			service.getHealthTimeout().getOrElse(HealthUrlAvailabilityCheck.DEFAULT_PROBE_TIMEOUT)
+		));
+	}
+
+	private static Option<ServiceAvailabilityCheck> markerFileCheck(ServiceStartSettings service)
+	{
+		RegularFileProperty readyMarkerFile = service.getReadyMarkerFile();
+
+		if (!readyMarkerFile.isPresent()) {
+			return Option.none();
+		}
+
+		return Option.some(new MarkerFileAvailabilityCheck(
+			readyMarkerFile.get().getAsFile(),
+			service.getReadyMarkerNonEmpty().getOrElse(false)
+		));
+	}
+
+	private static Option<ServiceAvailabilityCheck> logCheck(ServiceStartSettings service, LogLineSource standardOutput)
+	{
+		Option<CharSequence> singleMessage = Option.of(service.getStartupLogMessage().getOrNull());
+		List<String> literalMessages = singleMessage.toList()
+			.appendAll(service.getStartupLogMessages().get())
+			.map(CharSequence::toString);
+		List<String> messagePatterns = List.ofAll(service.getStartupLogPatterns().get()).map(CharSequence::toString);
+
+		if (literalMessages.isEmpty() && messagePatterns.isEmpty()) {
+			return Option.none();
+		}
+
+		return Option.some(new LogMessageAvailabilityCheck(
+			standardOutput,
+			new LogPatternMatcher(
+				literalMessages,
+				messagePatterns,
+				service.getStartupLogMatch().getOrElse(LogMatchMode.ANY_OF)
+			)
+		));
+	}
+
+	private static URI healthEndpoint(String healthUrl, Property<Integer> servicePort)
+	{
+		if (healthUrl.contains(PORT_PLACEHOLDER) && !servicePort.isPresent()) {
+			throw new IllegalArgumentException(String.format(
+				"The health URL %s refers to the service port, which is not set",
+				healthUrl
+			));
 		}
 
-		return Option.of(result);
+		return URI.create(healthUrl.replace(PORT_PLACEHOLDER, String.valueOf(servicePort.getOrNull())));
 	}
 }
@@ -0,0 +1,33 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+/**
+ * Defines how the availability checks derived from the service definition are combined. The checks are derived from
+ * the service ports, the expected log messages, the health URL, the marker file and the readiness notification, as
+ * far as they are defined.
+ */
+public enum AvailabilityComposition
+{
+	/**
+	 * Only the first check defined is used, in the order of readiness notification, marker file, health URL, ports
+	 * and log messages. If more than one port is defined, the service has to listen on all of them.
+	 */
+	FIRST_DEFINED,
+
+	/**
+	 * The service is available once all checks have passed. The checks are performed concurrently.
+	 */
+	ALL_OF,
+
+	/**
+	 * The service is available as soon as any of the checks has passed. The checks are performed concurrently. The
+	 * service only fails to become available, once all checks have failed.
+	 */
+	ANY_OF,
+
+	/**
+	 * The service is available once all checks have passed, each check only being started after the previous one has
+	 * passed. The checks are performed in the order of ports, log messages, health URL, marker file and readiness
+	 * notification.
+	 */
+	SEQUENTIAL
+}
@@ -0,0 +1,165 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+import com.brunoritz.gradle.servicecontrol.launch.ProbeScheduler;
+import com.brunoritz.gradle.servicecontrol.launch.ServiceAvailabilityCheck;
+import io.vavr.collection.List;
+import io.vavr.control.Try;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks whether a service is available by combining several checks, such as the ports of all listeners of a service.
+ * Depending on the composition, the service is available once all or any of the checks have passed, or once all of
+ * them have passed one after the other. If any of the checks is required, the service only fails to become available
+ * once all of them have failed.
+ * <p>
+ * The time each check took to pass is reported, measured from the moment the check has been started. Once the
+ * combined availability has been decided or waiting for it has been cancelled, the checks still pending are
+ * cancelled.
+ */
+public final class CompositeAvailabilityCheck
+	implements ServiceAvailabilityCheck
+{
+	private static final Logger logger = Logging.getLogger(CompositeAvailabilityCheck.class);
+
+	private final AvailabilityComposition composition;
+	private final List<ServiceAvailabilityCheck> checks;
+
+	/**
+	 * Creates a check combining the given checks.
+	 *
+	 * @param composition
+	 * 	How to combine the checks, which must not be {@link AvailabilityComposition#FIRST_DEFINED}
+	 * @param checks
+	 * 	The checks to combine, in the order in which they are performed sequentially
+	 *
+	 * @throws IllegalArgumentException
+	 * 	If the checks are combined by using only the first one or if no checks are given
+	 */
+	public CompositeAvailabilityCheck(AvailabilityComposition composition, Iterable<ServiceAvailabilityCheck> checks)
+	{
+		if (composition == AvailabilityComposition.FIRST_DEFINED) {
+			throw new IllegalArgumentException("Checks cannot be combined by using only the first one");
+		}
+
+		this.composition = composition;
+		this.checks = List.ofAll(checks);
+
+		if (this.checks.isEmpty()) {
+			throw new IllegalArgumentException("At least one availability check is required");
+		}
+	}
+
+	@Override
+	public String description()
+	{
+		return checks.map(ServiceAvailabilityCheck::description)
+			.mkString(composition.name().toLowerCase(Locale.ROOT).replace('_', ' ') + " [", ", ", "]");
+	}
+
+	@Override
+	public boolean isRunning()
+	{
+		return (composition == AvailabilityComposition.ANY_OF)
+			? checks.exists(ServiceAvailabilityCheck::isRunning)
+			: checks.forAll(ServiceAvailabilityCheck::isRunning);
+	}
+
+	@Override
+	public CompletableFuture<Instant> whenAvailable(ProbeScheduler scheduler)
+	{
+		CompletableFuture<Instant> availability = new CompletableFuture<>();
+		Collection<CompletableFuture<Instant>> pendingChecks = new ConcurrentLinkedQueue<>();
+
+		switch (composition) {
+			case ANY_OF -> completeOnFirstPassed(availability, timedChecks(scheduler, pendingChecks));
+			case SEQUENTIAL -> checks
+				.foldLeft(
+					CompletableFuture.completedFuture(Instant.now()),
+					(previous, check) -> previous.thenCompose(passedAt -> availability.isDone()
+						? availability
+						: timed(check, scheduler, pendingChecks))
+				)
+				.whenComplete((availableAt, error) -> complete(availability, error));
+			default -> CompletableFuture
+				.allOf(timedChecks(scheduler, pendingChecks).toJavaList().toArray(new CompletableFuture<?>[0]))
+				.whenComplete((passed, error) -> complete(availability, error));
+		}
+
+		availability.whenComplete((availableAt, error) -> pendingChecks.forEach(check -> check.cancel(true)));
+
+		return availability;
+	}
+
+	private List<CompletableFuture<Instant>> timedChecks(
+		ProbeScheduler scheduler,
+		Collection<CompletableFuture<Instant>> pendingChecks)
+	{
+		return checks.map(check -> timed(check, scheduler, pendingChecks));
+	}
+
+	private static CompletableFuture<Instant> timed(
+		ServiceAvailabilityCheck check,
+		ProbeScheduler scheduler,
+		Collection<CompletableFuture<Instant>> pendingChecks)
+	{
+		Instant startedAt = Instant.now();
+		CompletableFuture<Instant> availability = check.whenAvailable(scheduler);
+
+		pendingChecks.add(availability);
+		availability.thenAccept(availableAt -> logger.lifecycle(
+			"Availability check {} passed after {} ms",
+			check.description(),
+			Duration.between(startedAt, availableAt).toMillis()
+		));
+
+		return availability;
+	}
+
+	/*
+	 * A check that has failed, such as a health URL that cannot be reached, does not decide the availability as long as
+	 * any other check may still pass. Only once all checks have failed, the combined availability fails with the error
+	 * of the last one.
+	 */
+	private static void completeOnFirstPassed(
+		CompletableFuture<Instant> availability,
+		List<CompletableFuture<Instant>> timedChecks)
+	{
+		AtomicInteger remainingChecks = new AtomicInteger(timedChecks.size());
+
+		timedChecks.forEach(check -> check.whenComplete((availableAt, error) -> {
+			if (error == null) {
+				availability.complete(Instant.now());
+			} else if (remainingChecks.decrementAndGet() == 0) {
+				complete(availability, error);
+			}
+		}));
+	}
+
+	/*
+	 * The combined availability completes at the time it has been decided, which is when the last check required has
+	 * passed.
+	 */
+	private static void complete(CompletableFuture<Instant> availability, Throwable error)
+	{
+		if (error == null) {
+			availability.complete(Instant.now());
+		} else {
+			availability.completeExceptionally(error);
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		checks.forEach(check -> Try.run(check::close));
+	}
+}
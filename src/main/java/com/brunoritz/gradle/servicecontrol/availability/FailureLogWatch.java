@@ -0,0 +1,132 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+import io.vavr.collection.List;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the logs of a starting service for messages indicating that its startup has failed. Some services
+ * report a failed startup, but keep their process alive because of remaining non-daemon threads. Without watching for
+ * such messages, the failure would only be noticed once the startup timeout has expired.
+ * <p>
+ * The log lines are watched by the threads of their sources, which signal the failure as soon as a line contains a
+ * match of any of the failure patterns. The watch has to be started after the service process has been launched, so
+ * that the log files of previous runs are not taken into account.
+ * <p>
+ * A failure is often reported by several lines, such as an exception and its causes. The failure is therefore only
+ * signalled {@value #REPORT_WINDOW_MILLIS} ms after the first matching line, or as soon as
+ * {@value #MAX_REPORTED_LINES} matching lines have been seen, and reports all matching lines seen until then.
+ * <p>
+ * Consumers have to ensure {@link #close()} be called once this watch is no longer needed.
+ */
+public final class FailureLogWatch
+	implements AutoCloseable
+{
+	private static final int MAX_REPORTED_LINES = 5;
+	private static final long REPORT_WINDOW_MILLIS = 200;
+
+	private final CompletableFuture<String> failure;
+	private final List<LogLineSource.Watch> watches;
+
+	private FailureLogWatch(CompletableFuture<String> failure, List<LogLineSource.Watch> watches)
+	{
+		this.failure = failure;
+		this.watches = watches;
+	}
+
+	/**
+	 * Starts watching the given log sources for the given failure patterns. If no failure patterns are given, the
+	 * returned watch never signals a failure and does not watch any source.
+	 *
+	 * @param logSources
+	 * 	The sources of the log lines to watch
+	 * @param failurePatterns
+	 * 	The regular expressions of messages indicating a failed startup
+	 *
+	 * @return The started watch
+	 *
+	 * @throws IllegalArgumentException
+	 * 	If any of the failure patterns is not a valid regular expression
+	 */
+	public static FailureLogWatch watch(Iterable<LogLineSource> logSources, Iterable<String> failurePatterns)
+	{
+		List<String> patterns = List.ofAll(failurePatterns);
+		FailureReport report = new FailureReport();
+
+		if (patterns.isEmpty()) {
+			return new FailureLogWatch(report.failure, List.empty());
+		}
+
+		List<LogLineSource.Watch> watches = List.ofAll(logSources)
+			.map(logSource -> logSource.watch(
+				new LogPatternMatcher(List.empty(), patterns, LogMatchMode.ANY_OF),
+				line -> report.add(String.format("%s: %s", logSource.name(), line))
+			));
+
+		return new FailureLogWatch(report.failure, watches);
+	}
+
+	/**
+	 * Returns a future that completes once a failure message has been spotted. The future completes with the lines
+	 * containing failure messages, each preceded by the name of its log source and separated by line breaks. It never
+	 * completes if no failure message is logged.
+	 */
+	public CompletableFuture<String> whenFailed()
+	{
+		return failure;
+	}
+
+	@Override
+	public void close()
+	{
+		watches.forEach(LogLineSource.Watch::close);
+	}
+
+	/**
+	 * Collects the matching lines of all log sources until the failure is signalled.
+	 */
+	private static final class FailureReport
+	{
+		private final CompletableFuture<String> failure;
+		private List<String> lines;
+
+		FailureReport()
+		{
+			failure = new CompletableFuture<>();
+			lines = List.empty();
+		}
+
+		void add(String line)
+		{
+			int seenLines = record(line);
+
+			if (seenLines == MAX_REPORTED_LINES) {
+				signal();
+			} else if (seenLines == 1) {
+				CompletableFuture.delayedExecutor(REPORT_WINDOW_MILLIS, TimeUnit.MILLISECONDS).execute(this::signal);
+			}
+		}
+
+		private synchronized int record(String line)
+		{
+			if (failure.isDone() || (lines.size() >= MAX_REPORTED_LINES)) {
+				return 0;
+			}
+
+			lines = lines.append(line);
+
+			return lines.size();
+		}
+
+		private void signal()
+		{
+			failure.complete(reportedLines());
+		}
+
+		private synchronized String reportedLines()
+		{
+			return lines.mkString("\n");
+		}
+	}
+}
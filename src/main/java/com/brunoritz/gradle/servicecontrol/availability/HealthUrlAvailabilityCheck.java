@@ -0,0 +1,120 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+import com.brunoritz.gradle.servicecontrol.launch.ProbeScheduler;
+import com.brunoritz.gradle.servicecontrol.launch.ServiceAvailabilityCheck;
+import io.vavr.control.Option;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+
+/**
+ * Checks whether a service is available by requesting its HTTP health endpoint. A service is considered running, if
+ * the endpoint responds with the expected status and, optionally, a body containing a match of the expected pattern.
+ * Unlike a listening socket, this tells whether the service is actually ready to serve requests.
+ * <p>
+ * All checks share a single HTTP client, which keeps the connections to the services alive between two probes. Each
+ * probe, including connecting to the service, is limited to the probe timeout, so a service accepting connections
+ * before it is able to respond does not delay further probes. The requests are sent asynchronously, so waiting for
+ * the response does not block a thread per probe.
+ */
+public class HealthUrlAvailabilityCheck
+	implements ServiceAvailabilityCheck
+{
+	/**
+	 * The time after which a single probe is considered failed, unless another timeout is given.
+	 */
+	public static final Duration DEFAULT_PROBE_TIMEOUT = Duration.ofSeconds(1);
+
+	private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_1_1)
+		.followRedirects(HttpClient.Redirect.NORMAL)
+		.build();
+
+	private final HttpRequest probe;
+	private final int expectedStatus;
+	private final Option<Pattern> expectedBody;
+
+	/**
+	 * Creates a check probing the given health endpoint.
+	 *
+	 * @param healthUrl
+	 * 	The URL of the health endpoint to request
+	 * @param expectedStatus
+	 * 	The status code of a healthy response
+	 * @param expectedBody
+	 * 	The pattern the body of a healthy response has to contain a match of, or {@code none}, if the body does not
+	 * 	matter
+	 * @param probeTimeout
+	 * 	The time after which a single probe is considered failed, if the service has not responded
+	 *
+	 * @throws IllegalArgumentException
+	 * 	If the URL is not an HTTP URL
+	 */
+	public HealthUrlAvailabilityCheck(
+		URI healthUrl,
+		int expectedStatus,
+		Option<Pattern> expectedBody,
+		Duration probeTimeout)
+	{
+		this.probe = HttpRequest.newBuilder(healthUrl)
+			.timeout(probeTimeout)
+			.GET()
+			.build();
+		this.expectedStatus = expectedStatus;
+		this.expectedBody = expectedBody;
+	}
+
+	@Override
+	public String description()
+	{
+		return "health endpoint " + probe.uri();
+	}
+
+	@Override
+	public boolean isRunning()
+	{
+		try {
+			return probe().get();
+		} catch (ExecutionException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	@Override
+	public CompletableFuture<Instant> whenAvailable(ProbeScheduler scheduler)
+	{
+		return scheduler.probeAsyncUntil(this::probe);
+	}
+
+	/*
+	 * A request that fails, for example because the service does not accept connections yet, is an unsuccessful probe
+	 * rather than an error.
+	 */
+	private CompletableFuture<Boolean> probe()
+	{
+		return HTTP_CLIENT.sendAsync(probe, HttpResponse.BodyHandlers.ofString())
+			.handle((response, error) -> (error == null) && isHealthy(response));
+	}
+
+	private boolean isHealthy(HttpResponse<String> response)
+	{
+		return (response.statusCode() == expectedStatus)
+			&& expectedBody.forAll(pattern -> pattern.matcher(response.body()).find());
+	}
+
+	@Override
+	public void close()
+	{
+		// No operation - The HTTP client is shared by all checks
+	}
+}
@@ -0,0 +1,136 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+import com.brunoritz.gradle.servicecontrol.launch.ServiceAvailabilityCheck;
+import io.vavr.collection.List;
+import io.vavr.collection.Set;
+import io.vavr.control.Try;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Checks whether a service is available by looking for a socket of the service process listening on a given port. A
+ * service is considered running, if the service process or any of its descendants owns a listening TCP socket bound to
+ * the port, on any address, IPv4 or IPv6.
+ * <p>
+ * Unlike connecting to the port, this check neither causes any connection the service might log or count, nor
+ * mistakes another process that grabbed the port for the service. The listening sockets are read from
+ * {@code /proc/net/tcp} and {@code /proc/net/tcp6} and matched against the socket inodes the file descriptors of the
+ * processes refer to, in {@code /proc/<pid>/fd}. This is supported on Linux only.
+ */
+public final class ListeningSocketAvailabilityCheck
+	implements ServiceAvailabilityCheck
+{
+	private static final Path PROC = Path.of("/proc");
+	private static final String LISTEN_STATE = "0A";
+	private static final String SOCKET_LINK_PREFIX = "socket:[";
+
+	private final ProcessHandle serviceProcess;
+	private final int port;
+	private final Path procRoot;
+
+	/**
+	 * Creates a check looking for a socket of the given process listening on the given port.
+	 *
+	 * @param serviceProcess
+	 * 	The process of the service, whose descendants are inspected as well
+	 * @param port
+	 * 	The port on which the service listens
+	 */
+	public ListeningSocketAvailabilityCheck(ProcessHandle serviceProcess, int port)
+	{
+		this(serviceProcess, port, PROC);
+	}
+
+	ListeningSocketAvailabilityCheck(ProcessHandle serviceProcess, int port, Path procRoot)
+	{
+		this.serviceProcess = serviceProcess;
+		this.port = port;
+		this.procRoot = procRoot;
+	}
+
+	/**
+	 * Indicates whether the listening sockets of processes can be inspected on this system.
+	 */
+	public static boolean isSupported()
+	{
+		return Files.isReadable(PROC.resolve("net/tcp"));
+	}
+
+	@Override
+	public String description()
+	{
+		return "listening socket on port " + port;
+	}
+
+	@Override
+	public boolean isRunning()
+	{
+		Set<String> listeningSockets = listeningSocketInodes("tcp").addAll(listeningSocketInodes("tcp6"));
+
+		if (listeningSockets.isEmpty()) {
+			return false;
+		}
+
+		return Stream.concat(Stream.of(serviceProcess), serviceProcess.descendants())
+			.anyMatch(process -> ownsAnyOf(process.pid(), listeningSockets));
+	}
+
+	/*
+	 * Each line of the socket table lists, separated by whitespace, the slot, the local and the remote address, the
+	 * state and, as its tenth field, the inode of the socket. The addresses are hexadecimal, the port following the
+	 * colon.
+	 */
+	private Set<String> listeningSocketInodes(String socketTable)
+	{
+		List<String> lines = Try.of(() -> List.ofAll(Files.readAllLines(procRoot.resolve("net").resolve(socketTable))))
+			.getOrElse(List.empty());
+
+		return lines.drop(1)
+			.map(line -> line.trim().split("\\s+"))
+			.filter(fields -> (fields.length > 9) && LISTEN_STATE.equals(fields[3]) && isBoundToPort(fields[1]))
+			.map(fields -> fields[9])
+			.toSet();
+	}
+
+	private boolean isBoundToPort(String localAddress)
+	{
+		int portSeparator = localAddress.lastIndexOf(':');
+
+		return Try.of(() -> Integer.parseInt(localAddress.substring(portSeparator + 1), 16))
+			.map(boundPort -> boundPort == port)
+			.getOrElse(false);
+	}
+
+	/*
+	 * The file descriptors of processes owned by other users cannot be read, and processes may terminate while being
+	 * inspected. Neither of them owns any socket as far as this check is concerned.
+	 */
+	private boolean ownsAnyOf(long pid, Set<String> sockets)
+	{
+		try (DirectoryStream<Path> fileDescriptors = Files.newDirectoryStream(procRoot.resolve(pid + "/fd"))) {
+			for (Path fileDescriptor : fileDescriptors) {
+				String target = Try.of(() -> Files.readSymbolicLink(fileDescriptor).toString()).getOrElse("");
+
+				if (target.startsWith(SOCKET_LINK_PREFIX)
+					&& sockets.contains(target.substring(SOCKET_LINK_PREFIX.length(), target.length() - 1))) {
+					return true;
+				}
+			}
+		} catch (IOException | DirectoryIteratorException e) {
+			return false;
+		}
+
+		return false;
+	}
+
+	@Override
+	public void close()
+	{
+		// No operation - No permanent resources allocated
+	}
+}
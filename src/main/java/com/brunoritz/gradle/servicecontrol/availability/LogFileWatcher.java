@@ -0,0 +1,328 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Follows all watched log files using a single daemon thread, regardless of the number of services being started. The
+ * thread waits for modifications of the watched files reported by the file system, so new lines are matched as soon as
+ * they have been written. Each file is also checked for new content once every {@link #POLL_INTERVAL}, which covers
+ * file systems that do not report modifications at all or report them late. While no file is watched, the thread
+ * sleeps without any timeout.
+ * <p>
+ * The watcher keeps track of the offset up to which each file has been read and only reads the content appended since,
+ * which is then dispatched to the watches of the file. A watch begun on a file after it has already been read from
+ * reads the file from its beginning, hence it does not miss any lines. Files are opened for reading new content only,
+ * so the watcher does not keep any file open.
+ * <p>
+ * The content present when a watch is begun is read by the thread beginning the watch, so lines already written are
+ * matched without any delay. Hence, consumers of the watches are notified either on that thread or on the watcher
+ * thread, but never on two threads at the same time.
+ */
+final class LogFileWatcher
+{
+	/**
+	 * The interval at which the watched files are checked for new content, even if no modification has been reported.
+	 */
+	static final Duration POLL_INTERVAL = Duration.ofSeconds(1);
+
+	private static final Logger logger = Logging.getLogger(LogFileWatcher.class);
+	private static final int BUFFER_SIZE = 8192;
+	private static final LogFileWatcher SHARED = new LogFileWatcher(
+		Try.of(() -> FileSystems.getDefault().newWatchService())
+			.onFailure(error -> logger.info("Log files are polled, as modifications cannot be watched", error))
+			.toOption()
+	);
+
+	private final Option<WatchService> modifications;
+	private final Map<Path, List<FileReader>> readersByFile;
+	private final Map<Path, WatchKey> watchedDirectories;
+	private final byte[] buffer;
+	private boolean started;
+	private long lastPolledAt;
+
+	/**
+	 * Creates a watcher, which does not start its thread until the first watch is begun.
+	 *
+	 * @param modifications
+	 * 	The service reporting the modifications of the watched files, or nothing if the files may only be polled
+	 */
+	LogFileWatcher(Option<WatchService> modifications)
+	{
+		this.modifications = modifications;
+		this.readersByFile = new HashMap<>();
+		this.watchedDirectories = new HashMap<>();
+		this.buffer = new byte[BUFFER_SIZE];
+		this.started = false;
+		this.lastPolledAt = System.nanoTime();
+	}
+
+	/**
+	 * Returns the watcher shared by all log files of all services.
+	 */
+	static LogFileWatcher shared()
+	{
+		return SHARED;
+	}
+
+	/**
+	 * Begins matching the lines of the given file from its beginning. The content already present is matched before
+	 * this method returns.
+	 *
+	 * @param logFile
+	 * 	The file to follow, which may not exist yet
+	 * @param expectedLines
+	 * 	The matcher of the expected lines
+	 * @param matched
+	 * 	The consumer to notify, once the matcher has been satisfied
+	 *
+	 * @return The watch, which has to be closed once matching is no longer needed
+	 */
+	synchronized LogLineSource.Watch watch(File logFile, LogPatternMatcher expectedLines, Consumer<String> matched)
+	{
+		Path file = logFile.toPath().toAbsolutePath().normalize();
+		List<FileReader> readers = readersByFile.computeIfAbsent(file, path -> new ArrayList<>());
+		FileReader reader = Option.ofOptional(readers.stream().filter(FileReader::isUnread).findFirst())
+			.getOrElse(() -> new FileReader(file));
+		Subscription subscription = new Subscription(expectedLines, matched);
+
+		if (reader.subscriptions.isEmpty()) {
+			readers.add(reader);
+		}
+
+		reader.subscriptions.add(subscription);
+		watchDirectoryOf(file);
+		startIfRequired();
+		read(reader);
+		notifyAll();
+
+		return () -> unwatch(reader, subscription);
+	}
+
+	private void watchDirectoryOf(Path file)
+	{
+		Option<Path> directory = Option.of(file.getParent());
+
+		directory
+			.filter(parent -> !watchedDirectories.containsKey(parent))
+			.forEach(parent -> modifications.forEach(service -> Try.of(() -> parent.register(
+					service,
+					StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY
+				))
+				.onSuccess(key -> watchedDirectories.put(parent, key))
+				.onFailure(error -> logger.debug("Polling {}, as it cannot be watched", parent, error))));
+	}
+
+	private void startIfRequired()
+	{
+		if (!started) {
+			Thread watcherThread = new Thread(this::dispatchModifications, "service-control-log-watcher");
+
+			watcherThread.setDaemon(true);
+			watcherThread.start();
+			started = true;
+		}
+	}
+
+	private synchronized void unwatch(FileReader reader, Subscription subscription)
+	{
+		reader.subscriptions.remove(subscription);
+
+		List<FileReader> readers = readersByFile.get(reader.file);
+
+		if (reader.subscriptions.isEmpty() && (readers != null)) {
+			readers.remove(reader);
+
+			if (readers.isEmpty()) {
+				forget(reader.file);
+			}
+		}
+	}
+
+	private void forget(Path file)
+	{
+		Path directory = file.getParent();
+
+		readersByFile.remove(file);
+
+		if ((directory != null) && !isWatchedDirectory(directory)) {
+			WatchKey key = watchedDirectories.remove(directory);
+
+			if (key != null) {
+				key.cancel();
+			}
+		}
+	}
+
+	private boolean isWatchedDirectory(Path directory)
+	{
+		return readersByFile.keySet().stream().anyMatch(file -> directory.equals(file.getParent()));
+	}
+
+	/*
+	 * The body of the watcher thread, which runs until the watch service fails.
+	 */
+	private void dispatchModifications()
+	{
+		try {
+			while (true) {
+				awaitWatchedFiles();
+
+				Option<WatchKey> modified = awaitModification();
+
+				synchronized (this) {
+					modified.forEach(this::dispatch);
+
+					if (System.nanoTime() - lastPolledAt >= POLL_INTERVAL.toNanos()) {
+						pollAll();
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e) {
+			logger.warn("Stopped watching log files, as the watch service has been closed", e);
+		}
+	}
+
+	private synchronized void awaitWatchedFiles()
+		throws InterruptedException
+	{
+		while (readersByFile.isEmpty()) {
+			wait();
+		}
+	}
+
+	private Option<WatchKey> awaitModification()
+		throws InterruptedException
+	{
+		if (modifications.isEmpty()) {
+			Thread.sleep(POLL_INTERVAL.toMillis());
+
+			return Option.none();
+		}
+
+		return Option.of(modifications.get().poll(POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS));
+	}
+
+	private void dispatch(WatchKey key)
+	{
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				pollAll();
+			} else if (key.watchable() instanceof Path directory && event.context() instanceof Path fileName) {
+				List<FileReader> readers = readersByFile.get(directory.resolve(fileName));
+
+				if (readers != null) {
+					List.copyOf(readers).forEach(this::read);
+				}
+			}
+		}
+
+		key.reset();
+	}
+
+	private void pollAll()
+	{
+		lastPolledAt = System.nanoTime();
+		readersByFile.values().stream()
+			.flatMap(List::stream)
+			.toList()
+			.forEach(this::read);
+	}
+
+	/*
+	 * Only called while holding the lock of the watcher. The length is checked first, so that unchanged files are not
+	 * opened at all. A file shorter than the offset read so far has been replaced, hence it is read from its beginning.
+	 */
+	private void read(FileReader reader)
+	{
+		File file = reader.file.toFile();
+		long length = file.length();
+
+		if (length < reader.offset) {
+			reader.offset = 0;
+			reader.decoder.reset(true);
+		}
+
+		if (length == reader.offset) {
+			return;
+		}
+
+		try (RandomAccessFile content = new RandomAccessFile(file, "r")) {
+			content.seek(reader.offset);
+
+			int bytesRead = content.read(buffer);
+
+			while ((bytesRead > 0) && !reader.subscriptions.isEmpty()) {
+				reader.offset += bytesRead;
+				reader.decoder.decode(buffer, bytesRead);
+				bytesRead = content.read(buffer);
+			}
+		} catch (IOException e) {
+			logger.debug("Failed to read new content of {}", file, e);
+		}
+	}
+
+	/*
+	 * Reads a file for a group of watches, which have been begun before the first content has been read for them.
+	 * Only accessed while holding the lock of the watcher.
+	 */
+	private static final class FileReader
+	{
+		private final Path file;
+		private final List<Subscription> subscriptions;
+		private final LogLineDecoder decoder;
+		private long offset;
+
+		private FileReader(Path file)
+		{
+			List<Subscription> fileSubscriptions = new ArrayList<>();
+
+			this.file = file;
+			this.subscriptions = fileSubscriptions;
+			this.decoder = new LogLineDecoder(Charset.defaultCharset(), line -> match(fileSubscriptions, line));
+			this.offset = 0;
+		}
+
+		private boolean isUnread()
+		{
+			return offset == 0;
+		}
+
+		private static void match(List<Subscription> subscriptions, CharSequence line)
+		{
+			for (Subscription subscription : List.copyOf(subscriptions)) {
+				if (subscription.expectedLines().matches(line)) {
+					subscription.matched().accept(line.toString());
+				}
+			}
+		}
+	}
+
+	private record Subscription(LogPatternMatcher expectedLines, Consumer<String> matched)
+	{
+	}
+}
@@ -0,0 +1,117 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.function.Consumer;
+
+/**
+ * Decodes the bytes written by a service into log lines, as they arrive in chunks of arbitrary size. Characters
+ * spanning two chunks are decoded correctly. Lines are passed on without their line terminator and are truncated to
+ * the first {@value LogPatternMatcher#MAX_SCANNED_LENGTH} characters, as only those are matched.
+ * <p>
+ * The line passed on is a buffer that is reused for the next line, so decoding does not allocate any objects. Consumers
+ * have to copy the line if they keep it. Instances are not thread safe.
+ */
+public final class LogLineDecoder
+{
+	private static final int BUFFER_SIZE = 8192;
+
+	private final Consumer<CharSequence> lineConsumer;
+	private final CharsetDecoder decoder;
+	private final ByteBuffer undecodedBytes;
+	private final CharBuffer decodedChars;
+	private final StringBuilder currentLine;
+	private boolean discardingLine;
+
+	/**
+	 * Creates a decoder passing on the lines to the given consumer.
+	 *
+	 * @param charset
+	 * 	The charset in which the service writes its output
+	 * @param lineConsumer
+	 * 	The consumer to pass each complete line to
+	 */
+	public LogLineDecoder(Charset charset, Consumer<CharSequence> lineConsumer)
+	{
+		this.lineConsumer = lineConsumer;
+		this.decoder = charset.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.undecodedBytes = ByteBuffer.allocate(BUFFER_SIZE);
+		this.decodedChars = CharBuffer.allocate(BUFFER_SIZE);
+		this.currentLine = new StringBuilder();
+		this.discardingLine = false;
+	}
+
+	/**
+	 * Decodes the next chunk of bytes, passing on the lines completed by it.
+	 *
+	 * @param chunk
+	 * 	The buffer holding the chunk
+	 * @param length
+	 * 	The number of bytes in the buffer that belong to the chunk
+	 */
+	public void decode(byte[] chunk, int length)
+	{
+		int offset = 0;
+
+		while (offset < length) {
+			int bytesTaken = Math.min(length - offset, undecodedBytes.remaining());
+
+			undecodedBytes.put(chunk, offset, bytesTaken);
+			undecodedBytes.flip();
+			decodeBuffered();
+			undecodedBytes.compact();
+			offset += bytesTaken;
+		}
+	}
+
+	private void decodeBuffered()
+	{
+		CoderResult result = CoderResult.OVERFLOW;
+
+		while (result.isOverflow()) {
+			result = decoder.decode(undecodedBytes, decodedChars, false);
+			decodedChars.flip();
+			splitLines();
+			decodedChars.clear();
+		}
+	}
+
+	private void splitLines()
+	{
+		while (decodedChars.hasRemaining()) {
+			char character = decodedChars.get();
+
+			if (character == '\n') {
+				if (!discardingLine) {
+					lineConsumer.accept(currentLine);
+				}
+
+				currentLine.setLength(0);
+				discardingLine = false;
+			} else if ((character != '\r') && (currentLine.length() < LogPatternMatcher.MAX_SCANNED_LENGTH)) {
+				currentLine.append(character);
+			}
+		}
+	}
+
+	/**
+	 * Discards the bytes decoded so far. If the next chunk does not start at a line boundary, the rest of the current
+	 * line is discarded as well, as it is incomplete.
+	 *
+	 * @param atLineBoundary
+	 * 	Whether the next chunk starts at the beginning of a line, such as the beginning of a file
+	 */
+	public void reset(boolean atLineBoundary)
+	{
+		undecodedBytes.clear();
+		decoder.reset();
+		currentLine.setLength(0);
+		discardingLine = !atLineBoundary;
+	}
+}
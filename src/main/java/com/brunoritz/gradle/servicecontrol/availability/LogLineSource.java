@@ -0,0 +1,44 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+import java.util.function.Consumer;
+
+/**
+ * A source of the log lines written by a service, such as its log file or the output stream of its process. Log
+ * lines are matched against expected patterns by the source itself, so that sources that read the output of the
+ * service anyway can match the lines as they pass by.
+ */
+public interface LogLineSource
+{
+	/**
+	 * Returns the name of the source, as shown to users, such as the name of the log file.
+	 */
+	String name();
+
+	/**
+	 * Begins matching the log lines against the given matcher. The lines written before the watch has been begun may
+	 * or may not be matched, depending on the source. Once the matcher has been satisfied, the given consumer is
+	 * notified with the line that satisfied it, on a thread of the source or on the thread beginning the watch.
+	 * The consumer may be notified more than once, so it has to ignore repeated notifications.
+	 *
+	 * @param expectedLines
+	 * 	The matcher of the expected lines, which is only used by a single thread
+	 * @param matched
+	 * 	The consumer to notify, once the matcher has been satisfied
+	 *
+	 * @return The watch, which has to be closed once matching is no longer needed
+	 */
+	Watch watch(LogPatternMatcher expectedLines, Consumer<String> matched);
+
+	/**
+	 * An ongoing watch for expected log lines.
+	 */
+	interface Watch
+		extends AutoCloseable
+	{
+		/**
+		 * Stops matching the log lines. Closing a watch more than once has no effect.
+		 */
+		@Override
+		void close();
+	}
+}
@@ -0,0 +1,18 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+/**
+ * Defines how many of the expected log patterns have to be encountered before a service is considered available.
+ */
+public enum LogMatchMode
+{
+	/**
+	 * The service is available as soon as any of the patterns has been encountered.
+	 */
+	ANY_OF,
+
+	/**
+	 * The service is available once each of the patterns has been encountered, in any order and not necessarily in
+	 * the same line.
+	 */
+	ALL_OF
+}
@@ -1,50 +1,78 @@
 package com.brunoritz.gradle.servicecontrol.availability;
 
+import com.brunoritz.gradle.servicecontrol.launch.ProbeScheduler;
 import com.brunoritz.gradle.servicecontrol.launch.ServiceAvailabilityCheck;
-import org.apache.commons.io.input.Tailer;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 
 import java.io.File;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Checks whether a service is available by looking for a specific log message in the service's standard output log
- * file. A service is considered running, if any message is found that contains the specified text.
+ * Checks whether a service is available by looking for specific log messages in the service's standard output. A
+ * service is considered running, once the messages have been found as required by the given matcher. The values
+ * captured by the matcher are logged once the service has become available.
+ * <p>
+ * The log lines are watched by the thread of their source, which signals the availability as soon as the message has
+ * been spotted. Hence, waiting for the service to become available does not require periodic polling. The watch is
+ * begun as soon as the check is created, so that the lines logged before the availability is first asked for are
+ * matched as well. Hence, the check has to be created after the service has been launched, so that a stale log file is
+ * not matched, but before its output is copied.
  * <p>
  * Consumers have to ensure {@link #close()} be called once this checker is no longer needed.
  */
 public class LogMessageAvailabilityCheck
 	implements ServiceAvailabilityCheck
 {
-	private final AtomicBoolean serviceRunning;
-	private final Thread tailerThread;
-	private final Tailer tailer;
+	private static final Logger logger = Logging.getLogger(LogMessageAvailabilityCheck.class);
+
+	private final CompletableFuture<Instant> serviceRunning;
+	private final LogLineSource standardOutput;
+	private final LogLineSource.Watch watch;
 
 	public LogMessageAvailabilityCheck(File logFile, String expectedLogMessage)
 	{
-		serviceRunning = new AtomicBoolean();
-		tailer = Tailer.builder()
-			.setFile(logFile)
-			.setTailerListener(new LogMessageListener(expectedLogMessage, serviceRunning))
-			.get();
-		tailerThread = new Thread(tailer);
-		tailerThread.setDaemon(true);
+		this(TailedLogFile.of(logFile), LogPatternMatcher.literal(expectedLogMessage));
+	}
+
+	public LogMessageAvailabilityCheck(LogLineSource standardOutput, LogPatternMatcher expectedLogMessages)
+	{
+		CompletableFuture<Instant> running = new CompletableFuture<>();
+
+		this.serviceRunning = running;
+		this.standardOutput = standardOutput;
+		this.watch = standardOutput.watch(expectedLogMessages, line -> running.complete(Instant.now()));
+
+		running.thenRun(() -> expectedLogMessages.capturedValues().forEach((name, value) -> logger.lifecycle(
+			"Log {} reported {}: {}",
+			standardOutput.name(),
+			name,
+			value
+		)));
+	}
+
+	@Override
+	public String description()
+	{
+		return "log " + standardOutput.name();
 	}
 
 	@Override
 	public boolean isRunning()
 	{
-		// Important: Only start the tailer thread here as otherwise an existing file may be tailed, leading to wrong
-		// results, if it already contains the success message string
-		if (!serviceRunning.get() && !tailerThread.isAlive()) {
-			tailerThread.start();
-		}
+		return serviceRunning.isDone();
+	}
 
-		return serviceRunning.get();
+	@Override
+	public CompletableFuture<Instant> whenAvailable(ProbeScheduler scheduler)
+	{
+		return serviceRunning.thenApply(availableAt -> availableAt);
 	}
 
 	@Override
 	public void close()
 	{
-		tailer.close();
+		watch.close();
 	}
 }
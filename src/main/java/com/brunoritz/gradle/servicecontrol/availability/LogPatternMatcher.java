@@ -0,0 +1,172 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches log lines against a number of expected patterns, which may be literal messages or regular expressions. A
+ * line only needs to contain a pattern, rather than match it as a whole. The matcher keeps track of the patterns
+ * encountered so far and is satisfied once any or all of them have been encountered, depending on its mode.
+ * <p>
+ * Literal messages are found in a single pass over the line, regardless of their number. Regular expressions are
+ * compiled once and their matchers reused for every line, so that matching does not allocate any objects until a
+ * pattern is encountered. Patterns that have been encountered are not looked for anymore. Only the first
+ * {@value #MAX_SCANNED_LENGTH} characters of a line are scanned, which keeps services logging huge lines, such as
+ * serialized payloads, from slowing down the matching.
+ * <p>
+ * The values of the named groups of the regular expressions are captured when the expression is encountered, which
+ * allows reporting information logged by the service, such as the time it took to start.
+ * <p>
+ * Instances are not thread safe and are meant to be fed by a single thread.
+ */
+public final class LogPatternMatcher
+{
+	/**
+	 * The number of characters at the beginning of a line that are scanned for the patterns.
+	 */
+	public static final int MAX_SCANNED_LENGTH = 8192;
+
+	private static final Pattern GROUP_NAME = Pattern.compile("(?<!\\\\)\\(\\?<([a-zA-Z][a-zA-Z0-9]*)>");
+
+	private final LogMatchMode mode;
+	private final AhoCorasickAutomaton literals;
+	private final int literalCount;
+	private final Matcher[] expressions;
+	private final List<List<String>> groupNames;
+	private final boolean[] encountered;
+	private int encounteredCount;
+	private Map<String, String> capturedValues;
+
+	/**
+	 * Creates a matcher expecting the given patterns.
+	 *
+	 * @param literalPatterns
+	 * 	The messages to expect literally
+	 * @param regularExpressions
+	 * 	The regular expressions to expect, whose named groups are captured
+	 * @param mode
+	 * 	Whether any or all of the patterns have to be encountered
+	 *
+	 * @throws IllegalArgumentException
+	 * 	If no pattern has been given, or if any of the regular expressions is not valid
+	 */
+	public LogPatternMatcher(
+		Iterable<String> literalPatterns,
+		Iterable<String> regularExpressions,
+		LogMatchMode mode)
+	{
+		List<String> literalList = List.ofAll(literalPatterns);
+		List<Pattern> expressionList = List.ofAll(regularExpressions).map(Pattern::compile);
+
+		if (literalList.isEmpty() && expressionList.isEmpty()) {
+			throw new IllegalArgumentException("At least one log pattern is required");
+		}
+
+		this.mode = mode;
+		this.literals = new AhoCorasickAutomaton(literalList.asJava());
+		this.literalCount = literalList.size();
+		this.expressions = expressionList.map(expression -> expression.matcher("")).toJavaArray(Matcher[]::new);
+		this.groupNames = expressionList.map(LogPatternMatcher::namedGroupsOf);
+		this.encountered = new boolean[literalList.size() + expressionList.size()];
+		this.encounteredCount = 0;
+		this.capturedValues = LinkedHashMap.empty();
+	}
+
+	/**
+	 * Creates a matcher expecting a single literal message.
+	 *
+	 * @param message
+	 * 	The message to expect
+	 */
+	public static LogPatternMatcher literal(String message)
+	{
+		return new LogPatternMatcher(List.of(message), List.empty(), LogMatchMode.ANY_OF);
+	}
+
+	/*
+	 * The Java 17 API does not expose the names of the groups of a pattern, hence they are extracted from the
+	 * expression itself.
+	 */
+	private static List<String> namedGroupsOf(Pattern expression)
+	{
+		Matcher groupName = GROUP_NAME.matcher(expression.pattern());
+		List<String> names = List.empty();
+
+		while (groupName.find()) {
+			Option<String> name = Option.of(groupName.group(1));
+
+			names = names.appendAll(name);
+		}
+
+		return names;
+	}
+
+	/**
+	 * Matches a log line against the patterns that have not been encountered so far.
+	 *
+	 * @param line
+	 * 	The log line to match, without its line terminator
+	 *
+	 * @return Whether the matcher is satisfied after having matched the line
+	 */
+	public boolean matches(CharSequence line)
+	{
+		if (isSatisfied()) {
+			return true;
+		}
+
+		int scannedLength = Math.min(line.length(), MAX_SCANNED_LENGTH);
+
+		encounteredCount += literals.scan(line, scannedLength, encountered);
+
+		for (int expression = 0; expression < expressions.length; expression++) {
+			if (!encountered[literalCount + expression]) {
+				Matcher matcher = expressions[expression].reset(line).region(0, scannedLength);
+
+				if (matcher.find()) {
+					encountered[literalCount + expression] = true;
+					encounteredCount++;
+					capture(matcher, groupNames.get(expression));
+				}
+			}
+		}
+
+		return isSatisfied();
+	}
+
+	private void capture(Matcher matcher, List<String> names)
+	{
+		for (String name : names) {
+			Option<String> value = Option.of(matcher.group(name));
+
+			capturedValues = value
+				.filter(capturedValue -> !capturedValues.containsKey(name))
+				.map(capturedValue -> capturedValues.put(name, capturedValue))
+				.getOrElse(capturedValues);
+		}
+	}
+
+	/**
+	 * Indicates whether the patterns have been encountered as required by the mode of this matcher.
+	 */
+	public boolean isSatisfied()
+	{
+		return (mode == LogMatchMode.ALL_OF)
+			? (encounteredCount == encountered.length)
+			: (encounteredCount > 0);
+	}
+
+	/**
+	 * Returns the values captured by the named groups of the regular expressions encountered so far, by the name of
+	 * the group. If a group name is used by more than one expression, the value captured first is kept.
+	 */
+	public Map<String, String> capturedValues()
+	{
+		return capturedValues;
+	}
+}
@@ -0,0 +1,188 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+import com.brunoritz.gradle.servicecontrol.launch.ProbeScheduler;
+import com.brunoritz.gradle.servicecontrol.launch.ServiceAvailabilityCheck;
+import io.vavr.control.Try;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.File;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Checks whether a service is available by looking for a marker file the service creates once it has started, such as
+ * a file written by a script or the socket file of an embedded database. Optionally, the file is required to have
+ * content, so services may create it before writing to it.
+ * <p>
+ * The directory of the file is watched for the file being created or modified, so the availability is detected as
+ * soon as the file system reports it, without polling. The file is looked for once more after the watch has been
+ * registered, which covers files created before. If the directory cannot be watched, the file is probed instead.
+ * <p>
+ * Marker files left over from previous runs have to be deleted before the service is launched, see
+ * {@link #prepare(File)}. Consumers have to ensure {@link #close()} be called once this checker is no longer needed.
+ */
+public final class MarkerFileAvailabilityCheck
+	implements ServiceAvailabilityCheck
+{
+	private static final Logger logger = Logging.getLogger(MarkerFileAvailabilityCheck.class);
+
+	private final Path markerFile;
+	private final boolean requireContent;
+	private final Queue<WatchService> watches;
+
+	/**
+	 * Creates a check looking for the given marker file.
+	 *
+	 * @param markerFile
+	 * 	The file the service creates once it has started
+	 * @param requireContent
+	 * 	Whether the file has to have content, rather than only to exist
+	 */
+	public MarkerFileAvailabilityCheck(File markerFile, boolean requireContent)
+	{
+		this.markerFile = markerFile.toPath().toAbsolutePath().normalize();
+		this.requireContent = requireContent;
+		this.watches = new ConcurrentLinkedQueue<>();
+	}
+
+	/**
+	 * Prepares the given marker file for a service about to be launched. A marker file left over from a previous run
+	 * is deleted, so it is not mistaken for the service having started. The directory of the file is created, so it
+	 * can be watched.
+	 *
+	 * @param markerFile
+	 * 	The file the service creates once it has started
+	 *
+	 * @return Nothing or the error encountered while preparing the file
+	 */
+	public static Try<Void> prepare(File markerFile)
+	{
+		Path file = markerFile.toPath().toAbsolutePath().normalize();
+
+		return Try.run(() -> {
+			Files.deleteIfExists(file);
+
+			Path directory = file.getParent();
+
+			if (directory != null) {
+				Files.createDirectories(directory);
+			}
+		});
+	}
+
+	@Override
+	public String description()
+	{
+		return "marker file " + markerFile.getFileName();
+	}
+
+	@Override
+	public boolean isRunning()
+	{
+		if (requireContent) {
+			return Try.of(() -> Files.size(markerFile) > 0).getOrElse(false);
+		}
+
+		return Files.exists(markerFile);
+	}
+
+	@Override
+	public CompletableFuture<Instant> whenAvailable(ProbeScheduler scheduler)
+	{
+		Path directory = markerFile.getParent();
+		Try<WatchService> watch = (directory != null)
+			? watchDirectory(directory)
+			: Try.failure(new IllegalArgumentException("The marker file has no directory"));
+
+		if (watch.isFailure()) {
+			logger.info("Probing {}, as its directory cannot be watched", markerFile, watch.getCause());
+
+			return scheduler.probeUntil(this::isRunning);
+		}
+
+		CompletableFuture<Instant> availability = new CompletableFuture<>();
+		Thread watcher = new Thread(
+			() -> awaitMarker(watch.get(), availability),
+			"service-control-marker-watcher-" + markerFile.getFileName()
+		);
+
+		watches.add(watch.get());
+		availability.whenComplete((availableAt, error) -> stopWatching(watch.get()));
+		watcher.setDaemon(true);
+		watcher.start();
+
+		return availability;
+	}
+
+	private Try<WatchService> watchDirectory(Path directory)
+	{
+		return Try.of(() -> markerFile.getFileSystem().newWatchService())
+			.flatMap(service -> Try
+				.run(() -> directory.register(
+					service,
+					StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY
+				))
+				.map(registered -> service)
+				.onFailure(error -> Try.run(service::close))
+			);
+	}
+
+	/*
+	 * The body of the watcher thread, which blocks until the file system reports a change of the marker file. It ends
+	 * once the watch service has been closed.
+	 */
+	private void awaitMarker(WatchService watch, CompletableFuture<Instant> availability)
+	{
+		try {
+			while (!isRunning()) {
+				awaitChangeOfMarker(watch);
+			}
+
+			availability.complete(Instant.now());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException ignored) {
+			// Waiting for the service has been cancelled or the check has been closed
+		}
+	}
+
+	private void awaitChangeOfMarker(WatchService watch)
+		throws InterruptedException
+	{
+		boolean markerChanged = false;
+
+		while (!markerChanged) {
+			WatchKey key = watch.take();
+
+			for (WatchEvent<?> event : key.pollEvents()) {
+				markerChanged |= (event.kind() == StandardWatchEventKinds.OVERFLOW)
+					|| (event.context() instanceof Path changedFile && markerFile.endsWith(changedFile));
+			}
+
+			key.reset();
+		}
+	}
+
+	private void stopWatching(WatchService watch)
+	{
+		watches.remove(watch);
+		Try.run(watch::close);
+	}
+
+	@Override
+	public void close()
+	{
+		watches.forEach(this::stopWatching);
+	}
+}
@@ -0,0 +1,198 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+import com.brunoritz.gradle.servicecontrol.launch.ProbeScheduler;
+import com.brunoritz.gradle.servicecontrol.launch.ServiceAvailabilityCheck;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+import io.vavr.control.Try;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Checks whether a service is available by waiting for the service to announce its readiness, the way services
+ * announce it to systemd. The path of a Unix domain socket is passed to the service in the environment variable
+ * {@value #NOTIFY_SOCKET}. The service is considered running as soon as it sends {@code READY=1} to the socket.
+ * Status messages sent as {@code STATUS=...} are reported and {@code STOPPING=1} is logged, while other messages are
+ * ignored.
+ * <p>
+ * Unlike systemd, which expects datagrams, the socket accepts stream connections, as Java does not support Unix domain
+ * datagram sockets. Each connection may send any number of messages, each on its own line, the last one optionally
+ * being terminated by closing the connection.
+ * <p>
+ * Consumers have to ensure {@link #close()} be called once this checker is no longer needed, which also removes the
+ * socket.
+ */
+public final class NotifySocketAvailabilityCheck
+	implements ServiceAvailabilityCheck
+{
+	/**
+	 * The environment variable in which the path of the socket is passed to the service.
+	 */
+	public static final String NOTIFY_SOCKET = "NOTIFY_SOCKET";
+
+	private static final Logger logger = Logging.getLogger(NotifySocketAvailabilityCheck.class);
+	private static final int BUFFER_SIZE = 1024;
+	private static final byte[] LINE_TERMINATOR = {'\n'};
+
+	private final String serviceName;
+	private final Path socketDirectory;
+	private final Path socketPath;
+	private final ServerSocketChannel server;
+	private final Queue<SocketChannel> connections;
+	private final CompletableFuture<Instant> serviceReady;
+
+	private NotifySocketAvailabilityCheck(String serviceName, Path socketDirectory, ServerSocketChannel server)
+	{
+		this.serviceName = serviceName;
+		this.socketDirectory = socketDirectory;
+		this.socketPath = socketDirectory.resolve("notify.sock");
+		this.server = server;
+		this.connections = new ConcurrentLinkedQueue<>();
+		this.serviceReady = new CompletableFuture<>();
+	}
+
+	/**
+	 * Creates the socket of a service about to be launched and starts accepting connections to it. The socket is
+	 * created in a new temporary directory, so its path stays within the length limit of Unix domain sockets.
+	 *
+	 * @param serviceName
+	 * 	The name of the service, as shown along with the status messages it sends
+	 *
+	 * @return The check or the error encountered while creating the socket
+	 */
+	public static Try<NotifySocketAvailabilityCheck> open(String serviceName)
+	{
+		return Try.of(() -> Files.createTempDirectory("service-control-"))
+			.flatMap(socketDirectory -> Try
+				.of(() -> ServerSocketChannel.open(StandardProtocolFamily.UNIX))
+				.onFailure(error -> Try.run(() -> Files.deleteIfExists(socketDirectory)))
+				.map(server -> new NotifySocketAvailabilityCheck(serviceName, socketDirectory, server))
+			)
+			.flatMap(check -> Try.run(() -> check.server.bind(UnixDomainSocketAddress.of(check.socketPath)))
+				.map(bound -> check)
+				.onFailure(error -> check.close())
+			)
+			.peek(NotifySocketAvailabilityCheck::startAccepting);
+	}
+
+	/**
+	 * Returns the environment variables passing the socket to the service.
+	 */
+	public Map<String, String> environment()
+	{
+		return HashMap.of(NOTIFY_SOCKET, socketPath.toString());
+	}
+
+	@Override
+	public String description()
+	{
+		return "readiness notification";
+	}
+
+	@Override
+	public boolean isRunning()
+	{
+		return serviceReady.isDone();
+	}
+
+	@Override
+	public CompletableFuture<Instant> whenAvailable(ProbeScheduler scheduler)
+	{
+		return serviceReady.thenApply(availableAt -> availableAt);
+	}
+
+	private void startAccepting()
+	{
+		Thread acceptor = new Thread(this::acceptConnections, "service-control-notify-" + serviceName);
+
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/*
+	 * Each connection is read by a thread of its own, so a service keeping a connection open does not prevent others
+	 * from being accepted. Accepting stops once the socket has been closed.
+	 */
+	private void acceptConnections()
+	{
+		try {
+			while (true) {
+				SocketChannel connection = server.accept();
+				Thread reader = new Thread(() -> readMessages(connection), "service-control-notify-" + serviceName);
+
+				connections.add(connection);
+				reader.setDaemon(true);
+				reader.start();
+			}
+		} catch (IOException ignored) {
+			// The socket has been closed, as the startup has completed
+		}
+	}
+
+	private void readMessages(SocketChannel connection)
+	{
+		LogLineDecoder decoder = new LogLineDecoder(StandardCharsets.UTF_8, this::handleMessage);
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		try (connection) {
+			while (connection.read(buffer) >= 0) {
+				decoder.decode(buffer.array(), buffer.position());
+				buffer.clear();
+			}
+
+			decoder.decode(LINE_TERMINATOR, LINE_TERMINATOR.length);
+		} catch (IOException ignored) {
+			// The connection has been closed by the service or because the socket has been closed
+		} finally {
+			connections.remove(connection);
+		}
+	}
+
+	private void handleMessage(CharSequence line)
+	{
+		String message = line.toString();
+		int separator = message.indexOf('=');
+
+		if (separator > 0) {
+			String value = message.substring(separator + 1);
+
+			switch (message.substring(0, separator)) {
+				case "READY" -> {
+					if ("1".equals(value)) {
+						serviceReady.complete(Instant.now());
+					}
+				}
+				case "STATUS" -> logger.lifecycle("Service {} reports status: {}", serviceName, value);
+				case "STOPPING" -> {
+					if ("1".equals(value)) {
+						logger.lifecycle("Service {} reports that it is stopping", serviceName);
+					}
+				}
+				default -> logger.debug("Service {} sent unsupported notification {}", serviceName, message);
+			}
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		Try.run(server::close);
+		connections.forEach(connection -> Try.run(connection::close));
+		Try.run(() -> Files.deleteIfExists(socketPath));
+		Try.run(() -> Files.deleteIfExists(socketDirectory));
+	}
+}
@@ -1,52 +1,115 @@
 package com.brunoritz.gradle.servicecontrol.availability;
 
+import com.brunoritz.gradle.servicecontrol.launch.ProbeScheduler;
 import com.brunoritz.gradle.servicecontrol.launch.ServiceAvailabilityCheck;
+import io.vavr.collection.List;
 
-import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.Socket;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Checks whether a service is available by looking for a listening socket on a given port. A service is considered
- * running, if the socket accepts incoming connections. This checker does not perform any actual communication with
- * the service.
+ * running, if the socket accepts incoming connections on any of the probed hosts. By default, both the IPv4 and the
+ * IPv6 loopback addresses are probed, so services binding to either of them are detected. This checker does not
+ * perform any actual communication with the service.
+ * <p>
+ * The connects are completed by the shared {@link PortProber}, so waiting for the service to become available does
+ * not block a thread per probe.
  */
-public class PortAvailabilityCheck
+public final class PortAvailabilityCheck
 	implements ServiceAvailabilityCheck
 {
+	/**
+	 * The hosts probed, unless other hosts are given.
+	 */
+	public static final List<String> DEFAULT_HOSTS = List.of("127.0.0.1", "::1");
+
 	private final int port;
+	private final List<String> hosts;
 
 	public PortAvailabilityCheck(int port)
+	{
+		this(port, DEFAULT_HOSTS);
+	}
+
+	/**
+	 * Creates a check probing the given port on the given hosts.
+	 *
+	 * @param port
+	 * 	The port on which the service listens
+	 * @param hosts
+	 * 	The names or addresses of the hosts to probe, the service being available if it listens on any of them
+	 *
+	 * @throws IllegalArgumentException
+	 * 	If no hosts are given
+	 */
+	public PortAvailabilityCheck(int port, Iterable<String> hosts)
 	{
 		this.port = port;
+		this.hosts = List.ofAll(hosts);
+
+		if (this.hosts.isEmpty()) {
+			throw new IllegalArgumentException("At least one host to probe is required");
+		}
 	}
 
 	@Override
-	public boolean isRunning()
+	public String description()
 	{
-		Socket probe = new Socket();
-		boolean alive;
+		return "port " + port;
+	}
 
+	@Override
+	public boolean isRunning()
+	{
 		try {
-			InetSocketAddress serviceEndpoint = new InetSocketAddress("127.0.0.1", port);
-
-			probe.connect(serviceEndpoint, 500);
-			alive = true;
-		} catch (IOException e) {
-			alive = false;
-		} finally {
-			closeQuietly(probe);
+			return probe().get();
+		} catch (ExecutionException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
 		}
+	}
 
-		return alive;
+	@Override
+	public CompletableFuture<Instant> whenAvailable(ProbeScheduler scheduler)
+	{
+		return scheduler.probeAsyncUntil(this::probe);
 	}
 
-	private static void closeQuietly(Socket probe)
+	/*
+	 * Probes all hosts at the same time, completing as soon as any of them accepts the connection or all of them have
+	 * failed.
+	 */
+	private CompletableFuture<Boolean> probe()
 	{
-		try {
-			probe.close();
-		} catch (IOException ignored) {
-		}
+		List<CompletableFuture<Boolean>> connects = hosts
+			.map(host -> PortProber.shared().probe(new InetSocketAddress(host, port)));
+		CompletableFuture<Boolean> anyConnected = new CompletableFuture<>();
+
+		connects.forEach(connect -> connect.thenAccept(connected -> {
+			if (connected) {
+				anyConnected.complete(true);
+			}
+		}));
+		CompletableFuture.allOf(connects.toJavaList().toArray(new CompletableFuture<?>[0]))
+			.whenComplete((allCompleted, error) ->
+				anyConnected.complete(connects.exists(PortAvailabilityCheck::succeeded)));
+		anyConnected.whenComplete((connected, error) -> connects.forEach(connect -> connect.cancel(true)));
+
+		return anyConnected;
+	}
+
+	/*
+	 * The connect completing last may notify the combined future before its own dependents, so whether it succeeded
+	 * has to be looked up rather than relying on the order of notification.
+	 */
+	private static boolean succeeded(CompletableFuture<Boolean> connect)
+	{
+		return connect.isDone() && !connect.isCompletedExceptionally() && connect.join();
 	}
 
 	@Override
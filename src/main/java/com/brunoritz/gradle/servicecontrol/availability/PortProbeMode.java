@@ -0,0 +1,20 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+/**
+ * Defines how the ports of a service are probed to tell whether the service listens on them.
+ */
+public enum PortProbeMode
+{
+	/**
+	 * A port is considered listening as soon as it accepts connections. The connections are closed right away, but
+	 * the service might still notice them.
+	 */
+	CONNECT,
+
+	/**
+	 * A port is considered listening once the service process or any of its descendants has a socket listening on it.
+	 * This only inspects the sockets known to the operating system and is supported on Linux only. On other systems,
+	 * the ports are probed by connecting to them instead.
+	 */
+	LISTENING_SOCKET
+}
@@ -0,0 +1,235 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.nio.channels.UnsupportedAddressTypeException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Probes whether TCP endpoints accept connections, using non-blocking connects that are all completed by a single
+ * daemon thread, regardless of the number of ports and services being probed. A probe succeeds as soon as the
+ * connection has been established, which the thread is notified about by the operating system. The connection is
+ * closed right away, without any communication with the service.
+ * <p>
+ * While no probe is pending, the thread waits without any timeout. Otherwise, it waits until the next connect
+ * completes or the earliest pending connect times out. Should the selector fail, all pending probes report no
+ * connection and the next probe starts a new thread.
+ */
+final class PortProber
+{
+	/**
+	 * The time after which a connect that has neither succeeded nor failed is considered failed.
+	 */
+	static final Duration CONNECT_TIMEOUT = Duration.ofMillis(500);
+
+	private static final Logger logger = Logging.getLogger(PortProber.class);
+	private static final PortProber SHARED = new PortProber();
+
+	private final Queue<PendingConnect> requestedConnects;
+	private Option<Selector> selector;
+
+	private PortProber()
+	{
+		this.requestedConnects = new ConcurrentLinkedQueue<>();
+		this.selector = Option.none();
+	}
+
+	/**
+	 * Returns the prober shared by all port availability checks.
+	 */
+	static PortProber shared()
+	{
+		return SHARED;
+	}
+
+	/**
+	 * Begins connecting to the given endpoint. The returned future completes with {@code true} once the connection
+	 * has been established, or with {@code false}, if the connection has been refused or could not be established
+	 * within the {@link #CONNECT_TIMEOUT}. Cancelling the returned future aborts the connect.
+	 *
+	 * @param endpoint
+	 * 	The endpoint to connect to, which is not connected to if it is unresolved
+	 *
+	 * @throws UncheckedIOException
+	 * 	If the selector completing the connects cannot be opened
+	 */
+	CompletableFuture<Boolean> probe(InetSocketAddress endpoint)
+	{
+		CompletableFuture<Boolean> connected = new CompletableFuture<>();
+
+		try {
+			SocketChannel channel = SocketChannel.open();
+
+			try {
+				channel.configureBlocking(false);
+
+				if (channel.connect(endpoint)) {
+					closeQuietly(channel);
+					connected.complete(true);
+				} else {
+					requestedConnects.add(new PendingConnect(channel, connected, System.nanoTime()));
+					selector().wakeup();
+				}
+			} catch (IOException | UnresolvedAddressException | UnsupportedAddressTypeException e) {
+				closeQuietly(channel);
+				connected.complete(false);
+			}
+		} catch (IOException e) {
+			connected.complete(false);
+		}
+
+		return connected;
+	}
+
+	private synchronized Selector selector()
+	{
+		if (selector.isEmpty()) {
+			Selector openedSelector;
+
+			try {
+				openedSelector = Selector.open();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to open the port probe selector", e);
+			}
+
+			Thread proberThread = new Thread(() -> completeConnects(openedSelector), "service-control-port-prober");
+
+			proberThread.setDaemon(true);
+			proberThread.start();
+			selector = Option.some(openedSelector);
+		}
+
+		return selector.get();
+	}
+
+	/*
+	 * The body of the prober thread. Connects are registered by this thread only, as registering a channel blocks
+	 * while another thread is selecting.
+	 */
+	private void completeConnects(Selector connects)
+	{
+		Collection<PendingConnect> registeredConnects = new ArrayList<>();
+
+		try {
+			while (true) {
+				registerRequestedConnects(connects, registeredConnects);
+				connects.select(untilNextTimeout(connects));
+
+				for (SelectionKey key : connects.selectedKeys()) {
+					if (key.attachment() instanceof PendingConnect pending) {
+						pending.complete(Try.of(() -> pending.channel().finishConnect()).getOrElse(false));
+					}
+				}
+
+				connects.selectedKeys().clear();
+				expireConnects(connects);
+				registeredConnects.removeIf(pending -> pending.connected().isDone());
+			}
+		} catch (IOException | ClosedSelectorException e) {
+			logger.warn("Stopped probing ports, as the port probe selector failed", e);
+			stopProbing(connects, registeredConnects);
+		}
+	}
+
+	/*
+	 * Fails all connects not completed by the failed selector, including those requested but not registered yet. The
+	 * selector is discarded first, so that the connects requested from now on are completed by a new thread.
+	 */
+	private synchronized void stopProbing(Selector connects, Collection<PendingConnect> registeredConnects)
+	{
+		selector = Option.none();
+		Try.run(connects::close);
+		registeredConnects.forEach(pending -> pending.complete(false));
+
+		PendingConnect pending = requestedConnects.poll();
+
+		while (pending != null) {
+			pending.complete(false);
+			pending = requestedConnects.poll();
+		}
+	}
+
+	private void registerRequestedConnects(Selector connects, Collection<PendingConnect> registeredConnects)
+	{
+		PendingConnect pending = requestedConnects.poll();
+
+		while (pending != null) {
+			PendingConnect registered = pending;
+
+			Try.run(() -> registered.channel().register(connects, SelectionKey.OP_CONNECT, registered))
+				.onSuccess(nothing -> registeredConnects.add(registered))
+				.onFailure(error -> registered.complete(false));
+			pending = requestedConnects.poll();
+		}
+	}
+
+	private static long untilNextTimeout(Selector connects)
+	{
+		long now = System.nanoTime();
+		long timeout = 0;
+
+		for (SelectionKey key : connects.keys()) {
+			if (key.isValid() && key.attachment() instanceof PendingConnect pending) {
+				long remaining = Math.max(1, Duration.ofNanos(pending.timeoutAt() - now).toMillis());
+
+				timeout = (timeout == 0) ? remaining : Math.min(timeout, remaining);
+			}
+		}
+
+		return timeout;
+	}
+
+	private static void expireConnects(Selector connects)
+	{
+		long now = System.nanoTime();
+
+		for (SelectionKey key : connects.keys()) {
+			if (key.isValid() && key.attachment() instanceof PendingConnect pending) {
+				if (pending.connected().isDone() || (now - pending.timeoutAt() >= 0)) {
+					pending.complete(false);
+				}
+			}
+		}
+	}
+
+	private static void closeQuietly(SocketChannel channel)
+	{
+		try {
+			channel.close();
+		} catch (IOException ignored) {
+		}
+	}
+
+	/*
+	 * A connect being completed by the prober thread. Completing it closes the channel, which also cancels its key.
+	 */
+	private record PendingConnect(SocketChannel channel, CompletableFuture<Boolean> connected, long requestedAt)
+	{
+		long timeoutAt()
+		{
+			return requestedAt + CONNECT_TIMEOUT.toNanos();
+		}
+
+		void complete(boolean established)
+		{
+			closeQuietly(channel);
+			connected.complete(established);
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package com.brunoritz.gradle.servicecontrol.availability;
+
+import java.io.File;
+import java.util.function.Consumer;
+
+/**
+ * A log file written by a service, which is followed from its beginning. All log files are followed by the thread of
+ * the shared {@link LogFileWatcher}, which reads new lines as soon as the file system reports them.
+ */
+public final class TailedLogFile
+	implements LogLineSource
+{
+	private final File logFile;
+
+	private TailedLogFile(File logFile)
+	{
+		this.logFile = logFile;
+	}
+
+	/**
+	 * Returns the source of the lines of the given log file.
+	 *
+	 * @param logFile
+	 * 	The log file to follow, which may not exist yet
+	 */
+	public static TailedLogFile of(File logFile)
+	{
+		return new TailedLogFile(logFile);
+	}
+
+	@Override
+	public String name()
+	{
+		return logFile.getName();
+	}
+
+	@Override
+	public Watch watch(LogPatternMatcher expectedLines, Consumer<String> matched)
+	{
+		return LogFileWatcher.shared().watch(logFile, expectedLines, matched);
+	}
+}
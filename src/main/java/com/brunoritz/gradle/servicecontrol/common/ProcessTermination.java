@@ -0,0 +1,42 @@
+package com.brunoritz.gradle.servicecontrol.common;
+
+import io.vavr.control.Try;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Terminates service processes along with all processes they have spawned.
+ */
+public final class ProcessTermination
+{
+	private ProcessTermination()
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Requests the given process to terminate and waits up to 30 seconds for it to do so. All descendants of the
+	 * process are terminated forcibly.
+	 *
+	 * @param toTerminate
+	 * 	The process to terminate
+	 *
+	 * @return The terminated process or the error that occurred while terminating it
+	 */
+	public static Try<ProcessHandle> terminateHierarchy(ProcessHandle toTerminate)
+	{
+		return Try.of(
+			() -> {
+				/*
+				 * On Windows certain processes fail to terminate, if only the one launched by this plugin is
+				 * requested to terminate, in particular Node.js. So we terminate all processes in the hierarchy.
+				 */
+				toTerminate.descendants().forEach(ProcessHandle::destroyForcibly);
+				toTerminate.destroy();
+				toTerminate.onExit().get(30, TimeUnit.SECONDS);
+
+				return toTerminate;
+			}
+		);
+	}
+}
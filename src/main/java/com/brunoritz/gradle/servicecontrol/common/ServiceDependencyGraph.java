@@ -0,0 +1,168 @@
+package com.brunoritz.gradle.servicecontrol.common;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.LinkedHashSet;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
+import io.vavr.collection.Traversable;
+import org.gradle.api.GradleException;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * The dependencies between the services of a project. Services are identified by their names as given in their
+ * definitions. The graph is used to determine the order in which services have to be started, so that each service is
+ * only started once all the services it depends on are available.
+ */
+public final class ServiceDependencyGraph
+{
+	private final Map<String, ? extends Set<String>> dependencies;
+
+	/**
+	 * Creates a new dependency graph.
+	 *
+	 * @param dependencies
+	 * 	The names of the services each service depends on, keyed by the name of the depending service
+	 */
+	public ServiceDependencyGraph(Map<String, ? extends Set<String>> dependencies)
+	{
+		this.dependencies = dependencies;
+	}
+
+	/**
+	 * Verifies that all services depend on known services only and that no service depends on itself, be it directly
+	 * or transitively.
+	 *
+	 * @throws GradleException
+	 * 	If a service depends on an unknown service or the dependencies form a cycle
+	 */
+	public void verify()
+	{
+		startOrder();
+	}
+
+	/**
+	 * Returns the names of all services ordered such that each service is preceded by the services it depends on.
+	 * Services without any dependencies between them keep the order in which they have been passed to this graph.
+	 *
+	 * @throws GradleException
+	 * 	If a service depends on an unknown service or the dependencies form a cycle
+	 */
+	public List<String> startOrder()
+	{
+		java.util.Set<String> ordered = new java.util.LinkedHashSet<>();
+
+		dependencies.keySet().forEach(serviceName -> visit(serviceName, List.empty(), ordered));
+
+		return List.ofAll(ordered);
+	}
+
+	/**
+	 * Returns the names of all services ordered such that each service is preceded by the services it depends on.
+	 * Among the services whose dependencies have already been ordered, the one heading the longest chain of dependent
+	 * services comes first. The length of a chain is the sum of the expected startup durations of the services on it.
+	 * Starting services in that order lets the services that determine the total startup duration start as early as
+	 * possible. Services with chains of equal length keep the order of {@link #startOrder()}.
+	 *
+	 * @param expectedTimeToReady
+	 * 	The time each service is expected to take to become available
+	 *
+	 * @throws GradleException
+	 * 	If a service depends on an unknown service or the dependencies form a cycle
+	 */
+	public List<String> startOrder(Function<String, Duration> expectedTimeToReady)
+	{
+		List<String> dependenciesFirst = startOrder();
+		Map<String, Duration> chainDurations = dependenciesFirst.reverse()
+			.foldLeft(
+				HashMap.empty(),
+				(chains, serviceName) -> chains.put(
+					serviceName,
+					expectedTimeToReady.apply(serviceName)
+						.plus(dependentsOf(serviceName).flatMap(chains::get).max().getOrElse(Duration.ZERO))
+				)
+			);
+
+		return longestChainsFirst(dependenciesFirst, chainDurations, List.empty());
+	}
+
+	/**
+	 * Returns the given services along with all services they depend on, be it directly or transitively. Dependencies
+	 * on unknown services are ignored.
+	 *
+	 * @param serviceNames
+	 * 	The names of the services for which to determine the dependencies
+	 */
+	public Set<String> withDependencies(Traversable<String> serviceNames)
+	{
+		Set<String> services = LinkedHashSet.ofAll(serviceNames);
+		Set<String> expanded = services.union(services.flatMap(this::dependenciesOf).filter(dependencies::containsKey));
+
+		if (expanded.size() == services.size()) {
+			return services;
+		}
+
+		return withDependencies(expanded);
+	}
+
+	private void visit(String serviceName, List<String> path, java.util.Set<String> ordered)
+	{
+		if (path.contains(serviceName)) {
+			throw new GradleException(String.format(
+				"Services depend on each other in a cycle: %s",
+				path.reverse().dropUntil(serviceName::equals).append(serviceName).mkString(" -> ")
+			));
+		}
+
+		if (!ordered.contains(serviceName)) {
+			List<String> currentPath = path.prepend(serviceName);
+
+			dependenciesOf(serviceName).forEach(dependency -> {
+				if (!dependencies.containsKey(dependency)) {
+					throw new GradleException(String.format(
+						"Service %s depends on undefined service %s",
+						serviceName,
+						dependency
+					));
+				}
+
+				visit(dependency, currentPath, ordered);
+			});
+
+			ordered.add(serviceName);
+		}
+	}
+
+	private List<String> longestChainsFirst(
+		List<String> remaining,
+		Map<String, Duration> chainDurations,
+		List<String> ordered)
+	{
+		if (remaining.isEmpty()) {
+			return ordered;
+		}
+
+		String next = remaining
+			.filter(serviceName -> dependenciesOf(serviceName).forAll(ordered::contains))
+			.maxBy(serviceName -> chainDurations.get(serviceName).getOrElse(Duration.ZERO))
+			.get();
+
+		return longestChainsFirst(remaining.remove(next), chainDurations, ordered.append(next));
+	}
+
+	private Set<String> dependentsOf(String serviceName)
+	{
+		return dependencies
+			.filterValues(serviceDependencies -> serviceDependencies.contains(serviceName))
+			.keySet();
+	}
+
+	private Set<String> dependenciesOf(String serviceName)
+	{
+		return dependencies.get(serviceName)
+			.map(LinkedHashSet::<String>ofAll)
+			.getOrElse(LinkedHashSet.empty());
+	}
+}
@@ -0,0 +1,175 @@
+package com.brunoritz.gradle.servicecontrol.common;
+
+import io.vavr.control.Option;
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A build service keeping track of the service processes launched by the Gradle Daemon. Stopping a service uses the
+ * process handle kept by the registry, rather than looking up the process by the ID stored in its PID file. The PID
+ * file is only used for services that have not been launched by the current daemon, for example after a restart of
+ * the daemon. The same applies to determining whether a service is running.
+ * <p>
+ * Build services only live as long as the build using them, while the launched services outlive the build. The
+ * registered processes are therefore kept for the lifetime of the daemon, and shared by all instances of this build
+ * service. A single shutdown hook terminates all registered processes that are still running once the daemon
+ * terminates. Processes are removed from the registry as soon as they have terminated.
+ * <p>
+ * Services are identified by the location of their PID file, as that is unique for each service.
+ */
+public abstract class ServiceRegistry
+	implements BuildService<BuildServiceParameters.None>
+{
+	private static final String SERVICE_NAME = "serviceControlRegistry";
+	private static final ConcurrentMap<Path, RegisteredService> registeredServices = new ConcurrentHashMap<>();
+	private static final AtomicBoolean shutdownHookInstalled = new AtomicBoolean();
+
+	/**
+	 * Registers the service registry with the build of the given project, unless it has been registered before.
+	 *
+	 * @param project
+	 * 	The project with whose build to register the service
+	 *
+	 * @return The provider of the shared service registry
+	 */
+	public static Provider<ServiceRegistry> registerIfAbsent(Project project)
+	{
+		return project.getGradle().getSharedServices()
+			.registerIfAbsent(SERVICE_NAME, ServiceRegistry.class, spec -> {
+			});
+	}
+
+	/**
+	 * Registers a launched service process. The process gets terminated upon termination of the Gradle Daemon, unless
+	 * it has been terminated before. A process registered for the same PID file before is replaced.
+	 *
+	 * @param serviceName
+	 * 	The name of the service the process belongs to
+	 * @param pidFile
+	 * 	The location of the PID file of the service
+	 * @param process
+	 * 	The launched service process
+	 */
+	public void register(String serviceName, File pidFile, Process process)
+	{
+		Path serviceKey = serviceKey(pidFile);
+		RegisteredService service = new RegisteredService(serviceName, process, Instant.now());
+
+		installShutdownHook();
+		registeredServices.put(serviceKey, service);
+		process.onExit().thenRun(() -> registeredServices.remove(serviceKey, service));
+	}
+
+	/**
+	 * Removes the process registered for the given PID file from the registry, without terminating it. The process is
+	 * no longer terminated upon termination of the Gradle Daemon, unless registered again.
+	 *
+	 * @param pidFile
+	 * 	The location of the PID file of the service
+	 */
+	public void unregister(File pidFile)
+	{
+		registeredServices.remove(serviceKey(pidFile));
+	}
+
+	/**
+	 * Looks up the running process of a service.
+	 *
+	 * @param pidFile
+	 * 	The location of the PID file of the service
+	 *
+	 * @return The registered service, or nothing if the service has not been launched by this daemon or is no longer
+	 * 	running
+	 */
+	public Option<RegisteredService> lookup(File pidFile)
+	{
+		Option<RegisteredService> registeredService = Option.of(registeredServices.get(serviceKey(pidFile)));
+
+		return registeredService.filter(service -> service.process().isAlive());
+	}
+
+	/**
+	 * Determines whether a service is running. The process registered for the service is preferred. The process
+	 * identified in the PID file is only looked up, if the service has not been launched by this daemon.
+	 *
+	 * @param pidFile
+	 * 	The location of the PID file of the service
+	 *
+	 * @return The handle of the running service process, or nothing if the service is not running
+	 */
+	public Option<ProcessHandle> status(File pidFile)
+	{
+		return lookup(pidFile)
+			.map(registeredService -> registeredService.process().toHandle())
+			.orElse(() -> PidFile.fromExisting(pidFile)
+				.flatMap(existingPid -> existingPid.readNumericPid().getOrElse(Option.none()))
+				.flatMap(pid -> Option.ofOptional(ProcessHandle.of(pid)))
+			)
+			.filter(ProcessHandle::isAlive);
+	}
+
+	private static Path serviceKey(File pidFile)
+	{
+		return pidFile.toPath().toAbsolutePath().normalize();
+	}
+
+	private static void installShutdownHook()
+	{
+		if (shutdownHookInstalled.compareAndSet(false, true)) {
+			Runtime.getRuntime().addShutdownHook(new Thread(
+				() -> registeredServices.values().forEach(service -> service.process().destroy()),
+				"service-control-shutdown"
+			));
+		}
+	}
+
+	/**
+	 * A service process registered along with the information about its launch.
+	 */
+	public static final class RegisteredService
+	{
+		private final String serviceName;
+		private final Process process;
+		private final Instant launchedAt;
+
+		private RegisteredService(String serviceName, Process process, Instant launchedAt)
+		{
+			this.serviceName = serviceName;
+			this.process = process;
+			this.launchedAt = launchedAt;
+		}
+
+		/**
+		 * Returns the name of the service.
+		 */
+		public String serviceName()
+		{
+			return serviceName;
+		}
+
+		/**
+		 * Returns the handle of the service process.
+		 */
+		public Process process()
+		{
+			return process;
+		}
+
+		/**
+		 * Returns the point in time at which the process was launched.
+		 */
+		public Instant launchedAt()
+		{
+			return launchedAt;
+		}
+	}
+}
@@ -1,22 +1,25 @@
 package com.brunoritz.gradle.servicecontrol.common;
 
-import io.vavr.control.Try;
+import io.vavr.control.Option;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.TaskAction;
 
 import javax.inject.Inject;
+import java.io.File;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 
 /**
- * Stops a running service. This task reads the process ID of the task to be stopped from the PID file. Once the PID is
- * known, the process is asked to terminate. After termination the PID file is deleted.
+ * Stops a running service. If the service has been launched by the current Gradle Daemon, its process is taken from
+ * the {@link ServiceRegistry}. Otherwise, this task reads the process ID of the task to be stopped from the PID file.
+ * Once the process is known, it is asked to terminate. After termination the PID file is deleted.
  * <p>
  * If no PID file exists, the process is considered stopped and no further action is taken. This task does not fail, if
  * no PID file can be found.
  */
-public class StopServiceTask
+public abstract class StopServiceTask
 	extends DefaultTask
 {
 	private final RegularFileProperty pidLocation;
@@ -34,10 +37,29 @@ public class StopServiceTask
 		this.pidLocation = pidLocation;
 	}
 
+	@Internal
+	public abstract Property<ServiceRegistry> getServiceRegistry();
+
 	@TaskAction
 	public void stopService()
 	{
-		PidFile.fromExisting(pidLocation.get().getAsFile())
+		File pidFile = pidLocation.get().getAsFile();
+		Option<ServiceRegistry.RegisteredService> registeredService = getServiceRegistry().isPresent()
+			? getServiceRegistry().get().lookup(pidFile)
+			: Option.none();
+
+		registeredService
+			.peek(service -> {
+				getLogger().info("Stopping service {} launched at {}", service.serviceName(), service.launchedAt());
+				terminateHierarchy(service.process().toHandle());
+				PidFile.fromExisting(pidFile).peek(PidFile::destroy);
+			})
+			.onEmpty(() -> stopServiceFromPidFile(pidFile));
+	}
+
+	private void stopServiceFromPidFile(File pidFile)
+	{
+		PidFile.fromExisting(pidFile)
 			.peek(existingPid -> {
 				terminateServiceProcess(existingPid);
 				existingPid.destroy();
@@ -62,19 +84,7 @@ public class StopServiceTask
 
 	private void terminateHierarchy(ProcessHandle toTerminate)
 	{
-		Try.of(
-				() -> {
-					/*
-					 * On Windows certain processes fail to terminate, if only the one launched by this plugin is
-					 * requested to terminate, in particular Node.js. So we terminate all processes in the hierarchy.
-					 */
-					toTerminate.descendants().forEach(ProcessHandle::destroyForcibly);
-					toTerminate.destroy();
-					toTerminate.onExit().get(30, TimeUnit.SECONDS);
-
-					return toTerminate;
-				}
-			)
+		ProcessTermination.terminateHierarchy(toTerminate)
 			.onSuccess(process -> getLogger().info("Service stopped"))
 			.onFailure(error -> {
 				throw new IllegalStateException("Failed to terminate running process", error);
@@ -44,6 +44,42 @@ public final class TaskNameFactory
 		return taskName("restart", serviceName);
 	}
 
+	/**
+	 * Computes the name for the task replacing a running service in the form of
+	 * {@code replace<capitalized-service-name>}.
+	 *
+	 * @param serviceName
+	 * 	The name of the service as passed into the service definition
+	 */
+	public static String replaceTaskName(String serviceName)
+	{
+		return taskName("replace", serviceName);
+	}
+
+	/**
+	 * Computes the name for the task starting a group of services in the form of
+	 * {@code start<capitalized-group-name>Services}.
+	 *
+	 * @param groupName
+	 * 	The name of the group as passed into the service definitions
+	 */
+	public static String startGroupTaskName(String groupName)
+	{
+		return String.format("%sServices", taskName("start", groupName));
+	}
+
+	/**
+	 * Computes the name for the task stopping a group of services in the form of
+	 * {@code stop<capitalized-group-name>Services}.
+	 *
+	 * @param groupName
+	 * 	The name of the group as passed into the service definitions
+	 */
+	public static String stopGroupTaskName(String groupName)
+	{
+		return String.format("%sServices", taskName("stop", groupName));
+	}
+
 	/**
 	 * Computes the name for an arbitrary action task {@code <actionName><capitalized-service-name>}.
 	 *
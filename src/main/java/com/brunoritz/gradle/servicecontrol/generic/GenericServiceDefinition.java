@@ -1,6 +1,14 @@
 package com.brunoritz.gradle.servicecontrol.generic;
 
 import com.brunoritz.gradle.servicecontrol.ServiceDefinition;
+import com.brunoritz.gradle.servicecontrol.availability.AvailabilityComposition;
+import com.brunoritz.gradle.servicecontrol.availability.HealthUrlAvailabilityCheck;
+import com.brunoritz.gradle.servicecontrol.availability.LogMatchMode;
+import com.brunoritz.gradle.servicecontrol.availability.PortAvailabilityCheck;
+import com.brunoritz.gradle.servicecontrol.availability.PortProbeMode;
+import com.brunoritz.gradle.servicecontrol.launch.OutputCapture;
+import com.brunoritz.gradle.servicecontrol.launch.ProbeSchedule;
+import org.gradle.api.DomainObjectSet;
 import org.gradle.api.Project;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFileProperty;
@@ -8,10 +16,12 @@ import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.MapProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.provider.SetProperty;
 
 import javax.inject.Inject;
 import java.io.File;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,12 +37,36 @@ public class GenericServiceDefinition
 	private final ListProperty<File> environmentFiles;
 	private final MapProperty<CharSequence, CharSequence> environment;
 	private final Property<Integer> servicePort;
+	private final ListProperty<Integer> additionalPorts;
+	private final ListProperty<String> probeHosts;
+	private final Property<PortProbeMode> portProbe;
 	private final Property<CharSequence> startupLogMessage;
+	private final ListProperty<CharSequence> startupLogMessages;
+	private final ListProperty<CharSequence> startupLogPatterns;
+	private final Property<LogMatchMode> startupLogMatch;
+	private final ListProperty<CharSequence> failureLogPatterns;
+	private final Property<String> healthUrl;
+	private final Property<Integer> healthStatus;
+	private final Property<CharSequence> healthBodyPattern;
+	private final Property<Duration> healthTimeout;
+	private final Property<Boolean> notifyReady;
+	private final RegularFileProperty readyMarkerFile;
+	private final Property<Boolean> readyMarkerNonEmpty;
+	private final Property<AvailabilityComposition> availabilityMatch;
 	private final DirectoryProperty workingDirectory;
 	private final RegularFileProperty pidFile;
 	private final RegularFileProperty standardOutputLog;
 	private final RegularFileProperty errorOutputLog;
+	private final Property<OutputCapture> outputCapture;
+	private final Property<Long> logMaxSize;
+	private final Property<Duration> logRollInterval;
+	private final Property<Integer> logGenerations;
 	private final Property<Duration> startTimeout;
+	private final Property<ProbeSchedule> probeSchedule;
+	private final DomainObjectSet<String> groups;
+	private final SetProperty<String> serviceDependencies;
+	private final Property<Boolean> zeroDowntimeRestart;
+	private final Property<Integer> replacementPort;
 
 	@Inject
 	public GenericServiceDefinition(String name, Project project)
@@ -47,24 +81,61 @@ public class GenericServiceDefinition
 		environmentFiles = factory.listProperty(File.class);
 		environment = factory.mapProperty(CharSequence.class, CharSequence.class);
 		servicePort = factory.property(Integer.class);
+		additionalPorts = factory.listProperty(Integer.class);
+		probeHosts = factory.listProperty(String.class);
+		portProbe = factory.property(PortProbeMode.class);
 		startupLogMessage = factory.property(CharSequence.class);
+		startupLogMessages = factory.listProperty(CharSequence.class);
+		startupLogPatterns = factory.listProperty(CharSequence.class);
+		startupLogMatch = factory.property(LogMatchMode.class);
+		failureLogPatterns = factory.listProperty(CharSequence.class);
+		healthUrl = factory.property(String.class);
+		healthStatus = factory.property(Integer.class);
+		healthBodyPattern = factory.property(CharSequence.class);
+		healthTimeout = factory.property(Duration.class);
+		notifyReady = factory.property(Boolean.class);
+		readyMarkerFile = factory.fileProperty();
+		readyMarkerNonEmpty = factory.property(Boolean.class);
+		availabilityMatch = factory.property(AvailabilityComposition.class);
 		workingDirectory = factory.directoryProperty();
 		pidFile = factory.fileProperty();
 		standardOutputLog = factory.fileProperty();
 		errorOutputLog = factory.fileProperty();
+		outputCapture = factory.property(OutputCapture.class);
+		logMaxSize = factory.property(Long.class);
+		logRollInterval = factory.property(Duration.class);
+		logGenerations = factory.property(Integer.class);
 		startTimeout = factory.property(Duration.class);
+		probeSchedule = factory.property(ProbeSchedule.class);
+		groups = factory.domainObjectSet(String.class);
+		serviceDependencies = factory.setProperty(String.class);
+		zeroDowntimeRestart = factory.property(Boolean.class);
+		replacementPort = factory.property(Integer.class);
 
 		workingDirectory.set(project.getProjectDir());
 		pidFile.set(project.file(String.format("service.%s.pid", name)));
 		standardOutputLog.set(project.file(String.format("%s/stdout.%s.log", logsDirectory, name)));
 		errorOutputLog.set(project.file(String.format("%s/stderr.%s.log", logsDirectory, name)));
 		startTimeout.set(Duration.ofMinutes(10));
+		probeSchedule.set(ProbeSchedule.exponentialBackoff(Duration.ofMillis(10), Duration.ofSeconds(1)));
+		startupLogMatch.set(LogMatchMode.ANY_OF);
+		healthStatus.set(200);
+		healthTimeout.set(HealthUrlAvailabilityCheck.DEFAULT_PROBE_TIMEOUT);
+		probeHosts.set(PortAvailabilityCheck.DEFAULT_HOSTS);
+		portProbe.set(PortProbeMode.CONNECT);
+		notifyReady.set(false);
+		readyMarkerNonEmpty.set(false);
+		availabilityMatch.set(AvailabilityComposition.FIRST_DEFINED);
+		outputCapture.set(OutputCapture.defaultFor(logMaxSize, logRollInterval));
+		logGenerations.set(5);
+		zeroDowntimeRestart.set(false);
 	}
 
 	/**
 	 * Returns the unique name of the service being defined. Each service is required to have a unique name so that the
 	 * plugin can register appropriate control tasks for each service.
 	 */
+	@Override
 	public String getName()
 	{
 		return name;
@@ -117,12 +188,102 @@ public class GenericServiceDefinition
 		return servicePort;
 	}
 
+	@Override
+	public ListProperty<Integer> getAdditionalPorts()
+	{
+		return additionalPorts;
+	}
+
+	@Override
+	public ListProperty<String> getProbeHosts()
+	{
+		return probeHosts;
+	}
+
+	@Override
+	public Property<PortProbeMode> getPortProbe()
+	{
+		return portProbe;
+	}
+
 	@Override
 	public Property<CharSequence> getStartupLogMessage()
 	{
 		return startupLogMessage;
 	}
 
+	@Override
+	public ListProperty<CharSequence> getStartupLogMessages()
+	{
+		return startupLogMessages;
+	}
+
+	@Override
+	public ListProperty<CharSequence> getStartupLogPatterns()
+	{
+		return startupLogPatterns;
+	}
+
+	@Override
+	public Property<LogMatchMode> getStartupLogMatch()
+	{
+		return startupLogMatch;
+	}
+
+	@Override
+	public ListProperty<CharSequence> getFailureLogPatterns()
+	{
+		return failureLogPatterns;
+	}
+
+	@Override
+	public Property<String> getHealthUrl()
+	{
+		return healthUrl;
+	}
+
+	@Override
+	public Property<Integer> getHealthStatus()
+	{
+		return healthStatus;
+	}
+
+	@Override
+	public Property<CharSequence> getHealthBodyPattern()
+	{
+		return healthBodyPattern;
+	}
+
+	@Override
+	public Property<Duration> getHealthTimeout()
+	{
+		return healthTimeout;
+	}
+
+	@Override
+	public Property<Boolean> getNotifyReady()
+	{
+		return notifyReady;
+	}
+
+	@Override
+	public RegularFileProperty getReadyMarkerFile()
+	{
+		return readyMarkerFile;
+	}
+
+	@Override
+	public Property<Boolean> getReadyMarkerNonEmpty()
+	{
+		return readyMarkerNonEmpty;
+	}
+
+	@Override
+	public Property<AvailabilityComposition> getAvailabilityMatch()
+	{
+		return availabilityMatch;
+	}
+
 	@Override
 	public DirectoryProperty getWorkingDirectory()
 	{
@@ -147,9 +308,75 @@ public class GenericServiceDefinition
 		return errorOutputLog;
 	}
 
+	@Override
+	public Property<OutputCapture> getOutputCapture()
+	{
+		return outputCapture;
+	}
+
+	@Override
+	public Property<Long> getLogMaxSize()
+	{
+		return logMaxSize;
+	}
+
+	@Override
+	public Property<Duration> getLogRollInterval()
+	{
+		return logRollInterval;
+	}
+
+	@Override
+	public Property<Integer> getLogGenerations()
+	{
+		return logGenerations;
+	}
+
 	@Override
 	public Property<Duration> getStartTimeout()
 	{
 		return startTimeout;
 	}
+
+	@Override
+	public Property<ProbeSchedule> getProbeSchedule()
+	{
+		return probeSchedule;
+	}
+
+	@Override
+	public DomainObjectSet<String> getGroups()
+	{
+		return groups;
+	}
+
+	@Override
+	public void groups(String... groupNames)
+	{
+		groups.addAll(List.of(groupNames));
+	}
+
+	@Override
+	public SetProperty<String> getServiceDependencies()
+	{
+		return serviceDependencies;
+	}
+
+	@Override
+	public void dependsOnService(String... serviceNames)
+	{
+		serviceDependencies.addAll(serviceNames);
+	}
+
+	@Override
+	public Property<Boolean> getZeroDowntimeRestart()
+	{
+		return zeroDowntimeRestart;
+	}
+
+	@Override
+	public Property<Integer> getReplacementPort()
+	{
+		return replacementPort;
+	}
 }
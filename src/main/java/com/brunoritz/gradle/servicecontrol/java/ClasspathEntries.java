@@ -0,0 +1,71 @@
+package com.brunoritz.gradle.servicecontrol.java;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.gradle.api.file.FileCollection;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Utility methods for dealing with the entries of a runtime classpath.
+ */
+final class ClasspathEntries
+{
+	private static final String MODULE_DESCRIPTOR = "module-info.class";
+	private static final Attributes.Name AUTOMATIC_MODULE_NAME = new Attributes.Name("Automatic-Module-Name");
+
+	private ClasspathEntries()
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Returns the absolute paths of the entries of the given classpath. The order of the classpath entries determines
+	 * which of multiple classes of the same name gets loaded, and also has to be stable for the generated files to only
+	 * change along with the classpath. Duplicate entries are omitted.
+	 *
+	 * @param classpath
+	 * 	The classpath whose entries to return
+	 *
+	 * @return The absolute paths of the classpath entries, in the order of the classpath
+	 */
+	static List<File> of(FileCollection classpath)
+	{
+		return List.ofAll(classpath.getFiles())
+			.map(classpathEntry -> classpathEntry.toPath().toAbsolutePath().normalize().toFile())
+			.distinct();
+	}
+
+	/**
+	 * Indicates whether a classpath entry is a module. This is the case for directories and JAR files containing a
+	 * module descriptor, and for JAR files declaring an automatic module name in their manifest.
+	 *
+	 * @param classpathEntry
+	 * 	The classpath entry to check
+	 *
+	 * @return {@code true}, if the entry has to be passed on the module path
+	 */
+	static boolean isModule(File classpathEntry)
+	{
+		if (classpathEntry.isDirectory()) {
+			return new File(classpathEntry, MODULE_DESCRIPTOR).isFile();
+		}
+
+		return classpathEntry.isFile() && Try.withResources(() -> new JarFile(classpathEntry))
+			.of(jar -> (jar.getEntry(MODULE_DESCRIPTOR) != null) || declaresAutomaticModuleName(jar))
+			.getOrElse(false);
+	}
+
+	private static boolean declaresAutomaticModuleName(JarFile jar)
+		throws IOException
+	{
+		Option<Manifest> manifest = Option.of(jar.getManifest());
+
+		return manifest.exists(value -> value.getMainAttributes().containsKey(AUTOMATIC_MODULE_NAME));
+	}
+}
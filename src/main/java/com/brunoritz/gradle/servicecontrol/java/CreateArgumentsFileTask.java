@@ -1,8 +1,10 @@
 package com.brunoritz.gradle.servicecontrol.java;
 
 import io.vavr.collection.List;
+import io.vavr.control.Option;
 import io.vavr.control.Try;
 import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.ListProperty;
@@ -10,17 +12,23 @@ import org.gradle.api.provider.MapProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Classpath;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.TaskExecutionException;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.regex.Pattern;
 
 /**
  * This task creates an arguments file for the Java service to be started. Argument files are necessary because the
@@ -30,13 +38,26 @@ import java.util.stream.Collectors;
  * <ul>
  *     <li>If defined, a Java agent along with its argument</li>
  *     <li>If defined, the remote debugging settings</li>
+ *     <li>If a memory budget is set, the memory limits planned for the service</li>
+ *     <li>If selected, the arguments of the JVM profile</li>
  *     <li>If defined, the supplied JVM arguments</li>
- *     <li>The application's runtime classpath</li>
+ *     <li>If enabled, the class data sharing settings</li>
+ *     <li>The application's runtime classpath, the pathing JAR or the module path, depending on the launch mode</li>
  *     <li>If defined, additional system properties</li>
  * </ul>
  * <p>
  * When a debugger port is set, the application with be configured for remote debugging. The application will start
  * immediately without waiting for a debugger to be attached.
+ * <p>
+ * The classpath keeps the order of the runtime classpath, with duplicate entries removed, so that the arguments file
+ * only changes along with the inputs of the task. The file is not rewritten, if its content has not changed. When
+ * launching on the module path, the modules of the runtime classpath are passed on the module path and all remaining
+ * entries on the classpath.
+ * <p>
+ * When class data sharing is enabled, the application either maps the archive matching its runtime classpath or, if
+ * no such archive exists yet, records one when it terminates. Archives are identified by a fingerprint of the paths,
+ * sizes and modification times of the classpath entries, and of the files within classpath directories. Archives
+ * recorded for a different classpath are deleted.
  */
 public abstract class CreateArgumentsFileTask
 	extends DefaultTask
@@ -59,9 +80,38 @@ public abstract class CreateArgumentsFileTask
 	@Input
 	public abstract ListProperty<CharSequence> getJvmArgs();
 
+	@Input
+	@Optional
+	public abstract Property<MemoryAllocation> getMemoryAllocation();
+
+	@Input
+	@Optional
+	public abstract Property<String> getJvmProfile();
+
+	@Input
+	public abstract MapProperty<String, JvmProfile> getJvmProfiles();
+
 	@Classpath
 	public abstract Property<FileCollection> getRuntimeClasspath();
 
+	@Input
+	@Optional
+	public abstract Property<LaunchMode> getLaunchMode();
+
+	@InputFile
+	@Optional
+	public abstract RegularFileProperty getPathingJar();
+
+	@Input
+	public abstract Property<Boolean> getClassDataSharing();
+
+	@Internal
+	public abstract DirectoryProperty getClassDataArchiveDirectory();
+
+	@Input
+	@Optional
+	public abstract Property<String> getServiceName();
+
 	@OutputFile
 	public abstract RegularFileProperty getArgumentsFile();
 
@@ -71,14 +121,36 @@ public abstract class CreateArgumentsFileTask
 		List<String> arguments = List.<String>empty()
 			.append(computeAgentArgument())
 			.append(computeDebuggerArgument())
+			.appendAll(computeMemoryArguments())
+			.appendAll(computeProfileArguments())
 			.appendAll(computeJvmArguments())
-			.append(computeClasspathArgument())
+			.appendAll(computeClassDataSharingArguments())
+			.appendAll(computeClasspathArguments())
 			.appendAll(computeSystemProperties());
 
+		classDataArchive().peek(this::prepareArchiveDirectory);
+
 		writeArgumentsToFile(arguments)
 			.getOrElseThrow(error -> new TaskExecutionException(this, error));
 	}
 
+	/**
+	 * Indicates whether the arguments file contains the class data sharing arguments matching the current state of the
+	 * archive. Whether an archive is recorded or used depends on the presence of the archive, which is not known to
+	 * Gradle. This method therefore has to be part of the task's up-to-date check.
+	 *
+	 * @return {@code true}, if class data sharing is disabled or the arguments file matches the archive
+	 */
+	public boolean matchesClassDataArchive()
+	{
+		List<String> classDataSharingArguments = computeClassDataSharingArguments();
+
+		return classDataSharingArguments.isEmpty() || Try
+			.of(() -> Files.readString(getArgumentsFile().get().getAsFile().toPath(), StandardCharsets.UTF_8))
+			.map(existingArguments -> classDataSharingArguments.forAll(existingArguments::contains))
+			.getOrElse(false);
+	}
+
 	private String computeAgentArgument()
 	{
 		Set<File> agentFiles = getAgent().map(FileCollection::getFiles)
@@ -105,6 +177,32 @@ public abstract class CreateArgumentsFileTask
 			.getOrElse("");
 	}
 
+	private List<String> computeMemoryArguments()
+	{
+		return getMemoryAllocation()
+			.map(allocation -> List.ofAll(allocation.jvmArgs()))
+			.getOrElse(List.empty());
+	}
+
+	private List<String> computeProfileArguments()
+	{
+		if (!getJvmProfile().isPresent()) {
+			return List.empty();
+		}
+
+		String profileName = getJvmProfile().get();
+		Map<String, JvmProfile> profiles = getJvmProfiles().get();
+		Option<JvmProfile> profile = Option.of(profiles.get(profileName));
+
+		return profile
+			.map(selectedProfile -> List.ofAll(selectedProfile.jvmArgs()))
+			.getOrElseThrow(() -> new IllegalArgumentException(String.format(
+				"Unknown JVM profile '%s', known profiles are: %s",
+				profileName,
+				List.ofAll(profiles.keySet()).sorted().mkString(", ")
+			)));
+	}
+
 	private List<String> computeJvmArguments()
 	{
 		return List.ofAll(
@@ -113,17 +211,106 @@ public abstract class CreateArgumentsFileTask
 		);
 	}
 
-	private String computeClasspathArgument()
+	private List<String> computeClassDataSharingArguments()
 	{
-		Set<String> classpathFiles = getRuntimeClasspath()
-			.get()
-			.getFiles()
-			.stream()
-			.map(File::getAbsolutePath)
-			.collect(Collectors.toSet());
-		String joinedClasspath = String.join(File.pathSeparator, classpathFiles);
+		return classDataArchive()
+			.map(archive -> archive.isFile()
+				? String.format("-XX:SharedArchiveFile=%s", archive.getAbsolutePath())
+				: String.format("-XX:ArchiveClassesAtExit=%s", archive.getAbsolutePath())
+			)
+			.toList();
+	}
 
-		return String.format("-cp %s", joinedClasspath);
+	private Option<File> classDataArchive()
+	{
+		if (!getClassDataSharing().getOrElse(false)) {
+			return Option.none();
+		}
+
+		File archiveDirectory = getClassDataArchiveDirectory().get().getAsFile();
+		String archiveName = String.format("%s-%s.jsa", getServiceName().getOrElse(getName()), classpathFingerprint());
+
+		return Option.some(new File(archiveDirectory, archiveName));
+	}
+
+	private void prepareArchiveDirectory(File archive)
+	{
+		File archiveDirectory = getClassDataArchiveDirectory().get().getAsFile();
+
+		if (!(archiveDirectory.mkdirs() || archiveDirectory.isDirectory())) {
+			throw new IllegalStateException("Failed to create the class data archive directory");
+		}
+
+		deleteOutdatedArchives(archiveDirectory, getServiceName().getOrElse(getName()), archive);
+	}
+
+	private String classpathFingerprint()
+	{
+		MessageDigest digest = sha256();
+
+		ClasspathEntries.of(getRuntimeClasspath().get())
+			.flatMap(CreateArgumentsFileTask::fingerprintedFiles)
+			.forEach(classpathFile -> digest.update(
+				String.format(
+					"%s|%d|%d%n",
+					classpathFile.getAbsolutePath(),
+					classpathFile.length(),
+					classpathFile.lastModified()
+				).getBytes(StandardCharsets.UTF_8)
+			));
+
+		return HexFormat.of().formatHex(digest.digest()).substring(0, 16);
+	}
+
+	/*
+	 * The size and modification time of a directory do not change along with the classes in it, so the files in a
+	 * directory are fingerprinted instead. They are listed in a fixed order, as the file system does not guarantee one.
+	 */
+	private static List<File> fingerprintedFiles(File classpathEntry)
+	{
+		if (!classpathEntry.isDirectory()) {
+			return List.of(classpathEntry);
+		}
+
+		return Try.withResources(() -> Files.walk(classpathEntry.toPath()))
+			.of(paths -> List.ofAll(paths.filter(Files::isRegularFile).sorted().map(Path::toFile).toList()))
+			.getOrElseThrow(error -> new IllegalStateException(
+				String.format("Failed to fingerprint the classpath directory %s", classpathEntry),
+				error
+			));
+	}
+
+	private void deleteOutdatedArchives(File archiveDirectory, String serviceName, File currentArchive)
+	{
+		Pattern archiveName = Pattern.compile(Pattern.quote(serviceName) + "-[0-9a-f]{16}\\.jsa");
+		Option<File[]> existingFiles = Option.of(archiveDirectory.listFiles());
+
+		existingFiles
+			.map(files -> List.of(files))
+			.getOrElse(List.empty())
+			.filter(file -> archiveName.matcher(file.getName()).matches())
+			.filter(file -> !file.equals(currentArchive))
+			.filter(outdatedArchive -> !outdatedArchive.delete())
+			.forEach(outdatedArchive -> getLogger().warn("Failed to delete outdated archive {}", outdatedArchive));
+	}
+
+	private List<String> computeClasspathArguments()
+	{
+		List<File> classpathEntries = ClasspathEntries.of(getRuntimeClasspath().get());
+
+		return switch (getLaunchMode().getOrElse(LaunchMode.CLASSPATH)) {
+			case CLASSPATH -> pathArgument("-cp", classpathEntries);
+			case PATHING_JAR -> pathArgument("-cp", List.of(getPathingJar().get().getAsFile()));
+			case MODULE_PATH -> pathArgument("--module-path", classpathEntries.filter(ClasspathEntries::isModule))
+				.appendAll(pathArgument("-cp", classpathEntries.reject(ClasspathEntries::isModule)));
+		};
+	}
+
+	private static List<String> pathArgument(String option, List<File> entries)
+	{
+		return entries.isEmpty()
+			? List.empty()
+			: List.of(String.format("%s %s", option, entries.map(File::getAbsolutePath).mkString(File.pathSeparator)));
 	}
 
 	private List<String> computeSystemProperties()
@@ -134,21 +321,34 @@ public abstract class CreateArgumentsFileTask
 		);
 	}
 
+	/*
+	 * Rewriting an unchanged arguments file would update its modification time, which consumers of the file may take
+	 * as a change.
+	 */
 	private Try<Void> writeArgumentsToFile(List<String> arguments)
 	{
 		File outputFile = getArgumentsFile().get().getAsFile();
+		byte[] content = arguments
+			.intersperse(" ")
+			.foldLeft(new StringBuilder(), StringBuilder::append)
+			.toString()
+			.getBytes(StandardCharsets.UTF_8);
+		boolean unchanged = Try.of(() -> Files.readAllBytes(outputFile.toPath()))
+			.map(existingContent -> Arrays.equals(existingContent, content))
+			.getOrElse(false);
 
-		return Try
-			.withResources(() -> new BufferedWriter(new FileWriter(outputFile, StandardCharsets.UTF_8)))
-			.of(writer -> {
-				String allArguments = arguments
-					.intersperse(" ")
-					.foldLeft(new StringBuilder(), StringBuilder::append)
-					.toString();
+		if (unchanged) {
+			getLogger().info("Arguments file {} is unchanged", outputFile);
 
-				writer.append(allArguments);
+			return Try.success(null);
+		}
+
+		return Try.run(() -> Files.write(outputFile.toPath(), content));
+	}
 
-				return null;
-			});
+	private static MessageDigest sha256()
+	{
+		return Try.of(() -> MessageDigest.getInstance("SHA-256"))
+			.getOrElseThrow(error -> new IllegalStateException("SHA-256 is not supported", error));
 	}
 }
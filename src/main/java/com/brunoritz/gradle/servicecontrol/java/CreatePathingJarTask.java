@@ -0,0 +1,104 @@
+package com.brunoritz.gradle.servicecontrol.java;
+
+import io.vavr.collection.List;
+import io.vavr.control.Try;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.TaskExecutionException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+/**
+ * This task creates a pathing JAR for the Java service to be started. A pathing JAR only consists of a manifest, whose
+ * {@code Class-Path} attribute references the entries of the runtime classpath. Passing the pathing JAR as the only
+ * classpath entry keeps the arguments file small, even for runtime classpaths with hundreds of entries.
+ * <p>
+ * The entries are referenced relative to the location of the pathing JAR, unless no relative path exists, in which
+ * case they are referenced by their absolute location. The order of the runtime classpath is retained, with duplicate
+ * entries removed. The content of the JAR only depends on the runtime classpath, so the task is only executed when the
+ * classpath has changed.
+ */
+public abstract class CreatePathingJarTask
+	extends DefaultTask
+{
+	/*
+	 * Entries of the pathing JAR get this timestamp, so that the JAR only changes along with the classpath. This is
+	 * the same timestamp as Gradle uses for reproducible archives.
+	 */
+	private static final LocalDateTime ENTRY_TIMESTAMP = LocalDateTime.of(1980, 2, 1, 0, 0);
+
+	@Classpath
+	public abstract Property<FileCollection> getRuntimeClasspath();
+
+	@OutputFile
+	public abstract RegularFileProperty getPathingJar();
+
+	@TaskAction
+	public void createJar()
+	{
+		File pathingJar = getPathingJar().get().getAsFile();
+		Path jarDirectory = pathingJar.toPath().toAbsolutePath().resolveSibling("");
+		String classPath = ClasspathEntries.of(getRuntimeClasspath().get())
+			.map(classpathEntry -> manifestEntry(jarDirectory, classpathEntry))
+			.mkString(" ");
+
+		writeJar(pathingJar, classPath)
+			.getOrElseThrow(error -> new TaskExecutionException(this, error));
+	}
+
+	/*
+	 * Manifest entries are URLs, so spaces and other special characters have to be encoded. Directories need a trailing
+	 * slash, as otherwise they are treated as JAR files.
+	 */
+	private static String manifestEntry(Path jarDirectory, File classpathEntry)
+	{
+		Path entryPath = classpathEntry.toPath();
+		String suffix = classpathEntry.isDirectory() ? "/" : "";
+
+		return Try.of(() -> jarDirectory.relativize(entryPath))
+			.map(relativePath -> List.ofAll(relativePath).map(CreatePathingJarTask::encodePathSegment).mkString("/"))
+			.map(relativePath -> (relativePath.isEmpty() ? "." : relativePath) + suffix)
+			.getOrElse(() -> entryPath.toUri().toString());
+	}
+
+	private static String encodePathSegment(Path segment)
+	{
+		return URLEncoder.encode(segment.toString(), StandardCharsets.UTF_8).replace("+", "%20");
+	}
+
+	private static Try<Void> writeJar(File pathingJar, String classPath)
+	{
+		Manifest manifest = new Manifest();
+		Attributes attributes = manifest.getMainAttributes();
+
+		attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		attributes.put(Attributes.Name.CLASS_PATH, classPath);
+
+		return Try.withResources(() -> new JarOutputStream(new FileOutputStream(pathingJar)))
+			.of(jar -> {
+				ZipEntry manifestEntry = new ZipEntry(JarFile.MANIFEST_NAME);
+
+				manifestEntry.setTimeLocal(ENTRY_TIMESTAMP);
+				jar.putNextEntry(manifestEntry);
+				manifest.write(jar);
+				jar.closeEntry();
+
+				return null;
+			});
+	}
+}
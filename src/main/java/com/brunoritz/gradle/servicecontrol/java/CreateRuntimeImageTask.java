@@ -0,0 +1,202 @@
+package com.brunoritz.gradle.servicecontrol.java;
+
+import io.vavr.collection.List;
+import io.vavr.collection.SortedSet;
+import io.vavr.collection.TreeSet;
+import io.vavr.control.Try;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.SetProperty;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.TaskExecutionException;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.spi.ToolProvider;
+
+/**
+ * This task provides a custom runtime image for the Java service to be started. The image only contains the JDK
+ * modules the service requires, which reduces both the startup time and the memory footprint of the service, compared
+ * to running it on the full JDK.
+ * <p>
+ * The required modules are determined by analyzing the runtime classpath using {@code jdeps}. Modules only used
+ * reflectively or through service loaders cannot be determined this way and have to be added explicitly. The image is
+ * then created using {@code jlink} from the JDK running Gradle, along with a default class data sharing archive if
+ * supported by the JDK.
+ * <p>
+ * Images are identified by a hash of their modules and the JDK they were created from. Services requiring the same
+ * modules share an image, and an image is only created if it does not exist yet. The location of the image is written
+ * to a file, from which it is read when the service is launched.
+ */
+public abstract class CreateRuntimeImageTask
+	extends DefaultTask
+{
+	private static final String BASE_MODULE = "java.base";
+
+	@Classpath
+	public abstract Property<FileCollection> getRuntimeClasspath();
+
+	@Input
+	public abstract SetProperty<String> getAdditionalModules();
+
+	@Internal
+	public abstract DirectoryProperty getImageDirectory();
+
+	@OutputFile
+	public abstract RegularFileProperty getImageLocationFile();
+
+	@TaskAction
+	public void createImage()
+	{
+		SortedSet<String> modules = determineRequiredModules()
+			.addAll(getAdditionalModules().get())
+			.add(BASE_MODULE);
+		File imageDirectory = getImageDirectory().get().getAsFile();
+		File image = new File(imageDirectory, imageName(modules));
+
+		if (isImage(image)) {
+			getLogger().info("Using existing runtime image {} with modules {}", image, modules.mkString(","));
+		} else {
+			linkImage(imageDirectory, image, modules);
+		}
+
+		Try.run(() -> Files.writeString(
+			getImageLocationFile().get().getAsFile().toPath(),
+			image.getAbsolutePath(),
+			StandardCharsets.UTF_8
+		)).getOrElseThrow(error -> new TaskExecutionException(this, error));
+	}
+
+	/**
+	 * Indicates whether the runtime image recorded in the image location file still exists. Images are kept outside
+	 * of the outputs of this task, so that Gradle does not notice their deletion. This method therefore has to be part
+	 * of the task's up-to-date check.
+	 *
+	 * @return {@code true}, if the recorded image exists
+	 */
+	public boolean recordedImageExists()
+	{
+		return Try.of(() -> Files.readString(getImageLocationFile().get().getAsFile().toPath(), StandardCharsets.UTF_8))
+			.map(location -> isImage(new File(location.trim())))
+			.getOrElse(false);
+	}
+
+	private SortedSet<String> determineRequiredModules()
+	{
+		List<String> classpathEntries = ClasspathEntries.of(getRuntimeClasspath().get())
+			.filter(File::exists)
+			.map(File::getAbsolutePath);
+
+		if (classpathEntries.isEmpty()) {
+			return TreeSet.empty();
+		}
+
+		String moduleDependencies = runTool("jdeps", List.of(
+			"--print-module-deps",
+			"--ignore-missing-deps",
+			"--multi-release", Integer.toString(Runtime.version().feature()),
+			"--class-path", classpathEntries.mkString(File.pathSeparator)
+		).appendAll(classpathEntries));
+
+		return TreeSet.of(moduleDependencies.trim().split(","))
+			.map(String::trim)
+			.filter(module -> !module.isEmpty());
+	}
+
+	/*
+	 * The image is created in a temporary location first, and then moved to its final location. This prevents
+	 * concurrent builds from using an incomplete image. If a concurrent build has created the image in the meantime,
+	 * the move fails and the image of the other build is used.
+	 */
+	private void linkImage(File imageDirectory, File image, SortedSet<String> modules)
+	{
+		File temporaryImage = new File(imageDirectory, String.format("%s.%s", image.getName(), UUID.randomUUID()));
+
+		getLogger().lifecycle("Creating runtime image {} with modules {}", image, modules.mkString(","));
+
+		if (!(imageDirectory.mkdirs() || imageDirectory.isDirectory())) {
+			throw new IllegalStateException("Failed to create the runtime image directory");
+		}
+
+		runTool("jlink", List.of(
+			"--add-modules", modules.mkString(","),
+			"--output", temporaryImage.getAbsolutePath(),
+			"--strip-debug",
+			"--no-header-files",
+			"--no-man-pages"
+		).appendAll(classDataSharingArguments()));
+
+		Try<Void> moveResult = Try.run(() ->
+			Files.move(temporaryImage.toPath(), image.toPath(), StandardCopyOption.ATOMIC_MOVE)
+		);
+
+		FileUtils.deleteQuietly(temporaryImage);
+
+		if (moveResult.isFailure() && !isImage(image)) {
+			throw new IllegalStateException("Failed to move the runtime image into place", moveResult.getCause());
+		}
+	}
+
+	/*
+	 * A default class data sharing archive speeds up the startup of the image. Only recent versions of jlink are able
+	 * to generate it.
+	 */
+	private static List<String> classDataSharingArguments()
+	{
+		String generateArchive = "--generate-cds-archive";
+
+		return runTool("jlink", List.of("--list-plugins")).contains(generateArchive)
+			? List.of(generateArchive)
+			: List.empty();
+	}
+
+	private static String runTool(String toolName, List<String> arguments)
+	{
+		ToolProvider tool = ToolProvider.findFirst(toolName)
+			.orElseThrow(() -> new IllegalStateException(String.format("The JDK does not provide %s", toolName)));
+		StringWriter output = new StringWriter();
+		int exitCode = tool.run(new PrintWriter(output), new PrintWriter(output), arguments.toJavaArray(String[]::new));
+
+		if (exitCode != 0) {
+			throw new IllegalStateException(
+				String.format("%s failed with exit code %d: %s", toolName, exitCode, output)
+			);
+		}
+
+		return output.toString();
+	}
+
+	private static String imageName(SortedSet<String> modules)
+	{
+		MessageDigest digest = Try.of(() -> MessageDigest.getInstance("SHA-256"))
+			.getOrElseThrow(error -> new IllegalStateException("SHA-256 is not supported", error));
+		String imageIdentity = String.format(
+			"%s|%s|%s",
+			modules.mkString(","),
+			System.getProperty("java.home"),
+			Runtime.version()
+		);
+
+		return HexFormat.of().formatHex(digest.digest(imageIdentity.getBytes(StandardCharsets.UTF_8))).substring(0, 16);
+	}
+
+	private static boolean isImage(File image)
+	{
+		return new File(image, "release").isFile();
+	}
+}
@@ -2,53 +2,102 @@ package com.brunoritz.gradle.servicecontrol.java;
 
 import com.brunoritz.gradle.servicecontrol.launch.CommandComputer;
 import io.vavr.collection.List;
+import io.vavr.control.Try;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.internal.jvm.Jvm;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 /**
  * Computes the command needed to start a Java service. This implementation uses a Gradle internal class for
- * determining the JDK location. Unfortunately there seems to be no better/public way to find that location.
+ * determining the JDK location. Unfortunately there seems to be no better/public way to find that location. If the
+ * service runs on a custom runtime image, the Java executable of that image is used instead.
  * <p>
  * The computed command will contain the following elements:
  * <ol>
- *     <li>Java executable</li>
+ *     <li>Java executable, either of the JDK running Gradle or of the custom runtime image</li>
  *     <li>Arguments file (Windows cannot handle long command lines with a full classpath)</li>
- *     <li>Main class name</li>
+ *     <li>Main class name, or the main module along with the main class when launching on the module path</li>
  *     <li>Program arguments</li>
  * </ol>
  */
 public class JavaCommandComputer
 	implements CommandComputer
 {
+	private final RegularFileProperty runtimeImageLocation;
 	private final RegularFileProperty argumentsFile;
+	private final Property<LaunchMode> launchMode;
 	private final Property<CharSequence> mainClass;
+	private final Property<CharSequence> mainModule;
 	private final ListProperty<CharSequence> arguments;
 
 	public JavaCommandComputer(
+		RegularFileProperty runtimeImageLocation,
 		RegularFileProperty argumentsFile,
+		Property<LaunchMode> launchMode,
 		Property<CharSequence> mainClass,
+		Property<CharSequence> mainModule,
 		ListProperty<CharSequence> arguments)
 	{
+		this.runtimeImageLocation = runtimeImageLocation;
 		this.argumentsFile = argumentsFile;
+		this.launchMode = launchMode;
 		this.mainClass = mainClass;
+		this.mainModule = mainModule;
 		this.arguments = arguments;
 	}
 
 	@Override
 	public List<String> compute()
 	{
-		File javaExecutable = Jvm.current().getJavaExecutable();
+		File javaExecutable = determineJavaExecutable();
 		List<String> command = List.<String>empty()
 			.append(javaExecutable.toString())
 			.append(String.format("@%s", argumentsFile.getAsFile().get()))
-			.append(mainClass.get().toString());
+			.appendAll(computeEntryPoint());
 
 		return arguments.get().stream()
 			.map(CharSequence::toString)
 			.reduce(command, List::append, List::appendAll);
 	}
+
+	/*
+	 * The runtime image location file contains the location of the image, as it is only determined when creating the
+	 * image.
+	 */
+	private File determineJavaExecutable()
+	{
+		File jdkExecutable = Jvm.current().getJavaExecutable();
+
+		if (!runtimeImageLocation.isPresent()) {
+			return jdkExecutable;
+		}
+
+		File locationFile = runtimeImageLocation.getAsFile().get();
+		String imageLocation = Try.of(() -> Files.readString(locationFile.toPath(), StandardCharsets.UTF_8))
+			.getOrElseThrow(error -> new IllegalStateException("Failed to read the runtime image location", error));
+
+		return new File(new File(imageLocation.trim(), "bin"), jdkExecutable.getName());
+	}
+
+	private List<String> computeEntryPoint()
+	{
+		if (launchMode.getOrElse(LaunchMode.CLASSPATH) != LaunchMode.MODULE_PATH) {
+			return List.of(mainClass.get().toString());
+		}
+
+		if (!mainModule.isPresent()) {
+			throw new IllegalStateException("A main module is required for launching on the module path");
+		}
+
+		String entryClass = mainClass.getOrElse("").toString();
+
+		return entryClass.isEmpty()
+			? List.of("--module", mainModule.get().toString())
+			: List.of("--module", String.format("%s/%s", mainModule.get(), entryClass));
+	}
 }
@@ -1,6 +1,14 @@
 package com.brunoritz.gradle.servicecontrol.java;
 
 import com.brunoritz.gradle.servicecontrol.ServiceDefinition;
+import com.brunoritz.gradle.servicecontrol.availability.AvailabilityComposition;
+import com.brunoritz.gradle.servicecontrol.availability.HealthUrlAvailabilityCheck;
+import com.brunoritz.gradle.servicecontrol.availability.LogMatchMode;
+import com.brunoritz.gradle.servicecontrol.availability.PortAvailabilityCheck;
+import com.brunoritz.gradle.servicecontrol.availability.PortProbeMode;
+import com.brunoritz.gradle.servicecontrol.launch.OutputCapture;
+import com.brunoritz.gradle.servicecontrol.launch.ProbeSchedule;
+import org.gradle.api.DomainObjectSet;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.file.DirectoryProperty;
@@ -9,10 +17,12 @@ import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.MapProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.provider.SetProperty;
 
 import javax.inject.Inject;
 import java.io.File;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,22 +34,57 @@ public class JavaServiceDefinition
 {
 	private final String name;
 	private final Property<CharSequence> mainClass;
+	private final Property<CharSequence> mainModule;
+	private final Property<LaunchMode> launchMode;
 	private final ListProperty<File> environmentFiles;
 	private final MapProperty<CharSequence, CharSequence> environment;
 	private final ListProperty<CharSequence> jvmArgs;
+	private final Property<String> jvmProfile;
+	private final MapProperty<String, JvmProfile> jvmProfiles;
+	private final Property<Integer> memoryWeight;
+	private final Property<CharSequence> minimumHeap;
 	private final ListProperty<CharSequence> args;
 	private final MapProperty<CharSequence, CharSequence> systemProperties;
 	private final Property<Integer> servicePort;
+	private final ListProperty<Integer> additionalPorts;
+	private final ListProperty<String> probeHosts;
+	private final Property<PortProbeMode> portProbe;
 	private final Property<CharSequence> startupLogMessage;
+	private final ListProperty<CharSequence> startupLogMessages;
+	private final ListProperty<CharSequence> startupLogPatterns;
+	private final Property<LogMatchMode> startupLogMatch;
+	private final ListProperty<CharSequence> failureLogPatterns;
+	private final Property<String> healthUrl;
+	private final Property<Integer> healthStatus;
+	private final Property<CharSequence> healthBodyPattern;
+	private final Property<Duration> healthTimeout;
+	private final Property<Boolean> notifyReady;
+	private final RegularFileProperty readyMarkerFile;
+	private final Property<Boolean> readyMarkerNonEmpty;
+	private final Property<AvailabilityComposition> availabilityMatch;
 	private final Property<Integer> debugPort;
 	private final DirectoryProperty workingDirectory;
 	private final RegularFileProperty argumentsFile;
 	private final RegularFileProperty pidFile;
 	private final RegularFileProperty standardOutputLog;
 	private final RegularFileProperty errorOutputLog;
+	private final Property<OutputCapture> outputCapture;
+	private final Property<Long> logMaxSize;
+	private final Property<Duration> logRollInterval;
+	private final Property<Integer> logGenerations;
 	private final Property<Duration> startTimeout;
+	private final Property<ProbeSchedule> probeSchedule;
+	private final DomainObjectSet<String> groups;
+	private final SetProperty<String> serviceDependencies;
+	private final Property<Boolean> zeroDowntimeRestart;
+	private final Property<Integer> replacementPort;
 	private final Property<Configuration> agent;
 	private final Property<CharSequence> agentArgs;
+	private final Property<Boolean> classDataSharing;
+	private final DirectoryProperty classDataArchiveDirectory;
+	private final Property<Boolean> customRuntime;
+	private final SetProperty<String> runtimeModules;
+	private final DirectoryProperty runtimeImageDirectory;
 
 	@Inject
 	public JavaServiceDefinition(String name, Project project)
@@ -51,22 +96,57 @@ public class JavaServiceDefinition
 		this.name = name;
 
 		mainClass = factory.property(CharSequence.class);
+		mainModule = factory.property(CharSequence.class);
+		launchMode = factory.property(LaunchMode.class);
 		environmentFiles = factory.listProperty(File.class);
 		environment = factory.mapProperty(CharSequence.class, CharSequence.class);
 		jvmArgs = factory.listProperty(CharSequence.class);
+		jvmProfile = factory.property(String.class);
+		jvmProfiles = factory.mapProperty(String.class, JvmProfile.class);
+		memoryWeight = factory.property(Integer.class);
+		minimumHeap = factory.property(CharSequence.class);
 		args = factory.listProperty(CharSequence.class);
 		systemProperties = factory.mapProperty(CharSequence.class, CharSequence.class);
 		servicePort = factory.property(Integer.class);
+		additionalPorts = factory.listProperty(Integer.class);
+		probeHosts = factory.listProperty(String.class);
+		portProbe = factory.property(PortProbeMode.class);
 		startupLogMessage = factory.property(CharSequence.class);
+		startupLogMessages = factory.listProperty(CharSequence.class);
+		startupLogPatterns = factory.listProperty(CharSequence.class);
+		startupLogMatch = factory.property(LogMatchMode.class);
+		failureLogPatterns = factory.listProperty(CharSequence.class);
+		healthUrl = factory.property(String.class);
+		healthStatus = factory.property(Integer.class);
+		healthBodyPattern = factory.property(CharSequence.class);
+		healthTimeout = factory.property(Duration.class);
+		notifyReady = factory.property(Boolean.class);
+		readyMarkerFile = factory.fileProperty();
+		readyMarkerNonEmpty = factory.property(Boolean.class);
+		availabilityMatch = factory.property(AvailabilityComposition.class);
 		debugPort = factory.property(Integer.class);
 		workingDirectory = factory.directoryProperty();
 		argumentsFile = factory.fileProperty();
 		pidFile = factory.fileProperty();
 		standardOutputLog = factory.fileProperty();
 		errorOutputLog = factory.fileProperty();
+		outputCapture = factory.property(OutputCapture.class);
+		logMaxSize = factory.property(Long.class);
+		logRollInterval = factory.property(Duration.class);
+		logGenerations = factory.property(Integer.class);
 		startTimeout = factory.property(Duration.class);
+		probeSchedule = factory.property(ProbeSchedule.class);
+		groups = factory.domainObjectSet(String.class);
+		serviceDependencies = factory.setProperty(String.class);
+		zeroDowntimeRestart = factory.property(Boolean.class);
+		replacementPort = factory.property(Integer.class);
 		agent = factory.property(Configuration.class);
 		agentArgs = factory.property(CharSequence.class);
+		classDataSharing = factory.property(Boolean.class);
+		classDataArchiveDirectory = factory.directoryProperty();
+		customRuntime = factory.property(Boolean.class);
+		runtimeModules = factory.setProperty(String.class);
+		runtimeImageDirectory = factory.directoryProperty();
 
 		workingDirectory.set(project.getProjectDir());
 		argumentsFile.set(buildDirectory.file(String.format("jvmargs.%s.txt", name)));
@@ -74,12 +154,34 @@ public class JavaServiceDefinition
 		standardOutputLog.set(project.file(String.format("%s/stdout.%s.log", logsDirectory, name)));
 		errorOutputLog.set(project.file(String.format("%s/stderr.%s.log", logsDirectory, name)));
 		startTimeout.set(Duration.ofMinutes(10));
+		probeSchedule.set(ProbeSchedule.exponentialBackoff(Duration.ofMillis(10), Duration.ofSeconds(1)));
+		startupLogMatch.set(LogMatchMode.ANY_OF);
+		healthStatus.set(200);
+		healthTimeout.set(HealthUrlAvailabilityCheck.DEFAULT_PROBE_TIMEOUT);
+		probeHosts.set(PortAvailabilityCheck.DEFAULT_HOSTS);
+		portProbe.set(PortProbeMode.CONNECT);
+		notifyReady.set(false);
+		readyMarkerNonEmpty.set(false);
+		availabilityMatch.set(AvailabilityComposition.FIRST_DEFINED);
+		outputCapture.set(OutputCapture.defaultFor(logMaxSize, logRollInterval));
+		logGenerations.set(5);
+		jvmProfiles.put(JvmProfile.FAST_STARTUP, JvmProfile.fastStartup());
+		jvmProfiles.put(JvmProfile.THROUGHPUT, JvmProfile.throughput());
+		jvmProfiles.put(JvmProfile.LOW_MEMORY, JvmProfile.lowMemory());
+		memoryWeight.set(1);
+		launchMode.set(LaunchMode.CLASSPATH);
+		zeroDowntimeRestart.set(false);
+		classDataSharing.set(false);
+		classDataArchiveDirectory.set(buildDirectory.dir("service-control/cds"));
+		customRuntime.set(false);
+		runtimeImageDirectory.set(buildDirectory.dir("service-control/runtimes"));
 	}
 
 	/**
 	 * Returns the unique name of the service being defined. Each service is required to have a unique name so that the
 	 * plugin can register appropriate control tasks for each service.
 	 */
+	@Override
 	public String getName()
 	{
 		return name;
@@ -115,15 +217,99 @@ public class JavaServiceDefinition
 	}
 
 	/**
-	 * The fully qualified name of the service's entry point class.
+	 * The name of the JVM profile to apply to the service. The arguments of the profile are passed to the JVM before
+	 * the arguments configured in {@link #getJvmArgs()}, so that the latter take precedence. The Gradle property
+	 * {@value JvmProfile#SELECTION_PROPERTY} overrides this setting for all services.
+	 * <p>
+	 * Defaults to no profile.
+	 *
+	 * @see #getJvmProfiles()
+	 */
+	public Property<String> getJvmProfile()
+	{
+		return jvmProfile;
+	}
+
+	/**
+	 * The JVM profiles known to the service, by their name. Profiles can be redefined or added per service.
+	 * <p>
+	 * Defaults to the profiles {@value JvmProfile#FAST_STARTUP}, {@value JvmProfile#THROUGHPUT} and
+	 * {@value JvmProfile#LOW_MEMORY}.
+	 *
+	 * @see #getJvmProfile()
+	 * @see JvmProfile
+	 */
+	public MapProperty<String, JvmProfile> getJvmProfiles()
+	{
+		return jvmProfiles;
+	}
+
+	/**
+	 * The weight of the service when distributing the memory budget among all services. A service with a weight of 2
+	 * gets twice the memory of a service with a weight of 1. This property only has an effect, if a memory budget is
+	 * set using the Gradle property {@value MemoryBudgetPlanner#BUDGET_PROPERTY}.
+	 * <p>
+	 * Defaults to 1.
+	 *
+	 * @see MemoryBudgetPlanner
+	 */
+	public Property<Integer> getMemoryWeight()
+	{
+		return memoryWeight;
+	}
+
+	/**
+	 * The minimum heap of the service when distributing the memory budget among all services, in the syntax of JVM
+	 * arguments such as {@code 512m}. The minimum heap is also used as the initial heap. This property only has an
+	 * effect, if a memory budget is set using the Gradle property {@value MemoryBudgetPlanner#BUDGET_PROPERTY}.
+	 * <p>
+	 * Defaults to no minimum.
+	 *
+	 * @see MemoryBudgetPlanner
+	 */
+	public Property<CharSequence> getMinimumHeap()
+	{
+		return minimumHeap;
+	}
+
+	/**
+	 * The fully qualified name of the service's entry point class. When launching the service on the module path, the
+	 * main class may be left empty to launch the main class recorded in the descriptor of the main module.
 	 * <p>
-	 * <b>This is a mandatory property.</b>
+	 * <b>This is a mandatory property, unless launching on the module path.</b>
 	 */
 	public Property<CharSequence> getMainClass()
 	{
 		return mainClass;
 	}
 
+	/**
+	 * The name of the module containing the service's entry point class. The main module is only used, and then
+	 * required, when launching the service on the module path.
+	 * <p>
+	 * Defaults to empty.
+	 *
+	 * @see #getLaunchMode()
+	 */
+	public Property<CharSequence> getMainModule()
+	{
+		return mainModule;
+	}
+
+	/**
+	 * Defines how the runtime classpath is passed to the JVM. Services with a very large runtime classpath may use a
+	 * pathing JAR, which keeps the arguments file small. Modular services may be launched on the module path, which
+	 * requires the main module to be set.
+	 * <p>
+	 * Defaults to {@link LaunchMode#CLASSPATH}.
+	 *
+	 * @see #getMainModule()
+	 */
+	public Property<LaunchMode> getLaunchMode()
+	{
+		return launchMode;
+	}
+
 	/**
 	 * System properties to be set when the service is started. The system properties of the Gradle Daemon are not
 	 * automatically added here.
@@ -180,6 +366,78 @@ public class JavaServiceDefinition
 		return agentArgs;
 	}
 
+	/**
+	 * Whether to share the class data of the service between its starts using a dynamic AppCDS archive, which reduces
+	 * the time spent loading classes. The first start records the loaded classes in an archive when the service
+	 * terminates, and later starts map the archive. Archives are specific to the runtime classpath, so a new archive
+	 * is recorded whenever the classpath changes. This requires the service to run on Java 13 or later.
+	 * <p>
+	 * The JVM only archives classes loaded from JAR files. If the archive cannot be used, the JVM logs a warning and
+	 * continues without it.
+	 * <p>
+	 * Defaults to {@code false}.
+	 *
+	 * @see #getClassDataArchiveDirectory()
+	 */
+	public Property<Boolean> getClassDataSharing()
+	{
+		return classDataSharing;
+	}
+
+	/**
+	 * The directory in which to keep the class data sharing archives of the service.
+	 * <p>
+	 * Defaults to {@code buildDir/service-control/cds}.
+	 *
+	 * @see #getClassDataSharing()
+	 */
+	public DirectoryProperty getClassDataArchiveDirectory()
+	{
+		return classDataArchiveDirectory;
+	}
+
+	/**
+	 * Whether to run the service on a custom runtime image, which only contains the JDK modules required by the
+	 * service. A smaller runtime reduces the startup time and memory footprint of the service. The required modules are
+	 * determined by analyzing the runtime classpath, and the image is created from the JDK running Gradle.
+	 * <p>
+	 * Defaults to {@code false}.
+	 *
+	 * @see #getRuntimeModules()
+	 * @see #getRuntimeImageDirectory()
+	 */
+	public Property<Boolean> getCustomRuntime()
+	{
+		return customRuntime;
+	}
+
+	/**
+	 * Additional JDK modules to include in the custom runtime image. Modules that are only used reflectively or through
+	 * service loaders, such as {@code jdk.crypto.ec} or {@code jdk.localedata}, are not detected by analyzing the
+	 * runtime classpath. The modules needed for debugging and agents are added automatically, if configured.
+	 * <p>
+	 * Defaults to an empty set.
+	 *
+	 * @see #getCustomRuntime()
+	 */
+	public SetProperty<String> getRuntimeModules()
+	{
+		return runtimeModules;
+	}
+
+	/**
+	 * The directory in which to keep the custom runtime images. Images are identified by their modules, so services
+	 * requiring the same modules share an image.
+	 * <p>
+	 * Defaults to {@code buildDir/service-control/runtimes}.
+	 *
+	 * @see #getCustomRuntime()
+	 */
+	public DirectoryProperty getRuntimeImageDirectory()
+	{
+		return runtimeImageDirectory;
+	}
+
 	/**
 	 * The argument file used to pass all command line arguments to the JVM. An arguments file is needed since sometimes
 	 * the classpath can be way too long for Windows to handle it.
@@ -227,12 +485,102 @@ public class JavaServiceDefinition
 		return servicePort;
 	}
 
+	@Override
+	public ListProperty<Integer> getAdditionalPorts()
+	{
+		return additionalPorts;
+	}
+
+	@Override
+	public ListProperty<String> getProbeHosts()
+	{
+		return probeHosts;
+	}
+
+	@Override
+	public Property<PortProbeMode> getPortProbe()
+	{
+		return portProbe;
+	}
+
 	@Override
 	public Property<CharSequence> getStartupLogMessage()
 	{
 		return startupLogMessage;
 	}
 
+	@Override
+	public ListProperty<CharSequence> getStartupLogMessages()
+	{
+		return startupLogMessages;
+	}
+
+	@Override
+	public ListProperty<CharSequence> getStartupLogPatterns()
+	{
+		return startupLogPatterns;
+	}
+
+	@Override
+	public Property<LogMatchMode> getStartupLogMatch()
+	{
+		return startupLogMatch;
+	}
+
+	@Override
+	public ListProperty<CharSequence> getFailureLogPatterns()
+	{
+		return failureLogPatterns;
+	}
+
+	@Override
+	public Property<String> getHealthUrl()
+	{
+		return healthUrl;
+	}
+
+	@Override
+	public Property<Integer> getHealthStatus()
+	{
+		return healthStatus;
+	}
+
+	@Override
+	public Property<CharSequence> getHealthBodyPattern()
+	{
+		return healthBodyPattern;
+	}
+
+	@Override
+	public Property<Duration> getHealthTimeout()
+	{
+		return healthTimeout;
+	}
+
+	@Override
+	public Property<Boolean> getNotifyReady()
+	{
+		return notifyReady;
+	}
+
+	@Override
+	public RegularFileProperty getReadyMarkerFile()
+	{
+		return readyMarkerFile;
+	}
+
+	@Override
+	public Property<Boolean> getReadyMarkerNonEmpty()
+	{
+		return readyMarkerNonEmpty;
+	}
+
+	@Override
+	public Property<AvailabilityComposition> getAvailabilityMatch()
+	{
+		return availabilityMatch;
+	}
+
 	@Override
 	public DirectoryProperty getWorkingDirectory()
 	{
@@ -257,9 +605,75 @@ public class JavaServiceDefinition
 		return errorOutputLog;
 	}
 
+	@Override
+	public Property<OutputCapture> getOutputCapture()
+	{
+		return outputCapture;
+	}
+
+	@Override
+	public Property<Long> getLogMaxSize()
+	{
+		return logMaxSize;
+	}
+
+	@Override
+	public Property<Duration> getLogRollInterval()
+	{
+		return logRollInterval;
+	}
+
+	@Override
+	public Property<Integer> getLogGenerations()
+	{
+		return logGenerations;
+	}
+
 	@Override
 	public Property<Duration> getStartTimeout()
 	{
 		return startTimeout;
 	}
+
+	@Override
+	public Property<ProbeSchedule> getProbeSchedule()
+	{
+		return probeSchedule;
+	}
+
+	@Override
+	public DomainObjectSet<String> getGroups()
+	{
+		return groups;
+	}
+
+	@Override
+	public void groups(String... groupNames)
+	{
+		groups.addAll(List.of(groupNames));
+	}
+
+	@Override
+	public SetProperty<String> getServiceDependencies()
+	{
+		return serviceDependencies;
+	}
+
+	@Override
+	public void dependsOnService(String... serviceNames)
+	{
+		serviceDependencies.addAll(serviceNames);
+	}
+
+	@Override
+	public Property<Boolean> getZeroDowntimeRestart()
+	{
+		return zeroDowntimeRestart;
+	}
+
+	@Override
+	public Property<Integer> getReplacementPort()
+	{
+		return replacementPort;
+	}
 }
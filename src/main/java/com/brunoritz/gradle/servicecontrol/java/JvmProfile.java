@@ -0,0 +1,95 @@
+package com.brunoritz.gradle.servicecontrol.java;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A named set of JVM arguments tuning a Java service for a specific purpose. Profiles allow switching services between
+ * quick iteration and realistic performance without changing their JVM arguments.
+ * <p>
+ * Each service knows the built-in profiles {@value #FAST_STARTUP}, {@value #THROUGHPUT} and {@value #LOW_MEMORY}. The
+ * profile to use is selected per service, or for all services using the Gradle property
+ * {@value #SELECTION_PROPERTY}.
+ *
+ * @see JavaServiceDefinition#getJvmProfile()
+ * @see JavaServiceDefinition#getJvmProfiles()
+ */
+public record JvmProfile(List<String> jvmArgs)
+	implements Serializable
+{
+	/**
+	 * The Gradle property through which the profile of all services can be selected.
+	 */
+	public static final String SELECTION_PROPERTY = "serviceControl.jvmProfile";
+
+	/**
+	 * The name of the profile minimizing the startup time, at the cost of peak performance.
+	 */
+	public static final String FAST_STARTUP = "fastStartup";
+
+	/**
+	 * The name of the profile maximizing the throughput, as in production-like environments.
+	 */
+	public static final String THROUGHPUT = "throughput";
+
+	/**
+	 * The name of the profile minimizing the memory footprint, for running many services side by side.
+	 */
+	public static final String LOW_MEMORY = "lowMemory";
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates a profile passing the given arguments to the JVM.
+	 *
+	 * @param jvmArgs
+	 * 	The JVM arguments of the profile
+	 */
+	public JvmProfile
+	{
+		jvmArgs = List.copyOf(jvmArgs);
+	}
+
+	/**
+	 * Creates a profile passing the given arguments to the JVM.
+	 *
+	 * @param jvmArgs
+	 * 	The JVM arguments of the profile
+	 */
+	public static JvmProfile of(CharSequence... jvmArgs)
+	{
+		return new JvmProfile(Arrays.stream(jvmArgs).map(CharSequence::toString).toList());
+	}
+
+	/**
+	 * Returns the profile minimizing the startup time. Only the C1 compiler is used, and the serial garbage collector
+	 * avoids the setup of concurrent collector threads.
+	 */
+	public static JvmProfile fastStartup()
+	{
+		return of("-XX:TieredStopAtLevel=1", "-Xshare:auto", "-XX:+UseSerialGC", "-Xss512k");
+	}
+
+	/**
+	 * Returns the profile maximizing the throughput, using both JIT compilers and the parallel garbage collector.
+	 */
+	public static JvmProfile throughput()
+	{
+		return of("-Xshare:auto", "-XX:+UseParallelGC");
+	}
+
+	/**
+	 * Returns the profile minimizing the memory footprint, using small thread stacks and a small code cache.
+	 */
+	public static JvmProfile lowMemory()
+	{
+		return of(
+			"-XX:TieredStopAtLevel=1",
+			"-Xshare:auto",
+			"-XX:+UseSerialGC",
+			"-Xss256k",
+			"-XX:ReservedCodeCacheSize=32m"
+		);
+	}
+}
@@ -0,0 +1,25 @@
+package com.brunoritz.gradle.servicecontrol.java;
+
+/**
+ * Defines how the runtime classpath of a Java service is passed to the JVM.
+ */
+public enum LaunchMode
+{
+	/**
+	 * Passes all entries of the runtime classpath in the arguments file.
+	 */
+	CLASSPATH,
+
+	/**
+	 * Passes a single pathing JAR, whose manifest references all entries of the runtime classpath. This keeps the
+	 * arguments file small, no matter how many entries the runtime classpath has.
+	 */
+	PATHING_JAR,
+
+	/**
+	 * Launches the main module on the module path. Modules, which are JAR files and directories containing a module
+	 * descriptor as well as JAR files declaring an automatic module name, are passed on the module path. All other
+	 * entries are passed on the classpath.
+	 */
+	MODULE_PATH
+}
@@ -0,0 +1,33 @@
+package com.brunoritz.gradle.servicecontrol.java;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The memory a Java service is allowed to use, as planned by the {@link MemoryBudgetPlanner}. All sizes are given in
+ * mebibytes.
+ *
+ * @param maxHeap
+ * 	The maximum size of the heap
+ * @param initialHeap
+ * 	The initial size of the heap
+ * @param maxMetaspace
+ * 	The maximum size of the metaspace
+ */
+public record MemoryAllocation(long maxHeap, long initialHeap, long maxMetaspace)
+	implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Returns the JVM arguments limiting the memory of the service accordingly.
+	 */
+	public List<String> jvmArgs()
+	{
+		return List.of(
+			String.format("-Xmx%dm", maxHeap),
+			String.format("-Xms%dm", initialHeap),
+			String.format("-XX:MaxMetaspaceSize=%dm", maxMetaspace)
+		);
+	}
+}
@@ -0,0 +1,378 @@
+package com.brunoritz.gradle.servicecontrol.java;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A build service planning the memory of all Java services of the build, so that they fit into a common budget when
+ * running side by side. Without a plan, each JVM may claim a quarter of the physical memory for its heap, which makes a
+ * machine running many services start swapping. As the services of all projects run on the same machine, they share
+ * a single budget. Within the plan, services are identified by their project path and name, such as
+ * {@code :backend:fooService}.
+ * <p>
+ * Planning is enabled by setting the Gradle property {@value #BUDGET_PROPERTY}, either to a percentage of the total
+ * memory, such as {@code 50%}, or to an absolute size, such as {@code 16g}. The total memory is read from
+ * {@code /proc/meminfo}, or determined by the JVM on systems without that file.
+ * <p>
+ * The budget is distributed among the services according to their weight. Three quarters of the share of a service
+ * become its maximum heap, one eighth its maximum metaspace and the remainder is left for other native memory, such as
+ * thread stacks and the code cache. Services whose share would fall short of their minimum heap get their minimum, and
+ * the remaining budget is distributed among the other services. Every service is granted a heap of at least
+ * {@value #MINIMUM_HEAP} MiB, so that no service is left without a usable heap once the budget is exhausted. If the
+ * minimums of all services exceed the budget, a warning is logged, or the build fails if the Gradle property
+ * {@value #ENFORCE_PROPERTY} is {@code true}.
+ *
+ * @see JavaServiceDefinition#getMemoryWeight()
+ * @see JavaServiceDefinition#getMinimumHeap()
+ */
+public abstract class MemoryBudgetPlanner
+	implements BuildService<MemoryBudgetPlanner.Parameters>
+{
+	/**
+	 * The Gradle property through which the memory budget of all services is set.
+	 */
+	public static final String BUDGET_PROPERTY = "serviceControl.memoryBudget";
+
+	/**
+	 * The Gradle property through which the build can be made to fail if the services do not fit into the budget.
+	 */
+	public static final String ENFORCE_PROPERTY = "serviceControl.enforceMemoryBudget";
+
+	private static final Logger logger = Logging.getLogger(MemoryBudgetPlanner.class);
+	private static final String SERVICE_NAME = "serviceControlMemoryBudget";
+	private static final Pattern SIZE = Pattern.compile("(\\d+)\\s*([kmgt]?)b?");
+	private static final Pattern MEMORY_TOTAL = Pattern.compile("MemTotal:\\s*(\\d+)\\s*kB");
+	private static final long MEBIBYTE = 1024L * 1024L;
+	private static final long MINIMUM_HEAP = 64;
+	private static final long MINIMUM_METASPACE = 64;
+
+	private Map<String, Iterable<JavaServiceDefinition>> projectServices;
+	private Option<Map<String, MemoryAllocation>> plannedAllocations;
+
+	public MemoryBudgetPlanner()
+	{
+		projectServices = LinkedHashMap.empty();
+		plannedAllocations = Option.none();
+	}
+
+	/**
+	 * The parameters of the memory budget planner.
+	 */
+	public interface Parameters
+		extends BuildServiceParameters
+	{
+		/**
+		 * The memory budget of all services, either as a percentage of the total memory or as an absolute size.
+		 */
+		Property<String> getBudget();
+
+		/**
+		 * Whether the build fails if the services do not fit into the budget.
+		 */
+		Property<Boolean> getEnforced();
+	}
+
+	/**
+	 * Registers the planner with the build of the given project, unless it has been registered before. The budget
+	 * settings are taken from the Gradle properties {@value #BUDGET_PROPERTY} and {@value #ENFORCE_PROPERTY}.
+	 *
+	 * @param project
+	 * 	The project with whose build to register the planner
+	 *
+	 * @return The provider of the shared planner
+	 */
+	public static Provider<MemoryBudgetPlanner> registerIfAbsent(Project project)
+	{
+		Provider<String> budget = project.getProviders().gradleProperty(BUDGET_PROPERTY);
+		Provider<Boolean> enforced = project.getProviders().gradleProperty(ENFORCE_PROPERTY).map(Boolean::parseBoolean);
+
+		return project.getGradle().getSharedServices()
+			.registerIfAbsent(SERVICE_NAME, MemoryBudgetPlanner.class, spec -> {
+				spec.getParameters().getBudget().set(budget);
+				spec.getParameters().getEnforced().set(enforced);
+			});
+	}
+
+	/**
+	 * Includes the services of a project in the plan. All projects have to include their services before the plan is
+	 * made, which is the case when they do so while applying the plugin, as the plan is only made once the inputs of
+	 * the tasks are resolved.
+	 *
+	 * @param projectPath
+	 * 	The path of the project defining the services
+	 * @param services
+	 * 	The services to plan, which are only queried once planning takes place
+	 */
+	public synchronized void include(String projectPath, Iterable<JavaServiceDefinition> services)
+	{
+		projectServices = projectServices.put(projectPath, services);
+	}
+
+	/**
+	 * Returns the memory allocated to the given service. The plan is made upon the first invocation, by which time
+	 * the services of all projects have to be defined. It is therefore to be invoked lazily, once the inputs of the
+	 * tasks are resolved, rather than while configuring them, as other projects may only be configured afterwards.
+	 *
+	 * @param projectPath
+	 * 	The path of the project defining the service
+	 * @param serviceName
+	 * 	The name of the service whose allocation to return
+	 *
+	 * @return The allocation of the service, or nothing if no memory budget has been set
+	 */
+	public Option<MemoryAllocation> allocationOf(String projectPath, String serviceName)
+	{
+		Option<String> budgetSetting = Option.of(getParameters().getBudget().getOrNull());
+		String qualifiedName = qualifiedName(projectPath, serviceName);
+
+		return budgetSetting.map(setting -> plan(setting)
+			.get(qualifiedName)
+			.getOrElseThrow(() -> new IllegalStateException(String.format(
+				"Service %s was not planned, as it has been defined after the memory budget had been planned",
+				qualifiedName
+			)))
+		);
+	}
+
+	private synchronized Map<String, MemoryAllocation> plan(String budgetSetting)
+	{
+		if (plannedAllocations.isEmpty()) {
+			plannedAllocations = Option.some(createPlan(budgetSetting));
+		}
+
+		return plannedAllocations.get();
+	}
+
+	private Map<String, MemoryAllocation> createPlan(String budgetSetting)
+	{
+		long totalMemory = totalMemory();
+		long budgetSize = parseBudget(budgetSetting, totalMemory);
+		List<ServiceDemand> demands = projectServices
+			.toList()
+			.flatMap(project -> List.ofAll(project._2).map(service -> demandOf(project._1, service)));
+		long requiredMemory = demands.map(demand -> footprintOf(guaranteedHeapOf(demand))).sum().longValue();
+
+		if (requiredMemory > budgetSize) {
+			String message = String.format(
+				"The minimum heaps of the services require %d MiB, which exceeds the memory budget of %d MiB",
+				requiredMemory,
+				budgetSize
+			);
+
+			if (getParameters().getEnforced().getOrElse(false)) {
+				throw new GradleException(message);
+			}
+
+			logger.warn(message);
+		}
+
+		Map<String, MemoryAllocation> allocations = distribute(budgetSize, demands);
+
+		allocations.forEach((serviceName, allocation) -> logger.info(
+			"Memory of service {}: {}",
+			serviceName,
+			String.join(" ", allocation.jvmArgs())
+		));
+
+		return allocations;
+	}
+
+	private static ServiceDemand demandOf(String projectPath, JavaServiceDefinition service)
+	{
+		String qualifiedName = qualifiedName(projectPath, service.getName());
+		int weight = service.getMemoryWeight().getOrElse(1);
+
+		if (weight < 1) {
+			throw new GradleException(
+				String.format("The memory weight of service %s must be positive", qualifiedName)
+			);
+		}
+
+		return new ServiceDemand(
+			qualifiedName,
+			weight,
+			service.getMinimumHeap().map(size -> parseSize(size.toString())).getOrElse(0L)
+		);
+	}
+
+	private static String qualifiedName(String projectPath, String serviceName)
+	{
+		return projectPath.endsWith(":") ? (projectPath + serviceName) : (projectPath + ':' + serviceName);
+	}
+
+	/**
+	 * Distributes the budget among the services according to their weights, while granting each service at least its
+	 * minimum heap, and never less than {@value #MINIMUM_HEAP} MiB.
+	 *
+	 * @param budget
+	 * 	The memory budget of all services, in mebibytes
+	 * @param demands
+	 * 	The demands of the services to plan
+	 *
+	 * @return The memory allocated to each service, by its name
+	 */
+	static Map<String, MemoryAllocation> distribute(long budget, List<ServiceDemand> demands)
+	{
+		Map<String, MemoryAllocation> allocations = HashMap.empty();
+		List<ServiceDemand> pendingDemands = demands;
+		long remainingBudget = budget;
+
+		while (!pendingDemands.isEmpty()) {
+			long availableBudget = Math.max(0, remainingBudget);
+			long totalWeight = pendingDemands.map(ServiceDemand::weight).sum().longValue();
+			List<ServiceDemand> shortDemands = pendingDemands
+				.filter(demand -> heapOf(availableBudget * demand.weight() / totalWeight) < guaranteedHeapOf(demand));
+
+			if (shortDemands.isEmpty()) {
+				return pendingDemands.foldLeft(allocations, (planned, demand) -> planned.put(
+					demand.name(),
+					allocate(availableBudget * demand.weight() / totalWeight, demand)
+				));
+			}
+
+			for (ServiceDemand demand : shortDemands) {
+				long share = footprintOf(guaranteedHeapOf(demand));
+
+				allocations = allocations.put(demand.name(), allocate(share, demand));
+				remainingBudget -= share;
+			}
+
+			pendingDemands = pendingDemands.removeAll(shortDemands);
+		}
+
+		return allocations;
+	}
+
+	private static MemoryAllocation allocate(long share, ServiceDemand demand)
+	{
+		long maxHeap = Math.max(heapOf(share), guaranteedHeapOf(demand));
+		long initialHeap = (demand.minimumHeap() > 0) ? demand.minimumHeap() : (maxHeap / 4);
+
+		return new MemoryAllocation(maxHeap, initialHeap, Math.max(MINIMUM_METASPACE, share / 8));
+	}
+
+	private static long guaranteedHeapOf(ServiceDemand demand)
+	{
+		return Math.max(MINIMUM_HEAP, demand.minimumHeap());
+	}
+
+	private static long heapOf(long share)
+	{
+		return share * 3 / 4;
+	}
+
+	private static long footprintOf(long heap)
+	{
+		return (heap * 4 + 2) / 3;
+	}
+
+	private static long totalMemory()
+	{
+		Try<String> memoryInfo = Try.of(() -> Files.readString(Path.of("/proc/meminfo"), StandardCharsets.US_ASCII));
+
+		return memoryInfo
+			.map(MEMORY_TOTAL::matcher)
+			.filter(Matcher::find)
+			.map(MemoryBudgetPlanner::kibibytesToMebibytes)
+			.getOrElse(() -> physicalMemorySize() / MEBIBYTE);
+	}
+
+	private static long kibibytesToMebibytes(Matcher memoryTotal)
+	{
+		Option<String> kibibytes = Option.of(memoryTotal.group(1));
+
+		return Long.parseLong(kibibytes.getOrElse("0")) / 1024;
+	}
+
+	private static long physicalMemorySize()
+	{
+		return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+			.getTotalMemorySize();
+	}
+
+	private static long parseBudget(String budgetSetting, long totalMemory)
+	{
+		String setting = budgetSetting.trim();
+
+		if (setting.endsWith("%")) {
+			return Try.of(() -> Long.parseLong(setting.substring(0, setting.length() - 1).trim()))
+				.filter(percentage -> (percentage > 0) && (percentage <= 100))
+				.map(percentage -> totalMemory * percentage / 100)
+				.getOrElseThrow(() -> new GradleException(String.format(
+					"%s must be a percentage between 1%% and 100%% or a size, but was '%s'",
+					BUDGET_PROPERTY,
+					budgetSetting
+				)));
+		}
+
+		return parseSize(setting);
+	}
+
+	/**
+	 * Parses a memory size given in the syntax of JVM arguments, such as {@code 512m} or {@code 2g}. Sizes without a
+	 * unit are taken as bytes.
+	 *
+	 * @param size
+	 * 	The size to parse
+	 *
+	 * @return The size in mebibytes, rounded up
+	 *
+	 * @throws GradleException
+	 * 	If the size is not valid
+	 */
+	static long parseSize(String size)
+	{
+		Matcher matcher = SIZE.matcher(size.trim().toLowerCase(Locale.ROOT));
+
+		if (!matcher.matches()) {
+			throw new GradleException(String.format("'%s' is not a valid memory size", size));
+		}
+
+		Option<String> amountGroup = Option.of(matcher.group(1));
+		Option<String> unitGroup = Option.of(matcher.group(2));
+		long amount = Long.parseLong(amountGroup.getOrElse("0"));
+		long bytes = switch (unitGroup.getOrElse("")) {
+			case "k" -> amount * 1024L;
+			case "m" -> amount * MEBIBYTE;
+			case "g" -> amount * MEBIBYTE * 1024L;
+			case "t" -> amount * MEBIBYTE * 1024L * 1024L;
+			default -> amount;
+		};
+
+		return (bytes + MEBIBYTE - 1) / MEBIBYTE;
+	}
+
+	/**
+	 * The memory demand of a single service.
+	 *
+	 * @param name
+	 * 	The name of the service
+	 * @param weight
+	 * 	The weight of the service, relative to the weights of the other services
+	 * @param minimumHeap
+	 * 	The minimum heap of the service, in mebibytes, or 0 if there is none
+	 */
+	record ServiceDemand(String name, int weight, long minimumHeap)
+	{
+	}
+}
@@ -0,0 +1,61 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A probe schedule whose delay grows exponentially up to an upper bound. A random jitter is subtracted from every
+ * delay to spread the probes of services that have been started simultaneously.
+ */
+final class ExponentialBackoffSchedule
+	implements ProbeSchedule
+{
+	private static final long serialVersionUID = 1L;
+
+	private final Duration initialDelay;
+	private final Duration maximumDelay;
+	private final double multiplier;
+	private final double jitter;
+
+	/**
+	 * Creates a new exponential backoff schedule.
+	 *
+	 * @param initialDelay
+	 * 	The delay after the first probe, must be positive
+	 * @param maximumDelay
+	 * 	The upper bound of the delay, must not be shorter than {@code initialDelay}
+	 * @param multiplier
+	 * 	The factor by which the delay grows after each probe, must be at least 1
+	 * @param jitter
+	 * 	The maximum fraction by which a delay is randomly shortened, must be within {@code [0, 1)}
+	 */
+	ExponentialBackoffSchedule(Duration initialDelay, Duration maximumDelay, double multiplier, double jitter)
+	{
+		if (initialDelay.isNegative() || initialDelay.isZero()) {
+			throw new IllegalArgumentException("The initial probe delay must be positive");
+		}
+
+		if (maximumDelay.compareTo(initialDelay) < 0) {
+			throw new IllegalArgumentException("The maximum probe delay must not be shorter than the initial delay");
+		}
+
+		if ((multiplier < 1.0) || (jitter < 0.0) || (jitter >= 1.0)) {
+			throw new IllegalArgumentException("Invalid backoff multiplier or jitter");
+		}
+
+		this.initialDelay = initialDelay;
+		this.maximumDelay = maximumDelay;
+		this.multiplier = multiplier;
+		this.jitter = jitter;
+	}
+
+	@Override
+	public Duration delayAfter(int completedProbes)
+	{
+		double exponentialDelay = initialDelay.toNanos() * Math.pow(multiplier, Math.max(0, completedProbes - 1));
+		double cappedDelay = Math.min(exponentialDelay, maximumDelay.toNanos());
+		double jitteredDelay = cappedDelay * (1.0 - (jitter * ThreadLocalRandom.current().nextDouble()));
+
+		return Duration.ofNanos((long) jitteredDelay);
+	}
+}
@@ -1,20 +1,36 @@
 package com.brunoritz.gradle.servicecontrol.launch;
 
 import com.brunoritz.gradle.servicecontrol.common.PidFile;
+import io.vavr.control.Option;
 
 /**
- * A service that failed to expose the configured TCP port within the allowed amount of time. This class provides a
- * method to clean up any state being kept about the service.
+ * A service that failed to expose the configured TCP port within the allowed amount of time, or that reported a failed
+ * startup. This class provides a method to clean up any state being kept about the service.
  */
 class FailedService
 {
 	private final Process serviceProcess;
 	private final PidFile pidFile;
+	private final Option<String> failureReason;
 
 	FailedService(Process serviceProcess, PidFile pidFile)
+	{
+		this(serviceProcess, pidFile, Option.none());
+	}
+
+	FailedService(Process serviceProcess, PidFile pidFile, Option<String> failureReason)
 	{
 		this.serviceProcess = serviceProcess;
 		this.pidFile = pidFile;
+		this.failureReason = failureReason;
+	}
+
+	/**
+	 * Returns the reason reported by the service for its failed startup, or nothing if the service did not report one.
+	 */
+	Option<String> failureReason()
+	{
+		return failureReason;
 	}
 
 	/**
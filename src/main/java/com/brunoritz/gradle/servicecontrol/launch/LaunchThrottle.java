@@ -0,0 +1,184 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits the number of services that are starting at the same time. Starting services compete for CPU time while
+ * loading classes and warming up, so launching too many of them at once slows down all of them.
+ * <p>
+ * A service has to acquire a launch slot before being launched and keeps it until it has either become available or
+ * failed to start. If all slots are taken, the request is queued. Queued requests are granted in the order of their
+ * priority, and requests of equal priority in the order in which they were made. Slots are granted asynchronously, so
+ * that no thread is blocked while waiting for a slot.
+ */
+final class LaunchThrottle
+{
+	private static final Comparator<PendingLaunch> GRANT_ORDER = Comparator
+		.comparingInt((PendingLaunch launch) -> launch.priority)
+		.thenComparingLong(launch -> launch.sequence);
+
+	private final int maxConcurrentLaunches;
+	private final PriorityQueue<PendingLaunch> pendingLaunches;
+	private int activeLaunches;
+	private long requestSequence;
+
+	/**
+	 * Creates a throttle granting the given number of launch slots.
+	 *
+	 * @param maxConcurrentLaunches
+	 * 	The number of services that may be starting at the same time, which must be at least 1
+	 */
+	LaunchThrottle(int maxConcurrentLaunches)
+	{
+		if (maxConcurrentLaunches < 1) {
+			throw new IllegalArgumentException("At least one concurrent launch is required");
+		}
+
+		this.maxConcurrentLaunches = maxConcurrentLaunches;
+		this.pendingLaunches = new PriorityQueue<>(GRANT_ORDER);
+	}
+
+	/**
+	 * Returns the number of services that may be starting at the same time.
+	 */
+	int maxConcurrentLaunches()
+	{
+		return maxConcurrentLaunches;
+	}
+
+	/**
+	 * Requests a launch slot. The returned future completes as soon as the slot has been granted, which happens right
+	 * away if fewer than the maximum number of services are starting and no other request is queued. Cancelling the
+	 * returned future withdraws a queued request.
+	 * <p>
+	 * The holder of a granted slot has to release it once the service has completed its startup, successfully or not.
+	 *
+	 * @param priority
+	 * 	The priority of the request, where lower values are granted first
+	 *
+	 * @return A future completing with the granted launch slot
+	 */
+	CompletableFuture<LaunchSlot> acquire(int priority)
+	{
+		CompletableFuture<LaunchSlot> slot = new CompletableFuture<>();
+		PendingLaunch launch = new PendingLaunch(priority, Instant.now(), slot);
+
+		synchronized (this) {
+			if ((activeLaunches < maxConcurrentLaunches) && pendingLaunches.isEmpty()) {
+				activeLaunches++;
+				slot.complete(new LaunchSlot(Option.none()));
+
+				return slot;
+			}
+
+			launch.sequence = requestSequence++;
+			pendingLaunches.add(launch);
+		}
+
+		slot.whenComplete((grantedSlot, error) -> {
+			if (slot.isCancelled()) {
+				withdraw(launch);
+			}
+		});
+
+		return slot;
+	}
+
+	private synchronized void withdraw(PendingLaunch launch)
+	{
+		pendingLaunches.remove(launch);
+	}
+
+	private void release()
+	{
+		List<PendingLaunch> grantedLaunches;
+
+		synchronized (this) {
+			activeLaunches--;
+			grantedLaunches = grantPendingLaunches();
+		}
+
+		grantedLaunches.forEach(this::completeGrant);
+	}
+
+	/*
+	 * Must be called while holding the lock. The granted futures are completed by the caller after releasing the
+	 * lock, so that their dependent actions do not run while holding it.
+	 */
+	private List<PendingLaunch> grantPendingLaunches()
+	{
+		List<PendingLaunch> grantedLaunches = List.empty();
+
+		while ((activeLaunches < maxConcurrentLaunches) && !pendingLaunches.isEmpty()) {
+			activeLaunches++;
+			grantedLaunches = grantedLaunches.append(pendingLaunches.poll());
+		}
+
+		return grantedLaunches;
+	}
+
+	private void completeGrant(PendingLaunch launch)
+	{
+		LaunchSlot slot = new LaunchSlot(Option.some(Duration.between(launch.requestedAt, Instant.now())));
+
+		if (!launch.slot.complete(slot)) {
+			slot.release();
+		}
+	}
+
+	/**
+	 * A granted launch slot. Releasing the slot allows the next queued service to be launched.
+	 */
+	final class LaunchSlot
+	{
+		private final Option<Duration> queuedFor;
+		private final AtomicBoolean released;
+
+		private LaunchSlot(Option<Duration> queuedFor)
+		{
+			this.queuedFor = queuedFor;
+			this.released = new AtomicBoolean();
+		}
+
+		/**
+		 * Returns the time the request for this slot was queued, or nothing if it was granted right away.
+		 */
+		Option<Duration> queuedFor()
+		{
+			return queuedFor;
+		}
+
+		/**
+		 * Releases the slot. Releasing a slot more than once has no effect.
+		 */
+		void release()
+		{
+			if (released.compareAndSet(false, true)) {
+				LaunchThrottle.this.release();
+			}
+		}
+	}
+
+	private static final class PendingLaunch
+	{
+		private final int priority;
+		private final Instant requestedAt;
+		private final CompletableFuture<LaunchSlot> slot;
+		private long sequence;
+
+		private PendingLaunch(int priority, Instant requestedAt, CompletableFuture<LaunchSlot> slot)
+		{
+			this.priority = priority;
+			this.requestedAt = requestedAt;
+			this.slot = slot;
+		}
+	}
+}
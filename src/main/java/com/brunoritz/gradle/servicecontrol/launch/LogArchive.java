@@ -0,0 +1,180 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The archived generations of a log file. A generation is archived by moving the log file next to it, naming it after
+ * the log file and the time it was last written to, such as {@code stdout.service.log.20240131-235959-999}. The
+ * archived generation is then compressed into a {@code .gz} file in the background, after which the oldest
+ * generations exceeding the number to keep are deleted.
+ * <p>
+ * The generations of all log files are compressed by a single daemon thread, one after the other. As it is the only
+ * thread deleting generations, a generation is never deleted while it is being compressed.
+ */
+final class LogArchive
+{
+	private static final Logger logger = Logging.getLogger(LogArchive.class);
+	private static final String COMPRESSED_SUFFIX = ".gz";
+	private static final DateTimeFormatter GENERATION_TIME = DateTimeFormatter
+		.ofPattern("yyyyMMdd-HHmmss-SSS", Locale.ROOT)
+		.withZone(ZoneId.systemDefault());
+	private static final ExecutorService COMPRESSOR = Executors.newSingleThreadExecutor(task -> {
+		Thread compressorThread = new Thread(task, "service-control-log-compressor");
+
+		compressorThread.setDaemon(true);
+
+		return compressorThread;
+	});
+
+	private final File logFile;
+	private final int generations;
+	private final Pattern generationName;
+
+	/**
+	 * Creates the archive of the given log file.
+	 *
+	 * @param logFile
+	 * 	The log file whose generations are archived
+	 * @param generations
+	 * 	The number of archived generations to keep, with zero meaning that log files are deleted instead of archived
+	 */
+	LogArchive(File logFile, int generations)
+	{
+		this.logFile = logFile;
+		this.generations = generations;
+		this.generationName = Pattern.compile(
+			Pattern.quote(logFile.getName()) + "\\.\\d{8}-\\d{6}-\\d{3}(-\\d+)?(\\.gz)?"
+		);
+	}
+
+	/**
+	 * Moves the log file into the archive and begins compressing it. Empty log files are not archived, but deleted,
+	 * as are all log files, if no generations are to be kept. Nothing happens, if the log file does not exist.
+	 *
+	 * @return The compressed generation, once it has been compressed and the generations exceeding the number to keep
+	 * 	have been deleted, or {@code none}, if nothing has been archived or compressing has failed, in which case the
+	 * 	generation is kept uncompressed; the error encountered while moving the log file
+	 */
+	Try<CompletableFuture<Option<File>>> archive()
+	{
+		return Try.of(() -> {
+			Path logPath = logFile.toPath();
+
+			if ((generations == 0) || !Files.exists(logPath) || (Files.size(logPath) == 0)) {
+				Files.deleteIfExists(logPath);
+
+				return CompletableFuture.completedFuture(Option.none());
+			}
+
+			Path generation = Files.move(logPath, nextGeneration(logPath));
+
+			return CompletableFuture.supplyAsync(() -> compressAndPrune(generation), COMPRESSOR);
+		});
+	}
+
+	private Path nextGeneration(Path logPath)
+		throws IOException
+	{
+		String baseName = logFile.getName() + '.'
+			+ GENERATION_TIME.format(Files.getLastModifiedTime(logPath).toInstant());
+		String candidate = baseName;
+		int collisions = 0;
+
+		while (Files.exists(logPath.resolveSibling(candidate))
+			|| Files.exists(logPath.resolveSibling(candidate + COMPRESSED_SUFFIX))) {
+			collisions++;
+			candidate = baseName + '-' + collisions;
+		}
+
+		return logPath.resolveSibling(candidate);
+	}
+
+	private Option<File> compressAndPrune(Path generation)
+	{
+		Option<File> compressed = compress(generation);
+
+		prune();
+
+		return compressed;
+	}
+
+	private static Option<File> compress(Path generation)
+	{
+		Path compressed = generation.resolveSibling(generation.toFile().getName() + COMPRESSED_SUFFIX);
+
+		try {
+			try (InputStream input = Files.newInputStream(generation);
+				OutputStream output = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+				input.transferTo(output);
+			}
+
+			Files.delete(generation);
+
+			return Option.some(compressed.toFile());
+		} catch (NoSuchFileException e) {
+			logger.debug("Archived log file {} has been deleted before being compressed", generation);
+		} catch (IOException e) {
+			logger.warn("Failed to compress the archived log file {}, keeping it uncompressed", generation, e);
+			Try.run(() -> Files.deleteIfExists(compressed));
+		}
+
+		return Option.none();
+	}
+
+	/*
+	 * The generation time of both compressed and uncompressed generations sorts in the same order as their names, so
+	 * the names of the generations to keep come last.
+	 */
+	private void prune()
+	{
+		List<File> archivedGenerations = archivedGenerations().sorted(Comparator.comparing(LogArchive::generationOf));
+		List<String> keptGenerations = archivedGenerations
+			.map(LogArchive::generationOf)
+			.distinct()
+			.takeRight(generations);
+
+		archivedGenerations
+			.filter(archived -> !keptGenerations.contains(generationOf(archived)))
+			.forEach(expired -> Try.run(() -> Files.deleteIfExists(expired.toPath()))
+				.onFailure(error -> logger.warn("Failed to delete the archived log file {}", expired, error)));
+	}
+
+	private List<File> archivedGenerations()
+	{
+		File logDirectory = logFile.getAbsoluteFile().getParentFile();
+		File[] archived = (logDirectory == null)
+			? null
+			: logDirectory.listFiles((directory, name) -> generationName.matcher(name).matches());
+
+		return (archived == null) ? List.empty() : List.ofAll(Arrays.asList(archived));
+	}
+
+	private static String generationOf(File archived)
+	{
+		String name = archived.getName();
+
+		return name.endsWith(COMPRESSED_SUFFIX) ? name.substring(0, name.length() - COMPRESSED_SUFFIX.length()) : name;
+	}
+}
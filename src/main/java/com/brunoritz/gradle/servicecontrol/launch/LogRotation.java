@@ -0,0 +1,85 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import io.vavr.control.Option;
+import org.gradle.api.provider.Property;
+
+import java.time.Duration;
+
+/**
+ * Determines when the log files of a service are rolled over and how many archived generations of them are kept.
+ *
+ * @param maxSize
+ * 	The size in bytes after which a log file is rolled over, or {@code none}, if log files are not rolled over by size
+ * @param rollInterval
+ * 	The time after which a log file is rolled over, or {@code none}, if log files are not rolled over by time
+ * @param generations
+ * 	The number of archived generations kept of each log file
+ */
+record LogRotation(Option<Long> maxSize, Option<Duration> rollInterval, int generations)
+{
+	/**
+	 * Creates the rotation, validating its settings.
+	 *
+	 * @throws IllegalArgumentException
+	 * 	If the maximum size or the interval are not positive or the number of generations is negative
+	 */
+	LogRotation(Option<Long> maxSize, Option<Duration> rollInterval, int generations)
+	{
+		if (maxSize.exists(size -> size <= 0)) {
+			throw new IllegalArgumentException("The maximum log size must be positive");
+		}
+
+		if (rollInterval.exists(interval -> interval.isNegative() || interval.isZero())) {
+			throw new IllegalArgumentException("The log roll interval must be positive");
+		}
+
+		if (generations < 0) {
+			throw new IllegalArgumentException("The number of log generations must not be negative");
+		}
+
+		this.maxSize = maxSize;
+		this.rollInterval = rollInterval;
+		this.generations = generations;
+	}
+
+	/**
+	 * Returns the rotation configured by the given settings of a service.
+	 *
+	 * @param maxSize
+	 * 	The size in bytes after which a log file is rolled over, if set
+	 * @param rollInterval
+	 * 	The time after which a log file is rolled over, if set
+	 * @param generations
+	 * 	The number of archived generations kept of each log file
+	 *
+	 * @throws IllegalArgumentException
+	 * 	If the settings are invalid
+	 */
+	static LogRotation of(Property<Long> maxSize, Property<Duration> rollInterval, Property<Integer> generations)
+	{
+		return new LogRotation(Option.of(maxSize.getOrNull()), Option.of(rollInterval.getOrNull()), generations.get());
+	}
+
+	/**
+	 * Tells whether log files are rolled over while being written, rather than only when the service is started.
+	 */
+	boolean rollsOver()
+	{
+		return maxSize.isDefined() || rollInterval.isDefined();
+	}
+
+	/**
+	 * Tells whether a log file of the given size, which has been created the given time ago, is to be rolled over.
+	 * Empty log files are never rolled over.
+	 *
+	 * @param size
+	 * 	The number of bytes written into the log file
+	 * @param age
+	 * 	The time since the log file has been created
+	 */
+	boolean isDue(long size, Duration age)
+	{
+		return (size > 0)
+			&& (maxSize.exists(max -> size >= max) || rollInterval.exists(interval -> age.compareTo(interval) >= 0));
+	}
+}
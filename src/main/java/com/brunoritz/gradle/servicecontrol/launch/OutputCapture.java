@@ -0,0 +1,41 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import org.gradle.api.provider.Provider;
+
+import java.time.Duration;
+
+/**
+ * Defines how the standard output and error streams of a service are written to its log files.
+ */
+public enum OutputCapture
+{
+	/**
+	 * The streams are redirected to the log files by the operating system. Expected log messages are looked for by
+	 * following the log files. The service does not depend on the Gradle Daemon for writing its output.
+	 */
+	REDIRECT,
+
+	/**
+	 * The streams are read by the Gradle Daemon, which writes them to the log files and looks for expected log messages
+	 * as the lines pass by. Expected messages are spotted without polling the log files, but the output of the service
+	 * is no longer written once the Gradle Daemon has terminated.
+	 */
+	PIPE;
+
+	/**
+	 * Returns the capture mode used, unless one is configured explicitly. Log files can only be rolled over while the
+	 * service is running, if the output is piped. Therefore, the output is piped, once a rolling limit is set, and
+	 * redirected otherwise.
+	 *
+	 * @param logMaxSize
+	 * 	The size after which log files are rolled over, if set
+	 * @param logRollInterval
+	 * 	The time after which log files are rolled over, if set
+	 */
+	public static Provider<OutputCapture> defaultFor(Provider<Long> logMaxSize, Provider<Duration> logRollInterval)
+	{
+		return logMaxSize.map(size -> PIPE)
+			.orElse(logRollInterval.map(interval -> PIPE))
+			.orElse(REDIRECT);
+	}
+}
@@ -0,0 +1,169 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import com.brunoritz.gradle.servicecontrol.availability.LogLineDecoder;
+import com.brunoritz.gradle.servicecontrol.availability.LogLineSource;
+import com.brunoritz.gradle.servicecontrol.availability.LogPatternMatcher;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Copies an output stream of a service process into its log file, while matching the lines against the expected
+ * patterns of the watches begun on it. The stream is copied by a daemon thread, which lives as long as the process
+ * keeps the stream open.
+ * <p>
+ * The log file is written through a buffer, which is flushed whenever the process has no further output pending. So
+ * bursts of output are written in large batches, while single lines still show up in the log file right away. Once it
+ * is due according to the rotation, the log file is rolled over into its archive.
+ * <p>
+ * Lines are only decoded while there are open watches. Lines passing by before the first watch has been begun are not
+ * matched, hence watches have to be begun before the pump is started.
+ */
+final class OutputPump
+	implements LogLineSource
+{
+	private static final Logger logger = Logging.getLogger(OutputPump.class);
+	private static final int BUFFER_SIZE = 8192;
+
+	private final File logFile;
+	private final LogRotation rotation;
+	private final CopyOnWriteArrayList<LineWatch> watches;
+	private final LogLineDecoder decoder;
+	private volatile Option<RollingLogStream> log;
+
+	/**
+	 * Creates a pump writing into the given log file. The pump does not copy anything until it is started.
+	 *
+	 * @param logFile
+	 * 	The log file into which to copy the stream, which is replaced once the pump is started
+	 * @param charset
+	 * 	The charset in which the service writes its output
+	 * @param rotation
+	 * 	When to roll the log file over and how many archived generations of it to keep
+	 */
+	OutputPump(File logFile, Charset charset, LogRotation rotation)
+	{
+		this.logFile = logFile;
+		this.rotation = rotation;
+		CopyOnWriteArrayList<LineWatch> lineWatches = new CopyOnWriteArrayList<>();
+
+		this.watches = lineWatches;
+		this.decoder = new LogLineDecoder(charset, line -> matchLine(lineWatches, line));
+		this.log = Option.none();
+	}
+
+	@Override
+	public String name()
+	{
+		return logFile.getName();
+	}
+
+	@Override
+	public Watch watch(LogPatternMatcher expectedLines, Consumer<String> matched)
+	{
+		LineWatch watch = new LineWatch(expectedLines, matched);
+
+		watches.add(watch);
+
+		return () -> watches.remove(watch);
+	}
+
+	/**
+	 * Starts copying the given stream on a daemon thread.
+	 *
+	 * @param stream
+	 * 	The output stream of the process, which is closed once the process has closed it
+	 * @param threadName
+	 * 	The name of the thread copying the stream
+	 */
+	void start(InputStream stream, String threadName)
+	{
+		try {
+			RollingLogStream openedLog = new RollingLogStream(logFile, rotation);
+			Thread pumpThread = new Thread(() -> pump(stream, openedLog), threadName);
+
+			log = Option.some(openedLog);
+			pumpThread.setDaemon(true);
+			pumpThread.start();
+		} catch (IOException e) {
+			logger.warn("Failed to copy the output of the service into {}", logFile, e);
+			Try.run(stream::close);
+		}
+	}
+
+	/**
+	 * Moves the log file to the given location, while the stream keeps being copied into it.
+	 *
+	 * @param target
+	 * 	The new location of the log file
+	 *
+	 * @return Nothing or the error encountered while moving the log file
+	 */
+	Try<Void> relocate(File target)
+	{
+		Option<RollingLogStream> openedLog = log;
+
+		return openedLog.isDefined()
+			? Try.run(() -> openedLog.get().relocate(target))
+			: Try.run(() -> Files.move(logFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING));
+	}
+
+	private void pump(InputStream stream, RollingLogStream openedLog)
+	{
+		byte[] buffer = new byte[BUFFER_SIZE];
+
+		try (InputStream input = stream; OutputStream log = openedLog) {
+			int bytesRead = input.read(buffer);
+
+			while (bytesRead >= 0) {
+				log.write(buffer, 0, bytesRead);
+				scan(buffer, bytesRead);
+
+				if (input.available() == 0) {
+					log.flush();
+				}
+
+				bytesRead = input.read(buffer);
+			}
+		} catch (IOException e) {
+			logger.warn("Failed to copy the output of the service into {}", logFile, e);
+		}
+	}
+
+	/*
+	 * Only called by the pump thread. If there are no watches, decoding is skipped altogether and the line being
+	 * decoded is discarded, as it is incomplete once decoding resumes.
+	 */
+	private void scan(byte[] buffer, int length)
+	{
+		if (watches.isEmpty()) {
+			decoder.reset(false);
+		} else {
+			decoder.decode(buffer, length);
+		}
+	}
+
+	private static void matchLine(Iterable<LineWatch> watches, CharSequence line)
+	{
+		for (LineWatch watch : watches) {
+			if (watch.expectedLines().matches(line)) {
+				watch.matched().accept(line.toString());
+			}
+		}
+	}
+
+	private record LineWatch(LogPatternMatcher expectedLines, Consumer<String> matched)
+	{
+	}
+}
@@ -0,0 +1,52 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import java.io.Serializable;
+import java.time.Duration;
+
+/**
+ * Determines the delay between two consecutive availability probes of a starting service. Schedules allow probing
+ * services that start quickly at a high frequency, while services that take long to start are probed less often.
+ * <p>
+ * Custom schedules can be supplied by implementing this interface. Implementations have to be serializable.
+ *
+ * @see #exponentialBackoff(Duration, Duration)
+ * @see #fixedDelay(Duration)
+ */
+@FunctionalInterface
+public interface ProbeSchedule
+	extends Serializable
+{
+	/**
+	 * Returns the time to wait before performing the next probe.
+	 *
+	 * @param completedProbes
+	 * 	The number of probes performed so far, at least one
+	 */
+	Duration delayAfter(int completedProbes);
+
+	/**
+	 * Returns a schedule that always waits the same amount of time between two probes.
+	 *
+	 * @param delay
+	 * 	The time to wait between two probes
+	 */
+	static ProbeSchedule fixedDelay(Duration delay)
+	{
+		return completedProbes -> delay;
+	}
+
+	/**
+	 * Returns a schedule that doubles the delay after each probe, starting with {@code initialDelay} and never
+	 * exceeding {@code maximumDelay}. Each delay is randomly shortened by up to 20% so that services starting at the
+	 * same time are not probed in lockstep.
+	 *
+	 * @param initialDelay
+	 * 	The delay after the first probe
+	 * @param maximumDelay
+	 * 	The upper bound of the delay between two probes
+	 */
+	static ProbeSchedule exponentialBackoff(Duration initialDelay, Duration maximumDelay)
+	{
+		return new ExponentialBackoffSchedule(initialDelay, maximumDelay, 2.0, 0.2);
+	}
+}
@@ -0,0 +1,127 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import io.vavr.control.Option;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Runs availability probes of a single starting service according to a {@link ProbeSchedule}. The first probe is
+ * performed immediately, each further probe after the delay determined by the schedule. Probing ends as soon as a
+ * probe succeeds or the future returned to the caller has been completed otherwise, for example by being cancelled.
+ * <p>
+ * The scheduler records the number of probes performed and the time of the successful probe.
+ */
+public final class ProbeScheduler
+{
+	private final ScheduledExecutorService executor;
+	private final ProbeSchedule schedule;
+	private final AtomicInteger probeCount;
+	private volatile Option<Instant> successfulProbe;
+
+	/**
+	 * Creates a new scheduler for probing one service.
+	 *
+	 * @param executor
+	 * 	The executor on which to run the probes
+	 * @param schedule
+	 * 	The schedule determining the delay between two probes
+	 */
+	public ProbeScheduler(ScheduledExecutorService executor, ProbeSchedule schedule)
+	{
+		this.executor = executor;
+		this.schedule = schedule;
+		this.probeCount = new AtomicInteger();
+		this.successfulProbe = Option.none();
+	}
+
+	/**
+	 * Repeatedly runs the given probe until it succeeds. The returned future completes with the time at which the
+	 * successful probe was made or exceptionally, if the probe itself fails. Cancelling the returned future stops any
+	 * further probing.
+	 *
+	 * @param probe
+	 * 	The probe to run, returning {@code true} once the service is available
+	 */
+	public CompletableFuture<Instant> probeUntil(BooleanSupplier probe)
+	{
+		return probeAsyncUntil(() -> CompletableFuture.completedFuture(probe.getAsBoolean()));
+	}
+
+	/**
+	 * Repeatedly runs the given probe until it succeeds, like {@link #probeUntil(BooleanSupplier)}. The probe only
+	 * starts probing and returns right away, so the executor is not blocked while the probe is pending. The next probe
+	 * is scheduled once the pending one has completed.
+	 *
+	 * @param probe
+	 * 	The probe to start, returning a stage that completes with {@code true} once the service is available
+	 */
+	public CompletableFuture<Instant> probeAsyncUntil(Supplier<? extends CompletionStage<Boolean>> probe)
+	{
+		CompletableFuture<Instant> availability = new CompletableFuture<>();
+
+		scheduleProbe(probe, availability, Duration.ZERO);
+
+		return availability;
+	}
+
+	private void scheduleProbe(
+		Supplier<? extends CompletionStage<Boolean>> probe,
+		CompletableFuture<Instant> availability,
+		Duration delay)
+	{
+		try {
+			executor.schedule(() -> runProbe(probe, availability), delay.toNanos(), TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException e) {
+			availability.completeExceptionally(e);
+		}
+	}
+
+	private void runProbe(Supplier<? extends CompletionStage<Boolean>> probe, CompletableFuture<Instant> availability)
+	{
+		try {
+			if (!availability.isDone()) {
+				int completedProbes = probeCount.incrementAndGet();
+
+				probe.get().whenComplete((available, error) -> {
+					if (error != null) {
+						availability.completeExceptionally(error);
+					} else if (available) {
+						Instant availableAt = Instant.now();
+
+						successfulProbe = Option.some(availableAt);
+						availability.complete(availableAt);
+					} else {
+						scheduleProbe(probe, availability, schedule.delayAfter(completedProbes));
+					}
+				});
+			}
+		} catch (RuntimeException e) {
+			availability.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Returns the number of probes performed so far.
+	 */
+	public int probeCount()
+	{
+		return probeCount.get();
+	}
+
+	/**
+	 * Returns the time at which the successful probe was made or {@code none}, if no probe has succeeded yet.
+	 */
+	public Option<Instant> successfulProbe()
+	{
+		return successfulProbe;
+	}
+}
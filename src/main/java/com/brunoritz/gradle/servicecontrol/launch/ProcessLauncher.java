@@ -50,6 +50,14 @@ class ProcessLauncher
 		return this;
 	}
 
+	ProcessLauncher captureOutput()
+	{
+		builder.redirectOutput(ProcessBuilder.Redirect.PIPE);
+		builder.redirectError(ProcessBuilder.Redirect.PIPE);
+
+		return this;
+	}
+
 	ProcessLauncher appendEnvironment(Map<String, String> envVars)
 	{
 		builder.environment().putAll(envVars.toJavaMap());
@@ -0,0 +1,124 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+
+/**
+ * Writes the output of a service into its log file through a buffer, rolling the log file over into its archive once
+ * it is due according to the rotation. Whether the log file is due is checked before each write, so the output written
+ * at once is never split between two log files. The log file thus exceeds the maximum size by up to the size of a
+ * single write, and is rolled over by time only once the service writes further output.
+ * <p>
+ * If the log file cannot be moved into its archive, the output keeps being appended to it, so that the service does
+ * not lose its output. Rolling the log file over is attempted again, once it is due anew.
+ * <p>
+ * The log file can be moved while it is being written, for example to hand it over from a replacement to the location
+ * of the replaced service. All operations are therefore synchronized.
+ */
+final class RollingLogStream
+	extends OutputStream
+{
+	private static final Logger logger = Logging.getLogger(RollingLogStream.class);
+
+	private final LogRotation rotation;
+	private File logFile;
+	private LogArchive archive;
+	private OutputStream currentLog;
+	private long currentSize;
+	private long createdAt;
+
+	/**
+	 * Creates the stream, replacing the log file.
+	 *
+	 * @param logFile
+	 * 	The log file to write
+	 * @param rotation
+	 * 	When to roll the log file over and how many archived generations of it to keep
+	 *
+	 * @throws IOException
+	 * 	If the log file cannot be created
+	 */
+	RollingLogStream(File logFile, LogRotation rotation)
+		throws IOException
+	{
+		this.logFile = logFile;
+		this.rotation = rotation;
+		this.archive = new LogArchive(logFile, rotation.generations());
+		this.currentLog = new BufferedOutputStream(new FileOutputStream(logFile));
+		this.createdAt = System.nanoTime();
+	}
+
+	/**
+	 * Moves the log file to the given location, replacing any file there. Further output is written into the moved log
+	 * file, and rolled over into the archive of the new location.
+	 *
+	 * @param target
+	 * 	The new location of the log file
+	 *
+	 * @throws IOException
+	 * 	If the log file cannot be moved, in which case it is still written at its previous location
+	 */
+	synchronized void relocate(File target)
+		throws IOException
+	{
+		currentLog.flush();
+		Files.move(logFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		logFile = target;
+		archive = new LogArchive(target, rotation.generations());
+	}
+
+	@Override
+	public synchronized void write(int singleByte)
+		throws IOException
+	{
+		write(new byte[] {(byte) singleByte}, 0, 1);
+	}
+
+	@Override
+	public synchronized void write(byte[] bytes, int offset, int length)
+		throws IOException
+	{
+		if (rotation.isDue(currentSize, Duration.ofNanos(System.nanoTime() - createdAt))) {
+			rollOver();
+		}
+
+		currentLog.write(bytes, offset, length);
+		currentSize += length;
+	}
+
+	private void rollOver()
+		throws IOException
+	{
+		File rolledLog = logFile;
+
+		currentLog.close();
+		archive.archive()
+			.onFailure(error -> logger.warn("Failed to roll over the log file {}, appending to it", rolledLog, error));
+		currentLog = new BufferedOutputStream(new FileOutputStream(logFile, true));
+		currentSize = 0;
+		createdAt = System.nanoTime();
+	}
+
+	@Override
+	public synchronized void flush()
+		throws IOException
+	{
+		currentLog.flush();
+	}
+
+	@Override
+	public synchronized void close()
+		throws IOException
+	{
+		currentLog.close();
+	}
+}
@@ -1,5 +1,8 @@
 package com.brunoritz.gradle.servicecontrol.launch;
 
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Checks whether a service is up and running. An availability checker indicates whether the service is running at
  * the time of invocation.
@@ -7,9 +10,34 @@ package com.brunoritz.gradle.servicecontrol.launch;
 public interface ServiceAvailabilityCheck
 	extends AutoCloseable
 {
+	/**
+	 * Returns a description of what this check looks for, as shown to users, such as the port being probed.
+	 */
+	default String description()
+	{
+		return getClass().getSimpleName();
+	}
+
 	/**
 	 * Indicates if the service is running at the time of invocation. Multiple calls may be needed until a service is
 	 * in a running state.
 	 */
 	boolean isRunning();
+
+	/**
+	 * Returns a future that completes once the service has become available. The future completes with the point in
+	 * time at which the availability was detected. It never completes because of the service being unavailable, so
+	 * callers have to apply their own deadline. Cancelling the returned future stops any further checking.
+	 * <p>
+	 * The default implementation adapts {@link #isRunning()} by invoking it repeatedly through the given scheduler.
+	 * Checks that get notified about the service becoming available should override this method and complete the
+	 * future without probing.
+	 *
+	 * @param scheduler
+	 * 	The scheduler through which to run repeated checks
+	 */
+	default CompletableFuture<Instant> whenAvailable(ProbeScheduler scheduler)
+	{
+		return scheduler.probeUntil(this::isRunning);
+	}
 }
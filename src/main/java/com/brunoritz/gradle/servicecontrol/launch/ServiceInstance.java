@@ -0,0 +1,45 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+
+/**
+ * The settings that tell an instance of a service apart from another instance of the same service running at the same
+ * time, such as the replacement of a running service.
+ *
+ * @param servicePort
+ * 	The port on which the instance listens
+ * @param environment
+ * 	The environment variables of the instance
+ * @param standardOutputLog
+ * 	The log file of the standard output stream of the instance
+ * @param errorOutputLog
+ * 	The log file of the standard error stream of the instance
+ * @param pidFile
+ * 	The PID file of the instance
+ */
+record ServiceInstance(
+	Property<Integer> servicePort,
+	MapProperty<CharSequence, CharSequence> environment,
+	RegularFileProperty standardOutputLog,
+	RegularFileProperty errorOutputLog,
+	RegularFileProperty pidFile)
+{
+	/**
+	 * Returns the instance configured by the given settings.
+	 *
+	 * @param settings
+	 * 	The settings of the service
+	 */
+	static ServiceInstance of(ServiceStartSettings settings)
+	{
+		return new ServiceInstance(
+			settings.getServicePort(),
+			settings.getEnvironment(),
+			settings.getStandardOutputLog(),
+			settings.getErrorOutputLog(),
+			settings.getPidFile()
+		);
+	}
+}
@@ -0,0 +1,170 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import com.brunoritz.gradle.servicecontrol.availability.LogLineSource;
+import com.brunoritz.gradle.servicecontrol.availability.TailedLogFile;
+import io.vavr.Lazy;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Supplier;
+
+/**
+ * The standard output and error streams of a service, as written into its log files. Depending on the capture mode,
+ * the streams are either redirected to the log files by the operating system, in which case expected log lines are
+ * looked for by following the log files, or copied into the log files by pumps, which match the lines as they pass
+ * by. Only the log files written by pumps can be rolled over while the service is running.
+ */
+final class ServiceOutput
+{
+	private static final Logger logger = Logging.getLogger(ServiceOutput.class);
+
+	private final Supplier<LogRotation> rotation;
+	private final RegularFileProperty standardOutputLog;
+	private final RegularFileProperty errorOutputLog;
+	private final Lazy<Option<OutputPump>> standardOutputPump;
+	private final Lazy<Option<OutputPump>> errorOutputPump;
+
+	/**
+	 * Creates the output of a service that is about to be launched. The settings are only resolved once the output is
+	 * used for the first time.
+	 *
+	 * @param capture
+	 * 	How the streams are written into the log files
+	 * @param standardOutputLog
+	 * 	The log file of the standard output stream
+	 * @param errorOutputLog
+	 * 	The log file of the standard error stream
+	 * @param rotation
+	 * 	When the log files written by pumps are rolled over and how many archived generations of them to keep
+	 */
+	ServiceOutput(
+		Property<OutputCapture> capture,
+		RegularFileProperty standardOutputLog,
+		RegularFileProperty errorOutputLog,
+		Supplier<LogRotation> rotation)
+	{
+		this.rotation = rotation;
+		this.standardOutputLog = standardOutputLog;
+		this.errorOutputLog = errorOutputLog;
+		this.standardOutputPump = Lazy.of(() -> pumpFor(capture, standardOutputLog, rotation));
+		this.errorOutputPump = Lazy.of(() -> pumpFor(capture, errorOutputLog, rotation));
+	}
+
+	private static Option<OutputPump> pumpFor(
+		Property<OutputCapture> capture,
+		RegularFileProperty logFile,
+		Supplier<LogRotation> rotation)
+	{
+		return Option.when(
+			capture.getOrElse(OutputCapture.REDIRECT) == OutputCapture.PIPE,
+			() -> new OutputPump(logFile.get().getAsFile(), Charset.defaultCharset(), rotation.get())
+		);
+	}
+
+	/**
+	 * Configures the launcher to either redirect the streams to the log files or to provide them as pipes. As
+	 * redirected log files cannot be rolled over while the service is running, a warning is logged, if rolling limits
+	 * are set nonetheless.
+	 *
+	 * @param launcher
+	 * 	The launcher of the service process
+	 *
+	 * @return The configured launcher
+	 */
+	ProcessLauncher configure(ProcessLauncher launcher)
+	{
+		if (standardOutputPump.get().isDefined()) {
+			return launcher.captureOutput();
+		}
+
+		if (rotation.get().rollsOver()) {
+			logger.warn(
+				"The redirected log files {} and {} are only rolled over when the service is started",
+				standardOutputLog.get().getAsFile(),
+				errorOutputLog.get().getAsFile()
+			);
+		}
+
+		return launcher
+			.storeStdOutIn(standardOutputLog.get().getAsFile())
+			.storeStdErrIn(errorOutputLog.get().getAsFile());
+	}
+
+	/**
+	 * Starts copying the streams of the given process, if they are captured. This has to happen after the watches for
+	 * expected log lines have been begun, as lines passing by before are not matched.
+	 *
+	 * @param serviceName
+	 * 	The name of the service, which is used to name the threads copying the streams
+	 * @param process
+	 * 	The launched service process
+	 */
+	void attach(String serviceName, Process process)
+	{
+		standardOutputPump.get().forEach(pump -> pump.start(process.getInputStream(), serviceName + "-stdout"));
+		errorOutputPump.get().forEach(pump -> pump.start(process.getErrorStream(), serviceName + "-stderr"));
+	}
+
+	/**
+	 * Moves the log files to the given locations, replacing any files there. Streams copied by pumps keep being written
+	 * into the moved log files, as do streams redirected by the operating system, which keeps writing into the moved
+	 * files.
+	 *
+	 * @param standardOutputTarget
+	 * 	The new location of the log file of the standard output stream
+	 * @param errorOutputTarget
+	 * 	The new location of the log file of the standard error stream
+	 *
+	 * @return Nothing or the error encountered while moving either log file
+	 */
+	Try<Void> relocate(File standardOutputTarget, File errorOutputTarget)
+	{
+		Try<Void> standardOutputMoved = relocate(standardOutputPump.get(), standardOutputLog, standardOutputTarget);
+		Try<Void> errorOutputMoved = relocate(errorOutputPump.get(), errorOutputLog, errorOutputTarget);
+
+		return standardOutputMoved.flatMap(ignored -> errorOutputMoved);
+	}
+
+	private static Try<Void> relocate(Option<OutputPump> pump, RegularFileProperty logFile, File target)
+	{
+		return pump
+			.map(capturedOutput -> capturedOutput.relocate(target))
+			.getOrElse(() -> Try.run(() -> Files.move(
+				logFile.get().getAsFile().toPath(),
+				target.toPath(),
+				StandardCopyOption.REPLACE_EXISTING
+			)));
+	}
+
+	/**
+	 * Returns the source of the lines of the standard output stream.
+	 */
+	LogLineSource standardOutput()
+	{
+		return sourceOf(standardOutputPump.get(), standardOutputLog);
+	}
+
+	/**
+	 * Returns the sources of the lines of both the standard output and error streams.
+	 */
+	List<LogLineSource> allOutput()
+	{
+		return List.of(standardOutput(), sourceOf(errorOutputPump.get(), errorOutputLog));
+	}
+
+	private static LogLineSource sourceOf(Option<OutputPump> pump, RegularFileProperty logFile)
+	{
+		return pump
+			.<LogLineSource>map(capturedOutput -> capturedOutput)
+			.getOrElse(() -> TailedLogFile.of(logFile.get().getAsFile()));
+	}
+}
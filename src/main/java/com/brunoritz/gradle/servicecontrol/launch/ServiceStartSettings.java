@@ -0,0 +1,84 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import com.brunoritz.gradle.servicecontrol.availability.AvailabilityComposition;
+import com.brunoritz.gradle.servicecontrol.availability.LogMatchMode;
+import com.brunoritz.gradle.servicecontrol.availability.PortProbeMode;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.SetProperty;
+
+import java.io.File;
+import java.time.Duration;
+
+/**
+ * The settings required for starting a service, shared by the service definitions, the tasks starting a single service
+ * and the start settings resolved when the service is being started. The meaning and the defaults of the settings are
+ * documented by the service definition.
+ *
+ * @see com.brunoritz.gradle.servicecontrol.ServiceDefinition
+ */
+public interface ServiceStartSettings
+{
+	Property<Integer> getServicePort();
+
+	ListProperty<Integer> getAdditionalPorts();
+
+	ListProperty<String> getProbeHosts();
+
+	Property<PortProbeMode> getPortProbe();
+
+	Property<CharSequence> getStartupLogMessage();
+
+	ListProperty<CharSequence> getStartupLogMessages();
+
+	ListProperty<CharSequence> getStartupLogPatterns();
+
+	Property<LogMatchMode> getStartupLogMatch();
+
+	ListProperty<CharSequence> getFailureLogPatterns();
+
+	Property<String> getHealthUrl();
+
+	Property<Integer> getHealthStatus();
+
+	Property<CharSequence> getHealthBodyPattern();
+
+	Property<Duration> getHealthTimeout();
+
+	Property<Boolean> getNotifyReady();
+
+	RegularFileProperty getReadyMarkerFile();
+
+	Property<Boolean> getReadyMarkerNonEmpty();
+
+	Property<AvailabilityComposition> getAvailabilityMatch();
+
+	Property<Duration> getStartTimeout();
+
+	Property<ProbeSchedule> getProbeSchedule();
+
+	DirectoryProperty getWorkingDirectory();
+
+	RegularFileProperty getStandardOutputLog();
+
+	RegularFileProperty getErrorOutputLog();
+
+	Property<OutputCapture> getOutputCapture();
+
+	Property<Long> getLogMaxSize();
+
+	Property<Duration> getLogRollInterval();
+
+	Property<Integer> getLogGenerations();
+
+	ListProperty<File> getEnvironmentFiles();
+
+	MapProperty<CharSequence, CharSequence> getEnvironment();
+
+	RegularFileProperty getPidFile();
+
+	SetProperty<String> getServiceDependencies();
+}
@@ -0,0 +1,331 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import com.brunoritz.gradle.servicecontrol.ServiceDefinition;
+import com.brunoritz.gradle.servicecontrol.availability.AvailabilityComposition;
+import com.brunoritz.gradle.servicecontrol.availability.LogMatchMode;
+import com.brunoritz.gradle.servicecontrol.availability.PortProbeMode;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.SetProperty;
+
+import java.io.File;
+import java.time.Duration;
+
+/**
+ * The settings required for starting a single service. The settings are kept as the properties of the service's
+ * definition and therefore only resolved when the service is being started. An instance of the service other than the
+ * configured one, such as the replacement of a running service, is started with its own port, environment, log files
+ * and PID file.
+ */
+public final class ServiceStartSpec
+	implements ServiceStartSettings
+{
+	private final String serviceName;
+	private final CommandComputer command;
+	private final Property<Integer> servicePort;
+	private final ListProperty<Integer> additionalPorts;
+	private final ListProperty<String> probeHosts;
+	private final Property<PortProbeMode> portProbe;
+	private final Property<CharSequence> startupLogMessage;
+	private final ListProperty<CharSequence> startupLogMessages;
+	private final ListProperty<CharSequence> startupLogPatterns;
+	private final Property<LogMatchMode> startupLogMatch;
+	private final ListProperty<CharSequence> failureLogPatterns;
+	private final Property<String> healthUrl;
+	private final Property<Integer> healthStatus;
+	private final Property<CharSequence> healthBodyPattern;
+	private final Property<Duration> healthTimeout;
+	private final Property<Boolean> notifyReady;
+	private final RegularFileProperty readyMarkerFile;
+	private final Property<Boolean> readyMarkerNonEmpty;
+	private final Property<AvailabilityComposition> availabilityMatch;
+	private final Property<Duration> startTimeout;
+	private final Property<ProbeSchedule> probeSchedule;
+	private final DirectoryProperty workingDirectory;
+	private final RegularFileProperty standardOutputLog;
+	private final RegularFileProperty errorOutputLog;
+	private final Property<OutputCapture> outputCapture;
+	private final Property<Long> logMaxSize;
+	private final Property<Duration> logRollInterval;
+	private final Property<Integer> logGenerations;
+	private final ListProperty<File> environmentFiles;
+	private final MapProperty<CharSequence, CharSequence> environment;
+	private final RegularFileProperty pidFile;
+	private final SetProperty<String> serviceDependencies;
+
+	private ServiceStartSpec(
+		String serviceName,
+		CommandComputer command,
+		ServiceStartSettings settings,
+		ServiceInstance instance)
+	{
+		this.serviceName = serviceName;
+		this.command = command;
+		this.servicePort = instance.servicePort();
+		this.additionalPorts = settings.getAdditionalPorts();
+		this.probeHosts = settings.getProbeHosts();
+		this.portProbe = settings.getPortProbe();
+		this.startupLogMessage = settings.getStartupLogMessage();
+		this.startupLogMessages = settings.getStartupLogMessages();
+		this.startupLogPatterns = settings.getStartupLogPatterns();
+		this.startupLogMatch = settings.getStartupLogMatch();
+		this.failureLogPatterns = settings.getFailureLogPatterns();
+		this.healthUrl = settings.getHealthUrl();
+		this.healthStatus = settings.getHealthStatus();
+		this.healthBodyPattern = settings.getHealthBodyPattern();
+		this.healthTimeout = settings.getHealthTimeout();
+		this.notifyReady = settings.getNotifyReady();
+		this.readyMarkerFile = settings.getReadyMarkerFile();
+		this.readyMarkerNonEmpty = settings.getReadyMarkerNonEmpty();
+		this.availabilityMatch = settings.getAvailabilityMatch();
+		this.startTimeout = settings.getStartTimeout();
+		this.probeSchedule = settings.getProbeSchedule();
+		this.workingDirectory = settings.getWorkingDirectory();
+		this.standardOutputLog = instance.standardOutputLog();
+		this.errorOutputLog = instance.errorOutputLog();
+		this.outputCapture = settings.getOutputCapture();
+		this.logMaxSize = settings.getLogMaxSize();
+		this.logRollInterval = settings.getLogRollInterval();
+		this.logGenerations = settings.getLogGenerations();
+		this.environmentFiles = settings.getEnvironmentFiles();
+		this.environment = instance.environment();
+		this.pidFile = instance.pidFile();
+		this.serviceDependencies = settings.getServiceDependencies();
+	}
+
+	/**
+	 * Creates the start settings of a service from its definition.
+	 *
+	 * @param service
+	 * 	The definition of the service to start
+	 * @param command
+	 * 	The computer of the command that launches the service
+	 */
+	public static ServiceStartSpec fromDefinition(ServiceDefinition service, CommandComputer command)
+	{
+		return fromSettings(service.getName(), command, service);
+	}
+
+	/**
+	 * Creates the start settings of a service from the given settings.
+	 *
+	 * @param serviceName
+	 * 	The name of the service to start
+	 * @param command
+	 * 	The computer of the command that launches the service
+	 * @param settings
+	 * 	The settings of the service to start
+	 */
+	static ServiceStartSpec fromSettings(String serviceName, CommandComputer command, ServiceStartSettings settings)
+	{
+		return new ServiceStartSpec(serviceName, command, settings, ServiceInstance.of(settings));
+	}
+
+	/**
+	 * Returns the start settings of another instance of the service, which differs from the configured one by the
+	 * given settings only.
+	 *
+	 * @param instance
+	 * 	The settings telling the other instance apart from the configured one
+	 */
+	ServiceStartSpec withInstance(ServiceInstance instance)
+	{
+		return new ServiceStartSpec(serviceName, command, this, instance);
+	}
+
+	/**
+	 * Returns the name of the service as given in its definition.
+	 */
+	public String serviceName()
+	{
+		return serviceName;
+	}
+
+	CommandComputer command()
+	{
+		return command;
+	}
+
+	@Override
+	public Property<Integer> getServicePort()
+	{
+		return servicePort;
+	}
+
+	@Override
+	public ListProperty<Integer> getAdditionalPorts()
+	{
+		return additionalPorts;
+	}
+
+	@Override
+	public ListProperty<String> getProbeHosts()
+	{
+		return probeHosts;
+	}
+
+	@Override
+	public Property<PortProbeMode> getPortProbe()
+	{
+		return portProbe;
+	}
+
+	@Override
+	public Property<CharSequence> getStartupLogMessage()
+	{
+		return startupLogMessage;
+	}
+
+	@Override
+	public ListProperty<CharSequence> getStartupLogMessages()
+	{
+		return startupLogMessages;
+	}
+
+	@Override
+	public ListProperty<CharSequence> getStartupLogPatterns()
+	{
+		return startupLogPatterns;
+	}
+
+	@Override
+	public Property<LogMatchMode> getStartupLogMatch()
+	{
+		return startupLogMatch;
+	}
+
+	@Override
+	public ListProperty<CharSequence> getFailureLogPatterns()
+	{
+		return failureLogPatterns;
+	}
+
+	@Override
+	public Property<String> getHealthUrl()
+	{
+		return healthUrl;
+	}
+
+	@Override
+	public Property<Integer> getHealthStatus()
+	{
+		return healthStatus;
+	}
+
+	@Override
+	public Property<CharSequence> getHealthBodyPattern()
+	{
+		return healthBodyPattern;
+	}
+
+	@Override
+	public Property<Duration> getHealthTimeout()
+	{
+		return healthTimeout;
+	}
+
+	@Override
+	public Property<Boolean> getNotifyReady()
+	{
+		return notifyReady;
+	}
+
+	@Override
+	public RegularFileProperty getReadyMarkerFile()
+	{
+		return readyMarkerFile;
+	}
+
+	@Override
+	public Property<Boolean> getReadyMarkerNonEmpty()
+	{
+		return readyMarkerNonEmpty;
+	}
+
+	@Override
+	public Property<AvailabilityComposition> getAvailabilityMatch()
+	{
+		return availabilityMatch;
+	}
+
+	@Override
+	public Property<Duration> getStartTimeout()
+	{
+		return startTimeout;
+	}
+
+	@Override
+	public Property<ProbeSchedule> getProbeSchedule()
+	{
+		return probeSchedule;
+	}
+
+	@Override
+	public DirectoryProperty getWorkingDirectory()
+	{
+		return workingDirectory;
+	}
+
+	@Override
+	public RegularFileProperty getStandardOutputLog()
+	{
+		return standardOutputLog;
+	}
+
+	@Override
+	public RegularFileProperty getErrorOutputLog()
+	{
+		return errorOutputLog;
+	}
+
+	@Override
+	public Property<OutputCapture> getOutputCapture()
+	{
+		return outputCapture;
+	}
+
+	@Override
+	public Property<Long> getLogMaxSize()
+	{
+		return logMaxSize;
+	}
+
+	@Override
+	public Property<Duration> getLogRollInterval()
+	{
+		return logRollInterval;
+	}
+
+	@Override
+	public Property<Integer> getLogGenerations()
+	{
+		return logGenerations;
+	}
+
+	@Override
+	public ListProperty<File> getEnvironmentFiles()
+	{
+		return environmentFiles;
+	}
+
+	@Override
+	public MapProperty<CharSequence, CharSequence> getEnvironment()
+	{
+		return environment;
+	}
+
+	@Override
+	public RegularFileProperty getPidFile()
+	{
+		return pidFile;
+	}
+
+	@Override
+	public SetProperty<String> getServiceDependencies()
+	{
+		return serviceDependencies;
+	}
+}
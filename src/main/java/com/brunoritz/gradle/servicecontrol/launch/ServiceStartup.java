@@ -0,0 +1,312 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import com.brunoritz.gradle.servicecontrol.availability.AvailabilityCheckFactory;
+import com.brunoritz.gradle.servicecontrol.availability.FailureLogWatch;
+import com.brunoritz.gradle.servicecontrol.availability.MarkerFileAvailabilityCheck;
+import com.brunoritz.gradle.servicecontrol.availability.NotifySocketAvailabilityCheck;
+import com.brunoritz.gradle.servicecontrol.common.PidFile;
+import com.brunoritz.gradle.servicecontrol.common.ProcessTermination;
+import com.brunoritz.gradle.servicecontrol.common.ServiceRegistry;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Performs the startup of a single service. The service process is launched right away, while the waiting for the
+ * service to become available happens asynchronously. This allows the startup of multiple services to overlap.
+ */
+class ServiceStartup
+{
+	private static final Logger logger = Logging.getLogger(ServiceStartup.class);
+
+	private final ServiceStartSpec service;
+	private final ServiceRegistry serviceRegistry;
+
+	ServiceStartup(ServiceStartSpec service, ServiceRegistry serviceRegistry)
+	{
+		this.service = service;
+		this.serviceRegistry = serviceRegistry;
+	}
+
+	/**
+	 * Begins the service startup. This method initially attempts to create an empty PID file. It continues only if
+	 * the PID file does not yet exist and can be created.
+	 * <p>
+	 * Once the service process has been created, it is registered with the service registry and the waiting for the
+	 * service to become available begins. The returned future completes with the started service after its PID has
+	 * been recorded. If the service fails to become available, it is cleaned up and the future completes
+	 * exceptionally.
+	 *
+	 * @param probeExecutor
+	 * 	The executor on which to probe the availability of the service
+	 *
+	 * @return A future completing with the started service
+	 *
+	 * @throws IllegalStateException
+	 * 	If the PID file is in use or the service process could not be launched
+	 */
+	CompletableFuture<StartedService> begin(ScheduledExecutorService probeExecutor)
+	{
+		Instant startupBegin = Instant.now();
+		PidFile pidFile = PidFile.createEmpty(service.getPidFile().getAsFile().get())
+			.getOrElseThrow(error -> new IllegalStateException("PID file could not be created or is in use", error));
+		prepareMarkerFile(pidFile);
+
+		Option<NotifySocketAvailabilityCheck> readinessNotification = readinessNotification(pidFile);
+		ServiceToStart serviceToStart =
+			new ServiceToStart(
+				service.command().compute(),
+				pidFile,
+				ProcessLauncher::new,
+				service.getStartTimeout(),
+				service.getProbeSchedule(),
+				service.getWorkingDirectory(),
+				service.getStandardOutputLog(),
+				service.getErrorOutputLog(),
+				service.getOutputCapture(),
+				service.getLogMaxSize(),
+				service.getLogRollInterval(),
+				service.getLogGenerations(),
+				service.getEnvironmentFiles(),
+				service.getEnvironment(),
+				readinessNotification.map(NotifySocketAvailabilityCheck::environment).getOrElse(HashMap.empty())
+			);
+		CompletableFuture<Either<FailedService, RunningService>> startup = serviceToStart.start()
+			.peek(startingService -> serviceRegistry.register(
+				service.serviceName(),
+				service.getPidFile().getAsFile().get(),
+				startingService.process()
+			))
+			.flatMap(startingService -> Try.of(() -> requestedAvailabilityCheck(
+					serviceToStart.output(),
+					startingService.process().toHandle(),
+					readinessNotification
+				))
+				.flatMap(availabilityCheck -> Try.of(() -> FailureLogWatch.watch(
+						serviceToStart.output().allOutput(),
+						List.ofAll(service.getFailureLogPatterns().get()).map(CharSequence::toString)
+					))
+					.onFailure(error -> Try.run(availabilityCheck::close))
+					.map(failureWatch -> new AvailabilityWatch(availabilityCheck, failureWatch))
+				)
+				.onFailure(error -> abandonLaunch(startingService))
+				.map(watch -> {
+					ServiceAvailabilityCheck availabilityCheck = watch.availabilityCheck();
+					FailureLogWatch failureWatch = watch.failureWatch();
+					CompletableFuture<Either<FailedService, RunningService>> pendingStartup = startingService
+						.startup(availabilityCheck, failureWatch.whenFailed(), probeExecutor)
+						.whenComplete((outcome, error) -> {
+							Try.run(availabilityCheck::close);
+							failureWatch.close();
+						});
+
+					serviceToStart.output().attach(service.serviceName(), startingService.process());
+
+					return pendingStartup;
+				})
+			)
+			.onFailure(error -> {
+				readinessNotification.forEach(NotifySocketAvailabilityCheck::close);
+				pidFile.destroy();
+
+				throw new IllegalStateException("Failed to launch service process", error);
+			})
+			.get();
+		CompletableFuture<StartedService> startedService = startup
+			.thenApply(ServiceStartup::completeStartup)
+			.thenApply(pid -> new StartedService(
+				pid,
+				Duration.between(startupBegin, Instant.now()),
+				serviceToStart.output()
+			));
+
+		startedService.whenComplete((service, error) -> {
+			if (startedService.isCancelled()) {
+				startup.cancel(true);
+			}
+		});
+
+		return startedService;
+	}
+
+	/**
+	 * Begins the service startup as soon as the given throttle grants a launch slot. The slot is kept until the
+	 * service has either become available or failed to start. If the launch had to be queued, the time spent waiting
+	 * for the slot is logged. It is not part of the time the service took to become available.
+	 * <p>
+	 * Unlike {@link #begin(ScheduledExecutorService)}, failures to launch the service process are reported through
+	 * the returned future. Cancelling the returned future withdraws a queued launch or cancels the startup.
+	 *
+	 * @param launchThrottle
+	 * 	The throttle limiting the number of services starting at the same time
+	 * @param priority
+	 * 	The priority of the launch, where lower values are launched first
+	 * @param launchExecutor
+	 * 	The executor on which to launch the service, which is blocked while the service process is being launched
+	 * @param probeExecutor
+	 * 	The executor on which to probe the availability of the service
+	 *
+	 * @return A future completing with the started service
+	 */
+	CompletableFuture<StartedService> begin(
+		LaunchThrottle launchThrottle,
+		int priority,
+		Executor launchExecutor,
+		ScheduledExecutorService probeExecutor)
+	{
+		CompletableFuture<LaunchThrottle.LaunchSlot> launchSlot = launchThrottle.acquire(priority);
+		CompletableFuture<StartedService> startedService = new CompletableFuture<>();
+
+		launchSlot.thenAcceptAsync(
+			slot -> {
+				slot.queuedFor().peek(waitTime -> logger.lifecycle(
+					"Service {} waited {} ms to launch, as {} service(s) were starting already",
+					service.serviceName(),
+					waitTime.toMillis(),
+					launchThrottle.maxConcurrentLaunches()
+				));
+
+				Try.of(() -> begin(probeExecutor))
+					.onFailure(error -> {
+						slot.release();
+						startedService.completeExceptionally(error);
+					})
+					.forEach(startup -> {
+						startup.whenComplete((service, error) -> {
+							slot.release();
+
+							if (error == null) {
+								startedService.complete(service);
+							} else {
+								startedService.completeExceptionally(error);
+							}
+						});
+						startedService.whenComplete((service, error) -> {
+							if (startedService.isCancelled()) {
+								startup.cancel(true);
+							}
+						});
+					});
+			},
+			launchExecutor
+		);
+		startedService.whenComplete((service, error) -> {
+			if (startedService.isCancelled()) {
+				launchSlot.cancel(true);
+			}
+		});
+
+		return startedService;
+	}
+
+	/**
+	 * Waits for a service startup to complete. Failures of the startup are rethrown as they occurred. If the waiting
+	 * thread gets interrupted, the startup is cancelled.
+	 *
+	 * @param startup
+	 * 	The startup as begun by one of the {@code begin} methods
+	 *
+	 * @return The value the startup completed with
+	 */
+	static <T> T await(CompletableFuture<T> startup)
+	{
+		try {
+			return startup.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException startupFailure) {
+				throw startupFailure;
+			}
+
+			throw new IllegalStateException("Service failed to start properly", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			startup.cancel(true);
+
+			throw new IllegalStateException("Interrupted while waiting for the service to start", e);
+		}
+	}
+
+	/*
+	 * The availability checks can only be created once the process has been launched, as they may inspect it. If they
+	 * cannot be created, for example due to an invalid setting, the process would otherwise be kept running without
+	 * anything waiting for it or stopping it.
+	 */
+	private void abandonLaunch(StartingService startingService)
+	{
+		ProcessTermination.terminateHierarchy(startingService.process().toHandle())
+			.onFailure(error -> logger.warn("Failed to terminate the service {}", service.serviceName(), error));
+		serviceRegistry.unregister(service.getPidFile().getAsFile().get());
+	}
+
+	private ServiceAvailabilityCheck requestedAvailabilityCheck(
+		ServiceOutput output,
+		ProcessHandle serviceProcess,
+		Option<NotifySocketAvailabilityCheck> readinessNotification)
+	{
+		return AvailabilityCheckFactory.checkFromDefinition(
+				service,
+				output.standardOutput(),
+				serviceProcess,
+				readinessNotification.map(ServiceAvailabilityCheck.class::cast)
+			)
+			.getOrElseThrow(
+				() -> new IllegalStateException(
+					"Either a readiness notification, marker file, health URL, port or success log message is required"
+				)
+			);
+	}
+
+	private void prepareMarkerFile(PidFile pidFile)
+	{
+		if (service.getReadyMarkerFile().isPresent()) {
+			MarkerFileAvailabilityCheck.prepare(service.getReadyMarkerFile().get().getAsFile())
+				.onFailure(error -> pidFile.destroy())
+				.getOrElseThrow(error -> new IllegalStateException("Marker file could not be prepared", error));
+		}
+	}
+
+	/*
+	 * The socket has to exist before the service is launched, as its path is passed to the service. If it cannot be
+	 * created, the service is not launched.
+	 */
+	private Option<NotifySocketAvailabilityCheck> readinessNotification(PidFile pidFile)
+	{
+		if (!service.getNotifyReady().getOrElse(false)) {
+			return Option.none();
+		}
+
+		return Option.some(NotifySocketAvailabilityCheck.open(service.serviceName())
+			.onFailure(error -> pidFile.destroy())
+			.getOrElseThrow(error -> new IllegalStateException("Notification socket could not be created", error)));
+	}
+
+	private record AvailabilityWatch(ServiceAvailabilityCheck availabilityCheck, FailureLogWatch failureWatch)
+	{
+	}
+
+	private static long completeStartup(Either<FailedService, RunningService> outcome)
+	{
+		return outcome
+			.peekLeft(failedService -> {
+				failedService.cleanupService();
+
+				throw new IllegalStateException(failedService.failureReason()
+					.map(reason -> String.format("Service failed to start properly, as it logged:%n%s", reason))
+					.getOrElse("Service failed to start properly"));
+			})
+			.get()
+			.recordProcessId()
+			.getOrElseThrow(error -> new IllegalStateException("Failed to record PID file", error));
+	}
+}
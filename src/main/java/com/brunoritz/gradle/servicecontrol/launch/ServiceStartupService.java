@@ -0,0 +1,189 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * A build service shared by all service control tasks of a build. It owns the executor on which the availability of
+ * starting services is probed, allowing any number of services to be awaited concurrently without dedicating a
+ * thread to each of them. Service processes are launched on a separate executor, so the blocking work of launching
+ * them does not delay the probes of other services. It also serializes the access of concurrently running tasks to
+ * the startup history.
+ * <p>
+ * The service limits the number of services that are starting at the same time across all projects of the build, as
+ * services starting concurrently compete for CPU time. By default, as many services as there are processors may be
+ * starting at the same time. The limit can be changed through the Gradle property
+ * {@value #MAX_CONCURRENT_STARTUPS_PROPERTY}.
+ * <p>
+ * Closing the build service does not affect the services that have been started.
+ */
+public abstract class ServiceStartupService
+	implements BuildService<ServiceStartupService.Parameters>, AutoCloseable
+{
+	/**
+	 * The Gradle property through which the number of services starting at the same time can be limited.
+	 */
+	public static final String MAX_CONCURRENT_STARTUPS_PROPERTY = "serviceControl.maxConcurrentStartups";
+
+	private static final Logger logger = Logging.getLogger(ServiceStartupService.class);
+	private static final String SERVICE_NAME = "serviceControlStartup";
+
+	private final ScheduledExecutorService probeExecutor;
+	private final ExecutorService launchExecutor;
+	private Option<LaunchThrottle> launchThrottle;
+
+	public ServiceStartupService()
+	{
+		int probeThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+		probeExecutor = Executors.newScheduledThreadPool(probeThreads, ServiceStartupService::probeThread);
+		launchExecutor = Executors.newCachedThreadPool(ServiceStartupService::launchThread);
+		launchThrottle = Option.none();
+	}
+
+	/**
+	 * The parameters of the startup service.
+	 */
+	public interface Parameters
+		extends BuildServiceParameters
+	{
+		/**
+		 * The number of services that may be starting at the same time.
+		 */
+		Property<Integer> getMaxConcurrentStartups();
+	}
+
+	/**
+	 * Registers the startup service with the build of the given project, unless it has been registered before. The
+	 * concurrency limit is taken from the Gradle property {@value #MAX_CONCURRENT_STARTUPS_PROPERTY}, if set.
+	 *
+	 * @param project
+	 * 	The project with whose build to register the service
+	 *
+	 * @return The provider of the shared startup service
+	 *
+	 * @throws GradleException
+	 * 	If the configured concurrency limit is not a positive number
+	 */
+	public static Provider<ServiceStartupService> registerIfAbsent(Project project)
+	{
+		Provider<Integer> maxConcurrentStartups = project.getProviders()
+			.gradleProperty(MAX_CONCURRENT_STARTUPS_PROPERTY)
+			.map(ServiceStartupService::parseConcurrencyLimit);
+
+		return project.getGradle().getSharedServices()
+			.registerIfAbsent(SERVICE_NAME, ServiceStartupService.class, spec ->
+				spec.getParameters().getMaxConcurrentStartups().set(maxConcurrentStartups)
+			);
+	}
+
+	/**
+	 * Returns the executor on which availability probes are run.
+	 */
+	ScheduledExecutorService probeExecutor()
+	{
+		return probeExecutor;
+	}
+
+	/**
+	 * Returns the executor on which service processes are launched. The number of its threads is bound by the number
+	 * of services that may be starting at the same time.
+	 */
+	ExecutorService launchExecutor()
+	{
+		return launchExecutor;
+	}
+
+	/**
+	 * Returns the throttle limiting the number of services starting at the same time.
+	 */
+	synchronized LaunchThrottle launchThrottle()
+	{
+		if (launchThrottle.isEmpty()) {
+			launchThrottle = Option.some(new LaunchThrottle(
+				getParameters().getMaxConcurrentStartups().getOrElse(Runtime.getRuntime().availableProcessors())
+			));
+		}
+
+		return launchThrottle.get();
+	}
+
+	/**
+	 * Reads the startup history from the given file.
+	 *
+	 * @param historyFile
+	 * 	The file holding the startup history of a project's services
+	 */
+	synchronized StartupHistory loadStartupHistory(File historyFile)
+	{
+		return StartupHistory.load(historyFile);
+	}
+
+	/**
+	 * Records the time the given services took to become available in the startup history. Failing to record the
+	 * history does not affect the services and is therefore only logged.
+	 *
+	 * @param historyFile
+	 * 	The file holding the startup history of a project's services
+	 * @param timesToReady
+	 * 	The time each service took to become available, keyed by the service's name
+	 */
+	synchronized void recordTimesToReady(File historyFile, Map<String, Duration> timesToReady)
+	{
+		timesToReady
+			.foldLeft(StartupHistory.load(historyFile), (history, entry) -> history.withTimeToReady(entry._1, entry._2))
+			.store(historyFile)
+			.onFailure(error -> logger.warn("Failed to record the startup history in {}", historyFile, error));
+	}
+
+	@Override
+	public void close()
+	{
+		probeExecutor.shutdownNow();
+		launchExecutor.shutdownNow();
+	}
+
+	private static int parseConcurrencyLimit(String limit)
+	{
+		return Try.of(() -> Integer.parseInt(limit.trim()))
+			.filter(parsedLimit -> parsedLimit > 0)
+			.getOrElseThrow(() -> new GradleException(String.format(
+				"%s must be a positive number, but was '%s'",
+				MAX_CONCURRENT_STARTUPS_PROPERTY,
+				limit
+			)));
+	}
+
+	private static Thread probeThread(Runnable probe)
+	{
+		Thread thread = new Thread(probe, "service-availability-probe");
+
+		thread.setDaemon(true);
+
+		return thread;
+	}
+
+	private static Thread launchThread(Runnable launch)
+	{
+		Thread thread = new Thread(launch, "service-launch");
+
+		thread.setDaemon(true);
+
+		return thread;
+	}
+}
@@ -1,8 +1,10 @@
 package com.brunoritz.gradle.servicecontrol.launch;
 
 import com.brunoritz.gradle.servicecontrol.common.PidFile;
+import io.vavr.Lazy;
 import io.vavr.collection.HashMap;
 import io.vavr.collection.List;
+import io.vavr.collection.Map;
 import io.vavr.control.Option;
 import io.vavr.control.Try;
 import org.gradle.api.file.DirectoryProperty;
@@ -19,9 +21,11 @@ import java.util.function.Supplier;
 /**
  * The service to be started along with all required configuration. Once the process has been started, its process ID
  * will be recorded in the given PID file. The standard output and error streams of the created process will be
- * redirected to the configured log files.
+ * written to the configured log files, either redirected by the operating system or captured by the plugin. The log
+ * files of the previous run are archived before the service is launched.
  * <p>
- * Registers a shutdown hook that terminates the process upon termination of the Gradle Daemon.
+ * Besides the configured environment, the process receives the variables determined for this launch only, such as the
+ * socket to which to send readiness notifications.
  */
 class ServiceToStart
 {
@@ -29,32 +33,46 @@ class ServiceToStart
 	private final PidFile pidFile;
 	private final Supplier<ProcessLauncher> launcherFactory;
 	private final Property<Duration> startTimeout;
+	private final Property<ProbeSchedule> probeSchedule;
 	private final DirectoryProperty workingDirectory;
 	private final RegularFileProperty standardOutputLog;
 	private final RegularFileProperty errorOutputLog;
+	private final Lazy<LogRotation> logRotation;
+	private final ServiceOutput output;
 	private final ListProperty<File> environmentFiles;
 	private final MapProperty<CharSequence, CharSequence> environment;
+	private final Map<String, String> launchEnvironment;
 
 	ServiceToStart(
 		List<String> command,
 		PidFile pidFile,
 		Supplier<ProcessLauncher> launcherFactory,
 		Property<Duration> startTimeout,
+		Property<ProbeSchedule> probeSchedule,
 		DirectoryProperty workingDirectory,
 		RegularFileProperty standardOutputLog,
 		RegularFileProperty errorOutputLog,
+		Property<OutputCapture> outputCapture,
+		Property<Long> logMaxSize,
+		Property<Duration> logRollInterval,
+		Property<Integer> logGenerations,
 		ListProperty<File> environmentFiles,
-		MapProperty<CharSequence, CharSequence> environment)
+		MapProperty<CharSequence, CharSequence> environment,
+		Map<String, String> launchEnvironment)
 	{
 		this.command = command;
 		this.pidFile = pidFile;
 		this.launcherFactory = launcherFactory;
 		this.startTimeout = startTimeout;
+		this.probeSchedule = probeSchedule;
 		this.workingDirectory = workingDirectory;
 		this.standardOutputLog = standardOutputLog;
 		this.errorOutputLog = errorOutputLog;
+		this.logRotation = Lazy.of(() -> LogRotation.of(logMaxSize, logRollInterval, logGenerations));
+		this.output = new ServiceOutput(outputCapture, standardOutputLog, errorOutputLog, logRotation);
 		this.environmentFiles = environmentFiles;
 		this.environment = environment;
+		this.launchEnvironment = launchEnvironment;
 	}
 
 	/**
@@ -68,20 +86,27 @@ class ServiceToStart
 	{
 		return configureLauncher()
 			.flatMap(ProcessLauncher::start)
-			.onSuccess(process -> Runtime.getRuntime().addShutdownHook(new Thread(process::destroy)))
-			.map(process -> new StartingService(process, startTimeout.get(), pidFile));
+			.map(process -> new StartingService(process, startTimeout.get(), probeSchedule.get(), pidFile));
+	}
+
+	/**
+	 * Returns the output of the service. If the output is captured, copying it into the log files only starts once
+	 * it has been attached to the launched process.
+	 */
+	ServiceOutput output()
+	{
+		return output;
 	}
 
 	private Try<ProcessLauncher> configureLauncher()
 	{
 		return prepareLogging()
 			.flatMap(setupDirs -> computeEnvironment())
-			.map(envBuilder -> launcherFactory.get()
-				.command(command)
-				.workingDirectory(workingDirectory.get().getAsFile())
-				.storeStdOutIn(standardOutputLog.get().getAsFile())
-				.storeStdErrIn(errorOutputLog.get().getAsFile())
-				.appendEnvironment(envBuilder.environment())
+			.map(envBuilder -> output.configure(launcherFactory.get()
+					.command(command)
+					.workingDirectory(workingDirectory.get().getAsFile())
+				)
+				.appendEnvironment(envBuilder.environment().merge(launchEnvironment, (configured, launch) -> launch))
 			);
 	}
 
@@ -92,11 +117,11 @@ class ServiceToStart
 				() -> {
 					boolean stdOutDirCreated = parentOf(standardOutputLog.get().getAsFile())
 						.filter(logDir -> !logDir.exists())
-						.map(File::mkdirs)
+						.map(ServiceToStart::createDirectory)
 						.getOrElse(true);
 					boolean errOutDirCreated = parentOf(errorOutputLog.get().getAsFile())
 						.filter(logDir -> !logDir.exists())
-						.map(File::mkdirs)
+						.map(ServiceToStart::createDirectory)
 						.getOrElse(true);
 
 					if (!(stdOutDirCreated && errOutDirCreated)) {
@@ -108,20 +133,36 @@ class ServiceToStart
 			)
 			.flatMap(ignored -> Try
 				.of(() -> {
-					boolean outputLogDeleted = !standardOutputLog.get().getAsFile().exists()
-						|| standardOutputLog.get().getAsFile().delete();
-					boolean errorLogDeleted = !errorOutputLog.get().getAsFile().exists()
-						|| errorOutputLog.get().getAsFile().delete();
+					LogRotation rotation = logRotation.get();
 
-					if (!(outputLogDeleted && errorLogDeleted)) {
-						throw new IOException("Unable to delete existing log files");
-					}
+					archivePreviousLog(standardOutputLog.get().getAsFile(), rotation);
+					archivePreviousLog(errorOutputLog.get().getAsFile(), rotation);
 
 					return true;
 				})
 			);
 	}
 
+	/*
+	 * The archived log file is compressed in the background, so the service does not have to wait for it.
+	 */
+	private static void archivePreviousLog(File logFile, LogRotation rotation)
+		throws IOException
+	{
+		new LogArchive(logFile, rotation.generations())
+			.archive()
+			.getOrElseThrow(error -> new IOException("Unable to archive existing log file " + logFile, error));
+	}
+
+	private static boolean createDirectory(File directory)
+	{
+		/*
+		 * Services started concurrently commonly share their log directory, so another service may have created the
+		 * directory in the meantime.
+		 */
+		return directory.mkdirs() || directory.isDirectory();
+	}
+
 	private static Option<File> parentOf(File child)
 	{
 		return Option.of(child)
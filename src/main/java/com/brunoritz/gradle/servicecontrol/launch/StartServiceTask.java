@@ -1,15 +1,25 @@
 package com.brunoritz.gradle.servicecontrol.launch;
 
 import com.brunoritz.gradle.servicecontrol.ServiceDefinition;
-import com.brunoritz.gradle.servicecontrol.availability.AvailabilityCheckFactory;
+import com.brunoritz.gradle.servicecontrol.availability.AvailabilityComposition;
+import com.brunoritz.gradle.servicecontrol.availability.LogMatchMode;
+import com.brunoritz.gradle.servicecontrol.availability.PortAvailabilityCheck;
+import com.brunoritz.gradle.servicecontrol.availability.PortProbeMode;
 import com.brunoritz.gradle.servicecontrol.common.PidFile;
+import com.brunoritz.gradle.servicecontrol.common.ProcessTermination;
+import com.brunoritz.gradle.servicecontrol.common.ServiceRegistry;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
 import io.vavr.control.Try;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.MapProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.provider.SetProperty;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.Internal;
@@ -20,6 +30,8 @@ import org.gradle.api.tasks.TaskAction;
 
 import javax.inject.Inject;
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 
 /**
@@ -29,12 +41,28 @@ import java.time.Duration;
  * <p>
  * This task does not attempt the start a service, if its PID file already exists. In that case the service is
  * considered running and the task fails.
+ * <p>
+ * The services this service depends on are not started by this task. They only determine the order in which the start
+ * tasks of multiple services run. The time the service took to become available is recorded in the startup history,
+ * if one is configured. The launch of the service may be delayed, if too many services are starting at the same time.
+ * <p>
+ * If configured to replace a running service, the task starts a replacement while the service is running. Once the
+ * replacement has become available, the running service is stopped and the replacement takes over its PID file. The
+ * replacement is told the port to listen on through the environment variable {@value #REPLACEMENT_PORT_VARIABLE}.
+ * Until then, the replacement writes its output into log files of its own, named like those of the service with the
+ * suffix {@code .replacement}. They take the place of the log files of the stopped service, which are archived.
  *
  * @see ServiceDefinition
  */
 public abstract class StartServiceTask
 	extends DefaultTask
+	implements ServiceStartSettings
 {
+	/**
+	 * The environment variable holding the port on which the replacement of a running service has to listen.
+	 */
+	public static final String REPLACEMENT_PORT_VARIABLE = "SERVICE_CONTROL_PORT";
+
 	private final CommandComputer command;
 
 	@Inject
@@ -47,13 +75,67 @@ public abstract class StartServiceTask
 	@Optional
 	public abstract Property<Integer> getServicePort();
 
+	@Input
+	public abstract ListProperty<Integer> getAdditionalPorts();
+
+	@Input
+	public abstract ListProperty<String> getProbeHosts();
+
+	@Input
+	public abstract Property<PortProbeMode> getPortProbe();
+
 	@Input
 	@Optional
 	public abstract Property<CharSequence> getStartupLogMessage();
 
+	@Input
+	public abstract ListProperty<CharSequence> getStartupLogMessages();
+
+	@Input
+	public abstract ListProperty<CharSequence> getStartupLogPatterns();
+
+	@Input
+	@Optional
+	public abstract Property<LogMatchMode> getStartupLogMatch();
+
+	@Input
+	public abstract ListProperty<CharSequence> getFailureLogPatterns();
+
+	@Input
+	@Optional
+	public abstract Property<String> getHealthUrl();
+
+	@Input
+	@Optional
+	public abstract Property<Integer> getHealthStatus();
+
+	@Input
+	@Optional
+	public abstract Property<CharSequence> getHealthBodyPattern();
+
+	@Input
+	@Optional
+	public abstract Property<Duration> getHealthTimeout();
+
+	@Input
+	public abstract Property<Boolean> getNotifyReady();
+
+	@Internal
+	public abstract RegularFileProperty getReadyMarkerFile();
+
+	@Input
+	public abstract Property<Boolean> getReadyMarkerNonEmpty();
+
+	@Input
+	@Optional
+	public abstract Property<AvailabilityComposition> getAvailabilityMatch();
+
 	@Input
 	public abstract Property<Duration> getStartTimeout();
 
+	@Internal
+	public abstract Property<ProbeSchedule> getProbeSchedule();
+
 	@Internal
 	public abstract DirectoryProperty getWorkingDirectory();
 
@@ -63,6 +145,18 @@ public abstract class StartServiceTask
 	@Internal
 	public abstract RegularFileProperty getErrorOutputLog();
 
+	@Internal
+	public abstract Property<OutputCapture> getOutputCapture();
+
+	@Internal
+	public abstract Property<Long> getLogMaxSize();
+
+	@Internal
+	public abstract Property<Duration> getLogRollInterval();
+
+	@Internal
+	public abstract Property<Integer> getLogGenerations();
+
 	@InputFiles
 	@PathSensitive(PathSensitivity.RELATIVE)
 	public abstract ListProperty<File> getEnvironmentFiles();
@@ -73,67 +167,202 @@ public abstract class StartServiceTask
 	@Internal
 	public abstract RegularFileProperty getPidFile();
 
+	@Internal
+	public abstract SetProperty<String> getServiceDependencies();
+
+	@Internal
+	public abstract Property<String> getServiceName();
+
+	@Internal
+	public abstract RegularFileProperty getStartupHistory();
+
+	@Internal
+	public abstract Property<ServiceStartupService> getStartupService();
+
+	@Internal
+	public abstract Property<ServiceRegistry> getServiceRegistry();
+
+	@Internal
+	public abstract Property<Boolean> getReplaceRunningService();
+
+	@Input
+	@Optional
+	public abstract Property<Integer> getReplacementPort();
+
+	@Inject
+	protected abstract ObjectFactory getObjects();
+
 	/**
 	 * Begins the service startup. This method initially attempts to create an empty PID file. It continues only if
 	 * the PID file does not yet exist and can be created.
 	 * <p>
-	 * Once the service process has been created, the waiting for the TCP port begins.
+	 * Once the service process has been created, the waiting for the service to become available begins. When
+	 * replacing a running service, the running service is only stopped once its replacement has become available.
 	 */
 	@TaskAction
 	public void startService()
 	{
-		PidFile pidFile = PidFile.createEmpty(getPidFile().getAsFile().get())
-			.getOrElseThrow(error -> new IllegalStateException("PID file could not be created or is in use", error));
-		ServiceToStart serviceToStart =
-			new ServiceToStart(
-				command.compute(),
-				pidFile,
-				ProcessLauncher::new,
-				getStartTimeout(),
-				getWorkingDirectory(),
-				getStandardOutputLog(),
-				getErrorOutputLog(),
-				getEnvironmentFiles(),
-				getEnvironment()
+		String serviceName = getServiceName().getOrElse(getName());
+		ServiceRegistry serviceRegistry = getServiceRegistry().get();
+		File pidFile = getPidFile().get().getAsFile();
+		Option<ProcessHandle> serviceToReplace = getReplaceRunningService().getOrElse(false)
+			? runningService(serviceRegistry, pidFile)
+			: Option.none();
+		StartedService startedService = serviceToReplace
+			.map(runningService -> replaceService(serviceName, runningService, serviceRegistry))
+			.getOrElse(() -> startService(ServiceStartSpec.fromSettings(serviceName, command, this), serviceRegistry));
+
+		if (getStartupHistory().isPresent()) {
+			getStartupService().get().recordTimesToReady(
+				getStartupHistory().get().getAsFile(),
+				HashMap.of(serviceName, startedService.timeToReady())
 			);
+		}
+	}
+
+	private StartedService startService(ServiceStartSpec service, ServiceRegistry serviceRegistry)
+	{
+		ServiceStartupService startupService = getStartupService().get();
+		ServiceStartup startup = new ServiceStartup(service, serviceRegistry);
 
-		serviceToStart.start()
-			.flatMap(startingService -> Try
-				.withResources(this::requestedAvailabilityCheck)
-				.of(startingService::awaitStartup)
+		return ServiceStartup.await(
+			startup.begin(
+				startupService.launchThrottle(),
+				0,
+				startupService.launchExecutor(),
+				startupService.probeExecutor()
 			)
-			.onFailure(error -> {
-				pidFile.destroy();
+		);
+	}
+
+	private StartedService replaceService(
+		String serviceName,
+		ProcessHandle runningService,
+		ServiceRegistry serviceRegistry)
+	{
+		File pidFile = getPidFile().get().getAsFile();
+		File standardOutputLog = getStandardOutputLog().get().getAsFile();
+		File errorOutputLog = getErrorOutputLog().get().getAsFile();
+		File replacementPidFile = replacementOf(pidFile);
+		Property<Integer> replacementPort = getObjects().property(Integer.class);
+		MapProperty<CharSequence, CharSequence> replacementEnvironment =
+			getObjects().mapProperty(CharSequence.class, CharSequence.class);
+
+		replacementEnvironment.putAll(getEnvironment());
+		replacementPort(serviceName)
+			.peek(port -> {
+				replacementPort.set(port);
+				replacementEnvironment.put(REPLACEMENT_PORT_VARIABLE, String.valueOf(port));
+			});
 
-				throw new IllegalStateException("Failed to launch service process", error);
-			})
-			.get()
-			.peek(this::recordPid)
-			.peekLeft(failedService -> {
-				failedService.cleanupService();
+		getLogger().lifecycle("Starting replacement of service {} (PID {})", serviceName, runningService.pid());
 
-				throw new IllegalStateException("Service failed to start properly");
+		ServiceInstance replacementInstance = new ServiceInstance(
+			replacementPort,
+			replacementEnvironment,
+			getObjects().fileProperty().fileValue(replacementOf(standardOutputLog)),
+			getObjects().fileProperty().fileValue(replacementOf(errorOutputLog)),
+			getObjects().fileProperty().fileValue(replacementPidFile)
+		);
+		StartedService replacement = startService(
+			ServiceStartSpec.fromSettings(serviceName, command, this).withInstance(replacementInstance),
+			serviceRegistry
+		);
+
+		ProcessTermination.terminateHierarchy(runningService)
+			.onFailure(error -> {
+				throw new IllegalStateException("Failed to terminate the replaced process", error);
+			});
+		Try.run(() -> Files.move(
+				replacementPidFile.toPath(),
+				pidFile.toPath(),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE
+			))
+			.onFailure(error -> {
+				throw new IllegalStateException("Failed to hand over the PID file to the replacement", error);
 			});
+		serviceRegistry.lookup(replacementPidFile)
+			.peek(registeredReplacement -> {
+				serviceRegistry.unregister(replacementPidFile);
+				serviceRegistry.register(serviceName, pidFile, registeredReplacement.process());
+			});
+		takeOverLogFiles(replacement, standardOutputLog, errorOutputLog);
+
+		return replacement;
 	}
 
-	private ServiceAvailabilityCheck requestedAvailabilityCheck()
+	private static File replacementOf(File serviceFile)
 	{
-		return AvailabilityCheckFactory.checkFromDefinition(
-				getServicePort(),
-				getStartupLogMessage(),
-				getStandardOutputLog()
-			)
-			.getOrElseThrow(
-				() -> new IllegalStateException("Either a port or a success log message is required")
-			);
+		return new File(serviceFile.getParentFile(), serviceFile.getName() + ".replacement");
 	}
 
-	private void recordPid(RunningService runningService)
+	/*
+	 * The log files of the replaced service are archived like those of a stopped service, before the replacement's log
+	 * files take their place. Failing to do so leaves the replacement running and writing into its own log files.
+	 */
+	private void takeOverLogFiles(StartedService replacement, File standardOutputLog, File errorOutputLog)
 	{
-		runningService
-			.recordProcessId()
-			.onFailure(error -> {
-				throw new IllegalStateException("Failed to record PID file", error);
-			});
+		int generations = getLogGenerations().get();
+
+		List.of(standardOutputLog, errorOutputLog)
+			.forEach(replacedLog -> new LogArchive(replacedLog, generations).archive()
+				.onFailure(error -> getLogger().warn("Failed to archive the log file {}", replacedLog, error)));
+		replacement.output().relocate(standardOutputLog, errorOutputLog)
+			.onFailure(error -> getLogger().warn(
+				"Failed to move the log files of the replacement, which keeps writing them next to {}",
+				standardOutputLog,
+				error
+			));
+	}
+
+	/*
+	 * The replacement cannot listen on the port of the running service, unless the service supports sharing it. With a
+	 * replacement port, the running instance listens on either of the two ports and the replacement takes the other.
+	 * Without one, only the startup log message can tell whether the replacement has become available.
+	 */
+	private Option<Integer> replacementPort(String serviceName)
+	{
+		if (getReplacementPort().isPresent()) {
+			return Option.some(List.of(getReplacementPort(), getServicePort())
+				.filter(Property::isPresent)
+				.map(Property::get)
+				.filter(port -> !isInUse(port))
+				.headOption()
+				.getOrElseThrow(() -> new IllegalStateException(String.format(
+					"Neither the service port nor the replacement port of %s is free",
+					serviceName
+				))));
+		}
+
+		if (!getStartupLogMessage().isPresent()
+			&& getStartupLogMessages().get().isEmpty()
+			&& getStartupLogPatterns().get().isEmpty()) {
+			throw new IllegalStateException("Replacing a service requires a replacement port or a startup log message");
+		}
+
+		return Option.none();
+	}
+
+	private boolean isInUse(int port)
+	{
+		try (PortAvailabilityCheck portCheck = new PortAvailabilityCheck(port, getProbeHosts().get())) {
+			return portCheck.isRunning();
+		}
+	}
+
+	private Option<ProcessHandle> runningService(ServiceRegistry serviceRegistry, File pidFile)
+	{
+		Option<ProcessHandle> runningService = serviceRegistry.status(pidFile);
+
+		if (runningService.isEmpty()) {
+			PidFile.fromExisting(pidFile)
+				.peek(stalePid -> {
+					getLogger().warn("Service is not running, removing stale PID file");
+					stalePid.destroy();
+				});
+		}
+
+		return runningService;
 	}
 }
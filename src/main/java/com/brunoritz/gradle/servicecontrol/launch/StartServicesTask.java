@@ -0,0 +1,195 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import com.brunoritz.gradle.servicecontrol.common.PidFile;
+import com.brunoritz.gradle.servicecontrol.common.ServiceRegistry;
+import com.brunoritz.gradle.servicecontrol.common.ServiceDependencyGraph;
+import io.vavr.Tuple;
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.LinkedHashSet;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Starts multiple services concurrently and waits for all of them to become available. Each service is launched as
+ * soon as all services it depends on have become available, so that independent services start in parallel and the
+ * total time spent waiting is determined by the slowest chain of dependent services.
+ * <p>
+ * Services that are ready to be launched at the same time are launched in the order of the time it took them and the
+ * services depending on them to become available when they were last started. That way, the services delaying the
+ * availability of all services the most are launched first. Services without a recorded startup are expected to take
+ * as long as the slowest known service. The time each service took to become available is recorded in the startup
+ * history, if one is configured.
+ * <p>
+ * The number of services starting at the same time is limited by the {@link ServiceStartupService}. Launches beyond
+ * the limit are queued and performed in the order described above as other services complete their startup.
+ * <p>
+ * Unlike {@link StartServiceTask}, this task does not fail for services whose PID file already exists. Such services
+ * are considered running and available, and are left untouched. Dependencies on services that are not started by
+ * this task are not waited for.
+ * <p>
+ * The task fails after all services have either started or failed, if at least one service failed to start. Services
+ * depending on a failed service are not started at all. Services that have started successfully are kept running.
+ */
+public abstract class StartServicesTask
+	extends DefaultTask
+{
+	@Internal
+	public abstract ListProperty<ServiceStartSpec> getServicesToStart();
+
+	@Internal
+	public abstract Property<ServiceStartupService> getStartupService();
+
+	@Internal
+	public abstract Property<ServiceRegistry> getServiceRegistry();
+
+	@Internal
+	public abstract RegularFileProperty getStartupHistory();
+
+	/**
+	 * Launches all services that are not yet running in the order of their dependencies and waits for them to become
+	 * available.
+	 */
+	@TaskAction
+	public void startServices()
+	{
+		ServiceStartupService startupService = getStartupService().get();
+		ServiceRegistry serviceRegistry = getServiceRegistry().get();
+		StartupHistory startupHistory = getStartupHistory().isPresent()
+			? startupService.loadStartupHistory(getStartupHistory().get().getAsFile())
+			: StartupHistory.empty();
+		Duration unknownTimeToReady = startupHistory.longestTimeToReady().getOrElse(Duration.ZERO);
+		Map<String, ServiceStartSpec> services = LinkedHashMap.ofEntries(
+			List.ofAll(getServicesToStart().get()).map(service -> Tuple.of(service.serviceName(), service))
+		);
+		ServiceDependencyGraph dependencyGraph = new ServiceDependencyGraph(
+			services.mapValues(service -> LinkedHashSet.ofAll(service.getServiceDependencies().get())
+				.filter(services::containsKey)
+			)
+		);
+		Map<String, CompletableFuture<Option<StartedService>>> startups = dependencyGraph
+			.startOrder(serviceName -> startupHistory.timeToReady(serviceName).getOrElse(unknownTimeToReady))
+			.zipWithIndex()
+			.foldLeft(
+				LinkedHashMap.empty(),
+				(scheduled, serviceInOrder) -> scheduled.put(
+					serviceInOrder._1,
+					scheduleStartup(
+						services.get(serviceInOrder._1).get(),
+						serviceInOrder._2,
+						scheduled,
+						startupService,
+						serviceRegistry
+					)
+				)
+			);
+		Map<String, Try<Option<StartedService>>> outcomes = startups
+			.map((serviceName, startup) -> Tuple.of(serviceName, awaitStartup(serviceName, startup)));
+		List<String> failedServices = outcomes
+			.filterValues(Try::isFailure)
+			.keySet()
+			.toList();
+
+		if (getStartupHistory().isPresent()) {
+			startupService.recordTimesToReady(
+				getStartupHistory().get().getAsFile(),
+				outcomes.flatMap((serviceName, outcome) -> outcome
+					.getOrElse(Option.none())
+					.map(startedService -> Tuple.of(serviceName, startedService.timeToReady()))
+				)
+			);
+		}
+
+		if (!failedServices.isEmpty()) {
+			throw new IllegalStateException(String.format(
+				"%d of %d service(s) failed to start: %s",
+				failedServices.size(),
+				startups.size(),
+				failedServices.mkString(", ")
+			));
+		}
+	}
+
+	private CompletableFuture<Option<StartedService>> scheduleStartup(
+		ServiceStartSpec service,
+		int launchPriority,
+		Map<String, CompletableFuture<Option<StartedService>>> scheduledStartups,
+		ServiceStartupService startupService,
+		ServiceRegistry serviceRegistry)
+	{
+		if (isRunning(service, serviceRegistry)) {
+			return CompletableFuture.completedFuture(Option.none());
+		}
+
+		CompletableFuture<?>[] dependencies = List.ofAll(service.getServiceDependencies().get())
+			.flatMap(scheduledStartups::get)
+			.toJavaList()
+			.toArray(new CompletableFuture<?>[0]);
+
+		return CompletableFuture.allOf(dependencies)
+			.handle((available, error) -> error == null)
+			.thenComposeAsync(
+				dependenciesAvailable -> dependenciesAvailable
+					? new ServiceStartup(service, serviceRegistry)
+						.begin(
+							startupService.launchThrottle(),
+							launchPriority,
+							startupService.launchExecutor(),
+							startupService.probeExecutor()
+						)
+						.thenApply(Option::some)
+					: CompletableFuture.failedFuture(
+						new IllegalStateException("A service it depends on failed to start")
+					),
+				startupService.probeExecutor()
+			);
+	}
+
+	/*
+	 * A PID file left behind by a service that has crashed does not keep the service from being started again.
+	 */
+	private boolean isRunning(ServiceStartSpec service, ServiceRegistry serviceRegistry)
+	{
+		File pidFile = service.getPidFile().getAsFile().get();
+		boolean running = serviceRegistry.status(pidFile).isDefined();
+
+		if (running) {
+			getLogger().lifecycle("Service {} is already running", service.serviceName());
+		} else {
+			PidFile.fromExisting(pidFile)
+				.peek(stalePid -> {
+					getLogger().warn("Service {} is not running, removing stale PID file", service.serviceName());
+					stalePid.destroy();
+				});
+		}
+
+		return running;
+	}
+
+	private Try<Option<StartedService>> awaitStartup(
+		String serviceName,
+		CompletableFuture<Option<StartedService>> startup)
+	{
+		return Try.of(() -> ServiceStartup.await(startup))
+			.onSuccess(startedService -> startedService.peek(
+				service -> getLogger().lifecycle(
+					"Service {} started with PID {} after {} ms",
+					serviceName,
+					service.processId(),
+					service.timeToReady().toMillis()
+				)
+			))
+			.onFailure(error -> getLogger().error("Service {} failed to start", serviceName, error));
+	}
+}
@@ -0,0 +1,37 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import java.time.Duration;
+
+/**
+ * A service that has completed startup and whose PID has been recorded. Besides the PID, it keeps the time the
+ * service took to become available after its startup began and the output of the service, whose log files may still
+ * be moved.
+ */
+class StartedService
+{
+	private final long processId;
+	private final Duration timeToReady;
+	private final ServiceOutput output;
+
+	StartedService(long processId, Duration timeToReady, ServiceOutput output)
+	{
+		this.processId = processId;
+		this.timeToReady = timeToReady;
+		this.output = output;
+	}
+
+	long processId()
+	{
+		return processId;
+	}
+
+	Duration timeToReady()
+	{
+		return timeToReady;
+	}
+
+	ServiceOutput output()
+	{
+		return output;
+	}
+}
@@ -2,8 +2,17 @@ package com.brunoritz.gradle.servicecontrol.launch;
 
 import com.brunoritz.gradle.servicecontrol.common.PidFile;
 import io.vavr.control.Either;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Represents a service whose service process has been created. A service in that state might either (eventually)
@@ -11,8 +20,11 @@ import java.time.Duration;
  */
 class StartingService
 {
+	private static final Logger logger = Logging.getLogger(StartingService.class);
+
 	private final Process serviceProcess;
 	private final Duration startupTimeout;
+	private final ProbeSchedule probeSchedule;
 	private final PidFile pidFile;
 
 	/**
@@ -22,57 +34,113 @@ class StartingService
 	 * 	The process representing the starting service
 	 * @param startupTimeout
 	 * 	The amount of time allowed for the TCP socket to become available
+	 * @param probeSchedule
+	 * 	The schedule by which to probe the service's availability
 	 * @param pidFile
 	 * 	The file into which to write the PID once the service has completed startup
 	 */
 	StartingService(
 		Process serviceProcess,
 		Duration startupTimeout,
+		ProbeSchedule probeSchedule,
 		PidFile pidFile)
 	{
 		this.serviceProcess = serviceProcess;
 		this.startupTimeout = startupTimeout;
+		this.probeSchedule = probeSchedule;
 		this.pidFile = pidFile;
 	}
 
 	/**
-	 * Periodically checks whether the process is alive and the service has become available. If the service process
-	 * terminates at any time during startup, the waiting loop is aborted.
-	 * <p>
-	 * The service's availability is polled every second.
+	 * Returns the process of the starting service.
+	 */
+	Process process()
+	{
+		return serviceProcess;
+	}
+
+	/**
+	 * Begins waiting for the service to become available or for its process to terminate, whichever happens first.
+	 * Waiting is aborted as soon as the process terminates, without waiting for the availability check. If neither
+	 * happens within the startup timeout, the service is considered failed.
 	 * <p>
-	 * The instances returned can be used to either complete startup or perform cleanup in case of an error.
+	 * The instances the returned future completes with can be used to either complete startup or perform cleanup in
+	 * case of an error. Cancelling the returned future stops waiting and cleans up the service right away.
 	 *
 	 * @param availabilityCheck
 	 * 	The strategy used to determine whether a service is up and running
+	 * @param probeExecutor
+	 * 	The executor on which to probe the availability of the service
 	 *
-	 * @return Either the started service or the failed service
+	 * @return A future completing with either the started service or the failed service
 	 */
-	public Either<FailedService, RunningService> awaitStartup(ServiceAvailabilityCheck availabilityCheck)
+	public CompletableFuture<Either<FailedService, RunningService>> startup(
+		ServiceAvailabilityCheck availabilityCheck,
+		ScheduledExecutorService probeExecutor)
 	{
-		if (awaitAvailability(availabilityCheck)) {
-			return Either.right(new RunningService(serviceProcess, pidFile));
-		} else {
-			return Either.left(new FailedService(serviceProcess, pidFile));
-		}
+		return startup(availabilityCheck, new CompletableFuture<>(), probeExecutor);
 	}
 
-	private boolean awaitAvailability(ServiceAvailabilityCheck availabilityCheck)
+	/**
+	 * Begins waiting for the service to become available, for its process to terminate or for it to report a failed
+	 * startup, whichever happens first. Apart from failing as soon as the given failure detection completes, this
+	 * method behaves like {@link #startup(ServiceAvailabilityCheck, ScheduledExecutorService)}. The failed service
+	 * carries the reason the failure detection completed with.
+	 *
+	 * @param availabilityCheck
+	 * 	The strategy used to determine whether a service is up and running
+	 * @param failureDetection
+	 * 	A future completing with the reason, once the service has reported a failed startup
+	 * @param probeExecutor
+	 * 	The executor on which to probe the availability of the service
+	 *
+	 * @return A future completing with either the started service or the failed service
+	 */
+	public CompletableFuture<Either<FailedService, RunningService>> startup(
+		ServiceAvailabilityCheck availabilityCheck,
+		CompletableFuture<String> failureDetection,
+		ScheduledExecutorService probeExecutor)
 	{
-		long latestWait = System.currentTimeMillis() + startupTimeout.toMillis();
-		boolean started = false;
+		ProbeScheduler probeScheduler = new ProbeScheduler(probeExecutor, probeSchedule);
+		CompletableFuture<Instant> availability = availabilityCheck.whenAvailable(probeScheduler);
+		CompletableFuture<Boolean> terminated = serviceProcess.onExit().thenApply(process -> false);
+		CompletableFuture<Boolean> failed = failureDetection.thenApply(reason -> false);
+		CompletableFuture<Either<FailedService, RunningService>> startup = availability
+			.thenApply(availableAt -> true)
+			.applyToEither(terminated, Function.identity())
+			.applyToEither(failed, Function.identity())
+			.completeOnTimeout(false, startupTimeout.toMillis(), TimeUnit.MILLISECONDS)
+			.exceptionally(error -> false)
+			.thenApply(available -> toOutcome(available, failureDetection));
 
-		try {
-			while (serviceProcess.isAlive() && (System.currentTimeMillis() < latestWait) && !started) {
-				started = availabilityCheck.isRunning();
+		availability.thenAccept(availableAt -> logger.info(
+			"Service became available at {} after {} probe(s)",
+			availableAt,
+			probeScheduler.probeCount()
+		));
+		startup.whenComplete((outcome, error) -> {
+			availability.cancel(true);
 
-				if (!started) {
-					Thread.sleep(500);
-				}
+			if (startup.isCancelled()) {
+				new FailedService(serviceProcess, pidFile).cleanupService();
 			}
-		} catch (InterruptedException ignored) {
-		}
+		});
+
+		return startup;
+	}
+
+	private Either<FailedService, RunningService> toOutcome(
+		boolean available,
+		CompletableFuture<String> failureDetection)
+	{
+		if (available) {
+			return Either.right(new RunningService(serviceProcess, pidFile));
+		} else {
+			Option<String> failureReason = Try.of(() -> failureDetection.getNow(""))
+				.toOption()
+				.filter(reason -> !reason.isEmpty());
 
-		return started;
+			return Either.left(new FailedService(serviceProcess, pidFile, failureReason));
+		}
 	}
 }
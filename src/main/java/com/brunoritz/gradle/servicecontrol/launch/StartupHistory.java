@@ -0,0 +1,159 @@
+package com.brunoritz.gradle.servicecontrol.launch;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * The time it took each service of a project to become available when it was last started. The history is used to
+ * start the services that take longest first, when starting multiple services at once.
+ * <p>
+ * The history is stored as a Java {@code .properties} file mapping the names of the services to their startup
+ * durations in milliseconds.
+ */
+public final class StartupHistory
+{
+	/**
+	 * The location of the history file, relative to the build directory of the project defining the services.
+	 */
+	public static final String DEFAULT_LOCATION = "service-control/startup-history.properties";
+
+	private final Map<String, Duration> timesToReady;
+
+	private StartupHistory(Map<String, Duration> timesToReady)
+	{
+		this.timesToReady = timesToReady;
+	}
+
+	/**
+	 * Returns a history that does not know about any service yet.
+	 */
+	static StartupHistory empty()
+	{
+		return new StartupHistory(HashMap.empty());
+	}
+
+	/**
+	 * Reads the history from the given file. A missing or unreadable file results in an empty history, since the
+	 * history merely serves as a hint.
+	 *
+	 * @param historyFile
+	 * 	The file from which to read the history
+	 */
+	static StartupHistory load(File historyFile)
+	{
+		if (!historyFile.exists()) {
+			return empty();
+		}
+
+		return Try
+			.withResources(() -> new FileInputStream(historyFile))
+			.of(inputStream -> {
+				Properties storedHistory = new Properties();
+
+				storedHistory.load(inputStream);
+
+				return storedHistory;
+			})
+			.map(StartupHistory::fromProperties)
+			.getOrElse(StartupHistory::empty);
+	}
+
+	/**
+	 * Returns the time the given service took to become available when it was last started.
+	 *
+	 * @param serviceName
+	 * 	The name of the service as given in its definition
+	 */
+	Option<Duration> timeToReady(String serviceName)
+	{
+		return timesToReady.get(serviceName);
+	}
+
+	/**
+	 * Returns the longest time any of the known services took to become available.
+	 */
+	Option<Duration> longestTimeToReady()
+	{
+		return timesToReady.values().max();
+	}
+
+	/**
+	 * Returns an updated history that records the time the given service took to become available.
+	 *
+	 * @param serviceName
+	 * 	The name of the service as given in its definition
+	 * @param timeToReady
+	 * 	The time the service took to become available
+	 */
+	StartupHistory withTimeToReady(String serviceName, Duration timeToReady)
+	{
+		return new StartupHistory(timesToReady.put(serviceName, timeToReady));
+	}
+
+	/**
+	 * Writes the history into the given file, replacing the file's previous content.
+	 *
+	 * @param historyFile
+	 * 	The file into which to write the history
+	 *
+	 * @return The error that prevented the history from being written, if any
+	 */
+	Try<Void> store(File historyFile)
+	{
+		return Try
+			.of(() -> {
+				Option<File> historyDirectory = Option.of(historyFile.getAbsoluteFile().getParentFile());
+				boolean directoryAvailable = historyDirectory
+					.map(directory -> directory.isDirectory() || directory.mkdirs())
+					.getOrElse(true);
+
+				if (!directoryAvailable) {
+					throw new IOException("Unable to create the directory of the startup history");
+				}
+
+				return historyFile;
+			})
+			.flatMap(ignored -> Try
+				.withResources(() -> new FileOutputStream(historyFile))
+				.of(outputStream -> {
+					toProperties().store(outputStream, "Time to ready in milliseconds of each service");
+
+					return null;
+				})
+			);
+	}
+
+	private static StartupHistory fromProperties(Properties storedHistory)
+	{
+		Map<String, Duration> timesToReady = List.ofAll(storedHistory.stringPropertyNames())
+			.toMap(
+				serviceName -> serviceName,
+				serviceName -> Try.of(() -> Long.parseLong(storedHistory.getProperty(serviceName, "")))
+			)
+			.filterValues(Try::isSuccess)
+			.mapValues(storedMillis -> Duration.ofMillis(storedMillis.get()));
+
+		return new StartupHistory(timesToReady);
+	}
+
+	private Properties toProperties()
+	{
+		Properties storedHistory = new Properties();
+
+		timesToReady.forEach(
+			(serviceName, timeToReady) -> storedHistory.setProperty(serviceName, Long.toString(timeToReady.toMillis()))
+		);
+
+		return storedHistory;
+	}
+}
@@ -0,0 +1,126 @@
+package com.brunoritz.gradle.servicecontrol.notify;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Sends the readiness notifications of a service to the plugin, for services started with {@code notifyReady}
+ * enabled. The socket to send the notifications to is passed to the service in the environment variable
+ * {@value #NOTIFY_SOCKET}. If the variable is not set, as the service has been started otherwise, the notifications
+ * are not sent.
+ * <pre>
+ * ServiceNotifier.fromEnvironment().status("Warming up caches");
+ * ServiceNotifier.fromEnvironment().ready();
+ * </pre>
+ * <p>
+ * This class depends on nothing but the JDK, so services can use it without depending on the plugin and its
+ * libraries. Each notification is sent on a connection of its own, which is closed right away.
+ */
+public final class ServiceNotifier
+{
+	/**
+	 * The environment variable holding the path of the socket to send the notifications to.
+	 */
+	public static final String NOTIFY_SOCKET = "NOTIFY_SOCKET";
+
+	private final Optional<Path> socket;
+
+	/**
+	 * Creates a notifier sending the notifications to the given socket.
+	 *
+	 * @param socket
+	 * 	The path of the Unix domain socket to send the notifications to
+	 */
+	public ServiceNotifier(Path socket)
+	{
+		this(Optional.of(socket));
+	}
+
+	private ServiceNotifier(Optional<Path> socket)
+	{
+		this.socket = socket;
+	}
+
+	/**
+	 * Creates a notifier sending the notifications to the socket passed to the service. Abstract socket addresses, as
+	 * supported by systemd, are not supported and disable the notifications.
+	 */
+	public static ServiceNotifier fromEnvironment()
+	{
+		String socketPath = System.getenv(NOTIFY_SOCKET);
+
+		if ((socketPath == null) || socketPath.isEmpty() || socketPath.startsWith("@")) {
+			return new ServiceNotifier(Optional.empty());
+		}
+
+		return new ServiceNotifier(Optional.of(Path.of(socketPath)));
+	}
+
+	/**
+	 * Announces the service being ready, which completes its startup.
+	 *
+	 * @return Whether the notification has been sent
+	 */
+	public boolean ready()
+	{
+		return send("READY=1");
+	}
+
+	/**
+	 * Reports the current status of the service, such as the progress of its startup.
+	 *
+	 * @param status
+	 * 	The status to report, which must not contain line breaks
+	 *
+	 * @return Whether the notification has been sent
+	 */
+	public boolean status(String status)
+	{
+		return send("STATUS=" + status);
+	}
+
+	/**
+	 * Announces the service beginning to stop.
+	 *
+	 * @return Whether the notification has been sent
+	 */
+	public boolean stopping()
+	{
+		return send("STOPPING=1");
+	}
+
+	/**
+	 * Sends the given notifications, each consisting of a variable assignment, such as {@code READY=1}.
+	 *
+	 * @param assignments
+	 * 	The notifications to send
+	 *
+	 * @return Whether the notifications have been sent
+	 */
+	public boolean send(String... assignments)
+	{
+		if (socket.isEmpty()) {
+			return false;
+		}
+
+		ByteBuffer message = StandardCharsets.UTF_8.encode(String.join("\n", assignments) + "\n");
+
+		try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+			channel.connect(UnixDomainSocketAddress.of(socket.get()));
+
+			while (message.hasRemaining()) {
+				channel.write(message);
+			}
+
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+}
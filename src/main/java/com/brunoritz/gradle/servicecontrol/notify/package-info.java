@@ -0,0 +1,12 @@
+@ReturnValuesAreNonnullByDefault
+@ParametersAreNonnullByDefault
+@DefaultAnnotationForFields(NonNull.class)
+@DefaultAnnotationForParameters(NonNull.class)
+package com.brunoritz.gradle.servicecontrol.notify;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotationForFields;
+import edu.umd.cs.findbugs.annotations.DefaultAnnotationForParameters;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.ReturnValuesAreNonnullByDefault;
+
+import javax.annotation.ParametersAreNonnullByDefault;
@@ -0,0 +1,58 @@
+package com.brunoritz.gradle.servicecontrol.availability
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class AhoCorasickAutomatonSpec
+	extends Specification
+{
+	@Unroll
+	def 'It shall find all patterns contained in the text'(String text, List<Boolean> expectedFound)
+	{
+		given:
+			def automaton = new AhoCorasickAutomaton(['he', 'she', 'his', 'hers'])
+			def found = new boolean[4]
+
+		when:
+			automaton.scan(text, text.length(), found)
+
+		then:
+			found as List == expectedFound
+
+		where:
+			text       | expectedFound
+			'ushers'   | [true, true, false, true]
+			'this'     | [false, false, true, false]
+			'sh'       | [false, false, false, false]
+			'hishe'    | [true, true, true, false]
+			''         | [false, false, false, false]
+	}
+
+	def 'It shall only count patterns found for the first time'()
+	{
+		given:
+			def automaton = new AhoCorasickAutomaton(['abc', 'bc'])
+			def found = new boolean[2]
+
+		when:
+			def firstScan = automaton.scan('xabcx', 5, found)
+			def secondScan = automaton.scan('abc', 3, found)
+
+		then:
+			firstScan == 2
+			secondScan == 0
+	}
+
+	def 'It shall only scan the given number of characters'()
+	{
+		given:
+			def automaton = new AhoCorasickAutomaton(['end'])
+			def found = new boolean[1]
+
+		when:
+			automaton.scan('the end', 5, found)
+
+		then:
+			!found[0]
+	}
+}
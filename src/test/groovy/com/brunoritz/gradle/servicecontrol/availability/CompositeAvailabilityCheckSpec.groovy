@@ -0,0 +1,195 @@
+package com.brunoritz.gradle.servicecontrol.availability
+
+import com.brunoritz.gradle.servicecontrol.launch.ProbeSchedule
+import com.brunoritz.gradle.servicecontrol.launch.ProbeScheduler
+import com.brunoritz.gradle.servicecontrol.launch.ServiceAvailabilityCheck
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+
+class CompositeAvailabilityCheckSpec
+	extends Specification
+{
+	private ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor()
+	private ProbeScheduler scheduler = new ProbeScheduler(executor, ProbeSchedule.fixedDelay(Duration.ofMillis(10)))
+
+	def cleanup()
+	{
+		executor.shutdownNow()
+	}
+
+	def 'It shall be available once all checks have passed, if all of them are required'()
+	{
+		given:
+			def firstListener = new CompletableFuture<Instant>()
+			def secondListener = new CompletableFuture<Instant>()
+			def check = new CompositeAvailabilityCheck(
+				AvailabilityComposition.ALL_OF,
+				[checkCompleting(firstListener), checkCompleting(secondListener)]
+			)
+
+		when:
+			def availability = check.whenAvailable(scheduler)
+			firstListener.complete(Instant.now())
+
+		then:
+			!availability.isDone()
+
+		when:
+			secondListener.complete(Instant.now())
+
+		then:
+			availability.isDone()
+	}
+
+	def 'It shall be available as soon as any check has passed and cancel the others, if any of them is required'()
+	{
+		given:
+			def firstListener = new CompletableFuture<Instant>()
+			def secondListener = new CompletableFuture<Instant>()
+			def check = new CompositeAvailabilityCheck(
+				AvailabilityComposition.ANY_OF,
+				[checkCompleting(firstListener), checkCompleting(secondListener)]
+			)
+
+		when:
+			def availability = check.whenAvailable(scheduler)
+			secondListener.complete(Instant.now())
+
+		then:
+			availability.isDone()
+			firstListener.isCancelled()
+	}
+
+	def 'It shall not fail as long as any check may still pass, if any of them is required'()
+	{
+		given:
+			def healthEndpoint = new CompletableFuture<Instant>()
+			def listener = new CompletableFuture<Instant>()
+			def check = new CompositeAvailabilityCheck(
+				AvailabilityComposition.ANY_OF,
+				[checkCompleting(healthEndpoint), checkCompleting(listener)]
+			)
+
+		when:
+			def availability = check.whenAvailable(scheduler)
+			healthEndpoint.completeExceptionally(new IOException('Connection refused'))
+
+		then:
+			!availability.isDone()
+
+		when:
+			listener.complete(Instant.now())
+
+		then:
+			availability.isDone()
+			!availability.isCompletedExceptionally()
+	}
+
+	def 'It shall fail once all checks have failed, if any of them is required'()
+	{
+		given:
+			def firstListener = new CompletableFuture<Instant>()
+			def secondListener = new CompletableFuture<Instant>()
+			def check = new CompositeAvailabilityCheck(
+				AvailabilityComposition.ANY_OF,
+				[checkCompleting(firstListener), checkCompleting(secondListener)]
+			)
+
+		when:
+			def availability = check.whenAvailable(scheduler)
+			firstListener.completeExceptionally(new IOException('Connection refused'))
+			secondListener.completeExceptionally(new IOException('Connection reset'))
+
+		then:
+			availability.isCompletedExceptionally()
+	}
+
+	def 'It shall only start a check, once the previous one has passed, if the checks are sequential'()
+	{
+		given:
+			def port = new CompletableFuture<Instant>()
+			def health = new CompletableFuture<Instant>()
+			def healthCheck = Mock(ServiceAvailabilityCheck)
+			def check = new CompositeAvailabilityCheck(
+				AvailabilityComposition.SEQUENTIAL,
+				[checkCompleting(port), healthCheck]
+			)
+
+		when:
+			def availability = check.whenAvailable(scheduler)
+
+		then:
+			0 * healthCheck.whenAvailable(_)
+			!availability.isDone()
+
+		when:
+			port.complete(Instant.now())
+
+		then:
+			1 * healthCheck.whenAvailable(scheduler) >> health
+			!availability.isDone()
+
+		when:
+			health.complete(Instant.now())
+
+		then:
+			availability.isDone()
+	}
+
+	def 'It shall cancel the pending checks, once waiting for the availability has been cancelled'()
+	{
+		given:
+			def firstListener = new CompletableFuture<Instant>()
+			def secondListener = new CompletableFuture<Instant>()
+			def check = new CompositeAvailabilityCheck(
+				AvailabilityComposition.ALL_OF,
+				[checkCompleting(firstListener), checkCompleting(secondListener)]
+			)
+
+		when:
+			check.whenAvailable(scheduler).cancel(true)
+
+		then:
+			firstListener.isCancelled()
+			secondListener.isCancelled()
+	}
+
+	def 'It shall close all checks'()
+	{
+		given:
+			def firstCheck = Mock(ServiceAvailabilityCheck)
+			def secondCheck = Mock(ServiceAvailabilityCheck)
+			def check = new CompositeAvailabilityCheck(AvailabilityComposition.ANY_OF, [firstCheck, secondCheck])
+
+		when:
+			check.close()
+
+		then:
+			1 * firstCheck.close()
+			1 * secondCheck.close()
+	}
+
+	def 'It shall reject combining checks by using only the first one'()
+	{
+		when:
+			new CompositeAvailabilityCheck(AvailabilityComposition.FIRST_DEFINED, [Stub(ServiceAvailabilityCheck)])
+
+		then:
+			thrown(IllegalArgumentException)
+	}
+
+	private ServiceAvailabilityCheck checkCompleting(CompletableFuture<Instant> availability)
+	{
+		def check = Stub(ServiceAvailabilityCheck)
+
+		check.whenAvailable(_) >> availability
+		check.description() >> 'stub'
+
+		return check
+	}
+}
@@ -0,0 +1,53 @@
+package com.brunoritz.gradle.servicecontrol.availability
+
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class LogLineDecoderSpec
+	extends Specification
+{
+	def 'It shall pass on complete lines without their terminators, even if characters span two chunks'()
+	{
+		given:
+			def lines = []
+			def decoder = new LogLineDecoder(StandardCharsets.UTF_8, line -> lines << line.toString())
+			def bytes = 'Größe\r\nzweite Zeile\nunvollständig'.getBytes(StandardCharsets.UTF_8)
+
+		when:
+			decoder.decode(bytes[0..3] as byte[], 4)
+			decoder.decode(bytes[4..-1] as byte[], bytes.length - 4)
+
+		then:
+			lines == ['Größe', 'zweite Zeile']
+	}
+
+	def 'It shall discard the current line, if the next chunk does not start at a line boundary'()
+	{
+		given:
+			def lines = []
+			def decoder = new LogLineDecoder(StandardCharsets.UTF_8, line -> lines << line.toString())
+
+		when:
+			decoder.decode('first half'.bytes, 10)
+			decoder.reset(false)
+			decoder.decode('second half\nnext line\n'.bytes, 22)
+
+		then:
+			lines == ['next line']
+	}
+
+	def 'It shall truncate lines to the scanned length'()
+	{
+		given:
+			def lines = []
+			def decoder = new LogLineDecoder(StandardCharsets.UTF_8, line -> lines << line.toString())
+			def bytes = ('x' * (LogPatternMatcher.MAX_SCANNED_LENGTH + 10) + '\n').bytes
+
+		when:
+			decoder.decode(bytes, bytes.length)
+
+		then:
+			lines*.length() == [LogPatternMatcher.MAX_SCANNED_LENGTH]
+	}
+}
@@ -0,0 +1,98 @@
+package com.brunoritz.gradle.servicecontrol.availability
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.regex.PatternSyntaxException
+
+class LogPatternMatcherSpec
+	extends Specification
+{
+	@Unroll
+	def 'It shall be satisfied, once a line contains the expected literal message'(
+		String logMessage, String expectedPartial, boolean match)
+	{
+		given:
+			def matcher = LogPatternMatcher.literal(expectedPartial)
+
+		expect:
+			matcher.matches(logMessage) == match
+
+		where:
+			logMessage              | expectedPartial | match
+			'prefix SUCCESS suffix' | 'SUCCESS'       | true
+			'prefix FAILURE suffix' | 'SUCCESS'       | false
+			'SUCCESS'               | 'SUCCESS'       | true
+	}
+
+	def 'It shall be satisfied by any pattern, if any of the patterns is required'()
+	{
+		given:
+			def matcher = new LogPatternMatcher(['Listening'], ['Started .* in [0-9.]+ seconds'], LogMatchMode.ANY_OF)
+
+		expect:
+			!matcher.matches('Booting')
+			matcher.matches('Started Application in 3.2 seconds')
+			matcher.isSatisfied()
+	}
+
+	def 'It shall be satisfied once all patterns have been encountered, if all of them are required'()
+	{
+		given:
+			def matcher = new LogPatternMatcher(
+				['Database ready', 'Cache ready'],
+				['Listening on \\d+'],
+				LogMatchMode.ALL_OF
+			)
+
+		expect:
+			!matcher.matches('Cache ready')
+			!matcher.matches('Listening on 8080')
+			!matcher.matches('Cache ready')
+			matcher.matches('INFO Database ready')
+	}
+
+	def 'It shall capture the values of named groups'()
+	{
+		given:
+			def matcher = new LogPatternMatcher(
+				[],
+				['Started (?<application>\\w+) in (?<startupSeconds>[0-9.]+) seconds'],
+				LogMatchMode.ANY_OF
+			)
+
+		when:
+			matcher.matches('Started Billing in 4.75 seconds (process running for 5.1)')
+
+		then:
+			matcher.capturedValues().toJavaMap() == [application: 'Billing', startupSeconds: '4.75']
+	}
+
+	def 'It shall only scan the beginning of huge lines'()
+	{
+		given:
+			def matcher = LogPatternMatcher.literal('marker')
+
+		expect:
+			!matcher.matches('x' * LogPatternMatcher.MAX_SCANNED_LENGTH + 'marker')
+			matcher.matches('x' * (LogPatternMatcher.MAX_SCANNED_LENGTH - 6) + 'marker')
+	}
+
+	def 'It shall reject invalid regular expressions'()
+	{
+		when:
+			new LogPatternMatcher([], ['Started ('], LogMatchMode.ANY_OF)
+
+		then:
+			thrown(PatternSyntaxException)
+	}
+
+	def 'It shall require at least one pattern'()
+	{
+		when:
+			new LogPatternMatcher([], [], LogMatchMode.ANY_OF)
+
+		then:
+			thrown(IllegalArgumentException)
+	}
+}
@@ -0,0 +1,157 @@
+package com.brunoritz.gradle.servicecontrol.common
+
+import io.vavr.collection.LinkedHashMap
+import io.vavr.collection.LinkedHashSet
+import io.vavr.collection.List
+import org.gradle.api.GradleException
+import spock.lang.Specification
+
+import java.time.Duration
+
+class ServiceDependencyGraphSpec
+	extends Specification
+{
+	def 'It shall order services after the services they depend on'()
+	{
+		given:
+			def graph = newGraph(
+				api: ['registry', 'config'],
+				registry: ['config'],
+				config: [],
+				frontend: ['api']
+			)
+
+		when:
+			def result = graph.startOrder()
+
+		then:
+			result == List.of('config', 'registry', 'api', 'frontend')
+	}
+
+	def 'It shall keep the given order of independent services'()
+	{
+		given:
+			def graph = newGraph(
+				foo: [],
+				bar: [],
+				baz: []
+			)
+
+		when:
+			def result = graph.startOrder()
+
+		then:
+			result == List.of('foo', 'bar', 'baz')
+	}
+
+	def 'It shall start the services heading the longest chains of startup durations first'()
+	{
+		given:
+			def graph = newGraph(
+				quick: [],
+				slow: [],
+				config: [],
+				api: ['config']
+			)
+			def durations = [
+				quick: Duration.ofSeconds(1),
+				slow: Duration.ofSeconds(20),
+				config: Duration.ofSeconds(5),
+				api: Duration.ofSeconds(30)
+			]
+
+		when:
+			def result = graph.startOrder { durations[it] }
+
+		then:
+			result == List.of('config', 'api', 'slow', 'quick')
+	}
+
+	def 'It shall keep the order of services with equally long chains of startup durations'()
+	{
+		given:
+			def graph = newGraph(
+				foo: [],
+				bar: [],
+				baz: ['foo']
+			)
+
+		when:
+			def result = graph.startOrder { Duration.ofSeconds(1) }
+
+		then:
+			result == List.of('foo', 'bar', 'baz')
+	}
+
+	def 'It shall fail, if services depend on each other in a cycle'()
+	{
+		given:
+			def graph = newGraph(
+				config: [],
+				api: ['registry'],
+				registry: ['gateway', 'config'],
+				gateway: ['api']
+			)
+
+		when:
+			graph.verify()
+
+		then:
+			def error = thrown(GradleException)
+			error.message == 'Services depend on each other in a cycle: api -> registry -> gateway -> api'
+	}
+
+	def 'It shall fail, if a service depends on itself'()
+	{
+		given:
+			def graph = newGraph(
+				api: ['api']
+			)
+
+		when:
+			graph.verify()
+
+		then:
+			def error = thrown(GradleException)
+			error.message == 'Services depend on each other in a cycle: api -> api'
+	}
+
+	def 'It shall fail, if a service depends on an undefined service'()
+	{
+		given:
+			def graph = newGraph(
+				api: ['registry']
+			)
+
+		when:
+			graph.verify()
+
+		then:
+			def error = thrown(GradleException)
+			error.message == 'Service api depends on undefined service registry'
+	}
+
+	def 'It shall include transitive dependencies of the given services'()
+	{
+		given:
+			def graph = newGraph(
+				api: ['registry'],
+				registry: ['config'],
+				config: [],
+				unrelated: []
+			)
+
+		when:
+			def result = graph.withDependencies(List.of('api'))
+
+		then:
+			result.toJavaSet() == ['api', 'registry', 'config'] as Set
+	}
+
+	private static ServiceDependencyGraph newGraph(Map<String, java.util.List<String>> dependencies)
+	{
+		return new ServiceDependencyGraph(
+			LinkedHashMap.ofAll(dependencies).mapValues { LinkedHashSet.ofAll(it) }
+		)
+	}
+}
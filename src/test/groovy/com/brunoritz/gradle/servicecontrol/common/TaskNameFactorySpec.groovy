@@ -29,6 +29,30 @@ class TaskNameFactorySpec
 			result == 'stopTestService'
 	}
 
+	def 'It shall format the group start task name in the format "start*capitalized-group-name*Services"'()
+	{
+		given:
+			def groupName = 'backend'
+
+		when:
+			def result = TaskNameFactory.startGroupTaskName(groupName)
+
+		then:
+			result == 'startBackendServices'
+	}
+
+	def 'It shall format the group stop task name in the format "stop*capitalized-group-name*Services"'()
+	{
+		given:
+			def groupName = 'backend'
+
+		when:
+			def result = TaskNameFactory.stopGroupTaskName(groupName)
+
+		then:
+			result == 'stopBackendServices'
+	}
+
 	def 'It shall format the restart task name in the format "restart*capitalized-service-name*"'()
 	{
 		given:
@@ -41,6 +65,18 @@ class TaskNameFactorySpec
 			result == 'restartTestService'
 	}
 
+	def 'It shall format the replace task name in the format "replace*capitalized-service-name*"'()
+	{
+		given:
+			def serviceName = 'testService'
+
+		when:
+			def result = TaskNameFactory.replaceTaskName(serviceName)
+
+		then:
+			result == 'replaceTestService'
+	}
+
 	def 'It shall format a generic task name in the format "*action**capitalized-service-name*"'()
 	{
 		given:
@@ -53,6 +53,16 @@ class GenericServiceDefinitionSpec
 			service.startTimeout.get() == Duration.ofMinutes(10)
 	}
 
+	def 'It shall configure a default health probe timeout of one second'()
+	{
+		given:
+			def project = newProject()
+			def service = newServiceDefinition(project)
+
+		expect:
+			service.healthTimeout.get() == Duration.ofSeconds(1)
+	}
+
 	def 'It shall be possible to extend the existing list of environment files'()
 	{
 		given:
@@ -1,5 +1,6 @@
 package com.brunoritz.gradle.servicecontrol.java
 
+import com.brunoritz.gradle.servicecontrol.launch.OutputCapture
 import org.gradle.api.NamedDomainObjectContainer
 import org.gradle.api.Project
 import org.gradle.testfixtures.ProjectBuilder
@@ -63,6 +64,64 @@ class JavaServiceDefinitionSpec
 			service.startTimeout.get() == Duration.ofMinutes(10)
 	}
 
+	def 'It shall configure a default health probe timeout of one second'()
+	{
+		given:
+			def project = newProject()
+			def service = newServiceDefinition(project)
+
+		expect:
+			service.healthTimeout.get() == Duration.ofSeconds(1)
+	}
+
+	def 'It shall configure a default probe schedule that backs off up to one second'()
+	{
+		given:
+			def project = newProject()
+			def service = newServiceDefinition(project)
+
+		expect:
+			service.probeSchedule.get().delayAfter(1) <= Duration.ofMillis(10)
+			service.probeSchedule.get().delayAfter(100) <= Duration.ofSeconds(1)
+	}
+
+	def 'It shall redirect the output by default'()
+	{
+		given:
+			def project = newProject()
+			def service = newServiceDefinition(project)
+
+		expect:
+			service.outputCapture.get() == OutputCapture.REDIRECT
+	}
+
+	def 'It shall pipe the output by default, once a rolling limit is set'()
+	{
+		given:
+			def sizeLimited = newServiceDefinition(newProject())
+			def timeLimited = newServiceDefinition(newProject())
+
+			sizeLimited.logMaxSize.set(1024L)
+			timeLimited.logRollInterval.set(Duration.ofHours(1))
+
+		expect:
+			sizeLimited.outputCapture.get() == OutputCapture.PIPE
+			timeLimited.outputCapture.get() == OutputCapture.PIPE
+	}
+
+	def 'It shall keep the explicitly configured output capture, even if a rolling limit is set'()
+	{
+		given:
+			def project = newProject()
+			def service = newServiceDefinition(project)
+
+			service.outputCapture.set(OutputCapture.REDIRECT)
+			service.logMaxSize.set(1024L)
+
+		expect:
+			service.outputCapture.get() == OutputCapture.REDIRECT
+	}
+
 	def 'It shall be possible to extend the existing list of environment files'()
 	{
 		given:
@@ -181,6 +240,38 @@ class JavaServiceDefinitionSpec
 			]
 	}
 
+	def 'It shall register a start task for each group a service is added to'()
+	{
+		given:
+			def project = newProject()
+			def service = newServiceDefinition(project)
+
+		when:
+			service.groups('backend', 'frontend')
+
+		then:
+			service.groups == ['backend', 'frontend'] as Set
+			project.tasks.findByName('startAllServices') != null
+			project.tasks.findByName('startBackendServices') != null
+			project.tasks.findByName('startFrontendServices') != null
+			project.tasks.findByName('stopBackendServices') != null
+	}
+
+	def 'It shall be possible to extend the service dependencies'()
+	{
+		given:
+			def project = newProject()
+			def service = newServiceDefinition(project)
+
+			service.serviceDependencies.set(['config'])
+
+		when:
+			service.dependsOnService('registry')
+
+		then:
+			service.serviceDependencies.get() == ['config', 'registry'] as Set
+	}
+
 	private static Project newProject()
 	{
 		def project = ProjectBuilder.builder().build()
@@ -0,0 +1,102 @@
+package com.brunoritz.gradle.servicecontrol.java
+
+import io.vavr.collection.List
+import org.gradle.api.GradleException
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static com.brunoritz.gradle.servicecontrol.java.MemoryBudgetPlanner.ServiceDemand
+
+class MemoryBudgetPlannerSpec
+	extends Specification
+{
+	def 'It shall distribute the budget according to the weights of the services'()
+	{
+		when:
+			def allocations = MemoryBudgetPlanner.distribute(4096, List.of(
+				new ServiceDemand('light', 1, 0),
+				new ServiceDemand('heavy', 3, 0)
+			))
+
+		then:
+			allocations.get('light').get() == new MemoryAllocation(768, 192, 128)
+			allocations.get('heavy').get() == new MemoryAllocation(2304, 576, 384)
+	}
+
+	def 'It shall grant the minimum heap and distribute the remaining budget among the other services'()
+	{
+		when:
+			def allocations = MemoryBudgetPlanner.distribute(1200, List.of(
+				new ServiceDemand('demanding', 1, 600),
+				new ServiceDemand('modest', 1, 0)
+			))
+
+		then:
+			allocations.get('demanding').get() == new MemoryAllocation(600, 600, 100)
+			allocations.get('modest').get() == new MemoryAllocation(300, 75, 64)
+	}
+
+	def 'It shall grant the minimum heaps, even if they exceed the budget'()
+	{
+		when:
+			def allocations = MemoryBudgetPlanner.distribute(100, List.of(
+				new ServiceDemand('first', 1, 512),
+				new ServiceDemand('second', 1, 512)
+			))
+
+		then:
+			allocations.get('first').get().maxHeap() == 512
+			allocations.get('second').get().maxHeap() == 512
+	}
+
+	def 'It shall grant services left without a share the smallest heap, once the budget is exhausted'()
+	{
+		when:
+			def allocations = MemoryBudgetPlanner.distribute(1000, List.of(
+				new ServiceDemand('demanding', 1, 900),
+				new ServiceDemand('modest', 1, 0)
+			))
+
+		then:
+			allocations.get('demanding').get().maxHeap() == 900
+			allocations.get('modest').get() == new MemoryAllocation(64, 16, 64)
+	}
+
+	def 'It shall grant each service the smallest heap, if the budget is too small to be shared'()
+	{
+		when:
+			def allocations = MemoryBudgetPlanner.distribute(100, List.of(
+				new ServiceDemand('first', 1, 0),
+				new ServiceDemand('second', 1, 0)
+			))
+
+		then:
+			allocations.get('first').get() == new MemoryAllocation(64, 16, 64)
+			allocations.get('second').get() == new MemoryAllocation(64, 16, 64)
+	}
+
+	@Unroll
+	def 'It shall parse the memory size #size'(String size, long mebibytes)
+	{
+		expect:
+			MemoryBudgetPlanner.parseSize(size) == mebibytes
+
+		where:
+			size      | mebibytes
+			'512m'    | 512
+			'2g'      | 2048
+			'2G'      | 2048
+			'1024k'   | 1
+			'1048577' | 2
+			'1t'      | 1048576
+	}
+
+	def 'It shall reject invalid memory sizes'()
+	{
+		when:
+			MemoryBudgetPlanner.parseSize('lots')
+
+		then:
+			thrown(GradleException)
+	}
+}
@@ -0,0 +1,106 @@
+package com.brunoritz.gradle.servicecontrol.launch
+
+import spock.lang.Specification
+
+class LaunchThrottleSpec
+	extends Specification
+{
+	def 'It shall grant slots right away, as long as the limit has not been reached'()
+	{
+		given:
+			def throttle = new LaunchThrottle(2)
+
+		when:
+			def first = throttle.acquire(0)
+			def second = throttle.acquire(0)
+			def third = throttle.acquire(0)
+
+		then:
+			first.isDone()
+			first.get().queuedFor().isEmpty()
+			second.isDone()
+			!third.isDone()
+	}
+
+	def 'It shall grant a queued slot, once a granted slot has been released'()
+	{
+		given:
+			def throttle = new LaunchThrottle(1)
+			def granted = throttle.acquire(0)
+			def queued = throttle.acquire(0)
+
+		when:
+			granted.get().release()
+
+		then:
+			queued.isDone()
+			queued.get().queuedFor().isDefined()
+	}
+
+	def 'It shall grant queued slots in the order of their priority'()
+	{
+		given:
+			def throttle = new LaunchThrottle(1)
+			def granted = throttle.acquire(0)
+			def lowPriority = throttle.acquire(5)
+			def highPriority = throttle.acquire(1)
+			def samePriority = throttle.acquire(1)
+
+		when:
+			granted.get().release()
+
+		then:
+			highPriority.isDone()
+			!samePriority.isDone()
+			!lowPriority.isDone()
+
+		when:
+			highPriority.get().release()
+
+		then:
+			samePriority.isDone()
+			!lowPriority.isDone()
+	}
+
+	def 'It shall release a slot only once'()
+	{
+		given:
+			def throttle = new LaunchThrottle(1)
+			def granted = throttle.acquire(0)
+			def firstQueued = throttle.acquire(0)
+			def secondQueued = throttle.acquire(0)
+
+		when:
+			granted.get().release()
+			granted.get().release()
+
+		then:
+			firstQueued.isDone()
+			!secondQueued.isDone()
+	}
+
+	def 'It shall skip queued requests that have been cancelled'()
+	{
+		given:
+			def throttle = new LaunchThrottle(1)
+			def granted = throttle.acquire(0)
+			def cancelled = throttle.acquire(0)
+			def queued = throttle.acquire(0)
+
+		when:
+			cancelled.cancel(true)
+			granted.get().release()
+
+		then:
+			queued.isDone()
+	}
+
+	def 'It shall reject a limit of less than one launch'()
+	{
+		when:
+			new LaunchThrottle(0)
+
+		then:
+			thrown(IllegalArgumentException)
+	}
+}
@@ -0,0 +1,73 @@
+package com.brunoritz.gradle.servicecontrol.launch
+
+import io.vavr.control.Option
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+
+class LogRotationSpec
+	extends Specification
+{
+	@Unroll
+	def 'A log file shall be due, once it has reached the maximum size or the interval has passed'(
+		long size, long ageMinutes, boolean due)
+	{
+		given:
+			def rotation = new LogRotation(Option.some(1024L), Option.some(Duration.ofHours(1)), 5)
+
+		expect:
+			rotation.isDue(size, Duration.ofMinutes(ageMinutes)) == due
+
+		where:
+			size | ageMinutes | due
+			0    | 0          | false
+			1023 | 59         | false
+			1024 | 0          | true
+			1    | 60         | true
+			0    | 120        | false
+	}
+
+	def 'A log file shall never be due, if neither a maximum size nor an interval is set'()
+	{
+		given:
+			def rotation = new LogRotation(Option.none(), Option.none(), 5)
+
+		expect:
+			!rotation.isDue(Long.MAX_VALUE, Duration.ofDays(365))
+	}
+
+	@Unroll
+	def 'It shall roll over log files while they are written, if a maximum size or an interval is set'(
+		Long maxSize, Duration rollInterval, boolean rollsOver)
+	{
+		given:
+			def rotation = new LogRotation(Option.of(maxSize), Option.of(rollInterval), 5)
+
+		expect:
+			rotation.rollsOver() == rollsOver
+
+		where:
+			maxSize | rollInterval        | rollsOver
+			null    | null                | false
+			1024L   | null                | true
+			null    | Duration.ofHours(1) | true
+	}
+
+	@Unroll
+	def 'It shall reject invalid settings'(Long maxSize, Duration rollInterval, int generations)
+	{
+		when:
+			new LogRotation(Option.of(maxSize), Option.of(rollInterval), generations)
+
+		then:
+			thrown(IllegalArgumentException)
+
+		where:
+			maxSize | rollInterval           | generations
+			0L      | null                   | 5
+			null    | Duration.ZERO          | 5
+			null    | Duration.ofMinutes(-1) | 5
+			null    | null                   | -1
+	}
+}
@@ -0,0 +1,61 @@
+package com.brunoritz.gradle.servicecontrol.launch
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+
+class ProbeScheduleSpec
+	extends Specification
+{
+	def 'A fixed delay schedule shall always return the same delay'()
+	{
+		given:
+			def schedule = ProbeSchedule.fixedDelay(Duration.ofMillis(250))
+
+		expect:
+			schedule.delayAfter(1) == Duration.ofMillis(250)
+			schedule.delayAfter(100) == Duration.ofMillis(250)
+	}
+
+	@Unroll
+	def 'An exponential backoff schedule shall grow the delay up to the maximum'(
+		int completedProbes, long nominalMillis)
+	{
+		given:
+			def schedule = ProbeSchedule.exponentialBackoff(Duration.ofMillis(10), Duration.ofSeconds(1))
+
+		when:
+			def delay = schedule.delayAfter(completedProbes)
+
+		then:
+			delay <= Duration.ofMillis(nominalMillis)
+			delay >= Duration.ofMillis((long) (nominalMillis * 0.8))
+
+		where:
+			completedProbes | nominalMillis
+			1               | 10
+			2               | 20
+			5               | 160
+			8               | 1000
+			1000            | 1000
+	}
+
+	def 'An exponential backoff schedule shall reject a maximum delay shorter than the initial delay'()
+	{
+		when:
+			ProbeSchedule.exponentialBackoff(Duration.ofSeconds(2), Duration.ofSeconds(1))
+
+		then:
+			thrown(IllegalArgumentException)
+	}
+
+	def 'An exponential backoff schedule shall reject a non-positive initial delay'()
+	{
+		when:
+			ProbeSchedule.exponentialBackoff(Duration.ZERO, Duration.ofSeconds(1))
+
+		then:
+			thrown(IllegalArgumentException)
+	}
+}
@@ -0,0 +1,121 @@
+package com.brunoritz.gradle.servicecontrol.launch
+
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+import java.util.function.BooleanSupplier
+
+class ProbeSchedulerSpec
+	extends Specification
+{
+	private ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor()
+
+	def cleanup()
+	{
+		executor.shutdownNow()
+	}
+
+	def 'It shall complete and record the probe statistics, once the probe succeeds'()
+	{
+		given:
+			def probe = Stub(BooleanSupplier)
+			def scheduler = new ProbeScheduler(executor, ProbeSchedule.fixedDelay(Duration.ofMillis(10)))
+
+			probe.getAsBoolean() >>> [false, false, true]
+
+		when:
+			def availableAt = scheduler.probeUntil(probe).get(5, TimeUnit.SECONDS)
+
+		then:
+			scheduler.probeCount() == 3
+			scheduler.successfulProbe().contains(availableAt)
+	}
+
+	def 'It shall wait according to the schedule between two probes'()
+	{
+		given:
+			def probe = Stub(BooleanSupplier)
+			def schedule = Mock(ProbeSchedule)
+			def scheduler = new ProbeScheduler(executor, schedule)
+
+			probe.getAsBoolean() >>> [false, false, true]
+
+		when:
+			scheduler.probeUntil(probe).get(5, TimeUnit.SECONDS)
+
+		then:
+			1 * schedule.delayAfter(1) >> Duration.ofMillis(1)
+			1 * schedule.delayAfter(2) >> Duration.ofMillis(1)
+	}
+
+	def 'It shall stop probing, once the resulting future has been cancelled'()
+	{
+		given:
+			def probe = Mock(BooleanSupplier)
+			def scheduler = new ProbeScheduler(executor, ProbeSchedule.fixedDelay(Duration.ofMillis(10)))
+			def executorBlocked = new CountDownLatch(1)
+
+			executor.submit(() -> executorBlocked.await())
+
+			def result = scheduler.probeUntil(probe)
+
+		when:
+			result.cancel(true)
+			executorBlocked.countDown()
+			Thread.sleep(500)
+
+		then:
+			0 * probe.getAsBoolean()
+			scheduler.probeCount() == 0
+			scheduler.successfulProbe().isEmpty()
+	}
+
+	def 'It shall complete exceptionally, if the probe fails'()
+	{
+		given:
+			def probe = Mock(BooleanSupplier)
+			def scheduler = new ProbeScheduler(executor, ProbeSchedule.fixedDelay(Duration.ofMillis(10)))
+
+		when:
+			def result = scheduler.probeUntil(probe)
+			result.handle((availableAt, error) -> error).get(5, TimeUnit.SECONDS)
+
+		then:
+			1 * probe.getAsBoolean() >> { throw new IllegalStateException('simulated failure') }
+			result.isCompletedExceptionally()
+	}
+
+	def 'It shall only schedule the next asynchronous probe, once the pending one has completed'()
+	{
+		given:
+			def pendingProbes = []
+			def scheduler = new ProbeScheduler(executor, ProbeSchedule.fixedDelay(Duration.ofMillis(1)))
+
+		when:
+			def result = scheduler.probeAsyncUntil(() -> {
+				def probe = new CompletableFuture<Boolean>()
+
+				pendingProbes << probe
+
+				return probe
+			})
+			Thread.sleep(100)
+
+		then:
+			pendingProbes.size() == 1
+
+		when:
+			pendingProbes[0].complete(false)
+			Thread.sleep(100)
+			pendingProbes[1].complete(true)
+
+		then:
+			result.get(5, TimeUnit.SECONDS)
+			scheduler.probeCount() == 2
+	}
+}
@@ -31,11 +31,17 @@ class ServiceToStartSpec
 				pidFile,
 				() -> launcher,
 				serviceDefinition.startTimeout,
+				serviceDefinition.probeSchedule,
 				serviceDefinition.workingDirectory,
 				serviceDefinition.standardOutputLog,
 				serviceDefinition.errorOutputLog,
+				serviceDefinition.outputCapture,
+				serviceDefinition.logMaxSize,
+				serviceDefinition.logRollInterval,
+				serviceDefinition.logGenerations,
 				serviceDefinition.environmentFiles,
-				serviceDefinition.environment
+				serviceDefinition.environment,
+				HashMap.empty()
 			)
 
 			serviceDefinition.servicePort.set(1234)
@@ -69,11 +75,17 @@ class ServiceToStartSpec
 				pidFile,
 				() -> launcher,
 				serviceDefinition.startTimeout,
+				serviceDefinition.probeSchedule,
 				serviceDefinition.workingDirectory,
 				serviceDefinition.standardOutputLog,
 				serviceDefinition.errorOutputLog,
+				serviceDefinition.outputCapture,
+				serviceDefinition.logMaxSize,
+				serviceDefinition.logRollInterval,
+				serviceDefinition.logGenerations,
 				serviceDefinition.environmentFiles,
-				serviceDefinition.environment
+				serviceDefinition.environment,
+				HashMap.empty()
 			)
 
 			serviceDefinition.servicePort.set(1234)
@@ -109,11 +121,17 @@ class ServiceToStartSpec
 				pidFile,
 				() -> launcher,
 				serviceDefinition.startTimeout,
+				serviceDefinition.probeSchedule,
 				serviceDefinition.workingDirectory,
 				serviceDefinition.standardOutputLog,
 				serviceDefinition.errorOutputLog,
+				serviceDefinition.outputCapture,
+				serviceDefinition.logMaxSize,
+				serviceDefinition.logRollInterval,
+				serviceDefinition.logGenerations,
 				serviceDefinition.environmentFiles,
-				serviceDefinition.environment
+				serviceDefinition.environment,
+				HashMap.empty()
 			)
 
 			with(serviceDefinition) {
@@ -148,6 +166,52 @@ class ServiceToStartSpec
 			1 * launcher.start() >> success(serviceProcess)
 	}
 
+	def 'It shall capture the output of the process instead of redirecting it, if configured'()
+	{
+		given:
+			def project = newProject()
+			def serviceDefinition = newServiceDefinition(project)
+			def command = List.<String> empty()
+				.append('/bin/java')
+				.append('ch.foo.Bar')
+			def pidFile = PidFile.createEmpty(project.file('service.pid')).get()
+			def launcher = Mock(ProcessLauncher)
+			def serviceProcess = Mock(Process)
+			def service = new ServiceToStart(
+				command,
+				pidFile,
+				() -> launcher,
+				serviceDefinition.startTimeout,
+				serviceDefinition.probeSchedule,
+				serviceDefinition.workingDirectory,
+				serviceDefinition.standardOutputLog,
+				serviceDefinition.errorOutputLog,
+				serviceDefinition.outputCapture,
+				serviceDefinition.logMaxSize,
+				serviceDefinition.logRollInterval,
+				serviceDefinition.logGenerations,
+				serviceDefinition.environmentFiles,
+				serviceDefinition.environment,
+				HashMap.empty()
+			)
+
+			serviceDefinition.outputCapture.set(OutputCapture.PIPE)
+
+		when:
+			def result = service.start()
+
+		then:
+			1 * launcher.command(_) >> launcher
+			1 * launcher.workingDirectory(_) >> launcher
+			1 * launcher.captureOutput() >> launcher
+			0 * launcher.storeStdOutIn(_)
+			0 * launcher.storeStdErrIn(_)
+			1 * launcher.appendEnvironment(_) >> launcher
+			1 * launcher.start() >> success(serviceProcess)
+
+			result.isSuccess()
+	}
+
 	def 'Environment variables set via the map shall take precedence over those set via files'()
 	{
 		given:
@@ -165,11 +229,17 @@ class ServiceToStartSpec
 				pidFile,
 				() -> launcher,
 				serviceDefinition.startTimeout,
+				serviceDefinition.probeSchedule,
 				serviceDefinition.workingDirectory,
 				serviceDefinition.standardOutputLog,
 				serviceDefinition.errorOutputLog,
+				serviceDefinition.outputCapture,
+				serviceDefinition.logMaxSize,
+				serviceDefinition.logRollInterval,
+				serviceDefinition.logGenerations,
 				serviceDefinition.environmentFiles,
-				serviceDefinition.environment
+				serviceDefinition.environment,
+				HashMap.empty()
 			)
 
 			with(serviceDefinition) {
@@ -202,6 +272,101 @@ class ServiceToStartSpec
 			1 * launcher.start() >> success(serviceProcess)
 	}
 
+	def 'It shall archive the log files of the previous run, instead of deleting them'()
+	{
+		given:
+			def project = newProject()
+			def serviceDefinition = newServiceDefinition(project)
+			def command = List.<String> empty()
+				.append('/bin/java')
+				.append('ch.foo.Bar')
+			def pidFile = PidFile.createEmpty(project.file('service.pid')).get()
+			def launcher = Mock(ProcessLauncher)
+			def serviceProcess = Mock(Process)
+			def service = new ServiceToStart(
+				command,
+				pidFile,
+				() -> launcher,
+				serviceDefinition.startTimeout,
+				serviceDefinition.probeSchedule,
+				serviceDefinition.workingDirectory,
+				serviceDefinition.standardOutputLog,
+				serviceDefinition.errorOutputLog,
+				serviceDefinition.outputCapture,
+				serviceDefinition.logMaxSize,
+				serviceDefinition.logRollInterval,
+				serviceDefinition.logGenerations,
+				serviceDefinition.environmentFiles,
+				serviceDefinition.environment,
+				HashMap.empty()
+			)
+
+			with(serviceDefinition) {
+				servicePort.set(1234)
+				standardOutputLog.set(project.file('logs/stdout.log'))
+				errorOutputLog.set(project.file('logs/stderr.log'))
+			}
+
+			project.file('logs').mkdirs()
+			project.file('logs/stdout.log').text = 'crashed\n'
+
+		when:
+			def result = service.start()
+
+		then:
+			1 * launcher.command(_) >> launcher
+			1 * launcher.workingDirectory(_) >> launcher
+			1 * launcher.storeStdOutIn(_) >> launcher
+			1 * launcher.storeStdErrIn(_) >> launcher
+			1 * launcher.appendEnvironment(_) >> launcher
+			1 * launcher.start() >> success(serviceProcess)
+
+			result.isSuccess()
+			!project.file('logs/stdout.log').exists()
+			project.file('logs').list().any { it ==~ /stdout\.log\.\d{8}-\d{6}-\d{3}(\.gz)?/ }
+	}
+
+	def 'It shall not launch the process, if the log rotation is invalid'()
+	{
+		given:
+			def project = newProject()
+			def serviceDefinition = newServiceDefinition(project)
+			def command = List.<String> empty()
+				.append('/bin/java')
+				.append('ch.foo.Bar')
+			def pidFile = PidFile.createEmpty(project.file('service.pid')).get()
+			def launcher = Mock(ProcessLauncher)
+			def service = new ServiceToStart(
+				command,
+				pidFile,
+				() -> launcher,
+				serviceDefinition.startTimeout,
+				serviceDefinition.probeSchedule,
+				serviceDefinition.workingDirectory,
+				serviceDefinition.standardOutputLog,
+				serviceDefinition.errorOutputLog,
+				serviceDefinition.outputCapture,
+				serviceDefinition.logMaxSize,
+				serviceDefinition.logRollInterval,
+				serviceDefinition.logGenerations,
+				serviceDefinition.environmentFiles,
+				serviceDefinition.environment,
+				HashMap.empty()
+			)
+
+			serviceDefinition.servicePort.set(1234)
+			serviceDefinition.logGenerations.set(-1)
+
+		when:
+			def result = service.start()
+
+		then:
+			0 * launcher.start()
+
+			result.isFailure()
+			result.getCause() instanceof IllegalArgumentException
+	}
+
 	private static Project newProject()
 	{
 		def project = ProjectBuilder.builder().build()
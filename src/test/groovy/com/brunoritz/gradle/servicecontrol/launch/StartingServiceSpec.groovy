@@ -4,10 +4,21 @@ import com.brunoritz.gradle.servicecontrol.common.PidFile
 import spock.lang.Specification
 
 import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
 
 class StartingServiceSpec
 	extends Specification
 {
+	private ScheduledExecutorService probeExecutor = Executors.newSingleThreadScheduledExecutor()
+
+	def cleanup()
+	{
+		probeExecutor.shutdownNow()
+	}
+
 	def 'It shall fail, if the process dies during availability probing'()
 	{
 		given:
@@ -15,15 +26,35 @@ class StartingServiceSpec
 			def pidLocation = File.createTempFile('serivce', 'pid')
 			def pidFile = PidFile.fromExisting(pidLocation).get()
 			def availabilityCheck = Mock(ServiceAvailabilityCheck)
-			def startingService = new StartingService(process, Duration.ofSeconds(3), pidFile)
+			def startingService = new StartingService(process, Duration.ofSeconds(3), probeSchedule(), pidFile)
+
+		when:
+			def result = startingService.startup(availabilityCheck, probeExecutor).get()
+
+		then:
+			1 * availabilityCheck.whenAvailable(_) >> new CompletableFuture<Instant>()
+			1 * process.onExit() >> CompletableFuture.completedFuture(process)
+			result.isLeft()
+	}
+
+	def 'It shall not wait for the timeout, if the process dies during availability probing'()
+	{
+		given:
+			def process = Mock(Process)
+			def pidLocation = File.createTempFile('serivce', 'pid')
+			def pidFile = PidFile.fromExisting(pidLocation).get()
+			def availabilityCheck = Mock(ServiceAvailabilityCheck)
+			def startingService = new StartingService(process, Duration.ofMinutes(10), probeSchedule(), pidFile)
+			def startedAt = System.currentTimeMillis()
 
 		when:
-			def result = startingService.awaitStartup(availabilityCheck)
+			def result = startingService.startup(availabilityCheck, probeExecutor).get()
 
 		then:
-			_ * availabilityCheck.isRunning() >> false
-			1 * process.isAlive() >> false
+			1 * availabilityCheck.whenAvailable(_) >> new CompletableFuture<Instant>()
+			1 * process.onExit() >> CompletableFuture.completedFuture(process)
 			result.isLeft()
+			System.currentTimeMillis() - startedAt < 5_000
 	}
 
 	def 'It shall fail, if the service does not become available within the timeout'()
@@ -33,15 +64,35 @@ class StartingServiceSpec
 			def pidLocation = File.createTempFile('serivce', 'pid')
 			def pidFile = PidFile.fromExisting(pidLocation).get()
 			def availabilityCheck = Mock(ServiceAvailabilityCheck)
-			def startingService = new StartingService(process, Duration.ofSeconds(3), pidFile)
+			def startingService = new StartingService(process, Duration.ofSeconds(3), probeSchedule(), pidFile)
+
+		when:
+			def result = startingService.startup(availabilityCheck, probeExecutor).get()
+
+		then:
+			1 * availabilityCheck.whenAvailable(_) >> new CompletableFuture<Instant>()
+			_ * process.onExit() >> new CompletableFuture<Process>()
+			result.isLeft()
+	}
+
+	def 'It shall fail right away with the reported reason, if the service reports a failed startup'()
+	{
+		given:
+			def process = Mock(Process)
+			def pidLocation = File.createTempFile('serivce', 'pid')
+			def pidFile = PidFile.fromExisting(pidLocation).get()
+			def availabilityCheck = Mock(ServiceAvailabilityCheck)
+			def failureDetection = CompletableFuture.completedFuture('stdout.log: APPLICATION FAILED TO START')
+			def startingService = new StartingService(process, Duration.ofMinutes(10), probeSchedule(), pidFile)
 
 		when:
-			def result = startingService.awaitStartup(availabilityCheck)
+			def result = startingService.startup(availabilityCheck, failureDetection, probeExecutor).get()
 
 		then:
-			(1.._) * availabilityCheck.isRunning() >> false
-			_ * process.isAlive() >> true
+			1 * availabilityCheck.whenAvailable(_) >> new CompletableFuture<Instant>()
+			_ * process.onExit() >> new CompletableFuture<Process>()
 			result.isLeft()
+			result.getLeft().failureReason().contains('stdout.log: APPLICATION FAILED TO START')
 	}
 
 	def 'It shall succeed, if the service becomes alive within the timeout'()
@@ -51,15 +102,42 @@ class StartingServiceSpec
 			def pidLocation = File.createTempFile('serivce', 'pid')
 			def pidFile = PidFile.fromExisting(pidLocation).get()
 			def availabilityCheck = Mock(ServiceAvailabilityCheck)
-			def startingService = new StartingService(process, Duration.ofSeconds(3),
-				pidFile)
+			def startingService = new StartingService(process, Duration.ofSeconds(3), probeSchedule(), pidFile)
 
 		when:
-			def result = startingService.awaitStartup(availabilityCheck)
+			def result = startingService.startup(availabilityCheck, probeExecutor).get()
 
 		then:
-			(1.._) * availabilityCheck.isRunning() >> true
-			_ * process.isAlive() >> true
+			1 * availabilityCheck.whenAvailable(_) >> CompletableFuture.completedFuture(Instant.now())
+			_ * process.onExit() >> new CompletableFuture<Process>()
 			result.isRight()
 	}
+
+	def 'It shall clean up the service, if waiting for its startup is cancelled'()
+	{
+		given:
+			def process = Mock(Process)
+			def pidLocation = File.createTempFile('serivce', 'pid')
+			def pidFile = PidFile.fromExisting(pidLocation).get()
+			def availability = new CompletableFuture<Instant>()
+			def availabilityCheck = Stub(ServiceAvailabilityCheck) {
+				whenAvailable(_) >> availability
+			}
+			process.onExit() >> new CompletableFuture<Process>()
+			def startingService = new StartingService(process, Duration.ofMinutes(10), probeSchedule(), pidFile)
+			def startup = startingService.startup(availabilityCheck, probeExecutor)
+
+		when:
+			startup.cancel(true)
+
+		then:
+			1 * process.destroy()
+			availability.isCancelled()
+			!pidLocation.exists()
+	}
+
+	private static ProbeSchedule probeSchedule()
+	{
+		return ProbeSchedule.fixedDelay(Duration.ofMillis(10))
+	}
 }
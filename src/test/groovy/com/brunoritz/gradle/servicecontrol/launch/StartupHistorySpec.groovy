@@ -0,0 +1,68 @@
+package com.brunoritz.gradle.servicecontrol.launch
+
+import spock.lang.Specification
+
+import java.time.Duration
+
+class StartupHistorySpec
+	extends Specification
+{
+	def 'It shall read the times to ready that have been stored'()
+	{
+		given:
+			def historyFile = new File(File.createTempDir(), 'history/startup-history.properties')
+			def history = StartupHistory.empty()
+				.withTimeToReady('fooService', Duration.ofMillis(1500))
+				.withTimeToReady('barService', Duration.ofSeconds(42))
+
+		when:
+			history.store(historyFile).get()
+			def result = StartupHistory.load(historyFile)
+
+		then:
+			result.timeToReady('fooService').get() == Duration.ofMillis(1500)
+			result.timeToReady('barService').get() == Duration.ofSeconds(42)
+			result.longestTimeToReady().get() == Duration.ofSeconds(42)
+	}
+
+	def 'It shall replace the previously recorded time to ready of a service'()
+	{
+		given:
+			def history = StartupHistory.empty()
+				.withTimeToReady('fooService', Duration.ofSeconds(10))
+
+		when:
+			def result = history.withTimeToReady('fooService', Duration.ofSeconds(5))
+
+		then:
+			result.timeToReady('fooService').get() == Duration.ofSeconds(5)
+	}
+
+	def 'It shall be empty, if no history has been recorded yet'()
+	{
+		given:
+			def historyFile = new File(File.createTempDir(), 'startup-history.properties')
+
+		when:
+			def result = StartupHistory.load(historyFile)
+
+		then:
+			result.timeToReady('fooService').isEmpty()
+			result.longestTimeToReady().isEmpty()
+	}
+
+	def 'It shall ignore entries that are not a number of milliseconds'()
+	{
+		given:
+			def historyFile = File.createTempFile('startup-history', '.properties')
+
+			historyFile.text = 'fooService=1200\nbarService=slow\n'
+
+		when:
+			def result = StartupHistory.load(historyFile)
+
+		then:
+			result.timeToReady('fooService').get() == Duration.ofMillis(1200)
+			result.timeToReady('barService').isEmpty()
+	}
+}